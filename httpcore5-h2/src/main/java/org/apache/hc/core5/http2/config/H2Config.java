@@ -31,6 +31,7 @@
 import org.apache.hc.core5.annotation.ThreadingBehavior;
 import org.apache.hc.core5.http2.frame.FrameConsts;
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.Timeout;
 
 /**
  * HTTP/2 protocol configuration.
@@ -49,10 +50,14 @@ public class H2Config {
     private final int maxFrameSize;
     private final int maxHeaderListSize;
     private final boolean settingAckNeeded;
+    private final int maxPendingStreams;
+    private final Timeout pendingStreamTimeout;
+    private final Timeout rttSamplingInterval;
 
     H2Config(final int headerTableSize, final boolean pushEnabled, final int maxConcurrentStreams,
              final int initialWindowSize, final int maxFrameSize, final int maxHeaderListSize,
-             final boolean settingAckNeeded) {
+             final boolean settingAckNeeded, final int maxPendingStreams, final Timeout pendingStreamTimeout,
+             final Timeout rttSamplingInterval) {
         super();
         this.headerTableSize = headerTableSize;
         this.pushEnabled = pushEnabled;
@@ -61,6 +66,9 @@ public class H2Config {
         this.maxFrameSize = maxFrameSize;
         this.maxHeaderListSize = maxHeaderListSize;
         this.settingAckNeeded = settingAckNeeded;
+        this.maxPendingStreams = maxPendingStreams;
+        this.pendingStreamTimeout = pendingStreamTimeout;
+        this.rttSamplingInterval = rttSamplingInterval;
     }
 
     public int getHeaderTableSize() {
@@ -91,6 +99,39 @@ public boolean isSettingAckNeeded() {
         return settingAckNeeded;
     }
 
+    /**
+     * Returns the maximum number of request executions a client connection keeps
+     * queued while the number of concurrent streams allowed by the peer has been
+     * reached. Executions in excess of this limit get refused.
+     *
+     * @since 5.0
+     */
+    public int getMaxPendingStreams() {
+        return maxPendingStreams;
+    }
+
+    /**
+     * Returns the maximum period of time a request execution can stay queued
+     * waiting for a stream to become available. {@link Timeout#DISABLED} means
+     * no limit.
+     *
+     * @since 5.0
+     */
+    public Timeout getPendingStreamTimeout() {
+        return pendingStreamTimeout;
+    }
+
+    /**
+     * Returns the minimum interval between PING frames sent to sample round-trip
+     * time of the connection. Samples are taken only while the connection is
+     * active. {@link Timeout#DISABLED} means no sampling.
+     *
+     * @since 5.0
+     */
+    public Timeout getRttSamplingInterval() {
+        return rttSamplingInterval;
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
@@ -101,6 +142,9 @@ public String toString() {
                 .append(", maxFrameSize=").append(this.maxFrameSize)
                 .append(", maxHeaderListSize=").append(this.maxHeaderListSize)
                 .append(", settingAckNeeded=").append(this.settingAckNeeded)
+                .append(", maxPendingStreams=").append(this.maxPendingStreams)
+                .append(", pendingStreamTimeout=").append(this.pendingStreamTimeout)
+                .append(", rttSamplingInterval=").append(this.rttSamplingInterval)
                 .append("]");
         return builder.toString();
     }
@@ -118,7 +162,10 @@ public static H2Config.Builder copy(final H2Config config) {
                 .setInitialWindowSize(config.getInitialWindowSize())
                 .setMaxFrameSize(config.getMaxFrameSize())
                 .setMaxHeaderListSize(config.getMaxHeaderListSize())
-                .setSettingAckNeeded(config.isSettingAckNeeded());
+                .setSettingAckNeeded(config.isSettingAckNeeded())
+                .setMaxPendingStreams(config.getMaxPendingStreams())
+                .setPendingStreamTimeout(config.getPendingStreamTimeout())
+                .setRttSamplingInterval(config.getRttSamplingInterval());
     }
 
     public static class Builder {
@@ -130,6 +177,9 @@ public static class Builder {
         private int maxFrameSize;
         private int maxHeaderListSize;
         private boolean settingAckNeeded;
+        private int maxPendingStreams;
+        private Timeout pendingStreamTimeout;
+        private Timeout rttSamplingInterval;
 
         Builder() {
             this.headerTableSize = 8192;
@@ -139,6 +189,9 @@ public static class Builder {
             this.maxFrameSize  = FrameConsts.MIN_FRAME_SIZE * 4;
             this.maxHeaderListSize = FrameConsts.MAX_FRAME_SIZE;
             this.settingAckNeeded = true;
+            this.maxPendingStreams = Integer.MAX_VALUE;
+            this.pendingStreamTimeout = Timeout.DISABLED;
+            this.rttSamplingInterval = Timeout.ofSeconds(30);
         }
 
         public Builder setHeaderTableSize(final int headerTableSize) {
@@ -181,10 +234,35 @@ public Builder setSettingAckNeeded(final boolean settingAckNeeded) {
             return this;
         }
 
+        /**
+         * @since 5.0
+         */
+        public Builder setMaxPendingStreams(final int maxPendingStreams) {
+            Args.notNegative(maxPendingStreams, "Max pending streams");
+            this.maxPendingStreams = maxPendingStreams;
+            return this;
+        }
+
+        /**
+         * @since 5.0
+         */
+        public Builder setPendingStreamTimeout(final Timeout pendingStreamTimeout) {
+            this.pendingStreamTimeout = Timeout.defaultsToDisabled(pendingStreamTimeout);
+            return this;
+        }
+
+        /**
+         * @since 5.0
+         */
+        public Builder setRttSamplingInterval(final Timeout rttSamplingInterval) {
+            this.rttSamplingInterval = Timeout.defaultsToDisabled(rttSamplingInterval);
+            return this;
+        }
+
         public H2Config build() {
             return new H2Config(
                     headerTableSize, pushEnabled, maxConcurrentStreams, initialWindowSize, maxFrameSize, maxHeaderListSize,
-                    settingAckNeeded);
+                    settingAckNeeded, maxPendingStreams, pendingStreamTimeout, rttSamplingInterval);
         }
 
     }
@@ -38,7 +38,7 @@
 import java.util.List;
 
 import org.apache.hc.core5.http.Header;
-import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http.impl.CharCodingSupport;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.ByteArrayBuffer;
 
@@ -46,21 +46,26 @@ public final class HPackDecoder {
 
     private static final String UNEXPECTED_EOS = "Unexpected end of HPACK data";
     private static final String MAX_LIMIT_EXCEEDED = "Max integer exceeded";
+    private static final int DEFAULT_STRING_CACHE_SIZE = 128;
 
     private final InboundDynamicTable dynamicTable;
     private final ByteArrayBuffer contentBuf;
     private final CharsetDecoder charsetDecoder;
     private CharBuffer tmpBuf;
     private int maxTableSize;
+    private StringCache stringCache;
+    private int decodedLen;
+    private int scanPos;
 
     HPackDecoder(final InboundDynamicTable dynamicTable, final CharsetDecoder charsetDecoder) {
         this.dynamicTable = dynamicTable != null ? dynamicTable : new InboundDynamicTable();
         this.contentBuf = new ByteArrayBuffer(256);
         this.charsetDecoder = charsetDecoder;
+        this.stringCache = new StringCache(DEFAULT_STRING_CACHE_SIZE);
     }
 
     HPackDecoder(final InboundDynamicTable dynamicTable, final Charset charset) {
-        this(dynamicTable, charset != null && !StandardCharsets.US_ASCII.equals(charset) ? charset.newDecoder() : null);
+        this(dynamicTable, charset != null && !StandardCharsets.US_ASCII.equals(charset) ? CharCodingSupport.newDecoder(charset) : null);
     }
 
     public HPackDecoder(final Charset charset) {
@@ -215,7 +220,43 @@ int decodeString(final ByteBuffer src, final StringBuilder buf) throws HPackExce
         return binaryLen;
     }
 
-    Header decodeLiteralHeader(
+    /**
+     * Decodes a string literal, returning the same {@code String} instance for
+     * literals with the same encoded representation that have recently been
+     * seen by this decoder. Binary length of the literal is stored in
+     * {@link #decodedLen}.
+     */
+    String decodeLiteral(final ByteBuffer src, final boolean cacheable) throws HPackException, CharacterCodingException {
+
+        final StringCache cache = this.stringCache;
+        if (cache != null && cacheable && src.hasArray()) {
+            final int pos = src.position();
+            final boolean huffman = (peekByte(src) & 0x80) == 0x80;
+            final int strLen = decodeInt(src, 7);
+            if (strLen <= StringCache.MAX_LITERAL_LENGTH && strLen <= src.remaining()) {
+                final byte[] b = src.array();
+                final int off = src.arrayOffset() + src.position();
+                final int hash = StringCache.hash(b, off, strLen, huffman);
+                StringCache.Entry entry = cache.get(b, off, strLen, huffman, hash);
+                if (entry != null) {
+                    src.position(src.position() + strLen);
+                } else {
+                    src.position(pos);
+                    final StringBuilder buf = new StringBuilder();
+                    final int binaryLen = decodeString(src, buf);
+                    entry = cache.put(b, off, strLen, huffman, hash, buf.toString(), binaryLen);
+                }
+                this.decodedLen = entry.binaryLen;
+                return entry.value;
+            }
+            src.position(pos);
+        }
+        final StringBuilder buf = new StringBuilder();
+        this.decodedLen = decodeString(src, buf);
+        return buf.toString();
+    }
+
+    HPackHeader decodeLiteralHeader(
             final ByteBuffer src,
             final HPackRepresentation representation) throws HPackException, CharacterCodingException {
 
@@ -224,9 +265,8 @@ Header decodeLiteralHeader(
         final String name;
         final int nameLen;
         if (index == 0) {
-            final StringBuilder buf = new StringBuilder();
-            nameLen = decodeString(src, buf);
-            name = buf.toString();
+            name = decodeLiteral(src, true);
+            nameLen = this.decodedLen;
         } else {
             final HPackHeader existing =  this.dynamicTable.getHeader(index);
             if (existing == null) {
@@ -235,43 +275,55 @@ Header decodeLiteralHeader(
             name = existing.getName();
             nameLen = existing.getNameLen();
         }
-        final StringBuilder buf = new StringBuilder();
-        final int valueLen = decodeString(src, buf);
-        final String value = buf.toString();
+        // Values of never indexed headers are likely to be sensitive and are not retained
+        final String value = decodeLiteral(src, representation != HPackRepresentation.NEVER_INDEXED);
+        final int valueLen = this.decodedLen;
         final HPackHeader header = new HPackHeader(name, nameLen, value, valueLen, representation == HPackRepresentation.NEVER_INDEXED);
         if (representation == HPackRepresentation.WITH_INDEXING) {
             this.dynamicTable.add(header);
         }
-        return new BasicHeader(header.getName(), header.getValue(), header.isSensitive());
+        return header;
     }
 
-    Header decodeIndexedHeader(final ByteBuffer src) throws HPackException, CharacterCodingException {
+    HPackHeader decodeIndexedHeader(final ByteBuffer src) throws HPackException, CharacterCodingException {
 
         final int index = decodeInt(src, 7);
-        final Header existing =  this.dynamicTable.getHeader(index);
+        final HPackHeader existing =  this.dynamicTable.getHeader(index);
         if (existing == null) {
             throw new HPackException("Invalid header index");
         }
         return existing;
     }
 
+    /**
+     * Decodes a single header field representation. Returns {@code null}
+     * if the representation is a dynamic table size update.
+     */
+    private HPackHeader decodeRepresentation(final ByteBuffer src) throws HPackException, CharacterCodingException {
+        final int b = peekByte(src);
+        if ((b & 0x80) == 0x80) {
+            return decodeIndexedHeader(src);
+        } else if ((b & 0xc0) == 0x40) {
+            return decodeLiteralHeader(src, HPackRepresentation.WITH_INDEXING);
+        } else if ((b & 0xf0) == 0x00) {
+            return decodeLiteralHeader(src, HPackRepresentation.WITHOUT_INDEXING);
+        } else if ((b & 0xf0) == 0x10) {
+            return decodeLiteralHeader(src, HPackRepresentation.NEVER_INDEXED);
+        } else if ((b & 0xe0) == 0x20) {
+            final int maxSize = decodeInt(src, 5);
+            this.dynamicTable.setMaxSize(Math.min(this.maxTableSize, maxSize));
+            return null;
+        } else {
+            throw new HPackException("Unexpected header first byte: 0x" + Integer.toHexString(b));
+        }
+    }
+
     public Header decodeHeader(final ByteBuffer src) throws HPackException {
         try {
             while (src.hasRemaining()) {
-                final int b = peekByte(src);
-                if ((b & 0x80) == 0x80) {
-                    return decodeIndexedHeader(src);
-                } else if ((b & 0xc0) == 0x40) {
-                    return decodeLiteralHeader(src, HPackRepresentation.WITH_INDEXING);
-                } else if ((b & 0xf0) == 0x00) {
-                    return decodeLiteralHeader(src, HPackRepresentation.WITHOUT_INDEXING);
-                } else if ((b & 0xf0) == 0x10) {
-                    return decodeLiteralHeader(src, HPackRepresentation.NEVER_INDEXED);
-                } else if ((b & 0xe0) == 0x20) {
-                    final int maxSize = decodeInt(src, 5);
-                    this.dynamicTable.setMaxSize(Math.min(this.maxTableSize, maxSize));
-                } else {
-                    throw new HPackException("Unexpected header first byte: 0x" + Integer.toHexString(b));
+                final Header header = decodeRepresentation(src);
+                if (header != null) {
+                    return header;
                 }
             }
             return null;
@@ -280,6 +332,104 @@ public Header decodeHeader(final ByteBuffer src) throws HPackException {
         }
     }
 
+    private int scanInt(final ByteBuffer src, final int n) throws HPackException {
+        final int limit = src.limit();
+        if (this.scanPos >= limit) {
+            return -1;
+        }
+        final int nbits = 0xff >>> (8 - n);
+        int value = src.get(this.scanPos++) & nbits;
+        if (value < nbits) {
+            return value;
+        }
+        int m = 0;
+        while (m < 32) {
+            if (this.scanPos >= limit) {
+                return -1;
+            }
+            final int b = src.get(this.scanPos++) & 0xff;
+            if ((b & 0x80) != 0) {
+                value += (b & 0x7f) << m;
+                m += 7;
+            } else {
+                if (m == 28 && (b & 0xf8) != 0) {
+                    break;
+                }
+                value += b << m;
+                return value;
+            }
+        }
+        throw new HPackException(MAX_LIMIT_EXCEEDED);
+    }
+
+    private boolean scanString(final ByteBuffer src) throws HPackException {
+        final int strLen = scanInt(src, 7);
+        if (strLen < 0 || strLen > src.limit() - this.scanPos) {
+            return false;
+        }
+        this.scanPos += strLen;
+        return true;
+    }
+
+    /**
+     * Determines whether the header field representation at the current position
+     * of the buffer is complete without decoding it.
+     */
+    private boolean isRepresentationComplete(final ByteBuffer src) throws HPackException {
+        this.scanPos = src.position();
+        final int b = src.get(this.scanPos) & 0xff;
+        if ((b & 0x80) == 0x80) {
+            return scanInt(src, 7) >= 0;
+        } else if ((b & 0xe0) == 0x20) {
+            return scanInt(src, 5) >= 0;
+        } else {
+            final int index = scanInt(src, (b & 0xc0) == 0x40 ? 6 : 4);
+            if (index < 0) {
+                return false;
+            }
+            if (index == 0 && !scanString(src)) {
+                return false;
+            }
+            return scanString(src);
+        }
+    }
+
+    /**
+     * Decodes header field representations contained in the buffer, which may
+     * hold a fragment of a header block. Unlike {@link #decodeHeaders(ByteBuffer)}
+     * this method does not treat an incomplete representation at the end of
+     * the buffer as an error. Decoding stops at the start of the incomplete
+     * representation, which the caller is expected to complete with the next
+     * header block fragment. This makes it possible to decode large header blocks
+     * as they arrive without buffering them in their entirety.
+     *
+     * @param src the header block fragment.
+     * @param dst the list to add decoded header fields to. If {@code null} decoded
+     *  header fields are discarded, while the state of the dynamic table is still
+     *  updated.
+     * @return the size of the decoded header fields as defined by RFC 7540,
+     *  section 6.5.2.
+     *
+     * @since 5.0
+     */
+    public long decodeHeaders(final ByteBuffer src, final List<Header> dst) throws HPackException {
+        long listSize = 0;
+        try {
+            while (src.hasRemaining() && isRepresentationComplete(src)) {
+                final HPackHeader header = decodeRepresentation(src);
+                if (header != null) {
+                    listSize += header.getTotalSize();
+                    if (dst != null) {
+                        dst.add(header);
+                    }
+                }
+            }
+        } catch (final CharacterCodingException ex) {
+            throw new HPackException(ex.getMessage(), ex);
+        }
+        return listSize;
+    }
+
     public List<Header> decodeHeaders(final ByteBuffer src) throws HPackException {
 
         final List<Header> list = new ArrayList<>();
@@ -304,4 +454,23 @@ public void setMaxTableSize(final int maxTableSize) {
         this.dynamicTable.setMaxSize(maxTableSize);
     }
 
+    /**
+     * Returns the maximum number of decoded string literals cached by this
+     * decoder or {@code 0} if the cache is disabled.
+     */
+    public int getStringCacheSize() {
+        return this.stringCache != null ? this.stringCache.size() : 0;
+    }
+
+    /**
+     * Sets the maximum number of decoded string literals cached by this decoder.
+     * Header names and values repeatedly sent over the same connection as literals
+     * are then decoded to the same {@code String} instance without going through
+     * Huffman and charset decoding. Zero disables the cache.
+     */
+    public void setStringCacheSize(final int size) {
+        Args.notNegative(size, "String cache size");
+        this.stringCache = size > 0 ? new StringCache(size) : null;
+    }
+
 }
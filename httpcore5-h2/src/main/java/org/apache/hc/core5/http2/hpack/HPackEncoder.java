@@ -37,9 +37,9 @@
 import java.util.List;
 
 import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.impl.CharCodingSupport;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.ByteArrayBuffer;
-import org.apache.hc.core5.util.LangUtils;
 
 public final class HPackEncoder {
 
@@ -56,7 +56,7 @@ public final class HPackEncoder {
     }
 
     HPackEncoder(final OutboundDynamicTable dynamicTable, final Charset charset) {
-        this(dynamicTable, charset != null && !StandardCharsets.US_ASCII.equals(charset) ? charset.newEncoder() : null);
+        this(dynamicTable, charset != null && !StandardCharsets.US_ASCII.equals(charset) ? CharCodingSupport.newEncoder(charset) : null);
     }
 
     public HPackEncoder(final Charset charset) {
@@ -202,6 +202,15 @@ void encodeLiteralHeader(
     void encodeLiteralHeader(
             final ByteArrayBuffer dst, final HPackEntry existing, final String key, final String value, final boolean sensitive,
             final HPackRepresentation representation, final boolean useHuffman) throws CharacterCodingException {
+        final int index = existing != null ? existing.getIndex() : 0;
+        final int nameLen = index > 0 ? existing.getHeader().getNameLen() : 0;
+        encodeLiteralHeader(dst, index, nameLen, key, value, sensitive, representation, useHuffman);
+    }
+
+    private void encodeLiteralHeader(
+            final ByteArrayBuffer dst, final int index, final int existingNameLen,
+            final String key, final String value, final boolean sensitive,
+            final HPackRepresentation representation, final boolean useHuffman) throws CharacterCodingException {
 
         final int n;
         final int mask;
@@ -221,14 +230,13 @@ void encodeLiteralHeader(
             default:
                 throw new IllegalStateException("Unexpected value: " + representation);
         }
-        final int index = existing != null ? existing.getIndex() : 0;
         final int nameLen;
         if (index <= 0) {
             encodeInt(dst, n, 0, mask);
             nameLen = encodeString(dst, key, useHuffman);
         } else {
             encodeInt(dst, n, index, mask);
-            nameLen = existing.getHeader().getNameLen();
+            nameLen = existingNameLen;
         }
         final int valueLen = encodeString(dst, value != null ? value : "", useHuffman);
         if (representation == HPackRepresentation.WITH_INDEXING) {
@@ -240,19 +248,6 @@ void encodeIndex(final ByteArrayBuffer dst, final int index) {
         encodeInt(dst, 7, index, 0x80);
     }
 
-    private int findFullMatch(final List<HPackEntry> entries, final String value) {
-        if (entries == null || entries.isEmpty()) {
-            return 0;
-        }
-        for (int i = 0; i < entries.size(); i++) {
-            final HPackEntry entry = entries.get(i);
-            if (LangUtils.equals(value, entry.getHeader().getValue())) {
-                return entry.getIndex();
-            }
-        }
-        return 0;
-    }
-
     void encodeHeader(
             final ByteArrayBuffer dst, final Header header,
             final boolean noIndexing, final boolean useHuffman) throws CharacterCodingException {
@@ -272,33 +267,30 @@ void encodeHeader(
             representation = HPackRepresentation.WITH_INDEXING;
         }
 
-        final List<HPackEntry> staticEntries = StaticTable.INSTANCE.getByName(name);
-
+        final StaticTable staticTable = StaticTable.INSTANCE;
         if (representation == HPackRepresentation.WITH_INDEXING) {
             // Try to find full match and encode as as index
-            final int staticIndex = findFullMatch(staticEntries, value);
+            final int staticIndex = staticTable.findFull(name, value);
             if (staticIndex > 0) {
                 encodeIndex(dst, staticIndex);
                 return;
             }
-            final List<HPackEntry> dynamicEntries = dynamicTable.getByName(name);
-            final int dynamicIndex = findFullMatch(dynamicEntries, value);
+            final int dynamicIndex = dynamicTable.findFull(name, value);
             if (dynamicIndex > 0) {
                 encodeIndex(dst, dynamicIndex);
                 return;
             }
         }
         // Encode as literal
-        HPackEntry existing = null;
-        if (staticEntries != null && !staticEntries.isEmpty()) {
-            existing = staticEntries.get(0);
+        int index = staticTable.findName(name);
+        final int nameLen;
+        if (index > 0) {
+            nameLen = staticTable.get(index).getNameLen();
         } else {
-            final List<HPackEntry> dynamicEntries = dynamicTable.getByName(name);
-            if (dynamicEntries != null && !dynamicEntries.isEmpty()) {
-                existing = dynamicEntries.get(0);
-            }
+            index = dynamicTable.findName(name);
+            nameLen = index > 0 ? dynamicTable.getHeader(index).getNameLen() : 0;
         }
-        encodeLiteralHeader(dst, existing, name, value, sensitive, representation, useHuffman);
+        encodeLiteralHeader(dst, index, nameLen, name, value, sensitive, representation, useHuffman);
     }
 
     void encodeHeaders(
@@ -27,6 +27,8 @@
 
 package org.apache.hc.core5.http2.hpack;
 
+import java.io.Serializable;
+
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
 import org.apache.hc.core5.http.Header;
@@ -36,7 +38,9 @@
  * header name and header value.
  */
 @Contract(threading = ThreadingBehavior.IMMUTABLE)
-final class HPackHeader implements Header {
+final class HPackHeader implements Header, Serializable {
+
+    private static final long serialVersionUID = 5716284563847823418L;
 
     static private final int ENTRY_SIZE_OVERHEAD = 32;
 
@@ -27,35 +27,67 @@
 
 package org.apache.hc.core5.http2.hpack;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
 import org.apache.hc.core5.http.Header;
-import org.apache.hc.core5.util.Asserts;
-
+import org.apache.hc.core5.util.LangUtils;
+
+/**
+ * Dynamic table of the HPack encoder.
+ * <p>
+ * Entries are kept in a ring buffer and identified by a sequence number
+ * assigned in the order of insertion. Two hash indexes, one keyed on name and
+ * one keyed on name and value, map to the sequence number of the most recent
+ * matching entry; older entries in the same bucket are chained by sequence
+ * number through primitive arrays parallel to the ring buffer. Evicted entries
+ * are never unlinked from the indexes: since chains run from newer to older
+ * entries, a lookup simply stops at the first sequence number that has
+ * already been evicted.
+ */
 final class OutboundDynamicTable {
 
+    private static final int INITIAL_CAPACITY = 16;
+
     private final StaticTable staticTable;
-    private final FifoLinkedList headers;
-    private final Map<String, LinkedList<HPackEntry>> mapByName;
+
+    private HPackHeader[] entries;
+    private long[] nameChain;
+    private long[] fullChain;
+    private long[] nameBuckets;
+    private long[] fullBuckets;
+    private int mask;
+    private int bucketMask;
+
+    // Sequence number of the oldest live entry and the next entry to be added
+    private long oldestSeq;
+    private long nextSeq;
 
     private int maxSize;
     private int currentSize;
 
     OutboundDynamicTable(final StaticTable staticTable) {
         this.staticTable = staticTable;
-        this.headers = new FifoLinkedList();
-        this.mapByName = new HashMap<>();
         this.maxSize = Integer.MAX_VALUE;
         this.currentSize = 0;
+        this.oldestSeq = 1;
+        this.nextSeq = 1;
+        allocate(INITIAL_CAPACITY);
     }
 
     OutboundDynamicTable() {
         this(StaticTable.INSTANCE);
     }
 
+    private void allocate(final int capacity) {
+        this.entries = new HPackHeader[capacity];
+        this.nameChain = new long[capacity];
+        this.fullChain = new long[capacity];
+        this.mask = capacity - 1;
+        this.nameBuckets = new long[capacity * 2];
+        this.fullBuckets = new long[capacity * 2];
+        this.bucketMask = capacity * 2 - 1;
+    }
+
     public int getMaxSize() {
         return maxSize;
     }
@@ -74,25 +106,32 @@ int staticLength() {
     }
 
     int dynamicLength() {
-        return headers.size();
+        return (int) (nextSeq - oldestSeq);
     }
 
     Header getDynamicEntry(final int index) {
-        return headers.get(index);
+        return getEntry(index);
+    }
+
+    private HPackHeader getEntry(final int index) {
+        if (index < 0 || index >= dynamicLength()) {
+            throw new IndexOutOfBoundsException();
+        }
+        return entries[(int) (nextSeq - 1 - index) & mask];
     }
 
     public int length() {
-        return staticTable.length() + headers.size();
+        return staticTable.length() + dynamicLength();
     }
 
-    public Header getHeader(final int index) {
+    public HPackHeader getHeader(final int index) {
         if (index < 1 || index > length()) {
             throw new IndexOutOfBoundsException();
         }
         if (index <= staticTable.length()) {
             return staticTable.get(index);
         } else {
-            return headers.get(index - staticTable.length() - 1);
+            return getEntry(index - staticTable.length() - 1);
         }
     }
 
@@ -100,44 +139,98 @@ public void add(final HPackHeader header) {
         final int entrySize = header.getTotalSize();
         if (entrySize > this.maxSize) {
             clear();
-            this.mapByName.clear();
             return;
         }
-        final String key = header.getName();
-        final FifoLinkedList.InternalNode node = headers.addFirst(header);
-        LinkedList<HPackEntry> nodes = mapByName.get(key);
-        if (nodes == null) {
-            nodes = new LinkedList<>();
-            mapByName.put(key, nodes);
+        if (dynamicLength() == entries.length) {
+            grow();
         }
-        nodes.addFirst(node);
+        insert(header, nextSeq++);
         currentSize += entrySize;
         evict();
     }
 
+    private static int nameHash(final String name) {
+        final int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int fullHash(final String name, final String value) {
+        final int h = 31 * name.hashCode() + (value != null ? value.hashCode() : 0);
+        return h ^ (h >>> 16);
+    }
+
+    private void insert(final HPackHeader header, final long seq) {
+        final int slot = (int) seq & mask;
+        entries[slot] = header;
+        final int nameBucket = nameHash(header.getName()) & bucketMask;
+        nameChain[slot] = nameBuckets[nameBucket];
+        nameBuckets[nameBucket] = seq;
+        final int fullBucket = fullHash(header.getName(), header.getValue()) & bucketMask;
+        fullChain[slot] = fullBuckets[fullBucket];
+        fullBuckets[fullBucket] = seq;
+    }
+
+    private void grow() {
+        final HPackHeader[] oldEntries = entries;
+        final int oldMask = mask;
+        allocate(oldEntries.length * 2);
+        for (long seq = oldestSeq; seq < nextSeq; seq++) {
+            insert(oldEntries[(int) seq & oldMask], seq);
+        }
+    }
+
     private void clear() {
         currentSize = 0;
-        headers.clear();
+        oldestSeq = nextSeq;
+        Arrays.fill(entries, null);
+    }
+
+    private int toIndex(final long seq) {
+        return staticTable.length() + (int) (nextSeq - 1 - seq) + 1;
     }
 
-    public List<HPackEntry> getByName(final String key) {
-        return this.mapByName.get(key);
+    /**
+     * Returns index of the most recent entry with the given name or {@code 0}
+     * if there is none.
+     */
+    int findName(final String name) {
+        long seq = nameBuckets[nameHash(name) & bucketMask];
+        while (seq >= oldestSeq) {
+            final int slot = (int) seq & mask;
+            if (entries[slot].getName().equals(name)) {
+                return toIndex(seq);
+            }
+            seq = nameChain[slot];
+        }
+        return 0;
+    }
+
+    /**
+     * Returns index of the most recent entry with the given name and value
+     * or {@code 0} if there is none.
+     */
+    int findFull(final String name, final String value) {
+        long seq = fullBuckets[fullHash(name, value) & bucketMask];
+        while (seq >= oldestSeq) {
+            final int slot = (int) seq & mask;
+            final HPackHeader entry = entries[slot];
+            if (entry.getName().equals(name) && LangUtils.equals(value, entry.getValue())) {
+                return toIndex(seq);
+            }
+            seq = fullChain[slot];
+        }
+        return 0;
     }
 
     private void evict() {
         while (currentSize > maxSize) {
-            final FifoLinkedList.InternalNode node = headers.removeLast();
-            if (node != null) {
-                final HPackHeader header = node.getHeader();
-                currentSize -= header.getTotalSize();
-
-                final String key = header.getName();
-                final LinkedList<HPackEntry> nodes = mapByName.get(key);
-                if (nodes != null) {
-                    nodes.remove(node);
-                }
+            if (oldestSeq < nextSeq) {
+                final int slot = (int) oldestSeq & mask;
+                currentSize -= entries[slot].getTotalSize();
+                entries[slot] = null;
+                oldestSeq++;
             } else {
-                Asserts.check(currentSize == 0, "Current table size must be zero");
+                currentSize = 0;
                 break;
             }
         }
@@ -27,13 +27,13 @@
 
 package org.apache.hc.core5.http2.hpack;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.LangUtils;
 
 @Contract(threading = ThreadingBehavior.IMMUTABLE)
 final class StaticTable {
@@ -105,24 +105,76 @@ final class StaticTable {
     final static StaticTable INSTANCE = new StaticTable(STANDARD_HEADERS);
 
     private final HPackHeader[] headers;
-    private final ConcurrentMap<String, CopyOnWriteArrayList<HPackEntry>> mapByName;
+    // Perfect hash of distinct header names: slot -> index of the first entry with the name, 0 if none
+    private final int[] nameSlots;
+    private final int multiplier;
+    private final int shift;
+    // Entry position -> index of the next entry with the same name, 0 if none
+    private final int[] nextSameName;
 
     StaticTable(final HPackHeader... headers) {
         this.headers = headers;
-        this.mapByName = new ConcurrentHashMap<>();
+        this.nextSameName = new int[headers.length];
 
+        final List<HPackHeader> distinct = new ArrayList<>();
+        final List<Integer> firstIndexes = new ArrayList<>();
         for (int i = 0; i < headers.length; i++) {
-            final HPackHeader header = headers[i];
-
-            final String key = header.getName();
-            CopyOnWriteArrayList<HPackEntry> entries = this.mapByName.get(key);
-            if (entries == null) {
-                entries = new CopyOnWriteArrayList<>(new HPackEntry[] { new InternalEntry(header, i) });
-                this.mapByName.put(key, entries);
+            final String name = headers[i].getName();
+            int last = 0;
+            for (int j = i - 1; j >= 0; j--) {
+                if (headers[j].getName().equals(name)) {
+                    last = j + 1;
+                    break;
+                }
+            }
+            if (last > 0) {
+                this.nextSameName[last - 1] = i + 1;
             } else {
-                entries.add(new InternalEntry(header, i));
+                distinct.add(headers[i]);
+                firstIndexes.add(i + 1);
+            }
+        }
+
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(distinct.size() * 4 - 1, 1));
+        for (;;) {
+            final int[] slots = findPerfectHash(distinct, firstIndexes, bits);
+            if (slots != null) {
+                this.nameSlots = slots;
+                this.multiplier = slots[slots.length - 1];
+                this.shift = 32 - bits;
+                break;
+            }
+            bits++;
+        }
+    }
+
+    /**
+     * Attempts to find a multiplier that maps all distinct names to different slots
+     * of a table with {@code 2^bits} slots. The multiplier is stored in the extra
+     * last element of the returned array.
+     */
+    private static int[] findPerfectHash(final List<HPackHeader> distinct, final List<Integer> firstIndexes, final int bits) {
+        final int size = 1 << bits;
+        final int shift = 32 - bits;
+        final int[] slots = new int[size + 1];
+        int multiplier = 0x9E3779B9;
+        for (int attempt = 0; attempt < 256; attempt++, multiplier += 2) {
+            Arrays.fill(slots, 0);
+            boolean collision = false;
+            for (int i = 0; i < distinct.size(); i++) {
+                final int slot = (distinct.get(i).getName().hashCode() * multiplier) >>> shift;
+                if (slots[slot] != 0) {
+                    collision = true;
+                    break;
+                }
+                slots[slot] = firstIndexes.get(i);
+            }
+            if (!collision) {
+                slots[size] = multiplier;
+                return slots;
             }
         }
+        return null;
     }
 
     public int length() {
@@ -133,30 +185,24 @@ public HPackHeader get(final int index) {
         return this.headers[index - 1];
     }
 
-    public List<HPackEntry> getByName(final String key) {
-        return this.mapByName.get(key);
+    /**
+     * Returns index of the first entry with the given name or {@code 0} if there is none.
+     */
+    int findName(final String name) {
+        final int index = this.nameSlots[(name.hashCode() * this.multiplier) >>> this.shift];
+        return index > 0 && this.headers[index - 1].getName().equals(name) ? index : 0;
     }
 
-    static class InternalEntry implements HPackEntry {
-
-        private final HPackHeader header;
-        private final int index;
-
-        InternalEntry(final HPackHeader header, final int index) {
-            this.header = header;
-            this.index = index;
-        }
-
-        @Override
-        public int getIndex() {
-            return index + 1;
-        }
-
-        @Override
-        public HPackHeader getHeader() {
-            return header;
+    /**
+     * Returns index of the entry with the given name and value or {@code 0} if there is none.
+     */
+    int findFull(final String name, final String value) {
+        for (int index = findName(name); index > 0; index = this.nextSameName[index - 1]) {
+            if (LangUtils.equals(value, this.headers[index - 1].getValue())) {
+                return index;
+            }
         }
-
+        return 0;
     }
 
 }
@@ -0,0 +1,111 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http2.hpack;
+
+/**
+ * Bounded cache of decoded HPack string literals keyed on their encoded
+ * representation. The cache is direct-mapped: a new entry simply replaces
+ * the one occupying its slot, which keeps lookups and updates free of any
+ * bookkeeping. Literals longer than {@link #MAX_LITERAL_LENGTH} octets are
+ * not cached.
+ * <p>
+ * Instances of this class are not thread safe.
+ */
+final class StringCache {
+
+    static final int MAX_LITERAL_LENGTH = 256;
+
+    static final class Entry {
+
+        private final byte[] encoded;
+        private final boolean huffman;
+        private final int hash;
+        final String value;
+        final int binaryLen;
+
+        Entry(final byte[] encoded, final boolean huffman, final int hash, final String value, final int binaryLen) {
+            this.encoded = encoded;
+            this.huffman = huffman;
+            this.hash = hash;
+            this.value = value;
+            this.binaryLen = binaryLen;
+        }
+
+        boolean matches(final byte[] b, final int off, final int len, final boolean huffman, final int hash) {
+            if (this.hash != hash || this.huffman != huffman || this.encoded.length != len) {
+                return false;
+            }
+            for (int i = 0; i < len; i++) {
+                if (this.encoded[i] != b[off + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    private final Entry[] entries;
+    private final int mask;
+
+    StringCache(final int size) {
+        int capacity = 1;
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        this.entries = new Entry[capacity];
+        this.mask = capacity - 1;
+    }
+
+    static int hash(final byte[] b, final int off, final int len, final boolean huffman) {
+        int h = huffman ? 1 : 0;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + b[off + i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    Entry get(final byte[] b, final int off, final int len, final boolean huffman, final int hash) {
+        final Entry entry = entries[hash & mask];
+        return entry != null && entry.matches(b, off, len, huffman, hash) ? entry : null;
+    }
+
+    Entry put(final byte[] b, final int off, final int len, final boolean huffman, final int hash,
+              final String value, final int binaryLen) {
+        final byte[] encoded = new byte[len];
+        System.arraycopy(b, off, encoded, 0, len);
+        final Entry entry = new Entry(encoded, huffman, hash, value, binaryLen);
+        entries[hash & mask] = entry;
+        return entry;
+    }
+
+}
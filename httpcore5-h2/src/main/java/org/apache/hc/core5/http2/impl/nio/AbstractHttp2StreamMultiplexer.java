@@ -31,21 +31,29 @@
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.charset.CharacterCodingException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import javax.net.ssl.SSLSession;
 
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
 import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http.ConnectionLatencyStats;
 import org.apache.hc.core5.http.EndpointDetails;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpConnection;
@@ -57,6 +65,7 @@
 import org.apache.hc.core5.http.impl.BasicEndpointDetails;
 import org.apache.hc.core5.http.impl.BasicHttpConnectionMetrics;
 import org.apache.hc.core5.http.impl.CharCodingSupport;
+import org.apache.hc.core5.http.impl.RoundTripTimeEstimator;
 import org.apache.hc.core5.http.nio.AsyncClientExchangeHandler;
 import org.apache.hc.core5.http.nio.AsyncPushProducer;
 import org.apache.hc.core5.http.nio.command.ExecutionCommand;
@@ -78,6 +87,7 @@
 import org.apache.hc.core5.http2.hpack.HPackEncoder;
 import org.apache.hc.core5.http2.impl.BasicH2TransportMetrics;
 import org.apache.hc.core5.http2.nio.AsyncPingHandler;
+import org.apache.hc.core5.http2.nio.StreamAdmissionStats;
 import org.apache.hc.core5.http2.nio.command.PingCommand;
 import org.apache.hc.core5.io.ShutdownType;
 import org.apache.hc.core5.reactor.Command;
@@ -86,11 +96,25 @@
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.ByteArrayBuffer;
 import org.apache.hc.core5.util.Identifiable;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 
-abstract class AbstractHttp2StreamMultiplexer implements Identifiable, HttpConnection {
+abstract class AbstractHttp2StreamMultiplexer
+        implements Identifiable, HttpConnection, StreamAdmissionStats, ConnectionLatencyStats {
 
     private static final long LINGER_TIME = 1000; // 1 second
 
+    private static final ScheduledExecutorService PENDING_EXPIRY_TIMER = createPendingExpiryTimer();
+
+    private static ScheduledExecutorService createPendingExpiryTimer() {
+        final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(
+                1, new DefaultThreadFactory("h2-admission-timer", true));
+        timer.setKeepAliveTime(30, TimeUnit.SECONDS);
+        timer.allowCoreThreadTimeOut(true);
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
     enum Mode { CLIENT, SERVER}
     enum ConnectionHandshake { READY, ACTIVE, GRACEFUL_SHUTDOWN, SHUTDOWN}
     enum SettingsHandshake { READY, TRANSMITTED, ACKED }
@@ -109,7 +133,11 @@ enum SettingsHandshake { READY, TRANSMITTED, ACKED }
     private final Deque<RawFrame> outputQueue;
     private final HPackEncoder hPackEncoder;
     private final HPackDecoder hPackDecoder;
-    private final Map<Integer, Http2Stream> streamMap;
+    // Streams and the ready queue are confined to the I/O thread. Other threads
+    // hand over new streams and output requests through concurrent queues.
+    private final IntObjectMap<Http2Stream> streamMap;
+    private final Queue<Http2Stream> pendingStreams;
+    private final Queue<Http2Stream> signalledStreams;
     private final Queue<AsyncPingHandler> pingHandlers;
     private final AtomicInteger connInputWindow;
     private final AtomicInteger connOutputWindow;
@@ -121,14 +149,31 @@ enum SettingsHandshake { READY, TRANSMITTED, ACKED }
     private ConnectionHandshake connState = ConnectionHandshake.READY;
     private SettingsHandshake localSettingState = SettingsHandshake.READY;
     private SettingsHandshake remoteSettingState = SettingsHandshake.READY;
-    private H2Config remoteConfig;
+    private volatile H2Config remoteConfig;
     private int lowMark;
 
-    private Continuation continuation;
+    private HeaderBlock continuation;
 
     private int processedRemoteStreamId;
     private EndpointDetails endpointDetails;
 
+    private Http2Stream readyHead;
+    private Http2Stream readyTail;
+    private int readyCount;
+
+    // Request executions waiting for a stream to become available, confined to the I/O thread
+    private final Deque<PendingExecution> pendingExecutions;
+    // Wakes up the I/O thread once the oldest queued execution is due so that it
+    // gets expired even if there is no further I/O on the connection
+    private ScheduledFuture<?> pendingExpiryTimer;
+    private long pendingExpiryDeadline;
+    private volatile int activeStreamCount;
+    private volatile int pendingStreamCount;
+
+    private final RoundTripTimeEstimator rttEstimator;
+    private long lastRttSample;
+    private boolean rttSamplePending;
+
     AbstractHttp2StreamMultiplexer(
             final Mode mode,
             final TlsCapableIOSession ioSession,
@@ -156,7 +201,11 @@ enum SettingsHandshake { READY, TRANSMITTED, ACKED }
         this.lastStreamId = new AtomicInteger(0);
         this.hPackEncoder = new HPackEncoder(CharCodingSupport.createEncoder(charCodingConfig));
         this.hPackDecoder = new HPackDecoder(CharCodingSupport.createDecoder(charCodingConfig));
-        this.streamMap = new ConcurrentHashMap<>();
+        this.streamMap = new IntObjectMap<>();
+        this.pendingStreams = new ConcurrentLinkedQueue<>();
+        this.signalledStreams = new ConcurrentLinkedQueue<>();
+        this.pendingExecutions = new ArrayDeque<>();
+        this.rttEstimator = new RoundTripTimeEstimator();
         this.connInputWindow = new AtomicInteger(localConfig.getInitialWindowSize());
         this.connOutputWindow = new AtomicInteger(H2Config.DEFAULT.getInitialWindowSize());
 
@@ -352,6 +401,66 @@ private int streamData(
         }
     }
 
+    private void streamDataFrame(
+            final int streamId,
+            final AtomicInteger streamOutputWindow,
+            final ByteBuffer[] payload,
+            final int chunk) throws IOException {
+        final RawFrame dataFrame = frameFactory.createData(streamId, null, false);
+        if (streamListener != null) {
+            final ByteBuffer content = ByteBuffer.allocate(chunk);
+            for (final ByteBuffer src: payload) {
+                content.put(src.duplicate());
+            }
+            content.flip();
+            streamListener.onFrameOutput(this, streamId, frameFactory.createData(streamId, content, false));
+        }
+        updateOutputWindow(0, connOutputWindow, -chunk);
+        updateOutputWindow(streamId, streamOutputWindow, -chunk);
+        outputBuffer.write(dataFrame, payload, ioSession.channel());
+    }
+
+    private long streamData(
+            final int streamId, final AtomicInteger streamOutputWindow, final ByteBuffer[] payload) throws IOException {
+        if (outputBuffer.isEmpty() && outputQueue.isEmpty()) {
+            final int capacity = Math.min(connOutputWindow.get(), streamOutputWindow.get());
+            if (capacity <= 0) {
+                return 0;
+            }
+            final int frameSize = Math.max(localConfig.getMaxFrameSize(), remoteConfig.getMaxFrameSize());
+            final int maxPayloadSize = Math.min(capacity, frameSize);
+            int chunk = 0;
+            int count = 0;
+            ByteBuffer last = null;
+            int originalLimit = 0;
+            while (count < payload.length && chunk < maxPayloadSize) {
+                final ByteBuffer src = payload[count];
+                if (src.remaining() > maxPayloadSize - chunk) {
+                    last = src;
+                    originalLimit = src.limit();
+                    src.limit(src.position() + maxPayloadSize - chunk);
+                }
+                chunk += src.remaining();
+                count++;
+            }
+            if (chunk == 0) {
+                return 0;
+            }
+            try {
+                final ByteBuffer[] segments = count < payload.length ? Arrays.copyOf(payload, count) : payload;
+                streamDataFrame(streamId, streamOutputWindow, segments, chunk);
+            } finally {
+                if (last != null) {
+                    last.limit(originalLimit);
+                }
+            }
+            ioSession.setEvent(SelectionKey.OP_WRITE);
+            return chunk;
+        } else {
+            return 0;
+        }
+    }
+
     private void updateInputCapacity(
             final int streamId, final AtomicInteger inputWindow, final int inputCapacity) throws IOException {
         if (inputCapacity > 0) {
@@ -415,10 +524,14 @@ public final void onInput() throws HttpException, IOException {
                 }
                 consumeFrame(frame);
             }
+            expirePendingExecutions();
+            sampleRoundTripTime();
+            updateStats();
         }
     }
 
     public final void onOutput() throws HttpException, IOException {
+        registerPendingStreams();
         outputLock.lock();
         try {
             if (!outputBuffer.isEmpty()) {
@@ -456,17 +569,8 @@ public final void onOutput() throws HttpException, IOException {
             }
             final int pendingOutputRequests = outputRequests.get();
             boolean outputPending = false;
-            if (!streamMap.isEmpty() && connOutputWindow.get() > 0) {
-                for (final Iterator<Map.Entry<Integer, Http2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                    final Map.Entry<Integer, Http2Stream> entry = it.next();
-                    final Http2Stream stream = entry.getValue();
-                    if (!stream.isLocalClosed()
-                            && stream.getOutputWindow().get() > 0
-                            && stream.isOutputReady()) {
-                        outputPending = true;
-                        break;
-                    }
-                }
+            if (connOutputWindow.get() > 0) {
+                outputPending = isStreamOutputPending();
             }
             if (!outputPending) {
                 outputLock.lock();
@@ -488,20 +592,21 @@ public final void onOutput() throws HttpException, IOException {
         if (connState.compareTo(ConnectionHandshake.ACTIVE) <= 0
                 && (remoteSettingState == SettingsHandshake.ACKED || !localConfig.isSettingAckNeeded())) {
             processPendingCommands();
+            updatePendingExpiry();
         }
+        sampleRoundTripTime();
         if (connState.compareTo(ConnectionHandshake.GRACEFUL_SHUTDOWN) == 0) {
-            for (final Iterator<Map.Entry<Integer, Http2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                final Map.Entry<Integer, Http2Stream> entry = it.next();
-                final Http2Stream stream = entry.getValue();
+            for (final Http2Stream stream : streamMap.values()) {
                 if (stream.isLocalClosed() && stream.isRemoteClosed()) {
+                    removeStream(stream);
                     stream.releaseResources();
-                    it.remove();
                 }
             }
             if (streamMap.isEmpty()) {
                 connState = ConnectionHandshake.SHUTDOWN;
             }
         }
+        updateStats();
         if (connState.compareTo(ConnectionHandshake.SHUTDOWN) >= 0) {
             outputLock.lock();
             try {
@@ -515,6 +620,7 @@ public final void onOutput() throws HttpException, IOException {
     }
 
     public final void onTimeout() throws HttpException, IOException {
+        registerPendingStreams();
         connState = ConnectionHandshake.SHUTDOWN;
 
         final RawFrame goAway;
@@ -524,15 +630,14 @@ public final void onTimeout() throws HttpException, IOException {
             goAway = frameFactory.createGoAway(processedRemoteStreamId, H2Error.NO_ERROR, "Timeout due to inactivity");
         }
         commitFrame(goAway);
-        for (final Iterator<Map.Entry<Integer, Http2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-            final Map.Entry<Integer, Http2Stream> entry = it.next();
-            final Http2Stream stream = entry.getValue();
+        for (final Http2Stream stream : streamMap.values()) {
             stream.reset(new H2StreamResetException(H2Error.NO_ERROR, "Timeout due to inactivity"));
         }
-        streamMap.clear();
+        clearStreams();
     }
 
     public final void onDisconnect() {
+        registerPendingStreams();
         for (;;) {
             final AsyncPingHandler pingHandler = pingHandlers.poll();
             if (pingHandler != null) {
@@ -541,11 +646,11 @@ public final void onDisconnect() {
                 break;
             }
         }
-        for (final Iterator<Map.Entry<Integer, Http2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-            final Map.Entry<Integer, Http2Stream> entry = it.next();
-            final Http2Stream stream = entry.getValue();
+        for (final Http2Stream stream : streamMap.values()) {
             stream.cancel();
         }
+        failPendingExecutions(new ConnectionClosedException("Connection closed"));
+        updateStats();
         for (;;) {
             final Command command = ioSession.getCommand();
             if (command != null) {
@@ -562,8 +667,21 @@ public final void onDisconnect() {
         }
     }
 
+    private boolean isStreamCapacityAvailable() {
+        return streamMap.size() < remoteConfig.getMaxConcurrentStreams();
+    }
+
     private void processPendingCommands() throws IOException, HttpException {
-        while (streamMap.size() < remoteConfig.getMaxConcurrentStreams()) {
+        expirePendingExecutions();
+        for (;;) {
+            // Executions queued earlier take precedence over new ones
+            while (!pendingExecutions.isEmpty() && isStreamCapacityAvailable()) {
+                final PendingExecution pendingExecution = pendingExecutions.poll();
+                executeCommand(pendingExecution.command);
+                if (!outputQueue.isEmpty()) {
+                    return;
+                }
+            }
             final Command command = ioSession.getCommand();
             if (command == null) {
                 break;
@@ -571,12 +689,11 @@ private void processPendingCommands() throws IOException, HttpException {
             if (command instanceof ShutdownCommand) {
                 final ShutdownCommand shutdownCommand = (ShutdownCommand) command;
                 if (shutdownCommand.getType() == ShutdownType.IMMEDIATE) {
-                    for (final Iterator<Map.Entry<Integer, Http2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                        final Map.Entry<Integer, Http2Stream> entry = it.next();
-                        final Http2Stream stream = entry.getValue();
+                    for (final Http2Stream stream : streamMap.values()) {
                         stream.cancel();
                     }
-                    streamMap.clear();
+                    clearStreams();
+                    cancelPendingExecutions();
                     connState = ConnectionHandshake.SHUTDOWN;
                 } else {
                     if (connState.compareTo(ConnectionHandshake.ACTIVE) <= 0) {
@@ -591,31 +708,18 @@ private void processPendingCommands() throws IOException, HttpException {
                     throw new H2ConnectionException(H2Error.INTERNAL_ERROR, "Illegal attempt to execute a request");
                 }
                 final ExecutionCommand executionCommand = (ExecutionCommand) command;
-                final int streamId = generateStreamId();
-                final Http2StreamChannelImpl channel = new Http2StreamChannelImpl(
-                        streamId,
-                        true,
-                        localConfig.getInitialWindowSize(),
-                        remoteConfig.getInitialWindowSize());
-                final AsyncClientExchangeHandler exchangeHandler = executionCommand.getExchangeHandler();
-                final HttpCoreContext context = HttpCoreContext.adapt(executionCommand.getContext());
-                context.setAttribute(HttpCoreContext.SSL_SESSION, getSSLSession());
-                context.setAttribute(HttpCoreContext.CONNECTION_ENDPOINT, getEndpointDetails());
-                final Http2StreamHandler streamHandler = new ClientHttp2StreamHandler(
-                        channel,
-                        httpProcessor,
-                        connMetrics,
-                        exchangeHandler,
-                        context);
-                final Http2Stream stream = new Http2Stream(channel, streamHandler, false);
-                streamMap.put(streamId, stream);
-
-                if (stream.isOutputReady()) {
-                    stream.produceOutput();
-                }
-
-                if (!outputQueue.isEmpty()) {
-                    return;
+                if (pendingExecutions.isEmpty() && isStreamCapacityAvailable()) {
+                    executeCommand(executionCommand);
+                    if (!outputQueue.isEmpty()) {
+                        return;
+                    }
+                } else if (pendingExecutions.size() < localConfig.getMaxPendingStreams()) {
+                    final Timeout timeout = localConfig.getPendingStreamTimeout();
+                    final long deadline = timeout.isEnabled()
+                            ? System.currentTimeMillis() + timeout.toMillis() : Long.MAX_VALUE;
+                    pendingExecutions.add(new PendingExecution(executionCommand, deadline));
+                } else {
+                    refuseExecution(executionCommand, "Stream admission queue is full");
                 }
             } else if (command instanceof PingCommand) {
                 final PingCommand pingCommand = (PingCommand) command;
@@ -627,8 +731,164 @@ private void processPendingCommands() throws IOException, HttpException {
         }
     }
 
+    private void executeCommand(final ExecutionCommand executionCommand) throws IOException, HttpException {
+        final int streamId = generateStreamId();
+        final Http2StreamChannelImpl channel = new Http2StreamChannelImpl(
+                streamId,
+                true,
+                localConfig.getInitialWindowSize(),
+                remoteConfig.getInitialWindowSize());
+        final AsyncClientExchangeHandler exchangeHandler = executionCommand.getExchangeHandler();
+        final HttpCoreContext context = HttpCoreContext.adapt(executionCommand.getContext());
+        context.setAttribute(HttpCoreContext.SSL_SESSION, getSSLSession());
+        context.setAttribute(HttpCoreContext.CONNECTION_ENDPOINT, getEndpointDetails());
+        final Http2StreamHandler streamHandler = new ClientHttp2StreamHandler(
+                channel,
+                httpProcessor,
+                connMetrics,
+                exchangeHandler,
+                context);
+        final Http2Stream stream = new Http2Stream(channel, streamHandler, false);
+        registerStream(stream);
+
+        if (stream.isOutputReady()) {
+            stream.produceOutput();
+        }
+    }
+
+    private static boolean hasRemaining(final ByteBuffer[] srcs) {
+        for (final ByteBuffer src: srcs) {
+            if (src.hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void refuseExecution(final ExecutionCommand executionCommand, final String message) {
+        final AsyncClientExchangeHandler exchangeHandler = executionCommand.getExchangeHandler();
+        exchangeHandler.failed(new H2StreamResetException(H2Error.REFUSED_STREAM, message));
+        exchangeHandler.releaseResources();
+    }
+
+    private void expirePendingExecutions() {
+        if (pendingExecutions.isEmpty() || !localConfig.getPendingStreamTimeout().isEnabled()) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        // Deadlines are monotonic in the order of insertion
+        while (!pendingExecutions.isEmpty() && pendingExecutions.peek().deadline <= now) {
+            refuseExecution(pendingExecutions.poll().command, "Stream admission timeout");
+        }
+        updatePendingExpiry();
+    }
+
+    private void updatePendingExpiry() {
+        final PendingExecution head = pendingExecutions.peek();
+        if (head == null || !localConfig.getPendingStreamTimeout().isEnabled()) {
+            cancelPendingExpiry();
+            return;
+        }
+        if (pendingExpiryTimer != null && pendingExpiryDeadline == head.deadline) {
+            return;
+        }
+        cancelPendingExpiry();
+        try {
+            pendingExpiryTimer = PENDING_EXPIRY_TIMER.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    // Expiry is handled by the I/O thread upon output
+                    ioSession.setEvent(SelectionKey.OP_WRITE);
+                }
+
+            }, Math.max(head.deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+            pendingExpiryDeadline = head.deadline;
+        } catch (final RejectedExecutionException ignore) {
+        }
+    }
+
+    private void cancelPendingExpiry() {
+        if (pendingExpiryTimer != null) {
+            pendingExpiryTimer.cancel(false);
+            pendingExpiryTimer = null;
+        }
+    }
+
+    private void failPendingExecutions(final Exception cause) {
+        PendingExecution pendingExecution;
+        while ((pendingExecution = pendingExecutions.poll()) != null) {
+            final AsyncClientExchangeHandler exchangeHandler = pendingExecution.command.getExchangeHandler();
+            exchangeHandler.failed(cause);
+            exchangeHandler.releaseResources();
+        }
+        cancelPendingExpiry();
+    }
+
+    private void cancelPendingExecutions() {
+        PendingExecution pendingExecution;
+        while ((pendingExecution = pendingExecutions.poll()) != null) {
+            pendingExecution.command.cancel();
+        }
+        cancelPendingExpiry();
+    }
+
+    private void sampleRoundTripTime() throws IOException {
+        if (mode != Mode.CLIENT || rttSamplePending
+                || connState != ConnectionHandshake.ACTIVE || remoteSettingState != SettingsHandshake.ACKED) {
+            return;
+        }
+        final Timeout interval = localConfig.getRttSamplingInterval();
+        if (!interval.isEnabled()) {
+            return;
+        }
+        final long now = System.nanoTime();
+        if (rttEstimator.getSampleCount() > 0 && now - lastRttSample < interval.toNanos()) {
+            return;
+        }
+        rttSamplePending = true;
+        lastRttSample = now;
+        // PING frames are acknowledged in order, sampling pings share the queue with user pings
+        final AsyncPingHandler handler = new RoundTripPingHandler(now);
+        pingHandlers.add(handler);
+        commitFrame(frameFactory.createPing(handler.getData()));
+    }
+
+    private void updateStats() {
+        activeStreamCount = streamMap.size();
+        pendingStreamCount = pendingExecutions.size();
+    }
+
+    int getReadyStreamCount() {
+        return readyCount;
+    }
+
+    @Override
+    public int getActiveStreamCount() {
+        return activeStreamCount;
+    }
+
+    @Override
+    public int getPendingStreamCount() {
+        return pendingStreamCount;
+    }
+
+    @Override
+    public int getMaxConcurrentStreams() {
+        return remoteConfig.getMaxConcurrentStreams();
+    }
+
+    /**
+     * Returns the smoothed round-trip time sampled with PING frames.
+     */
+    @Override
+    public TimeValue getSmoothedRoundTripTime() {
+        return rttEstimator.getSmoothedRoundTripTime();
+    }
+
     public final void onException(final Exception cause) {
         try {
+            registerPendingStreams();
             for (;;) {
                 final AsyncPingHandler pingHandler = pingHandlers.poll();
                 if (pingHandler != null) {
@@ -637,12 +897,12 @@ public final void onException(final Exception cause) {
                     break;
                 }
             }
-            for (final Iterator<Map.Entry<Integer, Http2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                final Map.Entry<Integer, Http2Stream> entry = it.next();
-                final Http2Stream stream = entry.getValue();
+            for (final Http2Stream stream : streamMap.values()) {
                 stream.reset(cause);
             }
-            streamMap.clear();
+            clearStreams();
+            failPendingExecutions(cause);
+            updateStats();
             for (;;) {
                 final Command command = ioSession.getCommand();
                 if (command != null) {
@@ -693,6 +953,10 @@ private Http2Stream getValidStream(final int streamId) throws H2ConnectionExcept
     }
 
     private void consumeFrame(final RawFrame frame) throws HttpException, IOException {
+        // Promised streams must be known before the peer gets a chance to respond to the promise
+        if (!pendingStreams.isEmpty()) {
+            registerPendingStreams();
+        }
         final FrameType frameType = FrameType.valueOf(frame.getType());
         final int streamId = frame.getStreamId();
         if (continuation != null && frameType != FrameType.CONTINUATION) {
@@ -714,8 +978,11 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                 }
 
                 if (stream.isTerminated()) {
-                    streamMap.remove(streamId);
+                    removeStream(stream);
                     stream.releaseResources();
+                } else {
+                    // Incoming frames may have changed the stream's output state
+                    markReady(stream);
                 }
             }
             break;
@@ -742,7 +1009,7 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                     if (stream.isOutputReady()) {
                         stream.produceOutput();
                     }
-                    streamMap.put(streamId, stream);
+                    registerStream(stream);
                 }
 
                 try {
@@ -756,8 +1023,11 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                 }
 
                 if (stream.isTerminated()) {
-                    streamMap.remove(streamId);
+                    removeStream(stream);
                     stream.releaseResources();
+                } else {
+                    // Incoming frames may have changed the stream's output state
+                    markReady(stream);
                 }
             }
             break;
@@ -778,8 +1048,11 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                 }
 
                 if (stream.isTerminated()) {
-                    streamMap.remove(streamId);
+                    removeStream(stream);
                     stream.releaseResources();
+                } else {
+                    // Incoming frames may have changed the stream's output state
+                    markReady(stream);
                 }
             }
             break;
@@ -806,6 +1079,7 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                         } catch (final ArithmeticException ex) {
                             throw new H2ConnectionException(H2Error.FLOW_CONTROL_ERROR, ex.getMessage());
                         }
+                        markReady(stream);
                     }
                 }
                 ioSession.setEvent(SelectionKey.OP_WRITE);
@@ -827,7 +1101,7 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                     }
                     final int errorCode = payload.getInt();
                     stream.reset(new H2StreamResetException(errorCode, "Stream reset"));
-                    streamMap.remove(streamId);
+                    removeStream(stream);
                     stream.releaseResources();
                 }
             }
@@ -918,7 +1192,7 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                 final Http2StreamHandler streamHandler = createRemotelyInitiatedStream(
                         channel, httpProcessor, connMetrics);
                 final Http2Stream promisedStream = new Http2Stream(channel, streamHandler, true);
-                streamMap.put(promisedStreamId, promisedStream);
+                registerStream(promisedStream);
 
                 try {
                     consumePushPromiseFrame(frame, payload, promisedStream);
@@ -940,24 +1214,20 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                 if (errorCode == H2Error.NO_ERROR.getCode()) {
                     if (connState.compareTo(ConnectionHandshake.ACTIVE) <= 0) {
                         connState = ConnectionHandshake.GRACEFUL_SHUTDOWN;
-                        for (final Iterator<Map.Entry<Integer, Http2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                            final Map.Entry<Integer, Http2Stream> entry = it.next();
-                            final int activeStreamId = entry.getKey();
+                        for (final Http2Stream stream : streamMap.values()) {
+                            final int activeStreamId = stream.getId();
                             if (!idGenerator.isSameSide(activeStreamId) && activeStreamId > processedLocalStreamId) {
-                                final Http2Stream stream = entry.getValue();
                                 stream.cancel();
-                                it.remove();
+                                removeStream(stream);
                             }
                         }
                     }
                 } else {
                     connState = ConnectionHandshake.SHUTDOWN;
-                    for (final Iterator<Map.Entry<Integer, Http2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                        final Map.Entry<Integer, Http2Stream> entry = it.next();
-                        final Http2Stream stream = entry.getValue();
+                    for (final Http2Stream stream : streamMap.values()) {
                         stream.reset(new H2StreamResetException(errorCode, "Connection terminated by the peer"));
                     }
-                    streamMap.clear();
+                    clearStreams();
                 }
             }
             break;
@@ -995,95 +1265,125 @@ private void consumeDataFrame(final RawFrame frame, final Http2Stream stream) th
         stream.consumeData(payload);
     }
 
+    private void decodeHeaderFragment(final HeaderBlock headerBlock, final ByteBuffer payload) throws HttpException, IOException {
+        if (payload == null || !payload.hasRemaining()) {
+            return;
+        }
+        final ByteArrayBuffer pending = headerBlock.pending;
+        final ByteBuffer src;
+        if (pending.isEmpty()) {
+            src = payload;
+        } else {
+            headerBlock.append(payload);
+            src = ByteBuffer.wrap(pending.array(), 0, pending.length());
+        }
+        final int maxListSize = localConfig.getMaxHeaderListSize();
+        headerBlock.listSize += hPackDecoder.decodeHeaders(src, headerBlock.listSizeExceeded ? null : headerBlock.headers);
+        if (!headerBlock.listSizeExceeded && headerBlock.listSize > maxListSize) {
+            // Keep decoding in order to maintain the state of the dynamic table but stop retaining header fields
+            headerBlock.listSizeExceeded = true;
+            headerBlock.headers.clear();
+        }
+        final int remaining = src.remaining();
+        if (remaining > maxListSize) {
+            throw new H2ConnectionException(H2Error.ENHANCE_YOUR_CALM, "Maximum header list size exceeded");
+        }
+        // Only an incomplete header field representation is retained
+        if (src == payload) {
+            headerBlock.append(payload);
+        } else {
+            System.arraycopy(pending.array(), src.position(), pending.array(), 0, remaining);
+            pending.setLength(remaining);
+        }
+    }
+
+    private List<Header> completeHeaderBlock(final HeaderBlock headerBlock) throws H2ConnectionException {
+        if (!headerBlock.pending.isEmpty()) {
+            throw new H2ConnectionException(H2Error.COMPRESSION_ERROR, "Incomplete header block");
+        }
+        return headerBlock.headers;
+    }
+
+    private void checkHeaderListSize(final HeaderBlock headerBlock) throws H2StreamResetException {
+        if (headerBlock.listSizeExceeded) {
+            throw new H2StreamResetException(H2Error.ENHANCE_YOUR_CALM, "Maximum header list size exceeded");
+        }
+    }
+
     private void consumePushPromiseFrame(final RawFrame frame, final ByteBuffer payload, final Http2Stream promisedStream) throws HttpException, IOException {
         final int promisedStreamId = promisedStream.getId();
+        final HeaderBlock headerBlock = new HeaderBlock(promisedStreamId, frame.getType(), true);
+        decodeHeaderFragment(headerBlock, payload);
         if (!frame.isFlagSet(FrameFlag.END_HEADERS)) {
-            continuation = new Continuation(promisedStreamId, frame.getType(), true);
+            continuation = headerBlock;
+            return;
         }
-        if (continuation == null) {
-            final List<Header> headers = hPackDecoder.decodeHeaders(payload);
-            if (promisedStreamId > processedRemoteStreamId) {
-                processedRemoteStreamId = promisedStreamId;
-            }
-            if (streamListener != null) {
-                streamListener.onHeaderInput(this, promisedStreamId, headers);
-            }
-            if (connState == ConnectionHandshake.GRACEFUL_SHUTDOWN) {
-                throw new H2StreamResetException(H2Error.REFUSED_STREAM, "Stream refused");
-            }
-            promisedStream.consumePromise(headers);
-        } else {
-            continuation.copyPayload(payload);
+        final List<Header> headers = completeHeaderBlock(headerBlock);
+        if (promisedStreamId > processedRemoteStreamId) {
+            processedRemoteStreamId = promisedStreamId;
+        }
+        checkHeaderListSize(headerBlock);
+        if (streamListener != null) {
+            streamListener.onHeaderInput(this, promisedStreamId, headers);
         }
+        if (connState == ConnectionHandshake.GRACEFUL_SHUTDOWN) {
+            throw new H2StreamResetException(H2Error.REFUSED_STREAM, "Stream refused");
+        }
+        promisedStream.consumePromise(headers);
     }
 
     private void consumeHeaderFrame(final RawFrame frame, final Http2Stream stream) throws HttpException, IOException {
         final int streamId = stream.getId();
-        if (!frame.isFlagSet(FrameFlag.END_HEADERS)) {
-            continuation = new Continuation(streamId, frame.getType(), frame.isFlagSet(FrameFlag.END_STREAM));
-        }
         final ByteBuffer payload = frame.getPayloadContent();
         if (frame.isFlagSet(FrameFlag.PRIORITY)) {
             // Priority not supported
             payload.getInt();
             payload.get();
         }
-        if (continuation == null) {
-            final List<Header> headers = hPackDecoder.decodeHeaders(payload);
-            if (stream.isRemoteInitiated() && streamId > processedRemoteStreamId) {
-                processedRemoteStreamId = streamId;
-            }
-            if (streamListener != null) {
-                streamListener.onHeaderInput(this, streamId, headers);
-            }
-            if (connState == ConnectionHandshake.GRACEFUL_SHUTDOWN) {
-                throw new H2StreamResetException(H2Error.PROTOCOL_ERROR, "Stream refused");
-            }
-            if (stream.isResetLocally()) {
-                return;
-            }
-            if (stream.isRemoteClosed()) {
-                throw new H2StreamResetException(H2Error.STREAM_CLOSED, "Stream already closed");
-            }
-            if (frame.isFlagSet(FrameFlag.END_STREAM)) {
-                stream.setRemoteEndStream();
-            }
-            stream.consumeHeader(headers);
-        } else {
-            continuation.copyPayload(payload);
+        final HeaderBlock headerBlock = new HeaderBlock(streamId, frame.getType(), frame.isFlagSet(FrameFlag.END_STREAM));
+        decodeHeaderFragment(headerBlock, payload);
+        if (!frame.isFlagSet(FrameFlag.END_HEADERS)) {
+            continuation = headerBlock;
+            return;
         }
+        consumeHeaderBlock(headerBlock, stream);
     }
 
     private void consumeContinuationFrame(final RawFrame frame, final Http2Stream stream) throws HttpException, IOException {
-        final int streamId = frame.getStreamId();
-        final ByteBuffer payload = frame.getPayload();
-        continuation.copyPayload(payload);
+        final HeaderBlock headerBlock = continuation;
+        decodeHeaderFragment(headerBlock, frame.getPayload());
         if (frame.isFlagSet(FrameFlag.END_HEADERS)) {
-            final List<Header> headers = hPackDecoder.decodeHeaders(continuation.getContent());
-            if (stream.isRemoteInitiated() && streamId > processedRemoteStreamId) {
-                processedRemoteStreamId = streamId;
-            }
-            if (streamListener != null) {
-                streamListener.onHeaderInput(this, streamId, headers);
-            }
-            if (connState == ConnectionHandshake.GRACEFUL_SHUTDOWN) {
-                throw new H2StreamResetException(H2Error.PROTOCOL_ERROR, "Stream refused");
-            }
-            if (stream.isResetLocally()) {
-                return;
-            }
-            if (stream.isRemoteClosed()) {
-                throw new H2StreamResetException(H2Error.STREAM_CLOSED, "Stream already closed");
-            }
-            if (continuation.endStream) {
-                stream.setRemoteEndStream();
-            }
-            if (continuation.type == FrameType.PUSH_PROMISE.getValue()) {
-                stream.consumePromise(headers);
-            } else {
-                stream.consumeHeader(headers);
-            }
             continuation = null;
+            consumeHeaderBlock(headerBlock, stream);
+        }
+    }
+
+    private void consumeHeaderBlock(final HeaderBlock headerBlock, final Http2Stream stream) throws HttpException, IOException {
+        final int streamId = stream.getId();
+        final List<Header> headers = completeHeaderBlock(headerBlock);
+        if (stream.isRemoteInitiated() && streamId > processedRemoteStreamId) {
+            processedRemoteStreamId = streamId;
+        }
+        checkHeaderListSize(headerBlock);
+        if (streamListener != null) {
+            streamListener.onHeaderInput(this, streamId, headers);
+        }
+        if (connState == ConnectionHandshake.GRACEFUL_SHUTDOWN) {
+            throw new H2StreamResetException(H2Error.PROTOCOL_ERROR, "Stream refused");
+        }
+        if (stream.isResetLocally()) {
+            return;
+        }
+        if (stream.isRemoteClosed()) {
+            throw new H2StreamResetException(H2Error.STREAM_CLOSED, "Stream already closed");
+        }
+        if (headerBlock.endStream) {
+            stream.setRemoteEndStream();
+        }
+        if (headerBlock.type == FrameType.PUSH_PROMISE.getValue()) {
+            stream.consumePromise(headers);
+        } else {
+            stream.consumeHeader(headers);
         }
     }
 
@@ -1119,14 +1419,13 @@ private void consumeSettingsFrame(final ByteBuffer payload) throws HttpException
                         if (delta != 0) {
                             updateOutputWindow(0, connOutputWindow, delta);
                             if (!streamMap.isEmpty()) {
-                                for (final Iterator<Map.Entry<Integer, Http2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                                    final Map.Entry<Integer, Http2Stream> entry = it.next();
-                                    final Http2Stream stream = entry.getValue();
+                                for (final Http2Stream stream : streamMap.values()) {
                                     try {
                                         updateOutputWindow(stream.getId(), stream.getOutputWindow(), delta);
                                     } catch (final ArithmeticException ex) {
                                         throw new H2ConnectionException(H2Error.FLOW_CONTROL_ERROR, ex.getMessage());
                                     }
+                                    markReady(stream);
                                 }
                             }
                         }
@@ -1152,16 +1451,108 @@ private void consumeSettingsFrame(final ByteBuffer payload) throws HttpException
         lowMark = remoteConfig.getInitialWindowSize() / 2;
     }
 
+    private void registerStream(final Http2Stream stream) {
+        streamMap.put(stream.getId(), stream);
+        markReady(stream);
+    }
+
+    private void registerPendingStreams() {
+        Http2Stream stream;
+        while ((stream = pendingStreams.poll()) != null) {
+            registerStream(stream);
+        }
+    }
+
+    private void removeStream(final Http2Stream stream) {
+        streamMap.remove(stream.getId());
+        // Closed streams must not linger in the ready queue
+        unmarkReady(stream);
+    }
+
+    private void markReady(final Http2Stream stream) {
+        if (stream.ready) {
+            return;
+        }
+        stream.ready = true;
+        stream.nextReady = null;
+        stream.prevReady = readyTail;
+        if (readyTail != null) {
+            readyTail.nextReady = stream;
+        } else {
+            readyHead = stream;
+        }
+        readyTail = stream;
+        readyCount++;
+    }
+
+    private void unmarkReady(final Http2Stream stream) {
+        if (!stream.ready) {
+            return;
+        }
+        if (stream.prevReady != null) {
+            stream.prevReady.nextReady = stream.nextReady;
+        } else {
+            readyHead = stream.nextReady;
+        }
+        if (stream.nextReady != null) {
+            stream.nextReady.prevReady = stream.prevReady;
+        } else {
+            readyTail = stream.prevReady;
+        }
+        stream.nextReady = null;
+        stream.prevReady = null;
+        stream.ready = false;
+        readyCount--;
+    }
+
+    private Http2Stream pollReady() {
+        final Http2Stream stream = readyHead;
+        if (stream != null) {
+            unmarkReady(stream);
+        }
+        return stream;
+    }
+
+    private void processSignalledStreams() {
+        registerPendingStreams();
+        Http2Stream stream;
+        while ((stream = signalledStreams.poll()) != null) {
+            stream.outputSignalled.set(false);
+            if (streamMap.get(stream.getId()) == stream) {
+                markReady(stream);
+            }
+        }
+    }
+
+    private void clearStreams() {
+        streamMap.clear();
+        while (pollReady() != null) {
+            // discard
+        }
+    }
+
     private void produceOutput() throws HttpException, IOException {
-        for (final Iterator<Map.Entry<Integer, Http2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-            final Map.Entry<Integer, Http2Stream> entry = it.next();
-            final Http2Stream stream = entry.getValue();
+        processSignalledStreams();
+        // Each ready stream gets at most one turn per pass; streams that still
+        // have output go back to the end of the queue
+        for (int n = readyCount; n > 0; n--) {
+            final Http2Stream stream = pollReady();
+            if (stream == null) {
+                break;
+            }
             if (!stream.isLocalClosed() && stream.getOutputWindow().get() > 0) {
                 stream.produceOutput();
             }
             if (stream.isTerminated()) {
-                it.remove();
+                removeStream(stream);
                 stream.releaseResources();
+            } else if (stream.isLocalClosed()) {
+                // Locally reset streams are kept in the queue until they linger out
+                if (stream.isClosed()) {
+                    markReady(stream);
+                }
+            } else if (stream.getOutputWindow().get() > 0 && stream.isOutputReady()) {
+                markReady(stream);
             }
             if (!outputQueue.isEmpty()) {
                 break;
@@ -1169,6 +1560,20 @@ private void produceOutput() throws HttpException, IOException {
         }
     }
 
+    private boolean isStreamOutputPending() {
+        if (!signalledStreams.isEmpty() || !pendingStreams.isEmpty()) {
+            return true;
+        }
+        for (Http2Stream stream = readyHead; stream != null; stream = stream.nextReady) {
+            if (!stream.isLocalClosed()
+                    && stream.getOutputWindow().get() > 0
+                    && stream.isOutputReady()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void close() throws IOException {
         ioSession.addFirst(new ShutdownCommand(ShutdownType.GRACEFUL));
@@ -1223,30 +1628,83 @@ public SocketAddress getLocalAddress() {
         return ioSession.getLocalAddress();
     }
 
-    private static class Continuation {
+    private class RoundTripPingHandler implements AsyncPingHandler {
+
+        private final long sentNanos;
+
+        RoundTripPingHandler(final long sentNanos) {
+            this.sentNanos = sentNanos;
+        }
+
+        @Override
+        public ByteBuffer getData() {
+            final ByteBuffer data = ByteBuffer.allocate(8);
+            data.putLong(sentNanos);
+            data.flip();
+            return data;
+        }
+
+        @Override
+        public void consumeResponse(final ByteBuffer feedback) throws HttpException, IOException {
+            rttSamplePending = false;
+            rttEstimator.update(System.nanoTime() - sentNanos);
+        }
+
+        @Override
+        public void failed(final Exception cause) {
+            rttSamplePending = false;
+        }
+
+        @Override
+        public void cancel() {
+            rttSamplePending = false;
+        }
+
+    }
+
+    private static class PendingExecution {
+
+        final ExecutionCommand command;
+        final long deadline;
+
+        PendingExecution(final ExecutionCommand command, final long deadline) {
+            this.command = command;
+            this.deadline = deadline;
+        }
+
+    }
+
+    /**
+     * Header block being decoded. Header field representations are decoded as header
+     * block fragments arrive; only an incomplete representation at the end of
+     * a fragment gets buffered.
+     */
+    private static class HeaderBlock {
 
         final int streamId;
         final int type;
         final boolean endStream;
-        final ByteArrayBuffer headerBuffer;
+        final List<Header> headers;
+        final ByteArrayBuffer pending;
+        long listSize;
+        boolean listSizeExceeded;
 
-        private Continuation(final int streamId, final int type, final boolean endStream) {
+        private HeaderBlock(final int streamId, final int type, final boolean endStream) {
             this.streamId = streamId;
             this.type = type;
             this.endStream = endStream;
-            this.headerBuffer = new ByteArrayBuffer(1024);
+            this.headers = new ArrayList<>();
+            this.pending = new ByteArrayBuffer(0);
         }
 
-        void copyPayload(final ByteBuffer payload) {
-            if (payload == null) {
+        void append(final ByteBuffer payload) {
+            final int len = payload.remaining();
+            if (len == 0) {
                 return;
             }
-            headerBuffer.ensureCapacity(payload.remaining());
-            payload.get(headerBuffer.array(), headerBuffer.length(), payload.remaining());
-        }
-
-        ByteBuffer getContent() {
-            return ByteBuffer.wrap(headerBuffer.array(), 0, headerBuffer.length());
+            pending.ensureCapacity(len);
+            payload.get(pending.array(), pending.length(), len);
+            pending.setLength(pending.length() + len);
         }
 
     }
@@ -1262,6 +1720,7 @@ private class Http2StreamChannelImpl implements Http2StreamChannel {
         private volatile boolean localEndStream;
 
         private volatile long deadline;
+        private volatile Http2Stream stream;
 
         Http2StreamChannelImpl(final int id, final boolean idle, final int initialInputWindowSize, final int initialOutputWindowSize) {
             this.id = id;
@@ -1296,6 +1755,7 @@ public void submit(final List<Header> headers, final boolean endStream) throws I
                 commitHeaders(id, headers, endStream);
                 if (endStream) {
                     localEndStream = true;
+                    requestOutput();
                 }
             } finally {
                 outputLock.unlock();
@@ -1319,7 +1779,9 @@ public void push(final List<Header> headers, final AsyncPushProducer pushProduce
             final Http2StreamHandler streamHandler = new ServerPushHttp2StreamHandler(
                     channel, httpProcessor, connMetrics, pushProducer, context);
             final Http2Stream stream = new Http2Stream(channel, streamHandler, false);
-            streamMap.put(promisedStreamId, stream);
+            // May be called by a non I/O thread
+            pendingStreams.add(stream);
+            requestSessionOutput();
 
             outputLock.lock();
             try {
@@ -1349,7 +1811,32 @@ public int write(final ByteBuffer payload) throws IOException {
                 if (localEndStream) {
                     return 0;
                 }
-                return streamData(id, outputWindow, payload);
+                final int bytesWritten = streamData(id, outputWindow, payload);
+                if (payload.hasRemaining() && outputWindow.get() > 0) {
+                    // Held back by pending output, frame size or connection flow control;
+                    // make sure the stream gets another turn
+                    requestOutput();
+                }
+                return bytesWritten;
+            } finally {
+                outputLock.unlock();
+            }
+        }
+
+        @Override
+        public long write(final ByteBuffer[] payload) throws IOException {
+            outputLock.lock();
+            try {
+                if (localEndStream) {
+                    return 0;
+                }
+                final long bytesWritten = streamData(id, outputWindow, payload);
+                if (hasRemaining(payload) && outputWindow.get() > 0) {
+                    // Held back by pending output, frame size or connection flow control;
+                    // make sure the stream gets another turn
+                    requestOutput();
+                }
+                return bytesWritten;
             } finally {
                 outputLock.unlock();
             }
@@ -1369,6 +1856,7 @@ public void endStream(final List<? extends Header> trailers) throws IOException
                     final RawFrame frame = frameFactory.createData(id, null, true);
                     commitFrameInternal(frame);
                 }
+                requestOutput();
             } finally {
                 outputLock.unlock();
             }
@@ -1381,6 +1869,14 @@ public void endStream() throws IOException {
 
         @Override
         public void requestOutput() {
+            final Http2Stream current = stream;
+            if (current != null && current.outputSignalled.compareAndSet(false, true)) {
+                signalledStreams.add(current);
+            }
+            requestSessionOutput();
+        }
+
+        void requestConnectionOutput() {
             requestSessionOutput();
         }
 
@@ -1412,6 +1908,8 @@ void close() {
         void localReset(final int code) throws IOException {
             deadline = System.currentTimeMillis() + LINGER_TIME;
             close();
+            // Make sure the stream gets released once it lingers out
+            requestOutput();
             if (!idle) {
                 outputLock.lock();
                 try {
@@ -1450,8 +1948,15 @@ private static class Http2Stream {
         private final Http2StreamHandler handler;
         private final boolean remoteInitiated;
 
+        private final AtomicBoolean outputSignalled;
+
         private volatile boolean resetLocally;
 
+        // Ready queue linkage, confined to the I/O thread
+        private boolean ready;
+        private Http2Stream prevReady;
+        private Http2Stream nextReady;
+
         private Http2Stream(
                 final Http2StreamChannelImpl channel,
                 final Http2StreamHandler handler,
@@ -1459,6 +1964,8 @@ private Http2Stream(
             this.channel = channel;
             this.handler = handler;
             this.remoteInitiated = remoteInitiated;
+            this.outputSignalled = new AtomicBoolean(false);
+            channel.stream = this;
         }
 
         int getId() {
@@ -1489,6 +1996,10 @@ boolean isLocalClosed() {
             return channel.isLocalClosed();
         }
 
+        boolean isClosed() {
+            return channel.isClosed();
+        }
+
         void setRemoteEndStream() {
             channel.setRemoteEndStream();
         }
@@ -1566,7 +2077,7 @@ void cancel() {
 
         void releaseResources() {
             handler.releaseResources();
-            channel.requestOutput();
+            channel.requestConnectionOutput();
         }
 
         @Override
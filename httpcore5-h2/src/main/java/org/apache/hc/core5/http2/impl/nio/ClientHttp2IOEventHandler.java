@@ -29,6 +29,9 @@
 
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.ConnectionLatencyStats;
+import org.apache.hc.core5.http2.nio.StreamAdmissionStats;
+import org.apache.hc.core5.util.TimeValue;
 
 /**
  * {@link org.apache.hc.core5.reactor.IOEventHandler} that implements client side HTTP/2 messaging protocol.
@@ -36,10 +39,34 @@
  * @since 5.0
  */
 @Contract(threading = ThreadingBehavior.IMMUTABLE_CONDITIONAL)
-public class ClientHttp2IOEventHandler extends AbstractHttp2IOEventHandler {
+public class ClientHttp2IOEventHandler extends AbstractHttp2IOEventHandler
+        implements StreamAdmissionStats, ConnectionLatencyStats {
+
+    private final ClientHttp2StreamMultiplexer streamMultiplexer;
 
     public ClientHttp2IOEventHandler(final ClientHttp2StreamMultiplexer streamMultiplexer) {
         super(streamMultiplexer);
+        this.streamMultiplexer = streamMultiplexer;
+    }
+
+    @Override
+    public int getActiveStreamCount() {
+        return streamMultiplexer.getActiveStreamCount();
+    }
+
+    @Override
+    public int getPendingStreamCount() {
+        return streamMultiplexer.getPendingStreamCount();
+    }
+
+    @Override
+    public int getMaxConcurrentStreams() {
+        return streamMultiplexer.getMaxConcurrentStreams();
+    }
+
+    @Override
+    public TimeValue getSmoothedRoundTripTime() {
+        return streamMultiplexer.getSmoothedRoundTripTime();
     }
 
 }
@@ -77,18 +77,11 @@ public void write(final RawFrame frame, final WritableByteChannel channel) throw
             throw new H2ConnectionException(H2Error.FRAME_SIZE_ERROR, "Frame size exceeds maximum");
         }
 
-        buffer.putInt((payload != null ? payload.remaining() << 8 : 0) | (frame.getType() & 0xff));
-        buffer.put((byte) (frame.getFlags() & 0xff));
-        buffer.putInt(frame.getStreamId());
+        writeHead(frame, payload != null ? payload.remaining() : 0);
 
         if (payload != null) {
             if (channel instanceof GatheringByteChannel) {
-                buffer.flip();
-                ((GatheringByteChannel) channel).write(new ByteBuffer[]{buffer, payload});
-                buffer.compact();
-                if (payload.hasRemaining()) {
-                    buffer.put(payload);
-                }
+                writeGathering((GatheringByteChannel) channel, new ByteBuffer[]{buffer, payload});
             } else {
                 buffer.put(payload);
             }
@@ -103,6 +96,77 @@ public void write(final RawFrame frame, final WritableByteChannel channel) throw
         metrics.incrementFramesTransferred();
     }
 
+    /**
+     * Writes out the frame with the payload composed of the given segments,
+     * preferably with a single gathering write. Any payload the frame itself
+     * may have is ignored. Content of the segments that could not be written
+     * out gets stored in this buffer.
+     *
+     * @param frame the frame
+     * @param payload the frame payload segments
+     * @param channel the channel to write to
+     *
+     * @since 5.0
+     */
+    public void write(final RawFrame frame, final ByteBuffer[] payload, final WritableByteChannel channel) throws IOException {
+        Args.notNull(frame, "Frame");
+        Args.notNull(payload, "Payload");
+
+        int payloadLen = 0;
+        for (final ByteBuffer src: payload) {
+            payloadLen += src.remaining();
+        }
+        if (payloadLen > maxFramePayloadSize) {
+            throw new H2ConnectionException(H2Error.FRAME_SIZE_ERROR, "Frame size exceeds maximum");
+        }
+
+        writeHead(frame, payloadLen);
+
+        if (channel instanceof GatheringByteChannel) {
+            final ByteBuffer[] segments = new ByteBuffer[payload.length + 1];
+            segments[0] = buffer;
+            System.arraycopy(payload, 0, segments, 1, payload.length);
+            writeGathering((GatheringByteChannel) channel, segments);
+        } else {
+            for (final ByteBuffer src: payload) {
+                buffer.put(src);
+            }
+        }
+
+        if (buffer.position() > 0) {
+            buffer.flip();
+            writeToChannel(channel, buffer);
+            buffer.compact();
+        }
+
+        metrics.incrementFramesTransferred();
+    }
+
+    private void writeHead(final RawFrame frame, final int payloadLen) {
+        buffer.putInt((payloadLen << 8) | (frame.getType() & 0xff));
+        buffer.put((byte) (frame.getFlags() & 0xff));
+        buffer.putInt(frame.getStreamId());
+    }
+
+    /**
+     * Writes out content of this buffer followed by the payload segments
+     * (the buffer being the first segment). Whatever has not been written out
+     * gets stored in this buffer.
+     */
+    private void writeGathering(final GatheringByteChannel channel, final ByteBuffer[] segments) throws IOException {
+        buffer.flip();
+        final long bytesWritten = channel.write(segments);
+        if (bytesWritten > 0) {
+            metrics.incrementBytesTransferred(bytesWritten);
+        }
+        buffer.compact();
+        for (int i = 1; i < segments.length; i++) {
+            if (segments[i].hasRemaining()) {
+                buffer.put(segments[i]);
+            }
+        }
+    }
+
     public void flush(final WritableByteChannel channel) throws IOException {
         if (buffer.position() > 0) {
             buffer.flip();
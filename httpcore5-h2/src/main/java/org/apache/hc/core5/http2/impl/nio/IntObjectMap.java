@@ -0,0 +1,181 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http2.impl.nio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Open-addressed hash map with primitive positive {@code int} keys.
+ * Keys are probed linearly; removal shifts subsequent entries of the same
+ * probe sequence back, so the table never accumulates tombstones.
+ * <p>
+ * Instances of this class are not thread safe and are expected to be confined
+ * to a single thread.
+ *
+ * @param <V> value type.
+ */
+final class IntObjectMap<V> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    IntObjectMap() {
+        this.keys = new int[INITIAL_CAPACITY];
+        this.values = new Object[INITIAL_CAPACITY];
+        this.mask = INITIAL_CAPACITY - 1;
+    }
+
+    private static int hash(final int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int indexOf(final int key) {
+        int i = hash(key) & mask;
+        int k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(final int key) {
+        final int i = indexOf(key);
+        return i >= 0 ? (V) values[i] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(final int key, final V value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Key must be positive: " + key);
+        }
+        int i = hash(key) & mask;
+        int k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                final V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(final int key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        final V previous = (V) values[i];
+        size--;
+        // Shift back entries that would become unreachable
+        int j = i;
+        for (;;) {
+            j = (j + 1) & mask;
+            final int k = keys[j];
+            if (k == 0) {
+                break;
+            }
+            final int home = hash(k) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = k;
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = 0;
+        values[i] = null;
+        return previous;
+    }
+
+    private void rehash(final int capacity) {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        for (int n = 0; n < oldKeys.length; n++) {
+            final int k = oldKeys[n];
+            if (k != 0) {
+                int i = hash(k) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = k;
+                values[i] = oldValues[n];
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Returns a snapshot of the values. The map can be safely modified while
+     * the snapshot is being iterated over.
+     */
+    @SuppressWarnings("unchecked")
+    List<V> values() {
+        final List<V> list = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                list.add((V) values[i]);
+            }
+        }
+        return list;
+    }
+
+}
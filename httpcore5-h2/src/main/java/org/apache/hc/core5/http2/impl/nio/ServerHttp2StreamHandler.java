@@ -91,6 +91,11 @@ public int write(final ByteBuffer src) throws IOException {
                 return outputChannel.write(src);
             }
 
+            @Override
+            public long write(final ByteBuffer[] srcs) throws IOException {
+                return outputChannel.write(srcs);
+            }
+
             @Override
             public void endStream(final List<? extends Header> trailers) throws IOException {
                 outputChannel.endStream(trailers);
@@ -51,6 +51,9 @@
 import org.apache.hc.core5.http2.impl.nio.Http2StreamListener;
 import org.apache.hc.core5.http2.nio.support.DefaultAsyncPushConsumerFactory;
 import org.apache.hc.core5.http2.ssl.H2ClientTlsStrategy;
+import org.apache.hc.core5.net.AsyncAddressResolver;
+import org.apache.hc.core5.net.SystemAddressResolver;
+import org.apache.hc.core5.pool.ConnLatencyEstimator;
 import org.apache.hc.core5.pool.ConnPoolListener;
 import org.apache.hc.core5.pool.LaxConnPool;
 import org.apache.hc.core5.pool.ManagedConnPool;
@@ -81,6 +84,7 @@ public class H2RequesterBootstrap {
     private int maxTotal;
     private TimeValue timeToLive;
     private PoolReusePolicy poolReusePolicy;
+    private ConnLatencyEstimator<IOSession> connLatencyEstimator;
     private PoolConcurrencyPolicy poolConcurrencyPolicy;
     private TlsStrategy tlsStrategy;
     private Decorator<IOSession> ioSessionDecorator;
@@ -88,6 +92,7 @@ public class H2RequesterBootstrap {
     private Http2StreamListener streamListener;
     private Http1StreamListener http1StreamListener;
     private ConnPoolListener<HttpHost> connPoolListener;
+    private AsyncAddressResolver addressResolver;
 
     private H2RequesterBootstrap() {
         this.pushConsumerList = new ArrayList<>();
@@ -168,6 +173,17 @@ public final H2RequesterBootstrap setPoolReusePolicy(final PoolReusePolicy poolR
         return this;
     }
 
+    /**
+     * Assigns {@link ConnLatencyEstimator} instance. If set, the connection pool leases
+     * the available connection with the lowest expected latency first.
+     *
+     * @see org.apache.hc.core5.http.impl.DefaultConnLatencyEstimator
+     */
+    public final H2RequesterBootstrap setConnLatencyEstimator(final ConnLatencyEstimator<IOSession> connLatencyEstimator) {
+        this.connLatencyEstimator = connLatencyEstimator;
+        return this;
+    }
+
     /**
      * Assigns {@link PoolConcurrencyPolicy} instance.
      */
@@ -225,6 +241,19 @@ public final H2RequesterBootstrap setConnPoolListener(final ConnPoolListener<Htt
         return this;
     }
 
+    /**
+     * Assigns {@link AsyncAddressResolver} instance used to resolve
+     * remote endpoints without blocking I/O dispatch threads. All addresses
+     * a remote endpoint resolves to are tried as described in
+     * {@link IOReactorConfig#getConnectionAttemptDelay()}.
+     * <p>
+     * Default: {@link SystemAddressResolver#INSTANCE}
+     */
+    public final H2RequesterBootstrap setAddressResolver(final AsyncAddressResolver addressResolver) {
+        this.addressResolver = addressResolver;
+        return this;
+    }
+
     /**
      * Assigns {@link UriPatternType} for handler registration.
      */
@@ -271,6 +300,7 @@ public Http2AsyncRequester create() {
                         defaultMaxPerRoute > 0 ? defaultMaxPerRoute : 20,
                         timeToLive,
                         poolReusePolicy,
+                        connLatencyEstimator,
                         connPoolListener);
                 break;
             case STRICT:
@@ -280,6 +310,7 @@ public Http2AsyncRequester create() {
                         maxTotal > 0 ? maxTotal : 50,
                         timeToLive,
                         poolReusePolicy,
+                        connLatencyEstimator,
                         connPoolListener);
                 break;
         }
@@ -309,7 +340,8 @@ public Http2AsyncRequester create() {
                 ioSessionDecorator,
                 sessionListener,
                 connPool,
-                tlsStrategy != null ? tlsStrategy : new H2ClientTlsStrategy());
+                tlsStrategy != null ? tlsStrategy : new H2ClientTlsStrategy(),
+                addressResolver != null ? addressResolver : SystemAddressResolver.INSTANCE);
     }
 
 }
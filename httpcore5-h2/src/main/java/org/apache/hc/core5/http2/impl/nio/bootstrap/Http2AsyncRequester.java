@@ -33,9 +33,9 @@
 import org.apache.hc.core5.function.Decorator;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncRequester;
-import org.apache.hc.core5.http.nio.AsyncClientEndpoint;
 import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
 import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.net.AsyncAddressResolver;
 import org.apache.hc.core5.pool.ManagedConnPool;
 import org.apache.hc.core5.reactor.IOEventHandlerFactory;
 import org.apache.hc.core5.reactor.IOReactorConfig;
@@ -50,6 +50,9 @@ public class Http2AsyncRequester extends HttpAsyncRequester {
 
     private final HttpVersionPolicy versionPolicy;
 
+    /**
+     * @since 5.0
+     */
     public Http2AsyncRequester(
             final HttpVersionPolicy versionPolicy,
             final IOReactorConfig ioReactorConfig,
@@ -57,18 +60,30 @@ public Http2AsyncRequester(
             final Decorator<IOSession> ioSessionDecorator,
             final IOSessionListener sessionListener,
             final ManagedConnPool<HttpHost, IOSession> connPool,
-            final TlsStrategy tlsStrategy) {
-        super(ioReactorConfig, eventHandlerFactory, ioSessionDecorator, sessionListener, connPool, tlsStrategy);
+            final TlsStrategy tlsStrategy,
+            final AsyncAddressResolver addressResolver) {
+        super(ioReactorConfig, eventHandlerFactory, ioSessionDecorator, sessionListener, connPool, tlsStrategy, addressResolver);
         this.versionPolicy = versionPolicy != null ? versionPolicy : HttpVersionPolicy.NEGOTIATE;
     }
 
+    public Http2AsyncRequester(
+            final HttpVersionPolicy versionPolicy,
+            final IOReactorConfig ioReactorConfig,
+            final IOEventHandlerFactory eventHandlerFactory,
+            final Decorator<IOSession> ioSessionDecorator,
+            final IOSessionListener sessionListener,
+            final ManagedConnPool<HttpHost, IOSession> connPool,
+            final TlsStrategy tlsStrategy) {
+        this(versionPolicy, ioReactorConfig, eventHandlerFactory, ioSessionDecorator, sessionListener, connPool, tlsStrategy, null);
+    }
+
     @Override
-    protected Future<AsyncClientEndpoint> doConnect(
+    protected Future<IOSession> establishSession(
             final HttpHost host,
             final Timeout timeout,
             final Object attachment,
-            final FutureCallback<AsyncClientEndpoint> callback) {
-        return super.doConnect(host, timeout, attachment != null ? attachment : versionPolicy, callback);
+            final FutureCallback<IOSession> callback) {
+        return super.establishSession(host, timeout, attachment != null ? attachment : versionPolicy, callback);
     }
 
 }
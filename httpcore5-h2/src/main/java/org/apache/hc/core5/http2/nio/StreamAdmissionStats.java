@@ -0,0 +1,59 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http2.nio;
+
+/**
+ * Stream admission statistics of an HTTP/2 connection. Connections refuse
+ * request executions in excess of their admission queue capacity with
+ * {@link org.apache.hc.core5.http2.H2Error#REFUSED_STREAM}, which means
+ * the request has not been sent and can be safely re-executed over another
+ * connection.
+ * <p>
+ * Values are updated by the I/O thread and may lag behind by one I/O event
+ * when read from another thread.
+ *
+ * @since 5.0
+ */
+public interface StreamAdmissionStats {
+
+    /**
+     * Returns the number of streams currently open.
+     */
+    int getActiveStreamCount();
+
+    /**
+     * Returns the number of request executions waiting for a stream to become
+     * available.
+     */
+    int getPendingStreamCount();
+
+    /**
+     * Returns the maximum number of concurrent streams allowed by the peer.
+     */
+    int getMaxConcurrentStreams();
+
+}
@@ -30,9 +30,10 @@
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.WritableByteChannel;
 
-public class WritableByteChannelMock implements WritableByteChannel {
+public class WritableByteChannelMock implements WritableByteChannel, GatheringByteChannel {
 
     private final int capacityLimit;
 
@@ -87,6 +88,24 @@ public int write(final ByteBuffer src) throws IOException {
         }
     }
 
+    @Override
+    public long write(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+        long total = 0;
+        for (int i = offset; i < offset + length; i++) {
+            final ByteBuffer src = srcs[i];
+            total += write(src);
+            if (src.hasRemaining()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long write(final ByteBuffer[] srcs) throws IOException {
+        return write(srcs, 0, srcs.length);
+    }
+
     @Override
     public boolean isOpen() {
         return !this.closed;
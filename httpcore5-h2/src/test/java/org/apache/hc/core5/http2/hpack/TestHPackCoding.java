@@ -27,9 +27,14 @@
 
 package org.apache.hc.core5.http2.hpack;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -1028,5 +1033,100 @@ public void testHeaderEntrySizeNonAscii() throws Exception {
         Assert.assertEquals(0, inboundTable2.dynamicLength());
     }
 
-}
+    @Test
+    public void testDecoderStringCache() throws Exception {
+
+        final ByteArrayBuffer buffer = new ByteArrayBuffer(128);
+        final HPackEncoder encoder = new HPackEncoder(StandardCharsets.UTF_8);
+        encoder.encodeHeader(buffer, new BasicHeader("x-custom", "some value"), true, true);
+        encoder.encodeHeader(buffer, new BasicHeader("password", "secret", true), true, false);
+
+        final HPackDecoder decoder = new HPackDecoder(StandardCharsets.UTF_8);
+        final List<Header> headers1 = decoder.decodeHeaders(ByteBuffer.wrap(buffer.array(), 0, buffer.length()));
+        final List<Header> headers2 = decoder.decodeHeaders(ByteBuffer.wrap(buffer.array(), 0, buffer.length()));
+        Assert.assertEquals(2, headers1.size());
+        Assert.assertEquals(2, headers2.size());
+        assertHeaderEquals(new BasicHeader("x-custom", "some value"), headers2.get(0));
+        assertHeaderEquals(new BasicHeader("password", "secret", true), headers2.get(1));
+        Assert.assertSame(headers1.get(0).getName(), headers2.get(0).getName());
+        Assert.assertSame(headers1.get(0).getValue(), headers2.get(0).getValue());
+        Assert.assertSame(headers1.get(1).getName(), headers2.get(1).getName());
+        Assert.assertNotSame(headers1.get(1).getValue(), headers2.get(1).getValue());
+
+        decoder.setStringCacheSize(0);
+        Assert.assertEquals(0, decoder.getStringCacheSize());
+        final List<Header> headers3 = decoder.decodeHeaders(ByteBuffer.wrap(buffer.array(), 0, buffer.length()));
+        assertHeaderEquals(new BasicHeader("x-custom", "some value"), headers3.get(0));
+        Assert.assertNotSame(headers1.get(0).getValue(), headers3.get(0).getValue());
+    }
+
+    @Test
+    public void testDecodedHeaderSerialization() throws Exception {
+
+        final ByteArrayBuffer buffer = new ByteArrayBuffer(128);
+        final HPackEncoder encoder = new HPackEncoder(StandardCharsets.UTF_8);
+        encoder.encodeHeader(buffer, new BasicHeader(":method", "GET"), false, true);
+        encoder.encodeHeader(buffer, new BasicHeader("x-custom", "some value"), false, true);
+        encoder.encodeHeader(buffer, new BasicHeader("password", "secret", true), false, true);
+
+        final HPackDecoder decoder = new HPackDecoder(StandardCharsets.UTF_8);
+        final List<Header> headers = decoder.decodeHeaders(ByteBuffer.wrap(buffer.array(), 0, buffer.length()));
+        Assert.assertEquals(3, headers.size());
+        for (final Header header: headers) {
+            final ByteArrayOutputStream outbuffer = new ByteArrayOutputStream();
+            try (final ObjectOutputStream outstream = new ObjectOutputStream(outbuffer)) {
+                outstream.writeObject(header);
+            }
+            final ByteArrayInputStream inbuffer = new ByteArrayInputStream(outbuffer.toByteArray());
+            final ObjectInputStream instream = new ObjectInputStream(inbuffer);
+            final Header clone = (Header) instream.readObject();
+            assertHeaderEquals(header, clone);
+        }
+    }
+
+    @Test
+    public void testIncrementalHeaderDecoding() throws Exception {
 
+        final ByteArrayBuffer buffer = new ByteArrayBuffer(128);
+        final HPackEncoder encoder = new HPackEncoder(StandardCharsets.UTF_8);
+        final List<Header> headers = Arrays.<Header>asList(
+                new BasicHeader(":method", "GET"),
+                new BasicHeader("custom-key", "custom-header"),
+                new BasicHeader("cookie", "some very long cookie value", true),
+                new BasicHeader("custom-key", "custom-header"));
+        encoder.encodeHeaders(buffer, headers, false, true);
+
+        final HPackDecoder reference = new HPackDecoder(StandardCharsets.UTF_8);
+        final List<Header> expected = reference.decodeHeaders(ByteBuffer.wrap(buffer.array(), 0, buffer.length()));
+
+        for (int split = 0; split <= buffer.length(); split++) {
+            final HPackDecoder decoder = new HPackDecoder(StandardCharsets.UTF_8);
+            final List<Header> decoded = new ArrayList<>();
+            final ByteBuffer part1 = ByteBuffer.wrap(buffer.array(), 0, split);
+            final long size1 = decoder.decodeHeaders(part1, decoded);
+            final ByteBuffer part2 = ByteBuffer.allocate(part1.remaining() + buffer.length() - split);
+            part2.put(part1);
+            part2.put(buffer.array(), split, buffer.length() - split);
+            part2.flip();
+            final long size2 = decoder.decodeHeaders(part2, decoded);
+            Assert.assertFalse(part2.hasRemaining());
+
+            Assert.assertEquals(expected.size(), decoded.size());
+            long total = 0;
+            for (int i = 0; i < expected.size(); i++) {
+                assertHeaderEquals(expected.get(i), decoded.get(i));
+                total += new HPackHeader(expected.get(i)).getTotalSize();
+            }
+            Assert.assertEquals(total, size1 + size2);
+        }
+
+        final HPackDecoder decoder = new HPackDecoder(StandardCharsets.UTF_8);
+        final long size = decoder.decodeHeaders(ByteBuffer.wrap(buffer.array(), 0, buffer.length()), null);
+        Assert.assertTrue(size > 0);
+        // Discarded headers must still update the dynamic table
+        final List<Header> decoded = decoder.decodeHeaders(ByteBuffer.wrap(new byte[] {(byte) 0xbe}));
+        Assert.assertEquals(1, decoded.size());
+        assertHeaderEquals(new BasicHeader("custom-key", "custom-header"), decoded.get(0));
+    }
+
+}
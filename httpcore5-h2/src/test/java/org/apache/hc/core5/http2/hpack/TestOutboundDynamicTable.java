@@ -66,5 +66,66 @@ public void testEviction() throws Exception {
         Assert.assertEquals(0, table.getCurrentSize());
     }
 
-}
+    @Test
+    public void testLookup() throws Exception {
+
+        final OutboundDynamicTable table = new OutboundDynamicTable();
+        Assert.assertEquals(0, table.findName("h"));
+        Assert.assertEquals(0, table.findFull("h", "1"));
+
+        table.add(new HPackHeader("h", "1"));
+        table.add(new HPackHeader("x", "1"));
+        table.add(new HPackHeader("h", "2"));
+
+        Assert.assertEquals(62, table.findName("h"));
+        Assert.assertEquals(62, table.findFull("h", "2"));
+        Assert.assertEquals(64, table.findFull("h", "1"));
+        Assert.assertEquals(63, table.findFull("x", "1"));
+        Assert.assertEquals(0, table.findFull("x", "2"));
+        Assert.assertEquals(0, table.findName("y"));
+
+        table.setMaxSize(34 * 2);
+        Assert.assertEquals(0, table.findFull("h", "1"));
+        Assert.assertEquals(62, table.findName("h"));
+        Assert.assertEquals(63, table.findName("x"));
+    }
 
+    @Test
+    public void testLookupAfterGrowth() throws Exception {
+
+        final OutboundDynamicTable table = new OutboundDynamicTable();
+        table.setMaxSize(37 * 20);
+        for (int i = 0; i < 100; i++) {
+            table.add(new HPackHeader("h" + (i % 7), String.format("%03d", i)));
+        }
+        Assert.assertEquals(20, table.dynamicLength());
+        for (int i = 0; i < 100; i++) {
+            final int index = table.findFull("h" + (i % 7), String.format("%03d", i));
+            if (i < 80) {
+                Assert.assertEquals(0, index);
+            } else {
+                Assert.assertEquals(61 + 100 - i, index);
+                Assert.assertEquals(String.format("%03d", i), table.getHeader(index).getValue());
+            }
+        }
+        Assert.assertEquals(62, table.findName("h1"));
+    }
+
+    @Test
+    public void testStaticTableLookup() throws Exception {
+
+        final StaticTable table = StaticTable.INSTANCE;
+        for (int i = 1; i <= table.length(); i++) {
+            final HPackHeader header = table.get(i);
+            Assert.assertEquals(i, table.findFull(header.getName(), header.getValue()));
+            final int nameIndex = table.findName(header.getName());
+            Assert.assertTrue(nameIndex > 0 && nameIndex <= i);
+            Assert.assertEquals(header.getName(), table.get(nameIndex).getName());
+        }
+        Assert.assertEquals(2, table.findFull(":method", "GET"));
+        Assert.assertEquals(0, table.findFull(":method", "PUT"));
+        Assert.assertEquals(2, table.findName(":method"));
+        Assert.assertEquals(0, table.findName("x-custom"));
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http2.impl.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.hc.core5.http.nio.AsyncClientExchangeHandler;
+import org.apache.hc.core5.http.nio.RequestChannel;
+import org.apache.hc.core5.http.nio.command.ExecutionCommand;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.http2.H2Error;
+import org.apache.hc.core5.http2.H2StreamResetException;
+import org.apache.hc.core5.http2.WritableByteChannelMock;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.http2.config.H2Param;
+import org.apache.hc.core5.http2.config.H2Setting;
+import org.apache.hc.core5.http2.frame.DefaultFrameFactory;
+import org.apache.hc.core5.http2.frame.FrameFactory;
+import org.apache.hc.core5.http2.frame.RawFrame;
+import org.apache.hc.core5.http2.impl.Http2Processors;
+import org.apache.hc.core5.io.ShutdownType;
+import org.apache.hc.core5.reactor.TlsCapableIOSession;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+public class TestClientHttp2StreamMultiplexer {
+
+    static class SessionChannel implements ByteChannel {
+
+        private final Deque<ByteBuffer> inbound = new ArrayDeque<>();
+        private final WritableByteChannelMock outbound = new WritableByteChannelMock(1024);
+
+        void feed(final RawFrame... frames) throws IOException {
+            final WritableByteChannelMock channel = new WritableByteChannelMock(1024);
+            final FrameOutputBuffer outputBuffer = new FrameOutputBuffer(16 * 1024);
+            for (final RawFrame frame: frames) {
+                outputBuffer.write(frame, channel);
+            }
+            inbound.add(ByteBuffer.wrap(channel.toByteArray()));
+        }
+
+        @Override
+        public int read(final ByteBuffer dst) throws IOException {
+            final ByteBuffer src = inbound.peek();
+            if (src == null) {
+                return 0;
+            }
+            final int chunk = Math.min(src.remaining(), dst.remaining());
+            for (int i = 0; i < chunk; i++) {
+                dst.put(src.get());
+            }
+            if (!src.hasRemaining()) {
+                inbound.poll();
+            }
+            return chunk;
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            return outbound.write(src);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+
+    }
+
+    private final FrameFactory frameFactory = DefaultFrameFactory.INSTANCE;
+
+    private SessionChannel channel;
+    private TlsCapableIOSession session;
+
+    @Before
+    public void setup() throws Exception {
+        channel = new SessionChannel();
+        session = Mockito.mock(TlsCapableIOSession.class);
+        Mockito.when(session.channel()).thenReturn(channel);
+    }
+
+    private ClientHttp2StreamMultiplexer connect(final H2Config h2Config, final int maxConcurrentStreams) throws Exception {
+        final ClientHttp2StreamMultiplexer multiplexer = new ClientHttp2StreamMultiplexer(
+                session, Http2Processors.client(), h2Config, null);
+        multiplexer.onConnect(null);
+        channel.feed(
+                frameFactory.createSettings(new H2Setting(H2Param.MAX_CONCURRENT_STREAMS, maxConcurrentStreams)),
+                frameFactory.createSettingsAck());
+        multiplexer.onInput();
+        return multiplexer;
+    }
+
+    private static ExecutionCommand execution(final AsyncClientExchangeHandler exchangeHandler) {
+        return new ExecutionCommand(exchangeHandler, HttpCoreContext.create());
+    }
+
+    @Test
+    public void testStreamResetWhileQueuedForOutput() throws Exception {
+        final ClientHttp2StreamMultiplexer multiplexer = connect(H2Config.DEFAULT, 100);
+
+        final AsyncClientExchangeHandler exchangeHandler1 = Mockito.mock(AsyncClientExchangeHandler.class);
+        final AsyncClientExchangeHandler exchangeHandler2 = Mockito.mock(AsyncClientExchangeHandler.class);
+        final AsyncClientExchangeHandler exchangeHandler3 = Mockito.mock(AsyncClientExchangeHandler.class);
+        Mockito.when(session.getCommand()).thenReturn(
+                execution(exchangeHandler1), execution(exchangeHandler2), execution(exchangeHandler3), null);
+        multiplexer.onOutput();
+
+        // Requests have not been produced yet, all three streams still want output
+        Assert.assertEquals(3, multiplexer.getActiveStreamCount());
+        Assert.assertEquals(3, multiplexer.getReadyStreamCount());
+
+        channel.feed(frameFactory.createResetStream(3, H2Error.CANCEL));
+        multiplexer.onInput();
+
+        Mockito.verify(exchangeHandler2).failed(ArgumentMatchers.any(H2StreamResetException.class));
+        Mockito.verify(exchangeHandler2).releaseResources();
+        Assert.assertEquals(2, multiplexer.getActiveStreamCount());
+        Assert.assertEquals(2, multiplexer.getReadyStreamCount());
+
+        channel.feed(
+                frameFactory.createResetStream(5, H2Error.CANCEL),
+                frameFactory.createResetStream(1, H2Error.CANCEL));
+        multiplexer.onInput();
+
+        Assert.assertEquals(0, multiplexer.getActiveStreamCount());
+        Assert.assertEquals(0, multiplexer.getReadyStreamCount());
+
+        multiplexer.onOutput();
+        Mockito.verify(exchangeHandler1, Mockito.times(1)).releaseResources();
+        Mockito.verify(exchangeHandler2, Mockito.times(1)).releaseResources();
+        Mockito.verify(exchangeHandler3, Mockito.times(1)).releaseResources();
+        Mockito.verify(exchangeHandler1, Mockito.times(1)).produceRequest(ArgumentMatchers.<RequestChannel>any());
+    }
+
+    @Test
+    public void testPendingExecutionExpiryWithoutFurtherIO() throws Exception {
+        final H2Config h2Config = H2Config.custom()
+                .setMaxPendingStreams(10)
+                .setPendingStreamTimeout(Timeout.ofMillis(50))
+                .build();
+        Mockito.when(session.getSocketTimeout()).thenReturn(30000);
+        final ClientHttp2StreamMultiplexer multiplexer = connect(h2Config, 1);
+
+        final AsyncClientExchangeHandler exchangeHandler1 = Mockito.mock(AsyncClientExchangeHandler.class);
+        final AsyncClientExchangeHandler exchangeHandler2 = Mockito.mock(AsyncClientExchangeHandler.class);
+        Mockito.when(session.getCommand()).thenReturn(execution(exchangeHandler1), execution(exchangeHandler2), null);
+        multiplexer.onOutput();
+
+        Assert.assertEquals(1, multiplexer.getActiveStreamCount());
+        Assert.assertEquals(1, multiplexer.getPendingStreamCount());
+        Mockito.clearInvocations(session);
+
+        // A timer requests an output event once the execution is due
+        Mockito.verify(session, Mockito.timeout(5000)).setEvent(SelectionKey.OP_WRITE);
+        multiplexer.onOutput();
+
+        Mockito.verify(exchangeHandler2).failed(ArgumentMatchers.any(H2StreamResetException.class));
+        Mockito.verify(exchangeHandler2).releaseResources();
+        Mockito.verify(exchangeHandler1, Mockito.never()).failed(ArgumentMatchers.any(Exception.class));
+        Assert.assertEquals(1, multiplexer.getActiveStreamCount());
+        Assert.assertEquals(0, multiplexer.getPendingStreamCount());
+        // The session timeout retains its meaning
+        Mockito.verify(session, Mockito.never()).setSocketTimeout(ArgumentMatchers.anyInt());
+        Assert.assertEquals(30000, multiplexer.getSocketTimeout());
+        Mockito.verify(session, Mockito.never()).shutdown(ArgumentMatchers.any(ShutdownType.class));
+    }
+
+}
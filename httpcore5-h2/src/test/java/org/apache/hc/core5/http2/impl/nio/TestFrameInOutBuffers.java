@@ -271,5 +271,36 @@ public void testReadFrameExceedingLimit() throws Exception {
         inbuffer.read(readableChannel);
     }
 
-}
+    @Test
+    public void testWriteFrameSegmentedPayload() throws Exception {
+        final WritableByteChannelMock writableChannel = new WritableByteChannelMock(1024, FrameConsts.HEAD_LEN + 3);
+        final FrameOutputBuffer outbuffer = new FrameOutputBuffer(16 * 1024);
+
+        final RawFrame frame = new RawFrame(FrameType.DATA.getValue(), 0, 1, null);
+        outbuffer.write(frame, new ByteBuffer[] {
+                ByteBuffer.wrap(new byte[]{1,2}), ByteBuffer.wrap(new byte[]{3,4,5}) }, writableChannel);
+        Assert.assertArrayEquals(new byte[] {0,0,5,0,0,0,0,0,1,1,2,3}, writableChannel.toByteArray());
+        Assert.assertFalse(outbuffer.isEmpty());
+
+        writableChannel.flush();
+        outbuffer.flush(writableChannel);
+        Assert.assertTrue(outbuffer.isEmpty());
+
+        final byte[] bytes = writableChannel.toByteArray();
+        Assert.assertEquals(FrameConsts.HEAD_LEN + 5, bytes.length);
+        Assert.assertEquals(1, outbuffer.getMetrics().getFramesTransferred());
+        Assert.assertEquals(bytes.length, outbuffer.getMetrics().getBytesTransferred());
 
+        final FrameInputBuffer inbuffer = new FrameInputBuffer(16 * 1024);
+        final RawFrame frame2 = inbuffer.read(new ReadableByteChannelMock(bytes));
+        Assert.assertEquals(FrameType.DATA.getValue(), frame2.getType());
+        Assert.assertEquals(1L, frame2.getStreamId());
+        final ByteBuffer payload2 = frame2.getPayloadContent();
+        Assert.assertNotNull(payload2);
+        Assert.assertEquals(5, payload2.remaining());
+        for (int i = 1; i <= 5; i++) {
+            Assert.assertEquals(i, payload2.get());
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http2.impl.nio;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestIntObjectMap {
+
+    @Test
+    public void testBasics() throws Exception {
+        final IntObjectMap<String> map = new IntObjectMap<>();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.put(1, "one"));
+        Assert.assertNull(map.put(3, "three"));
+        Assert.assertEquals("one", map.put(1, "uno"));
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals("uno", map.get(1));
+        Assert.assertNull(map.get(5));
+        Assert.assertEquals("three", map.remove(3));
+        Assert.assertNull(map.remove(3));
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals(1, map.values().size());
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroKey() throws Exception {
+        final IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(0, "zero");
+    }
+
+    @Test
+    public void testAgainstHashMap() throws Exception {
+        final IntObjectMap<Integer> map = new IntObjectMap<>();
+        final Map<Integer, Integer> expected = new HashMap<>();
+        final Random random = new Random(12345L);
+        for (int i = 0; i < 100000; i++) {
+            final int key = 1 + random.nextInt(2000) * 2;
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                Assert.assertEquals(expected.put(key, i), map.put(key, i));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+        for (final Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            Assert.assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        Assert.assertEquals(expected.size(), map.values().size());
+    }
+
+}
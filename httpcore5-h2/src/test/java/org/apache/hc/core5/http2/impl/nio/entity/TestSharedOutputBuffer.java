@@ -63,6 +63,15 @@ public synchronized int write(final ByteBuffer src) throws IOException {
             return channel.write(src);
         }
 
+        @Override
+        public synchronized long write(final ByteBuffer[] srcs) throws IOException {
+            long total = 0;
+            for (final ByteBuffer src: srcs) {
+                total += channel.write(src);
+            }
+            return total;
+        }
+
         @Override
         public synchronized  void requestOutput() {
             notifyAll();
@@ -0,0 +1,216 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.testing.nio;
+
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Simulated network link characteristics applied by {@link NetworkSimulatorIOSessionDecorator}.
+ * <p>
+ * Latency, jitter and bandwidth apply to outgoing data: each end of a connection
+ * decorated with the same conditions experiences a symmetric link.
+ * </p>
+ */
+public final class NetworkConditions {
+
+    public static final NetworkConditions DEFAULT = new Builder().build();
+
+    private final TimeValue latency;
+    private final TimeValue jitter;
+    private final long bandwidth;
+    private final int maxSegmentSize;
+    private final int sendBufferSize;
+    private final TimeValue stallInterval;
+    private final TimeValue stallDuration;
+    private final long seed;
+
+    NetworkConditions(
+            final TimeValue latency,
+            final TimeValue jitter,
+            final long bandwidth,
+            final int maxSegmentSize,
+            final int sendBufferSize,
+            final TimeValue stallInterval,
+            final TimeValue stallDuration,
+            final long seed) {
+        this.latency = latency;
+        this.jitter = jitter;
+        this.bandwidth = bandwidth;
+        this.maxSegmentSize = maxSegmentSize;
+        this.sendBufferSize = sendBufferSize;
+        this.stallInterval = stallInterval;
+        this.stallDuration = stallDuration;
+        this.seed = seed;
+    }
+
+    /**
+     * One way delay of outgoing data.
+     */
+    public TimeValue getLatency() {
+        return latency;
+    }
+
+    /**
+     * Maximum random delay added to the latency of individual segments.
+     * Segments never overtake each other.
+     */
+    public TimeValue getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Link bandwidth in bytes per second. Zero means unlimited.
+     */
+    public long getBandwidth() {
+        return bandwidth;
+    }
+
+    /**
+     * Maximum number of bytes transferred by a single read or write operation.
+     * Zero means unlimited.
+     */
+    public int getMaxSegmentSize() {
+        return maxSegmentSize;
+    }
+
+    /**
+     * Maximum number of bytes in flight per connection and direction. Writes
+     * make no progress once the limit has been reached.
+     */
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * Interval at which I/O stalls recur. Zero disables stalls.
+     */
+    public TimeValue getStallInterval() {
+        return stallInterval;
+    }
+
+    /**
+     * Duration of each stall during which reads and writes make no progress.
+     */
+    public TimeValue getStallDuration() {
+        return stallDuration;
+    }
+
+    /**
+     * Seed of the random sequence used to generate jitter.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private TimeValue latency;
+        private TimeValue jitter;
+        private long bandwidth;
+        private int maxSegmentSize;
+        private int sendBufferSize;
+        private TimeValue stallInterval;
+        private TimeValue stallDuration;
+        private long seed;
+
+        Builder() {
+            this.latency = TimeValue.ZERO_MILLISECONDS;
+            this.jitter = TimeValue.ZERO_MILLISECONDS;
+            this.sendBufferSize = 64 * 1024;
+            this.stallInterval = TimeValue.ZERO_MILLISECONDS;
+            this.stallDuration = TimeValue.ZERO_MILLISECONDS;
+        }
+
+        public Builder setLatency(final TimeValue latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        public Builder setJitter(final TimeValue jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        public Builder setBandwidth(final long bandwidth) {
+            this.bandwidth = Args.notNegative(bandwidth, "Bandwidth");
+            return this;
+        }
+
+        public Builder setMaxSegmentSize(final int maxSegmentSize) {
+            this.maxSegmentSize = Args.notNegative(maxSegmentSize, "Max segment size");
+            return this;
+        }
+
+        public Builder setSendBufferSize(final int sendBufferSize) {
+            this.sendBufferSize = Args.positive(sendBufferSize, "Send buffer size");
+            return this;
+        }
+
+        public Builder setStalls(final TimeValue stallInterval, final TimeValue stallDuration) {
+            this.stallInterval = stallInterval;
+            this.stallDuration = stallDuration;
+            return this;
+        }
+
+        public Builder setSeed(final long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public NetworkConditions build() {
+            return new NetworkConditions(
+                    TimeValue.defaultsToZeroMillis(latency),
+                    TimeValue.defaultsToZeroMillis(jitter),
+                    bandwidth,
+                    maxSegmentSize,
+                    sendBufferSize,
+                    TimeValue.defaultsToZeroMillis(stallInterval),
+                    TimeValue.defaultsToZeroMillis(stallDuration),
+                    seed);
+        }
+
+    }
+
+    @Override
+    public String toString() {
+        return "[latency=" + latency +
+                ", jitter=" + jitter +
+                ", bandwidth=" + bandwidth +
+                ", maxSegmentSize=" + maxSegmentSize +
+                ", sendBufferSize=" + sendBufferSize +
+                ", stallInterval=" + stallInterval +
+                ", stallDuration=" + stallDuration +
+                ']';
+    }
+
+}
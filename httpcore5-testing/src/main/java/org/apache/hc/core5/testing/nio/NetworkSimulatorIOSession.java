@@ -0,0 +1,455 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.testing.nio;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.io.ShutdownType;
+import org.apache.hc.core5.reactor.Command;
+import org.apache.hc.core5.reactor.IOEventHandler;
+import org.apache.hc.core5.reactor.IOSession;
+
+/**
+ * {@link IOSession} decorator that simulates properties of a network link.
+ * <p>
+ * Outgoing data is accepted into a bounded in-flight buffer and handed over
+ * to the underlying channel once its simulated transmission and propagation delay
+ * has elapsed. Reads and writes are limited to the maximum segment size and make
+ * no progress during periodic stalls. Interest in I/O events that cannot make progress
+ * is suspended on the underlying session and gets resumed by a timer, so
+ * the I/O dispatch thread never spins.
+ * </p>
+ */
+public class NetworkSimulatorIOSession implements IOSession {
+
+    private static final long RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final IOSession session;
+    private final NetworkConditions conditions;
+    private final NetworkSimulatorIOSessionDecorator simulator;
+    private final ScheduledExecutorService scheduler;
+    private final ByteChannel channel;
+    private final Deque<Segment> inFlight;
+    private final Runnable flushTask;
+    private final long startTime;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final long stallIntervalNanos;
+    private final long stallDurationNanos;
+
+    private int requestedOps;
+    private int suspendedOps;
+    private int bufferedBytes;
+    private long lastDeparture;
+    private long lastArrival;
+    private boolean flushScheduled;
+    private boolean closeRequested;
+    private IOException failure;
+
+    NetworkSimulatorIOSession(
+            final IOSession session,
+            final NetworkConditions conditions,
+            final NetworkSimulatorIOSessionDecorator simulator,
+            final ScheduledExecutorService scheduler) {
+        super();
+        this.session = session;
+        this.conditions = conditions;
+        this.simulator = simulator;
+        this.scheduler = scheduler;
+        this.channel = new SimulatedByteChannel();
+        this.inFlight = new ArrayDeque<>();
+        this.flushTask = new Runnable() {
+
+            @Override
+            public void run() {
+                flush();
+            }
+
+        };
+        this.startTime = System.nanoTime();
+        this.latencyNanos = conditions.getLatency().toNanos();
+        this.jitterNanos = conditions.getJitter().toNanos();
+        this.stallIntervalNanos = conditions.getStallInterval().toNanos();
+        this.stallDurationNanos = Math.min(conditions.getStallDuration().toNanos(), this.stallIntervalNanos);
+        this.requestedOps = session.getEventMask();
+    }
+
+    /**
+     * Returns the time the current stall ends at or {@code -1} if I/O is not stalled.
+     * Each stall interval ends with a stall.
+     */
+    private long stallEnd(final long now) {
+        if (stallIntervalNanos <= 0 || stallDurationNanos <= 0) {
+            return -1;
+        }
+        final long phase = (now - startTime) % stallIntervalNanos;
+        return phase >= stallIntervalNanos - stallDurationNanos ? now + stallIntervalNanos - phase : -1;
+    }
+
+    private void applyEventMask() {
+        if (!closeRequested) {
+            session.setEventMask(requestedOps & ~suspendedOps);
+        }
+    }
+
+    private void schedule(final Runnable task, final long delayNanos) {
+        try {
+            scheduler.schedule(task, Math.max(delayNanos, 0), TimeUnit.NANOSECONDS);
+        } catch (final RejectedExecutionException ignore) {
+            // simulator has been shut down
+        }
+    }
+
+    private void suspend(final int op, final long resumeTime, final long now) {
+        if ((suspendedOps & op) == 0) {
+            suspendedOps |= op;
+            applyEventMask();
+            simulator.stalled();
+            scheduleResume(op, resumeTime - now);
+        }
+    }
+
+    private void scheduleResume(final int op, final long delayNanos) {
+        schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                resume(op);
+            }
+
+        }, delayNanos);
+    }
+
+    private synchronized void resume(final int op) {
+        if ((suspendedOps & op) != 0) {
+            suspendedOps &= ~op;
+            applyEventMask();
+        }
+    }
+
+    private synchronized int read(final ByteBuffer dst) throws IOException {
+        final long now = System.nanoTime();
+        final long stallEnd = stallEnd(now);
+        if (stallEnd > 0) {
+            suspend(SelectionKey.OP_READ, stallEnd, now);
+            return 0;
+        }
+        final int maxSegmentSize = conditions.getMaxSegmentSize();
+        final int bytesRead;
+        if (maxSegmentSize > 0 && dst.remaining() > maxSegmentSize) {
+            final ByteBuffer segment = dst.duplicate();
+            segment.limit(segment.position() + maxSegmentSize);
+            bytesRead = session.channel().read(segment);
+            if (bytesRead > 0) {
+                dst.position(dst.position() + bytesRead);
+            }
+        } else {
+            bytesRead = session.channel().read(dst);
+        }
+        if (bytesRead > 0) {
+            simulator.received(bytesRead);
+        }
+        return bytesRead;
+    }
+
+    private synchronized int write(final ByteBuffer src) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closeRequested || !session.channel().isOpen()) {
+            throw new ClosedChannelException();
+        }
+        final long now = System.nanoTime();
+        final long stallEnd = stallEnd(now);
+        if (stallEnd > 0) {
+            suspend(SelectionKey.OP_WRITE, stallEnd, now);
+            return 0;
+        }
+        final int space = conditions.getSendBufferSize() - bufferedBytes;
+        if (space <= 0) {
+            // resumed once in-flight data has been delivered
+            if ((suspendedOps & SelectionKey.OP_WRITE) == 0) {
+                suspendedOps |= SelectionKey.OP_WRITE;
+                applyEventMask();
+                simulator.stalled();
+            }
+            return 0;
+        }
+        final int maxSegmentSize = conditions.getMaxSegmentSize();
+        final int n = Math.min(Math.min(src.remaining(), space), maxSegmentSize > 0 ? maxSegmentSize : Integer.MAX_VALUE);
+        if (n <= 0) {
+            return 0;
+        }
+        final byte[] data = new byte[n];
+        src.get(data);
+        final long bandwidth = conditions.getBandwidth();
+        final long transmission = bandwidth > 0 ? n * TimeUnit.SECONDS.toNanos(1) / bandwidth : 0;
+        final long departure = Math.max(now, lastDeparture) + transmission;
+        lastDeparture = departure;
+        final long jitter = jitterNanos > 0 ? (long) (simulator.nextRandom() * jitterNanos) : 0;
+        // segments never overtake each other
+        final long arrival = Math.max(departure + latencyNanos + jitter, lastArrival);
+        lastArrival = arrival;
+        inFlight.addLast(new Segment(ByteBuffer.wrap(data), arrival));
+        bufferedBytes += n;
+        if (!flushScheduled) {
+            flushScheduled = true;
+            schedule(flushTask, arrival - now);
+        }
+        return n;
+    }
+
+    private synchronized void flush() {
+        flushScheduled = false;
+        final long now = System.nanoTime();
+        Segment segment;
+        while ((segment = inFlight.peekFirst()) != null && segment.arrival <= now) {
+            try {
+                final int bytesWritten = session.channel().write(segment.data);
+                if (bytesWritten > 0) {
+                    simulator.sent(bytesWritten);
+                }
+            } catch (final IOException ex) {
+                failure = ex;
+                inFlight.clear();
+                bufferedBytes = 0;
+                // let the handler run into the failure
+                suspendedOps &= ~SelectionKey.OP_WRITE;
+                applyEventMask();
+                if (closeRequested) {
+                    session.close();
+                }
+                return;
+            }
+            if (segment.data.hasRemaining()) {
+                // transport buffer is full
+                break;
+            }
+            inFlight.pollFirst();
+            bufferedBytes -= segment.data.capacity();
+        }
+        if (segment != null) {
+            flushScheduled = true;
+            schedule(flushTask, segment.arrival <= now ? RETRY_NANOS : segment.arrival - now);
+        } else if (closeRequested) {
+            session.close();
+            return;
+        }
+        if ((suspendedOps & SelectionKey.OP_WRITE) != 0 && bufferedBytes < conditions.getSendBufferSize()) {
+            final long stallEnd = stallEnd(now);
+            if (stallEnd < 0) {
+                suspendedOps &= ~SelectionKey.OP_WRITE;
+                applyEventMask();
+            } else {
+                scheduleResume(SelectionKey.OP_WRITE, stallEnd - now);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes accepted for transmission but not yet delivered.
+     */
+    public synchronized int getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    @Override
+    public String getId() {
+        return session.getId();
+    }
+
+    @Override
+    public IOEventHandler getHandler() {
+        return session.getHandler();
+    }
+
+    @Override
+    public void setHandler(final IOEventHandler handler) {
+        session.setHandler(handler);
+    }
+
+    @Override
+    public void addLast(final Command command) {
+        session.addLast(command);
+        setEvent(SelectionKey.OP_WRITE);
+    }
+
+    @Override
+    public void addFirst(final Command command) {
+        session.addFirst(command);
+        setEvent(SelectionKey.OP_WRITE);
+    }
+
+    @Override
+    public Command getCommand() {
+        return session.getCommand();
+    }
+
+    @Override
+    public ByteChannel channel() {
+        return channel;
+    }
+
+    @Override
+    public SocketAddress getRemoteAddress() {
+        return session.getRemoteAddress();
+    }
+
+    @Override
+    public SocketAddress getLocalAddress() {
+        return session.getLocalAddress();
+    }
+
+    @Override
+    public synchronized int getEventMask() {
+        return requestedOps;
+    }
+
+    @Override
+    public synchronized void setEventMask(final int ops) {
+        requestedOps = ops;
+        applyEventMask();
+    }
+
+    @Override
+    public synchronized void setEvent(final int op) {
+        requestedOps |= op;
+        applyEventMask();
+    }
+
+    @Override
+    public synchronized void clearEvent(final int op) {
+        requestedOps &= ~op;
+        applyEventMask();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closeRequested) {
+                return;
+            }
+            closeRequested = true;
+            if (!inFlight.isEmpty()) {
+                // close once in-flight data has been delivered
+                session.setEventMask(0);
+                return;
+            }
+        }
+        session.close();
+    }
+
+    @Override
+    public void shutdown(final ShutdownType shutdownType) {
+        if (shutdownType == ShutdownType.GRACEFUL) {
+            close();
+            return;
+        }
+        synchronized (this) {
+            closeRequested = true;
+            inFlight.clear();
+            bufferedBytes = 0;
+        }
+        session.shutdown(shutdownType);
+    }
+
+    @Override
+    public int getStatus() {
+        final int status = session.getStatus();
+        synchronized (this) {
+            return closeRequested && status == ACTIVE ? CLOSING : status;
+        }
+    }
+
+    @Override
+    public synchronized boolean isClosed() {
+        return closeRequested || session.isClosed();
+    }
+
+    @Override
+    public int getSocketTimeout() {
+        return session.getSocketTimeout();
+    }
+
+    @Override
+    public void setSocketTimeout(final int timeout) {
+        session.setSocketTimeout(timeout);
+    }
+
+    @Override
+    public String toString() {
+        return session.toString();
+    }
+
+    static final class Segment {
+
+        final ByteBuffer data;
+        final long arrival;
+
+        Segment(final ByteBuffer data, final long arrival) {
+            this.data = data;
+            this.arrival = arrival;
+        }
+
+    }
+
+    class SimulatedByteChannel implements ByteChannel {
+
+        @Override
+        public int read(final ByteBuffer dst) throws IOException {
+            return NetworkSimulatorIOSession.this.read(dst);
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            return NetworkSimulatorIOSession.this.write(src);
+        }
+
+        @Override
+        public void close() throws IOException {
+            NetworkSimulatorIOSession.this.close();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !isClosed();
+        }
+
+    }
+
+}
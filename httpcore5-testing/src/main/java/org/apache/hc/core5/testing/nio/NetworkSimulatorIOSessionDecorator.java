@@ -0,0 +1,140 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.testing.nio;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
+import org.apache.hc.core5.function.Decorator;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Decorates I/O sessions with {@link NetworkSimulatorIOSession} in order to reproduce
+ * effects of slow or unreliable network links on a local connection. Decorate both
+ * client and server sessions to simulate a symmetric link.
+ * <p>
+ * The decorator keeps aggregate statistics of all sessions it has decorated.
+ * </p>
+ */
+public class NetworkSimulatorIOSessionDecorator implements Decorator<IOSession> {
+
+    private final NetworkConditions conditions;
+    private final ScheduledExecutorService scheduler;
+    private final Random random;
+    private final AtomicLong bytesSent;
+    private final AtomicLong bytesReceived;
+    private final AtomicLong readCount;
+    private final AtomicLong stallCount;
+
+    public NetworkSimulatorIOSessionDecorator(final NetworkConditions conditions) {
+        this.conditions = Args.notNull(conditions, "Network conditions");
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("network-simulator", true));
+        this.random = new Random(conditions.getSeed());
+        this.bytesSent = new AtomicLong(0);
+        this.bytesReceived = new AtomicLong(0);
+        this.readCount = new AtomicLong(0);
+        this.stallCount = new AtomicLong(0);
+    }
+
+    @Override
+    public IOSession decorate(final IOSession ioSession) {
+        return new NetworkSimulatorIOSession(ioSession, conditions, this, scheduler);
+    }
+
+    double nextRandom() {
+        return random.nextDouble();
+    }
+
+    void sent(final int bytes) {
+        bytesSent.addAndGet(bytes);
+    }
+
+    void received(final int bytes) {
+        bytesReceived.addAndGet(bytes);
+        readCount.incrementAndGet();
+    }
+
+    void stalled() {
+        stallCount.incrementAndGet();
+    }
+
+    public NetworkConditions getConditions() {
+        return conditions;
+    }
+
+    /**
+     * Returns the total number of bytes delivered to the underlying transport.
+     */
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * Returns the total number of bytes read from the underlying transport.
+     */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * Returns the number of read operations that returned data.
+     */
+    public long getReadCount() {
+        return readCount.get();
+    }
+
+    /**
+     * Returns the number of times reads or writes got suspended either due to
+     * a stall or a full in-flight buffer.
+     */
+    public long getStallCount() {
+        return stallCount.get();
+    }
+
+    /**
+     * Stops delivery of in-flight data of all decorated sessions.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "[conditions=" + conditions +
+                ", bytesSent=" + bytesSent +
+                ", bytesReceived=" + bytesReceived +
+                ", readCount=" + readCount +
+                ", stallCount=" + stallCount +
+                ']';
+    }
+
+}
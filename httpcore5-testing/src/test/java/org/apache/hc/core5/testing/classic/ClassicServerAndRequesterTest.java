@@ -27,7 +27,9 @@
 
 package org.apache.hc.core5.testing.classic;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ClassicHttpResponse;
@@ -46,6 +48,7 @@
 import org.apache.hc.core5.http.io.HttpFilterChain;
 import org.apache.hc.core5.http.io.HttpFilterHandler;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.FileEntity;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.core5.http.message.BasicClassicHttpRequest;
 import org.apache.hc.core5.http.protocol.HttpContext;
@@ -215,4 +218,47 @@ public void testSequentialRequestsNonPersistentConnection() throws Exception {
         }
     }
 
+    @Test
+    public void testFileTransferOverSocketChannels() throws Exception {
+        final SocketConfig socketConfig = SocketConfig.custom()
+                .setSoTimeout(TIMEOUT)
+                .setSocketChannelBacked(true)
+                .build();
+        final HttpServer channelServer = ServerBootstrap.bootstrap()
+                .setSocketConfig(socketConfig)
+                .register("*", new EchoHandler())
+                .setExceptionListener(LoggingExceptionListener.INSTANCE)
+                .setStreamListener(LoggingHttp1StreamListener.INSTANCE)
+                .create();
+        final HttpRequester channelRequester = RequesterBootstrap.bootstrap()
+                .setSocketConfig(socketConfig)
+                .setStreamListener(LoggingHttp1StreamListener.INSTANCE)
+                .setConnPoolListener(LoggingConnPoolListener.INSTANCE)
+                .create();
+        final File file = File.createTempFile("content", ".bin");
+        try {
+            final byte[] content = new byte[128 * 1024];
+            for (int i = 0; i < content.length; i++) {
+                content[i] = (byte) (i % 251);
+            }
+            Files.write(file.toPath(), content);
+
+            channelServer.start();
+            final HttpHost target = new HttpHost("localhost", channelServer.getLocalPort());
+            final HttpCoreContext context = HttpCoreContext.create();
+            for (int i = 0; i < 3; i++) {
+                final ClassicHttpRequest request = new BasicClassicHttpRequest("POST", "/stuff");
+                request.setEntity(new FileEntity(file, ContentType.APPLICATION_OCTET_STREAM));
+                try (final ClassicHttpResponse response = channelRequester.execute(target, request, TIMEOUT, context)) {
+                    Assert.assertThat(response.getCode(), CoreMatchers.equalTo(HttpStatus.SC_OK));
+                    Assert.assertArrayEquals(content, EntityUtils.toByteArray(response.getEntity()));
+                }
+            }
+        } finally {
+            file.delete();
+            channelRequester.shutdown(ShutdownType.GRACEFUL);
+            channelServer.shutdown(ShutdownType.IMMEDIATE);
+        }
+    }
+
 }
@@ -27,12 +27,18 @@
 
 package org.apache.hc.core5.testing.nio;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hc.core5.function.Supplier;
 import org.apache.hc.core5.http.ContentType;
@@ -56,13 +62,23 @@
 import org.apache.hc.core5.http.nio.AsyncFilterChain;
 import org.apache.hc.core5.http.nio.AsyncFilterHandler;
 import org.apache.hc.core5.http.nio.AsyncPushProducer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
 import org.apache.hc.core5.http.nio.AsyncServerExchangeHandler;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.BasicRequestConsumer;
 import org.apache.hc.core5.http.nio.BasicRequestProducer;
 import org.apache.hc.core5.http.nio.BasicResponseConsumer;
+import org.apache.hc.core5.http.nio.BasicResponseProducer;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.entity.FileEntityConsumer;
 import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
 import org.apache.hc.core5.http.nio.entity.StringAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.support.BasicServerExchangeHandler;
 import org.apache.hc.core5.http.protocol.HttpContext;
 import org.apache.hc.core5.io.ShutdownType;
+import org.apache.hc.core5.net.CachingAddressResolver;
+import org.apache.hc.core5.net.InMemoryAddressResolver;
 import org.apache.hc.core5.reactor.ExceptionEvent;
 import org.apache.hc.core5.reactor.IOReactorConfig;
 import org.apache.hc.core5.reactor.ListenerEndpoint;
@@ -84,6 +100,7 @@ public class Http1ServerAndRequesterTest {
     private final Logger log = LogManager.getLogger(getClass());
 
     private HttpAsyncServer server;
+    private final AtomicLong fileTransferCount = new AtomicLong();
 
     @Rule
     public ExternalResource serverResource = new ExternalResource() {
@@ -96,6 +113,51 @@ protected void before() throws Throwable {
                             IOReactorConfig.custom()
                                     .setSoTimeout(TIMEOUT)
                                     .build())
+                    .register("/upload", new Supplier<AsyncServerExchangeHandler>() {
+
+                        @Override
+                        public AsyncServerExchangeHandler get() {
+                            return new BasicServerExchangeHandler<>(new AsyncServerRequestHandler<Message<HttpRequest, File>>() {
+
+                                @Override
+                                public AsyncRequestConsumer<Message<HttpRequest, File>> prepare(
+                                        final HttpRequest request, final HttpContext context) throws HttpException {
+                                    final File file;
+                                    try {
+                                        file = File.createTempFile("upload", ".bin");
+                                    } catch (final IOException ex) {
+                                        throw new HttpException(ex.getMessage(), ex);
+                                    }
+                                    return new BasicRequestConsumer<>(new FileEntityConsumer(file) {
+
+                                        @Override
+                                        public long transfer(final FileContentDecoder contentDecoder) throws IOException {
+                                            final long bytesTransferred = super.transfer(contentDecoder);
+                                            if (bytesTransferred > 0) {
+                                                fileTransferCount.addAndGet(bytesTransferred);
+                                            }
+                                            return bytesTransferred;
+                                        }
+
+                                    });
+                                }
+
+                                @Override
+                                public void handle(
+                                        final Message<HttpRequest, File> requestMessage,
+                                        final ResponseTrigger responseTrigger,
+                                        final HttpContext context) throws HttpException, IOException {
+                                    final File file = requestMessage.getBody();
+                                    final long length = file.length();
+                                    file.delete();
+                                    responseTrigger.submitResponse(new BasicResponseProducer(
+                                            HttpStatus.SC_OK, Long.toString(length), ContentType.TEXT_PLAIN));
+                                }
+
+                            });
+                        }
+
+                    })
                     .register("*", new Supplier<AsyncServerExchangeHandler>() {
 
                         @Override
@@ -103,6 +165,14 @@ public AsyncServerExchangeHandler get() {
                             return new EchoHandler(2048);
                         }
 
+                    })
+                    .registerVirtual("some-upstream", "*", new Supplier<AsyncServerExchangeHandler>() {
+
+                        @Override
+                        public AsyncServerExchangeHandler get() {
+                            return new EchoHandler(2048);
+                        }
+
                     })
                     .addFilterBefore(StandardFilters.MAIN_HANDLER.name(), "no-keepalive", new AsyncFilterHandler() {
 
@@ -169,6 +239,7 @@ protected void after() {
     };
 
     private HttpAsyncRequester requester;
+    private InMemoryAddressResolver addressResolver;
 
     @Rule
     public ExternalResource clientResource = new ExternalResource() {
@@ -176,6 +247,8 @@ protected void after() {
         @Override
         protected void before() throws Throwable {
             log.debug("Starting up test client");
+            addressResolver = new InMemoryAddressResolver();
+            addressResolver.add("localhost", InetAddress.getByName("127.0.0.1"));
             requester = AsyncRequesterBootstrap.bootstrap()
                     .setIOReactorConfig(IOReactorConfig.custom()
                             .setSoTimeout(TIMEOUT)
@@ -184,6 +257,7 @@ protected void before() throws Throwable {
                     .setStreamListener(LoggingHttp1StreamListener.INSTANCE)
                     .setConnPoolListener(LoggingConnPoolListener.INSTANCE)
                     .setIOSessionDecorator(LoggingIOSessionDecorator.INSTANCE)
+                    .setAddressResolver(new CachingAddressResolver(addressResolver))
                     .create();
         }
 
@@ -251,6 +325,114 @@ public void testSequentialRequests() throws Exception {
         Assert.assertThat(body3, CoreMatchers.equalTo("some more stuff"));
     }
 
+    @Test
+    public void testUploadToFile() throws Exception {
+        server.start();
+        final Future<ListenerEndpoint> future = server.listen(new InetSocketAddress(0));
+        final ListenerEndpoint listener = future.get();
+        final InetSocketAddress address = (InetSocketAddress) listener.getAddress();
+        requester.start();
+
+        final byte[] content = new byte[1024 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 251);
+        }
+        final HttpHost target = new HttpHost("localhost", address.getPort());
+        final Future<Message<HttpResponse, String>> resultFuture = requester.execute(
+                new BasicRequestProducer("POST", target, "/upload",
+                        new BasicAsyncEntityProducer(content, ContentType.APPLICATION_OCTET_STREAM)),
+                new BasicResponseConsumer<>(new StringAsyncEntityConsumer()), TIMEOUT, null);
+        final Message<HttpResponse, String> message = resultFuture.get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+        Assert.assertThat(message, CoreMatchers.notNullValue());
+        final HttpResponse response = message.getHead();
+        Assert.assertThat(response.getCode(), CoreMatchers.equalTo(HttpStatus.SC_OK));
+        Assert.assertThat(message.getBody(), CoreMatchers.equalTo(Integer.toString(content.length)));
+        Assert.assertThat(fileTransferCount.get() > 0, CoreMatchers.equalTo(true));
+    }
+
+    @Test
+    public void testRequestsWithAddressResolver() throws Exception {
+        server.start();
+        final Future<ListenerEndpoint> future = server.listen(new InetSocketAddress(0));
+        final ListenerEndpoint listener = future.get();
+        final InetSocketAddress address = (InetSocketAddress) listener.getAddress();
+        requester.start();
+
+        addressResolver.add("some-upstream", InetAddress.getByName("127.0.0.1"));
+        final HttpHost target = new HttpHost("some-upstream", address.getPort());
+        final Future<Message<HttpResponse, String>> resultFuture1 = requester.execute(
+                new BasicRequestProducer("POST", target, "/stuff",
+                        new StringAsyncEntityProducer("some stuff", ContentType.TEXT_PLAIN)),
+                new BasicResponseConsumer<>(new StringAsyncEntityConsumer()), TIMEOUT, null);
+        final Message<HttpResponse, String> message1 = resultFuture1.get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+        Assert.assertThat(message1, CoreMatchers.notNullValue());
+        final HttpResponse response1 = message1.getHead();
+        Assert.assertThat(response1.getCode(), CoreMatchers.equalTo(HttpStatus.SC_OK));
+        Assert.assertThat(message1.getBody(), CoreMatchers.equalTo("some stuff"));
+
+        final HttpHost unknown = new HttpHost("unknown-upstream", address.getPort());
+        final Future<Message<HttpResponse, String>> resultFuture2 = requester.execute(
+                new BasicRequestProducer("POST", unknown, "/stuff",
+                        new StringAsyncEntityProducer("some stuff", ContentType.TEXT_PLAIN)),
+                new BasicResponseConsumer<>(new StringAsyncEntityConsumer()), TIMEOUT, null);
+        try {
+            resultFuture2.get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+            Assert.fail("ExecutionException expected");
+        } catch (final ExecutionException ex) {
+            Assert.assertThat(ex.getCause(), CoreMatchers.instanceOf(UnknownHostException.class));
+        }
+    }
+
+    @Test
+    public void testRequestsToMultiHomedHost() throws Exception {
+        server.start();
+        final Future<ListenerEndpoint> future = server.listen(new InetSocketAddress(0));
+        final ListenerEndpoint listener = future.get();
+        final InetSocketAddress address = (InetSocketAddress) listener.getAddress();
+        requester.start();
+
+        // The first address is non-routable (TEST-NET-1): the connection attempt either fails
+        // or hangs until the next address gets tried
+        addressResolver.add("localhost", InetAddress.getByName("192.0.2.1"), InetAddress.getByName("127.0.0.1"));
+        final HttpHost target = new HttpHost("localhost", address.getPort());
+        final Future<Message<HttpResponse, String>> resultFuture = requester.execute(
+                new BasicRequestProducer("POST", target, "/stuff",
+                        new StringAsyncEntityProducer("some stuff", ContentType.TEXT_PLAIN)),
+                new BasicResponseConsumer<>(new StringAsyncEntityConsumer()), TIMEOUT, null);
+        final Message<HttpResponse, String> message = resultFuture.get(5, TimeUnit.SECONDS);
+        Assert.assertThat(message, CoreMatchers.notNullValue());
+        final HttpResponse response = message.getHead();
+        Assert.assertThat(response.getCode(), CoreMatchers.equalTo(HttpStatus.SC_OK));
+        Assert.assertThat(message.getBody(), CoreMatchers.equalTo("some stuff"));
+    }
+
+    @Test
+    public void testConnectionPreWarming() throws Exception {
+        server.start();
+        final Future<ListenerEndpoint> future = server.listen(new InetSocketAddress(0));
+        final ListenerEndpoint listener = future.get();
+        final InetSocketAddress address = (InetSocketAddress) listener.getAddress();
+        requester.start();
+
+        final HttpHost target = new HttpHost("localhost", address.getPort());
+        requester.setMinIdle(target, 2);
+        Assert.assertThat(requester.getMinIdle(target), CoreMatchers.equalTo(2));
+        final long deadline = System.currentTimeMillis() + TIMEOUT.toMillis();
+        while (requester.getStats(target).getAvailable() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertThat(requester.getStats(target).getAvailable(), CoreMatchers.equalTo(2));
+
+        final Future<Message<HttpResponse, String>> resultFuture = requester.execute(
+                new BasicRequestProducer("POST", target, "/stuff",
+                        new StringAsyncEntityProducer("some stuff", ContentType.TEXT_PLAIN)),
+                new BasicResponseConsumer<>(new StringAsyncEntityConsumer()), TIMEOUT, null);
+        final Message<HttpResponse, String> message = resultFuture.get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+        Assert.assertThat(message, CoreMatchers.notNullValue());
+        Assert.assertThat(message.getHead().getCode(), CoreMatchers.equalTo(HttpStatus.SC_OK));
+        Assert.assertThat(message.getBody(), CoreMatchers.equalTo("some stuff"));
+    }
+
     @Test
     public void testSequentialRequestsNonPersistentConnection() throws Exception {
         server.start();
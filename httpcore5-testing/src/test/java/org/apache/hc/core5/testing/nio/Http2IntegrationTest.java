@@ -756,6 +756,55 @@ public AsyncServerExchangeHandler get() {
         }
     }
 
+    @Test
+    public void testStreamAdmissionQueueLimit() throws Exception {
+        server.register("/", new Supplier<AsyncServerExchangeHandler>() {
+
+            @Override
+            public AsyncServerExchangeHandler get() {
+                return new MultiLineResponseHandler("0123456789abcdef", 2000);
+            }
+
+        });
+        final InetSocketAddress serverEndpoint = server.start(H2Config.custom().setMaxConcurrentStreams(5).build());
+
+        client.start(H2Config.custom()
+                .setMaxPendingStreams(10)
+                .build());
+        final Future<ClientSessionEndpoint> connectFuture = client.connect(
+                "localhost", serverEndpoint.getPort(), TIMEOUT);
+        final ClientSessionEndpoint streamEndpoint = connectFuture.get();
+
+        final Queue<Future<Message<HttpResponse, Void>>> queue = new LinkedList<>();
+        for (int i = 0; i < 500; i++) {
+            final HttpRequest request1 = new BasicHttpRequest("GET", createRequestURI(serverEndpoint, "/"));
+            final Future<Message<HttpResponse, Void>> future = streamEndpoint.execute(
+                    new BasicRequestProducer(request1, null),
+                    new BasicResponseConsumer<>(new NoopEntityConsumer()), null);
+            queue.add(future);
+        }
+
+        int completed = 0;
+        int refused = 0;
+        while (!queue.isEmpty()) {
+            final Future<Message<HttpResponse, Void>> future = queue.remove();
+            try {
+                final Message<HttpResponse, Void> result = future.get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+                Assert.assertNotNull(result);
+                Assert.assertEquals(200, result.getHead().getCode());
+                completed++;
+            } catch (final ExecutionException ex) {
+                final Throwable cause = ex.getCause();
+                Assert.assertTrue(cause instanceof H2StreamResetException);
+                Assert.assertEquals(H2Error.REFUSED_STREAM.getCode(), ((H2StreamResetException) cause).getCode());
+                refused++;
+            }
+        }
+        Assert.assertTrue(completed >= 15);
+        Assert.assertTrue(refused > 0);
+        Assert.assertEquals(500, completed + refused);
+    }
+
     @Test
     public void testExpectationFailed() throws Exception {
         server.register("*", new Supplier<AsyncServerExchangeHandler>() {
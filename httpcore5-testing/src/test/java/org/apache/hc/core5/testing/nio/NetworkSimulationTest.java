@@ -0,0 +1,286 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.testing.nio;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.apache.hc.core5.function.Supplier;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncRequester;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncServerExchangeHandler;
+import org.apache.hc.core5.http.nio.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.BasicResponseConsumer;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityProducer;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2RequesterBootstrap;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.http2.ssl.H2ClientTlsStrategy;
+import org.apache.hc.core5.http2.ssl.H2ServerTlsStrategy;
+import org.apache.hc.core5.http2.ssl.SecurePortStrategy;
+import org.apache.hc.core5.io.ShutdownType;
+import org.apache.hc.core5.reactor.ExceptionEvent;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.apache.hc.core5.testing.SSLTestContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExternalResource;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * HTTP/2 exchanges over local connections with simulated network conditions.
+ */
+@RunWith(Parameterized.class)
+public class NetworkSimulationTest {
+
+    private final Logger log = LogManager.getLogger(getClass());
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> protocols() {
+        return Arrays.asList(new Object[][]{
+                { URIScheme.HTTP },
+                { URIScheme.HTTPS }
+        });
+    }
+
+    private static final Timeout TIMEOUT = Timeout.ofSeconds(30);
+
+    private final URIScheme scheme;
+
+    public NetworkSimulationTest(final URIScheme scheme) {
+        this.scheme = scheme;
+    }
+
+    private NetworkSimulatorIOSessionDecorator simulator;
+    private HttpAsyncServer server;
+    private HttpAsyncRequester requester;
+
+    @Rule
+    public ExternalResource resources = new ExternalResource() {
+
+        @Override
+        protected void after() {
+            log.debug("Shutting down test client and server");
+            if (requester != null) {
+                requester.shutdown(ShutdownType.GRACEFUL);
+                logExceptions(requester.getExceptionLog());
+                requester = null;
+            }
+            if (server != null) {
+                server.shutdown(ShutdownType.GRACEFUL);
+                logExceptions(server.getExceptionLog());
+                server = null;
+            }
+            if (simulator != null) {
+                log.debug("Network simulator: " + simulator);
+                simulator.shutdown();
+                simulator = null;
+            }
+        }
+
+    };
+
+    private void logExceptions(final List<ExceptionEvent> exceptionLog) {
+        for (final ExceptionEvent event: exceptionLog) {
+            final Throwable cause = event.getCause();
+            log.error("Unexpected " + cause.getClass() + " at " + event.getTimestamp(), cause);
+        }
+    }
+
+    private HttpHost start(final NetworkConditions conditions, final H2Config h2Config) throws Exception {
+        simulator = new NetworkSimulatorIOSessionDecorator(conditions);
+        final H2ServerBootstrap serverBootstrap = H2ServerBootstrap.bootstrap()
+                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .setH2Config(h2Config)
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setSoTimeout(TIMEOUT)
+                        .build())
+                .setIOSessionDecorator(simulator)
+                .register("*", new Supplier<AsyncServerExchangeHandler>() {
+
+                    @Override
+                    public AsyncServerExchangeHandler get() {
+                        return new EchoHandler(2048);
+                    }
+
+                });
+        final H2RequesterBootstrap requesterBootstrap = H2RequesterBootstrap.bootstrap()
+                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .setH2Config(h2Config)
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setSoTimeout(TIMEOUT)
+                        .build())
+                .setIOSessionDecorator(simulator);
+        if (scheme == URIScheme.HTTPS) {
+            serverBootstrap.setTlsStrategy(new H2ServerTlsStrategy(SSLTestContexts.createServerSSLContext(), new SecurePortStrategy() {
+
+                @Override
+                public boolean isSecure(final SocketAddress localAddress) {
+                    return true;
+                }
+
+            }));
+            requesterBootstrap.setTlsStrategy(new H2ClientTlsStrategy(SSLTestContexts.createClientSSLContext()));
+        }
+        server = serverBootstrap.create();
+        requester = requesterBootstrap.create();
+        server.start();
+        final Future<ListenerEndpoint> future = server.listen(new InetSocketAddress(0));
+        final ListenerEndpoint listener = future.get();
+        final InetSocketAddress address = (InetSocketAddress) listener.getAddress();
+        requester.start();
+        return new HttpHost("localhost", address.getPort(), scheme.id);
+    }
+
+    private static String createContent(final int len) {
+        final StringBuilder buffer = new StringBuilder(len);
+        for (int i = 0; i < len; i++) {
+            buffer.append((char) ('a' + i % 26));
+        }
+        return buffer.toString();
+    }
+
+    private Future<Message<HttpResponse, String>> post(final HttpHost target, final String path, final String content) {
+        return requester.execute(
+                new BasicRequestProducer("POST", target, path,
+                        new StringAsyncEntityProducer(content, ContentType.TEXT_PLAIN)),
+                new BasicResponseConsumer<>(new StringAsyncEntityConsumer(Integer.MAX_VALUE)), TIMEOUT, null);
+    }
+
+    private static void assertEcho(final Message<HttpResponse, String> message, final String content) {
+        Assert.assertThat(message, CoreMatchers.notNullValue());
+        Assert.assertThat(message.getHead().getCode(), CoreMatchers.equalTo(HttpStatus.SC_OK));
+        Assert.assertThat(message.getBody(), CoreMatchers.equalTo(content));
+    }
+
+    @Test
+    public void testFlowControlWindowOverHighLatencyLink() throws Exception {
+        // With a 8 KB stream window at most one window worth of data
+        // can be transferred per round trip
+        final HttpHost target = start(
+                NetworkConditions.custom()
+                        .setLatency(TimeValue.ofMillis(25))
+                        .build(),
+                H2Config.custom()
+                        .setInitialWindowSize(8 * 1024)
+                        .build());
+
+        final String content = createContent(64 * 1024);
+        final long start = System.currentTimeMillis();
+        final Message<HttpResponse, String> message = post(target, "/window", content)
+                .get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+        final long elapsed = System.currentTimeMillis() - start;
+        assertEcho(message, content);
+        log.debug("Transferred " + content.length() + " bytes with 8 KB window in " + elapsed + " ms");
+        // 8 windows at 50 ms round trip each
+        Assert.assertTrue("Elapsed " + elapsed, elapsed >= 350);
+    }
+
+    @Test
+    public void testBandwidthLimitedLink() throws Exception {
+        final HttpHost target = start(
+                NetworkConditions.custom()
+                        .setLatency(TimeValue.ofMillis(5))
+                        .setJitter(TimeValue.ofMillis(5))
+                        .setBandwidth(512 * 1024)
+                        .setSendBufferSize(16 * 1024)
+                        .build(),
+                H2Config.DEFAULT);
+
+        final String content = createContent(128 * 1024);
+        final long start = System.currentTimeMillis();
+        final Message<HttpResponse, String> message = post(target, "/bandwidth", content)
+                .get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+        final long elapsed = System.currentTimeMillis() - start;
+        assertEcho(message, content);
+        log.debug("Transferred " + content.length() + " bytes at 512 KB/s in " + elapsed + " ms");
+        Assert.assertTrue("Elapsed " + elapsed, elapsed >= 240);
+        Assert.assertTrue(simulator.getStallCount() > 0);
+    }
+
+    @Test
+    public void testHeadOfLineBlocking() throws Exception {
+        final HttpHost target = start(
+                NetworkConditions.custom()
+                        .setBandwidth(256 * 1024)
+                        .build(),
+                H2Config.DEFAULT);
+
+        // warm up the connection
+        assertEcho(post(target, "/warm-up", "hello").get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit()), "hello");
+
+        final String largeContent = createContent(256 * 1024);
+        final Future<Message<HttpResponse, String>> largeFuture = post(target, "/large", largeContent);
+        final Future<Message<HttpResponse, String>> smallFuture = post(target, "/small", "small");
+
+        // Streams of the same connection are multiplexed: the small exchange
+        // does not have to wait for the large one to complete
+        assertEcho(smallFuture.get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit()), "small");
+        Assert.assertFalse(largeFuture.isDone());
+        assertEcho(largeFuture.get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit()), largeContent);
+    }
+
+    @Test
+    public void testRecordFragmentationAndStalls() throws Exception {
+        // TLS records get split across multiple reads and delivery pauses periodically
+        final HttpHost target = start(
+                NetworkConditions.custom()
+                        .setMaxSegmentSize(100)
+                        .setStalls(TimeValue.ofMillis(100), TimeValue.ofMillis(20))
+                        .build(),
+                H2Config.DEFAULT);
+
+        final String content = createContent(32 * 1024);
+        final Message<HttpResponse, String> message = post(target, "/fragments", content)
+                .get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+        assertEcho(message, content);
+        Assert.assertTrue(simulator.getBytesReceived() > 2 * content.length());
+        Assert.assertTrue(simulator.getReadCount() >= simulator.getBytesReceived() / 100);
+    }
+
+}
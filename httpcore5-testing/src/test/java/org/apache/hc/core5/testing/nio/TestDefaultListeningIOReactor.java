@@ -27,7 +27,10 @@
 
 package org.apache.hc.core5.testing.nio;
 
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -39,6 +42,7 @@
 import org.apache.hc.core5.reactor.IOReactorConfig;
 import org.apache.hc.core5.reactor.IOReactorStatus;
 import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.reactor.IOWorkerStats;
 import org.apache.hc.core5.reactor.ListenerEndpoint;
 import org.apache.hc.core5.reactor.TlsCapableIOSession;
 import org.apache.hc.core5.util.TimeValue;
@@ -156,4 +160,89 @@ public void testEndpointAlreadyBound() throws Exception {
         Assert.assertEquals(IOReactorStatus.SHUT_DOWN, ioreactor.getStatus());
     }
 
+    private static IOWorkerStats awaitBlockingSelect(final DefaultListeningIOReactor ioReactor) throws Exception {
+        final List<IOWorkerStats> workerStats = ioReactor.getWorkerStats();
+        Assert.assertEquals(1, workerStats.size());
+        final IOWorkerStats stats = workerStats.get(0);
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (stats.getBlockingSelectCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        Assert.assertTrue("Worker never fell back onto a blocking select", stats.getBlockingSelectCount() > 0);
+        return stats;
+    }
+
+    @Test
+    public void testSelectSpinningDisabled() throws Exception {
+        final DefaultListeningIOReactor ioReactor = new DefaultListeningIOReactor(
+                new NoopIOEventHandlerFactory(),
+                IOReactorConfig.custom()
+                        .setIoThreadCount(1)
+                        .build(),
+                null);
+        try {
+            ioReactor.start();
+            final ListenerEndpoint endpoint = ioReactor.listen(new InetSocketAddress(0)).get();
+            final int port = ((InetSocketAddress) endpoint.getAddress()).getPort();
+            try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                socket.getOutputStream().write(new byte[] {'a', 'b', 'c'});
+            }
+            final IOWorkerStats stats = awaitBlockingSelect(ioReactor);
+            Assert.assertEquals(0, stats.getSpinSelectCount());
+        } finally {
+            ioReactor.shutdown(ShutdownType.IMMEDIATE);
+        }
+    }
+
+    @Test
+    public void testSelectSpinningWhileWorkPending() throws Exception {
+        // Spin period long enough for the worker never to give up spinning during the test
+        final DefaultListeningIOReactor ioReactor = new DefaultListeningIOReactor(
+                new NoopIOEventHandlerFactory(),
+                IOReactorConfig.custom()
+                        .setIoThreadCount(1)
+                        .setSelectSpinTime(TimeValue.ofHours(1))
+                        .build(),
+                null);
+        try {
+            ioReactor.start();
+            final List<IOWorkerStats> workerStats = ioReactor.getWorkerStats();
+            Assert.assertEquals(1, workerStats.size());
+            final IOWorkerStats stats = workerStats.get(0);
+
+            // Pending channel requests and new connections get picked up while spinning
+            final ListenerEndpoint endpoint = ioReactor.listen(new InetSocketAddress(0)).get();
+            final int port = ((InetSocketAddress) endpoint.getAddress()).getPort();
+            try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                socket.getOutputStream().write(new byte[] {'a', 'b', 'c'});
+            }
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (stats.getSpinSelectCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.yield();
+            }
+            Assert.assertTrue(stats.getSpinSelectCount() > 0);
+            Assert.assertEquals(0, stats.getBlockingSelectCount());
+        } finally {
+            ioReactor.shutdown(ShutdownType.IMMEDIATE);
+        }
+    }
+
+    @Test
+    public void testSelectSpinningBackOffWhenIdle() throws Exception {
+        final DefaultListeningIOReactor ioReactor = new DefaultListeningIOReactor(
+                new NoopIOEventHandlerFactory(),
+                IOReactorConfig.custom()
+                        .setIoThreadCount(1)
+                        .setSelectSpinTime(TimeValue.ofMillis(1))
+                        .build(),
+                null);
+        try {
+            ioReactor.start();
+            final IOWorkerStats stats = awaitBlockingSelect(ioReactor);
+            Assert.assertTrue(stats.getSpinSelectCount() > 0);
+        } finally {
+            ioReactor.shutdown(ShutdownType.IMMEDIATE);
+        }
+    }
+
 }
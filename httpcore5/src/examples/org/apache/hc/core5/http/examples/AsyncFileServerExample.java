@@ -48,7 +48,8 @@
 import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
 import org.apache.hc.core5.http.nio.BasicRequestConsumer;
 import org.apache.hc.core5.http.nio.BasicResponseProducer;
-import org.apache.hc.core5.http.nio.entity.FileEntityProducer;
+import org.apache.hc.core5.http.nio.FileResponseProducer;
+import org.apache.hc.core5.http.nio.entity.MappedFileCache;
 import org.apache.hc.core5.http.nio.entity.NoopEntityConsumer;
 import org.apache.hc.core5.http.protocol.HttpContext;
 import org.apache.hc.core5.http.protocol.HttpCoreContext;
@@ -74,6 +75,9 @@ public static void main(String[] args) throws Exception {
             port = Integer.parseInt(args[1]);
         }
 
+        // Keep up to 256 MB worth of files no larger than 16 MB each mapped into memory
+        final MappedFileCache fileCache = new MappedFileCache(256 * 1024 * 1024, 16 * 1024 * 1024);
+
         IOReactorConfig config = IOReactorConfig.custom()
                 .setSoTimeout(15, TimeUnit.SECONDS)
                 .setTcpNoDelay(true)
@@ -138,8 +142,8 @@ public void handle(
                             HttpCoreContext coreContext = HttpCoreContext.adapt(context);
                             EndpointDetails endpoint = coreContext.getEndpointDetails();
                             System.out.println(endpoint + ": serving file " + file.getPath());
-                            responseTrigger.submitResponse(new BasicResponseProducer(
-                                    HttpStatus.SC_OK, new FileEntityProducer(file, contentType)));
+                            responseTrigger.submitResponse(new FileResponseProducer(
+                                    request, file, contentType, fileCache));
                         }
                     }
 
@@ -95,6 +95,7 @@ public static void main(String[] args) throws Exception {
         SocketConfig socketConfig = SocketConfig.custom()
                 .setSoTimeout(15, TimeUnit.SECONDS)
                 .setTcpNoDelay(true)
+                .setSocketChannelBacked(true)
                 .build();
 
         final HttpServer server = ServerBootstrap.bootstrap()
@@ -0,0 +1,347 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Concurrency limiter that adapts its limit to the observed latency of
+ * admitted tasks.
+ * <p>
+ * The limit follows a gradient algorithm: a long term exponentially weighted
+ * average of task latency is compared with the latency of every completed task.
+ * As long as the latency stays within a tolerance of the long term average the limit
+ * is increased additively by the square root of the current limit, while
+ * latency growth decreases the limit multiplicatively by at most half. The limit is
+ * not increased while less than half of it is in use.
+ * <p>
+ * Tasks in excess of the limit are queued in the last-in first-out order up to
+ * a maximum queue size and for no longer than a maximum queue time. Under sustained
+ * overload fresh tasks are therefore served first, while the oldest ones, most likely
+ * already abandoned by their callers, are rejected. Expired tasks are rejected
+ * whenever the limiter is used or {@link #rejectExpired()} is called; callers that
+ * need timely rejection without further traffic should schedule the latter.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public final class AdaptiveConcurrencyLimiter {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 100;
+    public static final TimeValue DEFAULT_MAX_QUEUE_TIME = TimeValue.ofSeconds(1);
+
+    // Number of samples the long term latency average is taken over
+    private static final int LONG_WINDOW = 600;
+    // Latency growth within this factor of the long term average is tolerated
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * Permit to execute a task. Permits must be returned to the limiter
+     * with {@link #complete()} or {@link #release()} exactly once; subsequent
+     * calls have no effect.
+     */
+    public final class Permit {
+
+        private final long admitted;
+        private final AtomicBoolean released;
+
+        private Permit(final long admitted) {
+            this.admitted = admitted;
+            this.released = new AtomicBoolean(false);
+        }
+
+        /**
+         * Returns the permit and reports the time elapsed since admission
+         * as a latency sample.
+         */
+        public void complete() {
+            if (released.compareAndSet(false, true)) {
+                releasePermit(System.nanoTime() - admitted, true);
+            }
+        }
+
+        /**
+         * Returns the permit without reporting a latency sample, for instance,
+         * if the task failed.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                releasePermit(0, false);
+            }
+        }
+
+    }
+
+    private static class Waiter {
+
+        final FutureCallback<Permit> callback;
+        final long deadline;
+
+        Waiter(final FutureCallback<Permit> callback, final long deadline) {
+            this.callback = callback;
+            this.deadline = deadline;
+        }
+
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueueSize;
+    private final TimeValue maxQueueTime;
+    private final Deque<Waiter> queue;
+
+    private double limit;
+    private double longRtt;
+    private int inFlight;
+    private long admittedCount;
+    private long rejectedCount;
+
+    /**
+     * @param initialLimit initial concurrency limit.
+     * @param minLimit minimum concurrency limit.
+     * @param maxLimit maximum concurrency limit.
+     * @param maxQueueSize maximum number of queued tasks. Zero means tasks in excess
+     *                     of the limit are rejected immediately.
+     * @param maxQueueTime maximum time a task may be queued for.
+     */
+    public AdaptiveConcurrencyLimiter(
+            final int initialLimit,
+            final int minLimit,
+            final int maxLimit,
+            final int maxQueueSize,
+            final TimeValue maxQueueTime) {
+        this.minLimit = Args.positive(minLimit, "Min limit");
+        Args.check(maxLimit >= minLimit, "Max limit may not be less than min limit");
+        Args.check(initialLimit >= minLimit && initialLimit <= maxLimit,
+                "Initial limit must be between min limit and max limit");
+        this.maxLimit = maxLimit;
+        this.maxQueueSize = Args.notNegative(maxQueueSize, "Max queue size");
+        this.maxQueueTime = Args.notNull(maxQueueTime, "Max queue time");
+        this.queue = new ArrayDeque<>();
+        this.limit = initialLimit;
+    }
+
+    public AdaptiveConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, 1, DEFAULT_MAX_LIMIT, DEFAULT_MAX_QUEUE_SIZE, DEFAULT_MAX_QUEUE_TIME);
+    }
+
+    /**
+     * Attempts to admit a task.
+     * <p>
+     * If the limit has not been reached the permit is returned immediately and the
+     * callback is not used. Otherwise the callback is queued and gets completed with
+     * a permit once one becomes available, or failed with {@link RejectedExecutionException}
+     * if the task gets shed. If the queue capacity is zero the callback gets failed
+     * before this method returns.
+     * <p>
+     * Please note that the callback may be invoked by the thread that returns
+     * a permit to the limiter.
+     *
+     * @return permit or {@code null} if the task has not been admitted immediately.
+     */
+    public Permit acquire(final FutureCallback<Permit> callback) {
+        Args.notNull(callback, "Callback");
+        final List<Waiter> rejected = new ArrayList<>();
+        final Permit permit;
+        final long now = System.nanoTime();
+        synchronized (this) {
+            expire(now, rejected);
+            if (inFlight < (int) limit && queue.isEmpty()) {
+                inFlight++;
+                admittedCount++;
+                permit = new Permit(now);
+            } else {
+                permit = null;
+                queue.addFirst(new Waiter(callback, now + maxQueueTime.toNanos()));
+                while (queue.size() > maxQueueSize) {
+                    rejected.add(queue.pollLast());
+                    rejectedCount++;
+                }
+            }
+        }
+        reject(rejected, "Concurrency limit exceeded");
+        return permit;
+    }
+
+    /**
+     * Removes a queued callback.
+     *
+     * @return {@code true} if the callback has been removed, {@code false} if
+     * it is no longer queued.
+     */
+    public boolean cancel(final FutureCallback<Permit> callback) {
+        synchronized (this) {
+            final Iterator<Waiter> it = queue.iterator();
+            while (it.hasNext()) {
+                if (it.next().callback == callback) {
+                    it.remove();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Rejects queued tasks that have exceeded the maximum queue time.
+     */
+    public void rejectExpired() {
+        final List<Waiter> rejected = new ArrayList<>();
+        synchronized (this) {
+            expire(System.nanoTime(), rejected);
+        }
+        reject(rejected, "Queue time exceeded");
+    }
+
+    private void releasePermit(final long rtt, final boolean sample) {
+        final List<Waiter> rejected = new ArrayList<>();
+        final List<Waiter> admitted = new ArrayList<>();
+        final List<Permit> permits = new ArrayList<>();
+        final long now = System.nanoTime();
+        synchronized (this) {
+            if (sample) {
+                updateLimit(Math.max(rtt, 1));
+            }
+            inFlight--;
+            expire(now, rejected);
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+                admitted.add(queue.pollFirst());
+                permits.add(new Permit(now));
+                inFlight++;
+                admittedCount++;
+            }
+        }
+        reject(rejected, "Queue time exceeded");
+        for (int i = 0; i < admitted.size(); i++) {
+            admitted.get(i).callback.completed(permits.get(i));
+        }
+    }
+
+    private void updateLimit(final long rtt) {
+        if (longRtt == 0) {
+            longRtt = rtt;
+        } else {
+            longRtt += (rtt - longRtt) / LONG_WINDOW;
+        }
+        if (longRtt / rtt > 2) {
+            // Let the long term average recover faster after a period of high latency
+            longRtt *= 0.95;
+        }
+        final double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        if (newLimit > limit && inFlight < limit / 2) {
+            newLimit = limit;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    private void expire(final long now, final List<Waiter> rejected) {
+        // The oldest waiters are at the tail of the queue
+        while (!queue.isEmpty() && queue.peekLast().deadline - now <= 0) {
+            rejected.add(queue.pollLast());
+            rejectedCount++;
+        }
+    }
+
+    private static void reject(final List<Waiter> rejected, final String message) {
+        for (final Waiter waiter: rejected) {
+            waiter.callback.failed(new RejectedExecutionException(message));
+        }
+    }
+
+    /**
+     * Returns the current concurrency limit.
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Returns the number of permits currently in use.
+     */
+    public synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    /**
+     * Returns the number of tasks currently queued.
+     */
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the long term average latency.
+     */
+    public synchronized TimeValue getAverageLatency() {
+        return TimeValue.ofNanoseconds((long) longRtt);
+    }
+
+    /**
+     * Returns the total number of admitted tasks.
+     */
+    public synchronized long getAdmittedCount() {
+        return admittedCount;
+    }
+
+    /**
+     * Returns the total number of rejected tasks.
+     */
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    public TimeValue getMaxQueueTime() {
+        return maxQueueTime;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "[limit: " + (int) limit + "; in flight: " + inFlight + "; queued: " + queue.size()
+                + "; admitted: " + admittedCount + "; rejected: " + rejectedCount + "]";
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http;
+
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Latency statistics of a client side connection used to select the connection
+ * with the lowest expected latency among several alternatives.
+ * <p>
+ * Values may be updated by a different thread and may lag behind
+ * the actual state of the connection.
+ *
+ * @since 5.0
+ */
+public interface ConnectionLatencyStats {
+
+    /**
+     * Returns the smoothed round-trip time of the connection or {@code null}
+     * if no sample has been taken yet.
+     */
+    TimeValue getSmoothedRoundTripTime();
+
+}
@@ -49,9 +49,11 @@ public class H1Config {
     private final int maxLineLength;
     private final int maxHeaderCount;
     private final int maxEmptyLineCount;
+    private final int maxHeaderListSize;
 
     H1Config(final int bufferSize, final int chunkSizeHint, final int waitForContinueTimeout,
-             final int maxLineLength, final int maxHeaderCount, final int maxEmptyLineCount) {
+             final int maxLineLength, final int maxHeaderCount, final int maxEmptyLineCount,
+             final int maxHeaderListSize) {
         super();
         this.bufferSize = bufferSize;
         this.chunkSizeHint = chunkSizeHint;
@@ -59,6 +61,7 @@ public class H1Config {
         this.maxLineLength = maxLineLength;
         this.maxHeaderCount = maxHeaderCount;
         this.maxEmptyLineCount = maxEmptyLineCount;
+        this.maxHeaderListSize = maxHeaderListSize;
     }
 
     public int getBufferSize() {
@@ -85,6 +88,17 @@ public int getMaxEmptyLineCount() {
         return this.maxEmptyLineCount;
     }
 
+    /**
+     * Returns the maximum total length of header lines of a message head,
+     * including continuation lines. Values less than or equal to zero disable
+     * the check.
+     *
+     * @since 5.0
+     */
+    public int getMaxHeaderListSize() {
+        return this.maxHeaderListSize;
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
@@ -94,6 +108,7 @@ public String toString() {
                 .append(", maxLineLength=").append(maxLineLength)
                 .append(", maxHeaderCount=").append(maxHeaderCount)
                 .append(", maxEmptyLineCount=").append(maxEmptyLineCount)
+                .append(", maxHeaderListSize=").append(maxHeaderListSize)
                 .append("]");
         return builder.toString();
     }
@@ -110,7 +125,8 @@ public static H1Config.Builder copy(final H1Config config) {
                 .setWaitForContinueTimeout(config.getWaitForContinueTimeout())
                 .setMaxHeaderCount(config.getMaxHeaderCount())
                 .setMaxLineLength(config.getMaxLineLength())
-                .setMaxEmptyLineCount(config.maxEmptyLineCount);
+                .setMaxEmptyLineCount(config.maxEmptyLineCount)
+                .setMaxHeaderListSize(config.maxHeaderListSize);
     }
 
     public static class Builder {
@@ -121,6 +137,7 @@ public static class Builder {
         private int maxLineLength;
         private int maxHeaderCount;
         private int maxEmptyLineCount;
+        private int maxHeaderListSize;
 
         Builder() {
             this.bufferSize = -1;
@@ -129,6 +146,7 @@ public static class Builder {
             this.maxLineLength = -1;
             this.maxHeaderCount = -1;
             this.maxEmptyLineCount = 10;
+            this.maxHeaderListSize = -1;
         }
 
         public Builder setBufferSize(final int bufferSize) {
@@ -161,8 +179,17 @@ public Builder setMaxEmptyLineCount(final int maxEmptyLineCount) {
             return this;
         }
 
+        /**
+         * @since 5.0
+         */
+        public Builder setMaxHeaderListSize(final int maxHeaderListSize) {
+            this.maxHeaderListSize = maxHeaderListSize;
+            return this;
+        }
+
         public H1Config build() {
-            return new H1Config(bufferSize > 0 ? bufferSize : 8192, chunkSizeHint, waitForContinueTimeout, maxLineLength, maxHeaderCount, maxEmptyLineCount);
+            return new H1Config(bufferSize > 0 ? bufferSize : 8192, chunkSizeHint, waitForContinueTimeout,
+                    maxLineLength, maxHeaderCount, maxEmptyLineCount, maxHeaderListSize);
         }
 
     }
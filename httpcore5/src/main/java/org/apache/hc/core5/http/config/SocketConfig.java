@@ -53,6 +53,7 @@ public class SocketConfig {
     private final int sndBufSize;
     private final int rcvBufSize;
     private final int backlogSize;
+    private final boolean socketChannelBacked;
 
     SocketConfig(
             final Timeout soTimeout,
@@ -62,7 +63,8 @@ public class SocketConfig {
             final boolean tcpNoDelay,
             final int sndBufSize,
             final int rcvBufSize,
-            final int backlogSize) {
+            final int backlogSize,
+            final boolean socketChannelBacked) {
         super();
         this.soTimeout = soTimeout;
         this.soReuseAddress = soReuseAddress;
@@ -72,6 +74,7 @@ public class SocketConfig {
         this.sndBufSize = sndBufSize;
         this.rcvBufSize = rcvBufSize;
         this.backlogSize = backlogSize;
+        this.socketChannelBacked = socketChannelBacked;
     }
 
     /**
@@ -186,6 +189,22 @@ public int getBacklogSize() {
         return backlogSize;
     }
 
+    /**
+     * Determines whether plain (non-TLS) sockets are to be created by
+     * {@link java.nio.channels.SocketChannel} and
+     * {@link java.nio.channels.ServerSocketChannel} in blocking mode.
+     * Connections over such sockets can transfer file content directly
+     * from the file channel to the socket channel.
+     * <p>
+     * Default: {@code false}
+     * </p>
+     * @return {@code true} if sockets are to be backed by socket channels.
+     * @since 5.0
+     */
+    public boolean isSocketChannelBacked() {
+        return socketChannelBacked;
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
@@ -197,6 +216,7 @@ public String toString() {
                 .append(", sndBufSize=").append(this.sndBufSize)
                 .append(", rcvBufSize=").append(this.rcvBufSize)
                 .append(", backlogSize=").append(this.backlogSize)
+                .append(", socketChannelBacked=").append(this.socketChannelBacked)
                 .append("]");
         return builder.toString();
     }
@@ -215,7 +235,8 @@ public static SocketConfig.Builder copy(final SocketConfig config) {
             .setTcpNoDelay(config.isTcpNoDelay())
             .setSndBufSize(config.getSndBufSize())
             .setRcvBufSize(config.getRcvBufSize())
-            .setBacklogSize(config.getBacklogSize());
+            .setBacklogSize(config.getBacklogSize())
+            .setSocketChannelBacked(config.isSocketChannelBacked());
     }
 
     public static class Builder {
@@ -228,6 +249,7 @@ public static class Builder {
         private int sndBufSize;
         private int rcvBufSize;
         private int backlogSize;
+        private boolean socketChannelBacked;
 
         Builder() {
             this.soTimeout = Timeout.ZERO_MILLISECONDS;
@@ -238,6 +260,7 @@ public static class Builder {
             this.sndBufSize = 0;
             this.rcvBufSize = 0;
             this.backlogSize = 0;
+            this.socketChannelBacked = false;
         }
 
         public Builder setSoTimeout(final int soTimeout, final TimeUnit timeUnit) {
@@ -299,12 +322,20 @@ public Builder setBacklogSize(final int backlogSize) {
             return this;
         }
 
+        /**
+         * @since 5.0
+         */
+        public Builder setSocketChannelBacked(final boolean socketChannelBacked) {
+            this.socketChannelBacked = socketChannelBacked;
+            return this;
+        }
+
         public SocketConfig build() {
             return new SocketConfig(
                     Timeout.defaultsToDisabled(soTimeout),
                     soReuseAddress,
                     soLinger != null ? soLinger : TimeValue.NEG_ONE_SECONDS,
-                    soKeepAlive, tcpNoDelay, sndBufSize, rcvBufSize, backlogSize);
+                    soKeepAlive, tcpNoDelay, sndBufSize, rcvBufSize, backlogSize, socketChannelBacked);
         }
 
     }
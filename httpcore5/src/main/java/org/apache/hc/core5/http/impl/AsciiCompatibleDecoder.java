@@ -0,0 +1,153 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Decoder for charsets that map bytes in the {@code 0x00-0x7F} range to the same
+ * code points (US-ASCII, ISO-8859-1 and UTF-8). Runs of such bytes are transcoded
+ * directly between heap buffer arrays without going through the generic charset
+ * machinery. All other input is passed to the standard JDK decoder of the charset.
+ * Malformed and unmappable input is reported back to {@link CharsetDecoder} which
+ * applies the configured coding error actions.
+ *
+ * @since 5.0
+ */
+final class AsciiCompatibleDecoder extends CharsetDecoder {
+
+    private final boolean latin1;
+    private final CharsetDecoder fallback;
+
+    AsciiCompatibleDecoder(final Charset charset, final boolean latin1) {
+        super(charset, 1.0f, 1.0f);
+        this.latin1 = latin1;
+        this.fallback = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+    /**
+     * Returns the length of the run of ASCII bytes starting at the given offset.
+     */
+    static int asciiRun(final byte[] src, final int off, final int len) {
+        int i = 0;
+        while (i < len && src[off + i] >= 0) {
+            i++;
+        }
+        return i;
+    }
+
+    static void widen(final byte[] src, final int srcOff, final char[] dst, final int dstOff, final int len) {
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = (char) (src[srcOff + i] & 0xff);
+        }
+    }
+
+    @Override
+    protected CoderResult decodeLoop(final ByteBuffer in, final CharBuffer out) {
+        if (!in.hasArray() || !out.hasArray()) {
+            return latin1 ? decodeLatin1(in, out) : fallback.decode(in, out, false);
+        }
+        final byte[] src = in.array();
+        final char[] dst = out.array();
+        for (;;) {
+            final int sp = in.arrayOffset() + in.position();
+            final int dp = out.arrayOffset() + out.position();
+            final int n = Math.min(in.remaining(), out.remaining());
+            final int run = latin1 ? n : asciiRun(src, sp, n);
+            widen(src, sp, dst, dp, run);
+            in.position(in.position() + run);
+            out.position(out.position() + run);
+            if (!in.hasRemaining()) {
+                return CoderResult.UNDERFLOW;
+            }
+            if (!out.hasRemaining()) {
+                return CoderResult.OVERFLOW;
+            }
+            final CoderResult result = decodeNonAscii(in, out, src);
+            if (result != null) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Passes the run of non-ASCII bytes at the current position to the fallback decoder.
+     * Returns {@code null} if decoding can continue with ASCII input.
+     */
+    private CoderResult decodeNonAscii(final ByteBuffer in, final CharBuffer out, final byte[] src) {
+        final int limit = in.limit();
+        int runEnd = in.position();
+        while (runEnd < limit && src[in.arrayOffset() + runEnd] < 0) {
+            runEnd++;
+        }
+        in.limit(runEnd);
+        CoderResult result;
+        try {
+            result = fallback.decode(in, out, false);
+        } finally {
+            in.limit(limit);
+        }
+        if (result.isUnderflow() && in.position() < runEnd) {
+            if (runEnd == limit) {
+                // Incomplete sequence at the end of input
+                return CoderResult.UNDERFLOW;
+            }
+            // Incomplete sequence followed by an ASCII byte
+            in.limit(runEnd + 1);
+            try {
+                result = fallback.decode(in, out, false);
+            } finally {
+                in.limit(limit);
+            }
+        }
+        return result.isUnderflow() ? null : result;
+    }
+
+    private static CoderResult decodeLatin1(final ByteBuffer in, final CharBuffer out) {
+        while (in.hasRemaining()) {
+            if (!out.hasRemaining()) {
+                return CoderResult.OVERFLOW;
+            }
+            out.put((char) (in.get() & 0xff));
+        }
+        return CoderResult.UNDERFLOW;
+    }
+
+    @Override
+    protected void implReset() {
+        fallback.reset();
+    }
+
+}
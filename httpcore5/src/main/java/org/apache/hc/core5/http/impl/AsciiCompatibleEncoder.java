@@ -0,0 +1,134 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Encoder for charsets that map code points in the {@code 0x00-0x7F} range
+ * (or {@code 0x00-0xFF} in case of ISO-8859-1) to the same byte values. Runs of such
+ * chars are transcoded directly between heap buffer arrays. All other input is passed
+ * to the standard JDK encoder of the charset. Malformed and unmappable input is reported
+ * back to {@link CharsetEncoder} which applies the configured coding error actions.
+ *
+ * @since 5.0
+ */
+final class AsciiCompatibleEncoder extends CharsetEncoder {
+
+    private final char maxDirect;
+    private final CharsetEncoder fallback;
+
+    private AsciiCompatibleEncoder(final CharsetEncoder fallback, final boolean latin1) {
+        super(fallback.charset(), fallback.averageBytesPerChar(), fallback.maxBytesPerChar());
+        this.maxDirect = latin1 ? (char) 0xff : (char) 0x7f;
+        this.fallback = fallback;
+    }
+
+    AsciiCompatibleEncoder(final Charset charset, final boolean latin1) {
+        this(charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT), latin1);
+    }
+
+    @Override
+    protected CoderResult encodeLoop(final CharBuffer in, final ByteBuffer out) {
+        if (!in.hasArray() || !out.hasArray()) {
+            return fallback.encode(in, out, false);
+        }
+        final char[] src = in.array();
+        final byte[] dst = out.array();
+        for (;;) {
+            final int sp = in.arrayOffset() + in.position();
+            final int dp = out.arrayOffset() + out.position();
+            final int n = Math.min(in.remaining(), out.remaining());
+            int run = 0;
+            while (run < n && src[sp + run] <= maxDirect) {
+                run++;
+            }
+            for (int i = 0; i < run; i++) {
+                dst[dp + i] = (byte) src[sp + i];
+            }
+            in.position(in.position() + run);
+            out.position(out.position() + run);
+            if (!in.hasRemaining()) {
+                return CoderResult.UNDERFLOW;
+            }
+            if (!out.hasRemaining()) {
+                return CoderResult.OVERFLOW;
+            }
+            final CoderResult result = encodeOther(in, out, src);
+            if (result != null) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Passes the run of chars that cannot be copied directly to the fallback encoder.
+     * Returns {@code null} if encoding can continue with directly mapped input.
+     */
+    private CoderResult encodeOther(final CharBuffer in, final ByteBuffer out, final char[] src) {
+        final int limit = in.limit();
+        int runEnd = in.position();
+        while (runEnd < limit && src[in.arrayOffset() + runEnd] > maxDirect) {
+            runEnd++;
+        }
+        in.limit(runEnd);
+        CoderResult result;
+        try {
+            result = fallback.encode(in, out, false);
+        } finally {
+            in.limit(limit);
+        }
+        if (result.isUnderflow() && in.position() < runEnd) {
+            if (runEnd == limit) {
+                // Incomplete surrogate pair at the end of input
+                return CoderResult.UNDERFLOW;
+            }
+            // Incomplete surrogate pair followed by a directly mapped char
+            in.limit(runEnd + 1);
+            try {
+                result = fallback.encode(in, out, false);
+            } finally {
+                in.limit(limit);
+            }
+        }
+        return result.isUnderflow() ? null : result;
+    }
+
+    @Override
+    protected void implReset() {
+        fallback.reset();
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Immutable snapshot of a response held by {@link ResponseCache}: status,
+ * end-to-end headers and the complete content.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.IMMUTABLE)
+public final class CachedResponse {
+
+    // Headers that are specific to a particular connection or message framing
+    private static final String[] EXCLUDED_HEADERS = {
+            HttpHeaders.CONNECTION, "Keep-Alive", "Proxy-Connection", HttpHeaders.TRANSFER_ENCODING,
+            HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_TYPE, HttpHeaders.TRAILER,
+            HttpHeaders.UPGRADE, HttpHeaders.DATE, HttpHeaders.AGE };
+
+    private final int code;
+    private final String reasonPhrase;
+    private final Header[] headers;
+    private final String contentType;
+    private final byte[] content;
+    private final long created;
+    private final long expires;
+
+    CachedResponse(
+            final HttpResponse response,
+            final String contentType,
+            final byte[] content,
+            final long created,
+            final long expires) {
+        Args.notNull(response, "Response");
+        this.code = response.getCode();
+        this.reasonPhrase = response.getReasonPhrase();
+        final List<Header> list = new ArrayList<>();
+        for (final Iterator<Header> it = response.headerIterator(); it.hasNext(); ) {
+            final Header header = it.next();
+            if (!isExcluded(header.getName())) {
+                list.add(header);
+            }
+        }
+        this.headers = list.toArray(new Header[list.size()]);
+        this.contentType = contentType;
+        this.content = content != null ? content : new byte[0];
+        this.created = created;
+        this.expires = expires;
+    }
+
+    private static boolean isExcluded(final String name) {
+        for (final String excluded: EXCLUDED_HEADERS) {
+            if (excluded.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getReasonPhrase() {
+        return reasonPhrase;
+    }
+
+    public Header[] getHeaders() {
+        return headers.clone();
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the response content. The returned array must not be modified.
+     */
+    public byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * Returns the number of bytes this response occupies in the cache.
+     */
+    public long getSize() {
+        long size = 64 + content.length;
+        for (final Header header: headers) {
+            size += header.getName().length() + (header.getValue() != null ? header.getValue().length() : 0);
+        }
+        return size;
+    }
+
+    boolean isExpired(final long now) {
+        return expires - now <= 0;
+    }
+
+    /**
+     * Copies the headers of this response to the given response along with
+     * an {@code Age} header.
+     */
+    public void populate(final HttpResponse response) {
+        Args.notNull(response, "Response");
+        response.setHeaders(headers);
+        final long age = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - created);
+        response.setHeader(HttpHeaders.AGE, Long.toString(age));
+    }
+
+    @Override
+    public String toString() {
+        return "[" + code + "; headers: " + Arrays.asList(headers) + "; content length: " + content.length + "]";
+    }
+
+}
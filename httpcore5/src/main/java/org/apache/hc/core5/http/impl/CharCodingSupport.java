@@ -31,6 +31,7 @@
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.hc.core5.http.config.CharCodingConfig;
 
@@ -39,6 +40,38 @@ public final class CharCodingSupport {
     private CharCodingSupport() {
     }
 
+    private static boolean isAsciiCompatible(final Charset charset) {
+        return StandardCharsets.US_ASCII.equals(charset)
+                || StandardCharsets.ISO_8859_1.equals(charset)
+                || StandardCharsets.UTF_8.equals(charset);
+    }
+
+    /**
+     * Creates a new decoder for the given charset. US-ASCII, ISO-8859-1 and UTF-8
+     * decoders transcode ASCII input directly between heap buffers.
+     *
+     * @since 5.0
+     */
+    public static CharsetDecoder newDecoder(final Charset charset) {
+        if (isAsciiCompatible(charset)) {
+            return new AsciiCompatibleDecoder(charset, StandardCharsets.ISO_8859_1.equals(charset));
+        }
+        return charset.newDecoder();
+    }
+
+    /**
+     * Creates a new encoder for the given charset. US-ASCII, ISO-8859-1 and UTF-8
+     * encoders transcode ASCII input directly between heap buffers.
+     *
+     * @since 5.0
+     */
+    public static CharsetEncoder newEncoder(final Charset charset) {
+        if (isAsciiCompatible(charset)) {
+            return new AsciiCompatibleEncoder(charset, StandardCharsets.ISO_8859_1.equals(charset));
+        }
+        return charset.newEncoder();
+    }
+
     public static CharsetDecoder createDecoder(final CharCodingConfig cconfig) {
         if (cconfig == null) {
             return null;
@@ -47,7 +80,7 @@ public static CharsetDecoder createDecoder(final CharCodingConfig cconfig) {
         final CodingErrorAction malformed = cconfig.getMalformedInputAction();
         final CodingErrorAction unmappable = cconfig.getUnmappableInputAction();
         if (charset != null) {
-            return charset.newDecoder()
+            return newDecoder(charset)
                     .onMalformedInput(malformed != null ? malformed : CodingErrorAction.REPORT)
                     .onUnmappableCharacter(unmappable != null ? unmappable: CodingErrorAction.REPORT);
         }
@@ -62,7 +95,7 @@ public static CharsetEncoder createEncoder(final CharCodingConfig cconfig) {
         if (charset != null) {
             final CodingErrorAction malformed = cconfig.getMalformedInputAction();
             final CodingErrorAction unmappable = cconfig.getUnmappableInputAction();
-            return charset.newEncoder()
+            return newEncoder(charset)
                     .onMalformedInput(malformed != null ? malformed : CodingErrorAction.REPORT)
                     .onUnmappableCharacter(unmappable != null ? unmappable: CodingErrorAction.REPORT);
         }
@@ -0,0 +1,62 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http.impl;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.ConnectionLatencyStats;
+import org.apache.hc.core5.pool.ConnLatencyEstimator;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Default {@link ConnLatencyEstimator} implementation applicable to connections
+ * and {@link IOSession}s whose event handler expose {@link ConnectionLatencyStats}.
+ * The expected latency equals the smoothed round-trip time. Pools only
+ * ever score idle connections, so the load of a connection is not taken
+ * into account.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.STATELESS)
+public final class DefaultConnLatencyEstimator<C> implements ConnLatencyEstimator<C> {
+
+    @Override
+    public long estimateLatency(final C conn) {
+        final Object candidate = conn instanceof IOSession ? ((IOSession) conn).getHandler() : conn;
+        if (candidate instanceof ConnectionLatencyStats) {
+            final ConnectionLatencyStats stats = (ConnectionLatencyStats) candidate;
+            final TimeValue rtt = stats.getSmoothedRoundTripTime();
+            if (rtt != null) {
+                return rtt.toNanos();
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,440 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HeaderElement;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.MessageSupport;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Bounded in-memory cache of complete responses to {@code GET} requests meant
+ * for short lived (micro) caching of responses at the server side.
+ * <p>
+ * Responses are keyed on the request authority and path along with values of
+ * the configured request headers responses may vary on. Responses to requests with
+ * an {@code Authorization} header or requests asking for an end-to-end reload
+ * with {@code Cache-Control: no-cache} or {@code Pragma: no-cache} are never looked up
+ * or stored. Responses are only stored if they have a heuristically cacheable status
+ * code, carry no {@code Set-Cookie} header, no content coding, no
+ * {@code Cache-Control} directives prohibiting shared caching and vary only
+ * on the configured request headers. Entries expire after the configured time to live
+ * or the {@code s-maxage} / {@code max-age} of the response, whichever is shorter.
+ * Entries are evicted in the least recently used order once the total size of cached
+ * responses exceeds the configured maximum.
+ * <p>
+ * Concurrent misses can be coalesced with {@link #fill(String, FutureCallback)}:
+ * only the first request proceeds to produce the response while the others get
+ * notified of the outcome.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public final class ResponseCache {
+
+    private static final int[] CACHEABLE_STATUS_CODES = {
+            HttpStatus.SC_OK, HttpStatus.SC_NON_AUTHORITATIVE_INFORMATION, HttpStatus.SC_NO_CONTENT,
+            HttpStatus.SC_MULTIPLE_CHOICES, HttpStatus.SC_MOVED_PERMANENTLY, HttpStatus.SC_NOT_FOUND,
+            HttpStatus.SC_METHOD_NOT_ALLOWED, HttpStatus.SC_GONE, HttpStatus.SC_REQUEST_URI_TOO_LONG,
+            HttpStatus.SC_NOT_IMPLEMENTED };
+
+    /**
+     * Handle of a response being produced for a cache key. The handle must be
+     * completed or abandoned; subsequent calls have no effect.
+     */
+    public final class Fill {
+
+        private final String key;
+        private final long started;
+        private boolean done;
+
+        private Fill(final String key, final long started) {
+            this.key = key;
+            this.started = started;
+        }
+
+        /**
+         * Stores the response and notifies requests waiting for it.
+         *
+         * @param response the response head.
+         * @param contentType the content type or {@code null} if the response has no content.
+         * @param content the complete content or {@code null} if the response has no content.
+         */
+        public void complete(final HttpResponse response, final String contentType, final byte[] content) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            completeFill(this, response, contentType, content);
+        }
+
+        /**
+         * Abandons the response. Requests waiting for it get cancelled
+         * and are expected to proceed on their own.
+         */
+        public void abandon() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            completeFill(this, null, null, null);
+        }
+
+    }
+
+    private final long maxTotalSize;
+    private final int maxEntrySize;
+    private final TimeValue timeToLive;
+    private final String[] varyHeaders;
+    private final LinkedHashMap<String, CachedResponse> map;
+    private final Map<String, List<FutureCallback<CachedResponse>>> pending;
+
+    private long totalSize;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * @param maxTotalSize maximum total size of cached responses.
+     * @param maxEntrySize maximum size of content of individual responses.
+     * @param timeToLive maximum period of time responses may be cached for.
+     * @param varyHeaders names of request headers responses may vary on.
+     */
+    public ResponseCache(
+            final long maxTotalSize,
+            final int maxEntrySize,
+            final TimeValue timeToLive,
+            final String... varyHeaders) {
+        this.maxTotalSize = Args.positive(maxTotalSize, "Max total size");
+        this.maxEntrySize = Args.notNegative(maxEntrySize, "Max entry size");
+        this.timeToLive = Args.notNull(timeToLive, "Time to live");
+        this.varyHeaders = varyHeaders != null ? varyHeaders.clone() : new String[0];
+        this.map = new LinkedHashMap<>(16, 0.75f, true);
+        this.pending = new HashMap<>();
+    }
+
+    public ResponseCache(final TimeValue timeToLive, final String... varyHeaders) {
+        this(64 * 1024 * 1024, 1024 * 1024, timeToLive, varyHeaders);
+    }
+
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    private static boolean hasDirective(final HttpRequest request, final String name, final String directive) {
+        final Iterator<HeaderElement> it = MessageSupport.iterate(request, name);
+        while (it.hasNext()) {
+            if (directive.equalsIgnoreCase(it.next().getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the cache key of the given request or {@code null} if responses
+     * to the request may not be served from or stored in the cache.
+     * {@code HEAD} requests share keys with {@code GET} requests.
+     */
+    public String generateKey(final HttpRequest request) {
+        Args.notNull(request, "Request");
+        final String method = request.getMethod();
+        if (!"GET".equalsIgnoreCase(method) && !"HEAD".equalsIgnoreCase(method)) {
+            return null;
+        }
+        if (request.containsHeader(HttpHeaders.AUTHORIZATION)
+                || hasDirective(request, HttpHeaders.CACHE_CONTROL, "no-cache")
+                || hasDirective(request, HttpHeaders.CACHE_CONTROL, "no-store")
+                || hasDirective(request, HttpHeaders.PRAGMA, "no-cache")) {
+            return null;
+        }
+        final StringBuilder buf = new StringBuilder();
+        if (request.getScheme() != null) {
+            buf.append(request.getScheme()).append("://");
+        }
+        if (request.getAuthority() != null) {
+            buf.append(request.getAuthority());
+        } else {
+            final Header host = request.getFirstHeader(HttpHeaders.HOST);
+            if (host != null) {
+                buf.append(host.getValue());
+            }
+        }
+        buf.append(request.getPath());
+        for (final String name: varyHeaders) {
+            buf.append('\n').append(name.toLowerCase(Locale.ROOT)).append(':');
+            final Header[] headers = request.getHeaders(name);
+            for (int i = 0; i < headers.length; i++) {
+                if (i > 0) {
+                    buf.append(',');
+                }
+                buf.append(headers[i].getValue());
+            }
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Returns the period of time the response may be cached for or {@code null}
+     * if the response may not be cached.
+     */
+    TimeValue getTimeToLive(final HttpResponse response) {
+        boolean cacheable = false;
+        for (final int code: CACHEABLE_STATUS_CODES) {
+            if (response.getCode() == code) {
+                cacheable = true;
+                break;
+            }
+        }
+        if (!cacheable
+                || response.containsHeader("Set-Cookie")
+                || response.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+            return null;
+        }
+        long ttl = timeToLive.toMillis();
+        Long maxAge = null;
+        Long sharedMaxAge = null;
+        final Iterator<HeaderElement> it = MessageSupport.iterate(response, HttpHeaders.CACHE_CONTROL);
+        while (it.hasNext()) {
+            final HeaderElement element = it.next();
+            final String name = element.getName();
+            if ("no-store".equalsIgnoreCase(name) || "no-cache".equalsIgnoreCase(name)
+                    || "private".equalsIgnoreCase(name)) {
+                return null;
+            }
+            if ("s-maxage".equalsIgnoreCase(name)) {
+                sharedMaxAge = parseSeconds(element.getValue());
+            } else if ("max-age".equalsIgnoreCase(name)) {
+                maxAge = parseSeconds(element.getValue());
+            }
+        }
+        final Long age = sharedMaxAge != null ? sharedMaxAge : maxAge;
+        if (age != null) {
+            ttl = Math.min(ttl, TimeUnit.SECONDS.toMillis(age));
+        }
+        if (ttl <= 0) {
+            return null;
+        }
+        final Iterator<HeaderElement> vary = MessageSupport.iterate(response, HttpHeaders.VARY);
+        while (vary.hasNext()) {
+            final String name = vary.next().getName();
+            boolean known = false;
+            for (final String varyHeader: varyHeaders) {
+                if (varyHeader.equalsIgnoreCase(name)) {
+                    known = true;
+                    break;
+                }
+            }
+            if (!known) {
+                return null;
+            }
+        }
+        return TimeValue.ofMillis(ttl);
+    }
+
+    private static Long parseSeconds(final String s) {
+        if (s == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(Math.max(Long.parseLong(s.trim()), 0));
+        } catch (final NumberFormatException ex) {
+            return Long.valueOf(0);
+        }
+    }
+
+    /**
+     * Determines whether the given response may be stored in the cache.
+     */
+    public boolean isCacheable(final HttpResponse response) {
+        Args.notNull(response, "Response");
+        return getTimeToLive(response) != null;
+    }
+
+    /**
+     * Returns a fresh response for the given key or {@code null} if not available.
+     */
+    public CachedResponse get(final String key) {
+        Args.notNull(key, "Key");
+        synchronized (this) {
+            final CachedResponse response = lookup(key, System.nanoTime());
+            if (response != null) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+            return response;
+        }
+    }
+
+    private CachedResponse lookup(final String key, final long now) {
+        final CachedResponse response = map.get(key);
+        if (response != null && response.isExpired(now)) {
+            map.remove(key);
+            totalSize -= response.getSize();
+            return null;
+        }
+        return response;
+    }
+
+    /**
+     * Coordinates production of a response for the given key.
+     * <p>
+     * If no response is being produced for the key the caller is expected
+     * to produce one and the returned handle must be either completed or abandoned.
+     * Otherwise this method returns {@code null} and the callback gets completed
+     * with the response, or cancelled if the response is abandoned or turns out
+     * not to be cacheable. If a fresh response has become available in the meantime,
+     * the callback gets completed before this method returns.
+     * <p>
+     * Please note that the callback gets invoked by the thread that completes
+     * the handle.
+     */
+    public Fill fill(final String key, final FutureCallback<CachedResponse> callback) {
+        Args.notNull(key, "Key");
+        Args.notNull(callback, "Callback");
+        final CachedResponse cached;
+        synchronized (this) {
+            cached = lookup(key, System.nanoTime());
+            if (cached == null) {
+                final List<FutureCallback<CachedResponse>> callbacks = pending.get(key);
+                if (callbacks == null) {
+                    pending.put(key, new ArrayList<FutureCallback<CachedResponse>>());
+                    return new Fill(key, System.nanoTime());
+                }
+                callbacks.add(callback);
+                return null;
+            }
+        }
+        callback.completed(cached);
+        return null;
+    }
+
+    /**
+     * Removes a callback waiting for a response.
+     *
+     * @return {@code true} if the callback has been removed, {@code false} if
+     * it is no longer waiting.
+     */
+    public synchronized boolean cancel(final String key, final FutureCallback<CachedResponse> callback) {
+        final List<FutureCallback<CachedResponse>> callbacks = pending.get(key);
+        return callbacks != null && callbacks.remove(callback);
+    }
+
+    private void completeFill(
+            final Fill fill,
+            final HttpResponse response,
+            final String contentType,
+            final byte[] content) {
+        final TimeValue ttl = response != null ? getTimeToLive(response) : null;
+        final CachedResponse cached;
+        if (ttl != null && (content == null || content.length <= maxEntrySize)) {
+            cached = new CachedResponse(response, contentType, content, fill.started,
+                    fill.started + ttl.toNanos());
+        } else {
+            cached = null;
+        }
+        final List<FutureCallback<CachedResponse>> callbacks;
+        synchronized (this) {
+            callbacks = pending.remove(fill.key);
+            if (cached != null) {
+                final CachedResponse previous = map.put(fill.key, cached);
+                if (previous != null) {
+                    totalSize -= previous.getSize();
+                }
+                totalSize += cached.getSize();
+                evict();
+            }
+        }
+        if (callbacks != null) {
+            for (final FutureCallback<CachedResponse> callback: callbacks) {
+                if (cached != null) {
+                    callback.completed(cached);
+                } else {
+                    callback.cancelled();
+                }
+            }
+        }
+    }
+
+    private void evict() {
+        final Iterator<Map.Entry<String, CachedResponse>> it = map.entrySet().iterator();
+        while (totalSize > maxTotalSize && it.hasNext()) {
+            final CachedResponse response = it.next().getValue();
+            it.remove();
+            totalSize -= response.getSize();
+        }
+    }
+
+    public synchronized void clear() {
+        map.clear();
+        totalSize = 0;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "[entries: " + map.size() + "; total size: " + totalSize + "; hits: " + hitCount
+                + "; misses: " + missCount + "; pending: " + pending.size() + "]";
+    }
+
+}
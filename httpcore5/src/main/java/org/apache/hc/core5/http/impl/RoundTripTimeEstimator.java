@@ -0,0 +1,113 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http.impl;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Smoothed round-trip time estimator as specified by RFC 6298, section 2.
+ * The first sample initializes the estimate, subsequent samples are folded into
+ * an exponentially weighted moving average with gain of 1/8 while the mean
+ * deviation uses gain of 1/4.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public final class RoundTripTimeEstimator {
+
+    private long smoothedNanos;
+    private long variationNanos;
+    private long sampleCount;
+
+    public RoundTripTimeEstimator() {
+        super();
+        this.smoothedNanos = -1;
+    }
+
+    /**
+     * Folds in a new round-trip time sample. Negative samples are ignored.
+     *
+     * @param sampleNanos the round-trip time sample in nanoseconds.
+     */
+    public synchronized void update(final long sampleNanos) {
+        if (sampleNanos < 0) {
+            return;
+        }
+        if (this.smoothedNanos < 0) {
+            this.smoothedNanos = sampleNanos;
+            this.variationNanos = sampleNanos / 2;
+        } else {
+            this.variationNanos += (Math.abs(this.smoothedNanos - sampleNanos) - this.variationNanos) / 4;
+            this.smoothedNanos += (sampleNanos - this.smoothedNanos) / 8;
+        }
+        this.sampleCount++;
+    }
+
+    /**
+     * Returns the smoothed round-trip time in nanoseconds or {@code -1}
+     * if no sample has been taken yet.
+     */
+    public synchronized long getSmoothedNanos() {
+        return this.smoothedNanos;
+    }
+
+    /**
+     * Returns the round-trip time variation in nanoseconds or {@code -1}
+     * if no sample has been taken yet.
+     */
+    public synchronized long getVariationNanos() {
+        return this.smoothedNanos >= 0 ? this.variationNanos : -1;
+    }
+
+    public synchronized long getSampleCount() {
+        return this.sampleCount;
+    }
+
+    /**
+     * Returns the smoothed round-trip time or {@code null} if no sample
+     * has been taken yet.
+     */
+    public TimeValue getSmoothedRoundTripTime() {
+        final long nanos = getSmoothedNanos();
+        return nanos >= 0 ? TimeValue.ofNanoseconds(nanos) : null;
+    }
+
+    public synchronized void reset() {
+        this.smoothedNanos = -1;
+        this.variationNanos = 0;
+        this.sampleCount = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "[srtt=" + this.smoothedNanos + "ns, rttvar=" + getVariationNanos() + "ns, samples=" + this.sampleCount + "]";
+    }
+
+}
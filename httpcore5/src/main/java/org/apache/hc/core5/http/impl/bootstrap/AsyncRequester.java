@@ -40,6 +40,7 @@
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.URIScheme;
 import org.apache.hc.core5.io.ShutdownType;
+import org.apache.hc.core5.net.AsyncAddressResolver;
 import org.apache.hc.core5.net.NamedEndpoint;
 import org.apache.hc.core5.reactor.ConnectionInitiator;
 import org.apache.hc.core5.reactor.DefaultConnectingIOReactor;
@@ -56,20 +57,36 @@
 public class AsyncRequester implements IOReactorService, ConnectionInitiator {
 
     private final DefaultConnectingIOReactor ioReactor;
+    private final AsyncAddressResolver addressResolver;
 
+    /**
+     * @since 5.0
+     */
     public AsyncRequester(
             final IOEventHandlerFactory eventHandlerFactory,
             final IOReactorConfig ioReactorConfig,
             final Decorator<IOSession> ioSessionDecorator,
             final IOSessionListener sessionListener,
-            final Callback<IOSession> sessionShutdownCallback) {
+            final Callback<IOSession> sessionShutdownCallback,
+            final AsyncAddressResolver addressResolver) {
         this.ioReactor = new DefaultConnectingIOReactor(
                 eventHandlerFactory,
                 ioReactorConfig,
                 new DefaultThreadFactory("requester-dispatch", true),
                 ioSessionDecorator,
                 sessionListener,
-                sessionShutdownCallback);
+                sessionShutdownCallback,
+                addressResolver);
+        this.addressResolver = addressResolver;
+    }
+
+    public AsyncRequester(
+            final IOEventHandlerFactory eventHandlerFactory,
+            final IOReactorConfig ioReactorConfig,
+            final Decorator<IOSession> ioSessionDecorator,
+            final IOSessionListener sessionListener,
+            final Callback<IOSession> sessionShutdownCallback) {
+        this(eventHandlerFactory, ioReactorConfig, ioSessionDecorator, sessionListener, sessionShutdownCallback, null);
     }
 
     private InetSocketAddress toSocketAddress(final HttpHost host) {
@@ -83,6 +100,9 @@ private InetSocketAddress toSocketAddress(final HttpHost host) {
             }
         }
         final String hostName = host.getHostName();
+        if (addressResolver != null) {
+            return InetSocketAddress.createUnresolved(hostName, port);
+        }
         return new InetSocketAddress(hostName, port);
     }
 
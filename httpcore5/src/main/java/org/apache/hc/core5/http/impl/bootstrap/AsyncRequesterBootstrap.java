@@ -39,6 +39,9 @@
 import org.apache.hc.core5.http.nio.ssl.BasicClientTlsStrategy;
 import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
 import org.apache.hc.core5.http.protocol.HttpProcessor;
+import org.apache.hc.core5.net.AsyncAddressResolver;
+import org.apache.hc.core5.net.SystemAddressResolver;
+import org.apache.hc.core5.pool.ConnLatencyEstimator;
 import org.apache.hc.core5.pool.ConnPoolListener;
 import org.apache.hc.core5.pool.LaxConnPool;
 import org.apache.hc.core5.pool.ManagedConnPool;
@@ -65,12 +68,14 @@ public class AsyncRequesterBootstrap {
     private int maxTotal;
     private Timeout timeToLive;
     private PoolReusePolicy poolReusePolicy;
+    private ConnLatencyEstimator<IOSession> connLatencyEstimator;
     private PoolConcurrencyPolicy poolConcurrencyPolicy;
     private TlsStrategy tlsStrategy;
     private Decorator<IOSession> ioSessionDecorator;
     private IOSessionListener sessionListener;
     private Http1StreamListener streamListener;
     private ConnPoolListener<HttpHost> connPoolListener;
+    private AsyncAddressResolver addressResolver;
 
     private AsyncRequesterBootstrap() {
     }
@@ -142,6 +147,17 @@ public final AsyncRequesterBootstrap setPoolReusePolicy(final PoolReusePolicy po
         return this;
     }
 
+    /**
+     * Assigns {@link ConnLatencyEstimator} instance. If set, the connection pool leases
+     * the available connection with the lowest expected latency first.
+     *
+     * @see org.apache.hc.core5.http.impl.DefaultConnLatencyEstimator
+     */
+    public final AsyncRequesterBootstrap setConnLatencyEstimator(final ConnLatencyEstimator<IOSession> connLatencyEstimator) {
+        this.connLatencyEstimator = connLatencyEstimator;
+        return this;
+    }
+
     /**
      * Assigns {@link PoolConcurrencyPolicy} instance.
      */
@@ -191,6 +207,19 @@ public final AsyncRequesterBootstrap setConnPoolListener(final ConnPoolListener<
         return this;
     }
 
+    /**
+     * Assigns {@link AsyncAddressResolver} instance used to resolve
+     * remote endpoints without blocking I/O dispatch threads. All addresses
+     * a remote endpoint resolves to are tried as described in
+     * {@link IOReactorConfig#getConnectionAttemptDelay()}.
+     * <p>
+     * Default: {@link SystemAddressResolver#INSTANCE}
+     */
+    public final AsyncRequesterBootstrap setAddressResolver(final AsyncAddressResolver addressResolver) {
+        this.addressResolver = addressResolver;
+        return this;
+    }
+
     public HttpAsyncRequester create() {
         final ManagedConnPool<HttpHost, IOSession> connPool;
         switch (poolConcurrencyPolicy != null ? poolConcurrencyPolicy : PoolConcurrencyPolicy.STRICT) {
@@ -199,6 +228,7 @@ public HttpAsyncRequester create() {
                         defaultMaxPerRoute > 0 ? defaultMaxPerRoute : 20,
                         timeToLive,
                         poolReusePolicy,
+                        connLatencyEstimator,
                         connPoolListener);
                 break;
             case STRICT:
@@ -208,6 +238,7 @@ public HttpAsyncRequester create() {
                         maxTotal > 0 ? maxTotal : 50,
                         timeToLive,
                         poolReusePolicy,
+                        connLatencyEstimator,
                         connPoolListener);
                 break;
         }
@@ -226,7 +257,8 @@ public HttpAsyncRequester create() {
                 ioSessionDecorator,
                 sessionListener,
                 connPool,
-                tlsStrategy != null ? tlsStrategy : new BasicClientTlsStrategy());
+                tlsStrategy != null ? tlsStrategy : new BasicClientTlsStrategy(),
+                addressResolver != null ? addressResolver : SystemAddressResolver.INSTANCE);
     }
 
 }
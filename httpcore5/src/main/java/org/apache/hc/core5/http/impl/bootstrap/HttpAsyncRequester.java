@@ -61,8 +61,10 @@
 import org.apache.hc.core5.http.protocol.HttpContext;
 import org.apache.hc.core5.http.protocol.HttpCoreContext;
 import org.apache.hc.core5.io.ShutdownType;
+import org.apache.hc.core5.net.AsyncAddressResolver;
 import org.apache.hc.core5.net.URIAuthority;
 import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.ConnPoolMaintainer;
 import org.apache.hc.core5.pool.ManagedConnPool;
 import org.apache.hc.core5.pool.PoolEntry;
 import org.apache.hc.core5.pool.PoolStats;
@@ -82,14 +84,19 @@ public class HttpAsyncRequester extends AsyncRequester implements ConnPoolContro
 
     private final ManagedConnPool<HttpHost, IOSession> connPool;
     private final TlsStrategy tlsStrategy;
+    private final ConnPoolMaintainer<HttpHost, IOSession> poolMaintainer;
 
+    /**
+     * @since 5.0
+     */
     public HttpAsyncRequester(
             final IOReactorConfig ioReactorConfig,
             final IOEventHandlerFactory eventHandlerFactory,
             final Decorator<IOSession> ioSessionDecorator,
             final IOSessionListener sessionListener,
             final ManagedConnPool<HttpHost, IOSession> connPool,
-            final TlsStrategy tlsStrategy) {
+            final TlsStrategy tlsStrategy,
+            final AsyncAddressResolver addressResolver) {
         super(eventHandlerFactory, ioReactorConfig, ioSessionDecorator, sessionListener, new Callback<IOSession>() {
 
             @Override
@@ -97,9 +104,27 @@ public void execute(final IOSession session) {
                 session.addFirst(new ShutdownCommand(ShutdownType.GRACEFUL));
             }
 
-        });
+        }, addressResolver);
         this.connPool = Args.notNull(connPool, "Connection pool");
         this.tlsStrategy = tlsStrategy;
+        this.poolMaintainer = new ConnPoolMaintainer<>(connPool, new ConnPoolMaintainer.Connector<HttpHost, IOSession>() {
+
+            @Override
+            public void connect(final HttpHost route, final Timeout timeout, final FutureCallback<IOSession> callback) {
+                establishSession(route, timeout, null, callback);
+            }
+
+        });
+    }
+
+    public HttpAsyncRequester(
+            final IOReactorConfig ioReactorConfig,
+            final IOEventHandlerFactory eventHandlerFactory,
+            final Decorator<IOSession> ioSessionDecorator,
+            final IOSessionListener sessionListener,
+            final ManagedConnPool<HttpHost, IOSession> connPool,
+            final TlsStrategy tlsStrategy) {
+        this(ioReactorConfig, eventHandlerFactory, ioSessionDecorator, sessionListener, connPool, tlsStrategy, null);
     }
 
     @Override
@@ -145,11 +170,32 @@ public int getMaxPerRoute(final HttpHost route) {
     @Override
     public void closeIdle(final TimeValue idleTime) {
         connPool.closeIdle(idleTime);
+        poolMaintainer.requestMaintenance();
     }
 
     @Override
     public void closeExpired() {
         connPool.closeExpired();
+        poolMaintainer.requestMaintenance();
+    }
+
+    /**
+     * Sets the minimum number of idle connections to be kept in the pool for
+     * the given route. New connections, including their TLS and protocol
+     * handshakes, are opened in the background whenever the pool has fewer
+     * idle connections to the route.
+     *
+     * @since 5.0
+     */
+    public void setMinIdle(final HttpHost route, final int minIdle) {
+        poolMaintainer.setMinIdle(route, minIdle);
+    }
+
+    /**
+     * @since 5.0
+     */
+    public int getMinIdle(final HttpHost route) {
+        return poolMaintainer.getMinIdle(route);
     }
 
     @Override
@@ -157,6 +203,18 @@ public Set<HttpHost> getRoutes() {
         return connPool.getRoutes();
     }
 
+    @Override
+    public void shutdown(final ShutdownType shutdownType) {
+        poolMaintainer.shutdown(shutdownType);
+        super.shutdown(shutdownType);
+    }
+
+    @Override
+    public void close() throws IOException {
+        poolMaintainer.close();
+        super.close();
+    }
+
     public Future<AsyncClientEndpoint> connect(
             final HttpHost host,
             final Timeout timeout,
@@ -186,21 +244,10 @@ public void completed(final PoolEntry<HttpHost, IOSession> poolEntry) {
                 if (poolEntry.hasConnection()) {
                     resultFuture.completed(endpoint);
                 } else {
-                    final Future<IOSession> futute = requestSession(host, timeout, attachment, new FutureCallback<IOSession>() {
+                    final Future<IOSession> futute = establishSession(host, timeout, attachment, new FutureCallback<IOSession>() {
 
                         @Override
                         public void completed(final IOSession session) {
-                            if (tlsStrategy != null
-                                    && URIScheme.HTTPS.same(host.getSchemeName())
-                                    && session instanceof TransportSecurityLayer) {
-                                tlsStrategy.upgrade(
-                                        (TransportSecurityLayer) session,
-                                        host,
-                                        session.getLocalAddress(),
-                                        session.getRemoteAddress(),
-                                        attachment);
-                            }
-                            session.setSocketTimeout(timeout.toMillisIntBound());
                             poolEntry.assignConnection(session);
                             resultFuture.completed(endpoint);
                         }
@@ -243,6 +290,53 @@ public void cancelled() {
         return resultFuture;
     }
 
+    /**
+     * Opens a new session to the given host and initiates TLS upgrade where applicable.
+     *
+     * @since 5.0
+     */
+    protected Future<IOSession> establishSession(
+            final HttpHost host,
+            final Timeout timeout,
+            final Object attachment,
+            final FutureCallback<IOSession> callback) {
+        return requestSession(host, timeout, attachment, new FutureCallback<IOSession>() {
+
+            @Override
+            public void completed(final IOSession session) {
+                if (tlsStrategy != null
+                        && URIScheme.HTTPS.same(host.getSchemeName())
+                        && session instanceof TransportSecurityLayer) {
+                    tlsStrategy.upgrade(
+                            (TransportSecurityLayer) session,
+                            host,
+                            session.getLocalAddress(),
+                            session.getRemoteAddress(),
+                            attachment);
+                }
+                session.setSocketTimeout(timeout.toMillisIntBound());
+                if (callback != null) {
+                    callback.completed(session);
+                }
+            }
+
+            @Override
+            public void failed(final Exception cause) {
+                if (callback != null) {
+                    callback.failed(cause);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                if (callback != null) {
+                    callback.cancelled();
+                }
+            }
+
+        });
+    }
+
     public Future<AsyncClientEndpoint> connect(final HttpHost host, final Timeout timeout) throws InterruptedException {
         return connect(host, timeout, null, null);
     }
@@ -32,14 +32,22 @@
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ConnectionClosedException;
@@ -67,6 +75,7 @@
 import org.apache.hc.core5.io.ShutdownType;
 import org.apache.hc.core5.net.URIAuthority;
 import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.ConnPoolMaintainer;
 import org.apache.hc.core5.pool.ManagedConnPool;
 import org.apache.hc.core5.pool.PoolEntry;
 import org.apache.hc.core5.pool.PoolStats;
@@ -79,20 +88,44 @@
  */
 public class HttpRequester implements ConnPoolControl<HttpHost>, GracefullyCloseable {
 
+    /**
+     * Default period of inactivity after which pooled connections get checked
+     * for being stale prior to being re-used.
+     *
+     * @since 5.0
+     */
+    public static final TimeValue DEFAULT_VALIDATE_AFTER_INACTIVITY = TimeValue.ofSeconds(2);
+
+    private static final int MAX_WARM_UP_THREADS = 4;
+
     private final HttpRequestExecutor requestExecutor;
     private final HttpProcessor httpProcessor;
     private final ManagedConnPool<HttpHost, HttpClientConnection> connPool;
     private final SocketConfig socketConfig;
     private final HttpConnectionFactory<? extends HttpClientConnection> connectFactory;
     private final SSLSocketFactory sslSocketFactory;
-
+    private final ConnPoolMaintainer<HttpHost, HttpClientConnection> poolMaintainer;
+    private final TimeValue validateAfterInactivity;
+
+    private ThreadPoolExecutor warmUpExecutor;
+    private boolean shutdown;
+
+    /**
+     * @param validateAfterInactivity period of inactivity after which pooled
+     *   connections get checked for being stale prior to being re-used.
+     *   Connections that have been used more recently are re-used without a check.
+     *   A negative value disables the check.
+     *
+     * @since 5.0
+     */
     public HttpRequester(
             final HttpRequestExecutor requestExecutor,
             final HttpProcessor httpProcessor,
             final ManagedConnPool<HttpHost, HttpClientConnection> connPool,
             final SocketConfig socketConfig,
             final HttpConnectionFactory<? extends HttpClientConnection> connectFactory,
-            final SSLSocketFactory sslSocketFactory) {
+            final SSLSocketFactory sslSocketFactory,
+            final TimeValue validateAfterInactivity) {
         this.requestExecutor = Args.notNull(requestExecutor, "Request executor");
         this.httpProcessor = Args.notNull(httpProcessor, "HTTP processor");
         this.connPool = Args.notNull(connPool, "Connection pool");
@@ -100,6 +133,76 @@ public HttpRequester(
         this.connectFactory = connectFactory != null ? connectFactory : new DefaultBHttpClientConnectionFactory(
                 H1Config.DEFAULT, CharCodingConfig.DEFAULT);
         this.sslSocketFactory = sslSocketFactory != null ? sslSocketFactory : (SSLSocketFactory) SSLSocketFactory.getDefault();
+        this.validateAfterInactivity = validateAfterInactivity != null ? validateAfterInactivity : DEFAULT_VALIDATE_AFTER_INACTIVITY;
+        this.poolMaintainer = new ConnPoolMaintainer<>(connPool, new ConnPoolMaintainer.Connector<HttpHost, HttpClientConnection>() {
+
+            @Override
+            public void connect(
+                    final HttpHost route,
+                    final Timeout timeout,
+                    final FutureCallback<HttpClientConnection> callback) {
+                final ThreadPoolExecutor executor = getWarmUpExecutor();
+                if (executor == null) {
+                    callback.cancelled();
+                    return;
+                }
+                try {
+                    executor.execute(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            final HttpClientConnection connection;
+                            try {
+                                connection = openConnection(route, timeout);
+                            } catch (final IOException ex) {
+                                callback.failed(ex);
+                                return;
+                            }
+                            callback.completed(connection);
+                        }
+
+                    });
+                } catch (final RejectedExecutionException ex) {
+                    callback.cancelled();
+                }
+            }
+
+        });
+    }
+
+    public HttpRequester(
+            final HttpRequestExecutor requestExecutor,
+            final HttpProcessor httpProcessor,
+            final ManagedConnPool<HttpHost, HttpClientConnection> connPool,
+            final SocketConfig socketConfig,
+            final HttpConnectionFactory<? extends HttpClientConnection> connectFactory,
+            final SSLSocketFactory sslSocketFactory) {
+        this(requestExecutor, httpProcessor, connPool, socketConfig, connectFactory, sslSocketFactory, null);
+    }
+
+    private synchronized ThreadPoolExecutor getWarmUpExecutor() {
+        // Blocking connects must not tie up the pool maintenance thread. The executor
+        // is only created once connections are to be kept warm
+        if (this.warmUpExecutor == null && !this.shutdown) {
+            this.warmUpExecutor = new ThreadPoolExecutor(
+                    MAX_WARM_UP_THREADS, MAX_WARM_UP_THREADS, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new DefaultThreadFactory("requester-warm-up", true));
+            this.warmUpExecutor.allowCoreThreadTimeOut(true);
+        }
+        return this.warmUpExecutor;
+    }
+
+    private void shutdownWarmUpExecutor() {
+        final ThreadPoolExecutor executor;
+        synchronized (this) {
+            this.shutdown = true;
+            executor = this.warmUpExecutor;
+            this.warmUpExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
     }
 
     @Override
@@ -145,11 +248,31 @@ public int getMaxPerRoute(final HttpHost route) {
     @Override
     public void closeIdle(final TimeValue idleTime) {
         connPool.closeIdle(idleTime);
+        poolMaintainer.requestMaintenance();
     }
 
     @Override
     public void closeExpired() {
         connPool.closeExpired();
+        poolMaintainer.requestMaintenance();
+    }
+
+    /**
+     * Sets the minimum number of idle connections to be kept in the pool for
+     * the given route. New connections, including TLS handshakes, are opened by
+     * a background thread whenever the pool has fewer idle connections to the route.
+     *
+     * @since 5.0
+     */
+    public void setMinIdle(final HttpHost route, final int minIdle) {
+        poolMaintainer.setMinIdle(route, minIdle);
+    }
+
+    /**
+     * @since 5.0
+     */
+    public int getMinIdle(final HttpHost route) {
+        return poolMaintainer.getMinIdle(route);
     }
 
     @Override
@@ -212,8 +335,51 @@ public <T> T execute(
         }
     }
 
+    /**
+     * Checks pooled connections that have been idle for longer than the
+     * validation period. Recently used connections are re-used without a check.
+     */
+    private boolean isStale(final PoolEntry<HttpHost, HttpClientConnection> poolEntry) {
+        if (!TimeValue.isNonNegative(validateAfterInactivity)
+                || poolEntry.getUpdated() + validateAfterInactivity.toMillis() > System.currentTimeMillis()) {
+            return false;
+        }
+        try {
+            return poolEntry.getConnection().isStale();
+        } catch (final IOException ex) {
+            return true;
+        }
+    }
+
+    private HttpClientConnection openConnection(final HttpHost targetHost, final Timeout timeout) throws IOException {
+        final int timeoutMillis = Timeout.defaultsToDisabled(timeout).toMillisIntBound();
+        final Socket socket = createSocket(targetHost, timeoutMillis);
+        try {
+            if (socket instanceof SSLSocket) {
+                socket.setSoTimeout(timeoutMillis);
+                ((SSLSocket) socket).startHandshake();
+            }
+            socket.setSoTimeout(socketConfig.getSoTimeout().toMillisIntBound());
+            return connectFactory.createConnection(socket);
+        } catch (final IOException ex) {
+            socket.close();
+            throw ex;
+        }
+    }
+
     private Socket createSocket(final HttpHost targetHost) throws IOException {
-        final Socket sock = new Socket();
+        return createSocket(targetHost, socketConfig.getSoTimeout().toMillisIntBound());
+    }
+
+    private Socket createSocket(final HttpHost targetHost, final int connectTimeout) throws IOException {
+        final String scheme = targetHost.getSchemeName();
+        final Socket sock;
+        if (socketConfig.isSocketChannelBacked() && !URIScheme.HTTPS.same(scheme)) {
+            // Blocking socket channel capable of direct file transfer
+            sock = SocketChannel.open().socket();
+        } else {
+            sock = new Socket();
+        }
         sock.setSoTimeout(socketConfig.getSoTimeout().toMillisIntBound());
         sock.setReuseAddress(socketConfig.isSoReuseAddress());
         sock.setTcpNoDelay(socketConfig.isTcpNoDelay());
@@ -229,7 +395,6 @@ private Socket createSocket(final HttpHost targetHost) throws IOException {
             sock.setSoLinger(true, linger);
         }
 
-        final String scheme = targetHost.getSchemeName();
         int port = targetHost.getPort();
         if (port < 0) {
             if (URIScheme.HTTP.same(scheme)) {
@@ -244,7 +409,7 @@ private Socket createSocket(final HttpHost targetHost) throws IOException {
         } else {
             targetAddress = new InetSocketAddress(targetHost.getHostName(), port);
         }
-        sock.connect(targetAddress, socketConfig.getSoTimeout().toMillisIntBound());
+        sock.connect(targetAddress, connectTimeout);
 
         if (URIScheme.HTTPS.same(scheme)) {
             return sslSocketFactory.createSocket(sock, targetHost.getHostName(), port, true);
@@ -276,6 +441,10 @@ public ClassicHttpResponse execute(
         final PoolEntryHolder connectionHolder = new PoolEntryHolder(poolEntry);
         try {
             HttpClientConnection connection = poolEntry.getConnection();
+            if (connection != null && isStale(poolEntry)) {
+                poolEntry.discardConnection(ShutdownType.IMMEDIATE);
+                connection = null;
+            }
             if (connection == null) {
                 final Socket socket = createSocket(targetHost);
                 connection = connectFactory.createConnection(socket);
@@ -401,11 +570,15 @@ public ConnPoolControl<HttpHost> getConnPoolControl() {
 
     @Override
     public void shutdown(final ShutdownType shutdownType) {
+        poolMaintainer.shutdown(shutdownType);
+        shutdownWarmUpExecutor();
         connPool.shutdown(shutdownType);
     }
 
     @Override
     public void close() throws IOException {
+        poolMaintainer.close();
+        shutdownWarmUpExecutor();
         connPool.close();
     }
 
@@ -426,6 +599,8 @@ void releaseConnection() {
             final PoolEntry<HttpHost, HttpClientConnection> poolEntry = poolEntryRef.getAndSet(null);
             if (poolEntry != null) {
                 final HttpClientConnection connection = poolEntry.getConnection();
+                // Record the time of last use for the inactivity check
+                poolEntry.updateExpiry(TimeValue.NEG_ONE_MILLISECONDS);
                 connPool.release(poolEntry, connection != null && connection.isOpen());
             }
         }
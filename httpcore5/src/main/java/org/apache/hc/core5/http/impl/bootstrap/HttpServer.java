@@ -28,7 +28,9 @@
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.nio.channels.ServerSocketChannel;
 import java.util.Set;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -128,8 +130,16 @@ public int getLocalPort() {
 
     public void start() throws IOException {
         if (this.status.compareAndSet(Status.READY, Status.ACTIVE)) {
-            this.serverSocket = this.serverSocketFactory.createServerSocket(
-                    this.port, this.socketConfig.getBacklogSize(), this.ifAddress);
+            if (this.socketConfig.isSocketChannelBacked()
+                    && !(this.serverSocketFactory instanceof SSLServerSocketFactory)) {
+                // Blocking server socket channel accepting sockets capable of direct file transfer
+                this.serverSocket = ServerSocketChannel.open().socket();
+                this.serverSocket.bind(
+                        new InetSocketAddress(this.ifAddress, this.port), this.socketConfig.getBacklogSize());
+            } else {
+                this.serverSocket = this.serverSocketFactory.createServerSocket(
+                        this.port, this.socketConfig.getBacklogSize(), this.ifAddress);
+            }
             this.serverSocket.setReuseAddress(this.socketConfig.isSoReuseAddress());
             if (this.socketConfig.getRcvBufSize() > 0) {
                 this.serverSocket.setReceiveBufferSize(this.socketConfig.getRcvBufSize());
@@ -42,12 +42,14 @@
 import org.apache.hc.core5.http.io.HttpClientConnection;
 import org.apache.hc.core5.http.io.HttpConnectionFactory;
 import org.apache.hc.core5.http.protocol.HttpProcessor;
+import org.apache.hc.core5.pool.ConnLatencyEstimator;
 import org.apache.hc.core5.pool.ConnPoolListener;
 import org.apache.hc.core5.pool.LaxConnPool;
 import org.apache.hc.core5.pool.ManagedConnPool;
 import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
 import org.apache.hc.core5.pool.PoolReusePolicy;
 import org.apache.hc.core5.pool.StrictConnPool;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 
 /**
@@ -64,9 +66,11 @@ public class RequesterBootstrap {
     private int maxTotal;
     private Timeout timeToLive;
     private PoolReusePolicy poolReusePolicy;
+    private ConnLatencyEstimator<HttpClientConnection> connLatencyEstimator;
     private PoolConcurrencyPolicy poolConcurrencyPolicy;
     private Http1StreamListener streamListener;
     private ConnPoolListener<HttpHost> connPoolListener;
+    private TimeValue validateAfterInactivity;
 
     private RequesterBootstrap() {
     }
@@ -129,6 +133,17 @@ public final RequesterBootstrap setPoolReusePolicy(final PoolReusePolicy poolReu
         return this;
     }
 
+    /**
+     * Assigns {@link ConnLatencyEstimator} instance. If set, the connection pool leases
+     * the available connection with the lowest expected latency first.
+     *
+     * @see org.apache.hc.core5.http.impl.DefaultConnLatencyEstimator
+     */
+    public final RequesterBootstrap setConnLatencyEstimator(final ConnLatencyEstimator<HttpClientConnection> connLatencyEstimator) {
+        this.connLatencyEstimator = connLatencyEstimator;
+        return this;
+    }
+
     @Experimental
     public final RequesterBootstrap setPoolConcurrencyPolicy(final PoolConcurrencyPolicy poolConcurrencyPolicy) {
         this.poolConcurrencyPolicy = poolConcurrencyPolicy;
@@ -145,6 +160,17 @@ public final RequesterBootstrap setConnPoolListener(final ConnPoolListener<HttpH
         return this;
     }
 
+    /**
+     * Sets period of inactivity after which pooled connections get checked for being
+     * stale prior to being re-used. A negative value disables the check.
+     *
+     * @see HttpRequester#DEFAULT_VALIDATE_AFTER_INACTIVITY
+     */
+    public final RequesterBootstrap setValidateAfterInactivity(final TimeValue validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+        return this;
+    }
+
     public HttpRequester create() {
         final HttpRequestExecutor requestExecutor = new HttpRequestExecutor(
                 HttpRequestExecutor.DEFAULT_WAIT_FOR_CONTINUE,
@@ -157,6 +183,7 @@ public HttpRequester create() {
                         defaultMaxPerRoute > 0 ? defaultMaxPerRoute : 20,
                         timeToLive,
                         poolReusePolicy,
+                        connLatencyEstimator,
                         connPoolListener);
                 break;
             case STRICT:
@@ -166,6 +193,7 @@ public HttpRequester create() {
                         maxTotal > 0 ? maxTotal : 50,
                         timeToLive,
                         poolReusePolicy,
+                        connLatencyEstimator,
                         connPoolListener);
                 break;
         }
@@ -176,7 +204,8 @@ public HttpRequester create() {
                 socketConfig != null ? socketConfig : SocketConfig.DEFAULT,
                 connectFactory != null ? connectFactory : new DefaultBHttpClientConnectionFactory(
                         H1Config.DEFAULT, CharCodingConfig.DEFAULT),
-                sslSocketFactory);
+                sslSocketFactory,
+                validateAfterInactivity);
     }
 
 }
@@ -149,6 +149,41 @@ public static Header[] parseHeaders(
             final int maxLineLen,
             final LineParser parser,
             final List<CharArrayBuffer> headerLines) throws HttpException, IOException {
+        return parseHeaders(inbuffer, inputStream, maxHeaderCount, maxLineLen, -1, parser, headerLines);
+    }
+
+    /**
+     * Parses HTTP headers from the data receiver stream according to the generic
+     * format as given in Section 3.1 of RFC 822, RFC-2616 Section 4 and 19.3.
+     *
+     * @param inbuffer Session input buffer
+     * @param inputStream Input stream
+     * @param maxHeaderCount maximum number of headers allowed. Setting this
+     *  parameter to a negative value or zero will disable the check.
+     * @param maxLineLen maximum number of characters for a header line,
+     *  including the continuation lines. Setting this parameter to a negative
+     *  value or zero will disable the check.
+     * @param maxHeaderListSize maximum total number of characters of all header
+     *  lines. The limit is checked as each line is read. Setting this parameter
+     *  to a negative value or zero will disable the check.
+     * @param parser line parser to use.
+     * @param headerLines List of header lines used to store intermediate results.
+     *
+     * @return array of HTTP headers
+     *
+     * @throws IOException in case of an I/O error
+     * @throws HttpException in case of HTTP protocol violation
+     *
+     * @since 5.0
+     */
+    public static Header[] parseHeaders(
+            final SessionInputBuffer inbuffer,
+            final InputStream inputStream,
+            final int maxHeaderCount,
+            final int maxLineLen,
+            final int maxHeaderListSize,
+            final LineParser parser,
+            final List<CharArrayBuffer> headerLines) throws HttpException, IOException {
         Args.notNull(inbuffer, "Session input buffer");
         Args.notNull(inputStream, "Input stream");
         Args.notNull(parser, "Line parser");
@@ -156,6 +191,11 @@ public static Header[] parseHeaders(
 
         CharArrayBuffer current = null;
         CharArrayBuffer previous = null;
+        // Header lines may have been retained from an interrupted attempt
+        int headerListSize = 0;
+        for (int i = 0; i < headerLines.size(); i++) {
+            headerListSize += headerLines.get(i).length();
+        }
         for (;;) {
             if (current == null) {
                 current = new CharArrayBuffer(64);
@@ -166,6 +206,10 @@ public static Header[] parseHeaders(
             if (l == -1 || current.length() < 1) {
                 break;
             }
+            headerListSize += current.length();
+            if (maxHeaderListSize > 0 && headerListSize > maxHeaderListSize) {
+                throw new MessageConstraintException("Maximum header list size exceeded");
+            }
             // Parse the header name and value
             // Check for folded headers first
             // Detect LWS-char see HTTP/1.0 or HTTP/1.1 Section 2.2
@@ -260,6 +304,7 @@ public T parse(final SessionInputBuffer buffer, final InputStream inputStream) t
                     inputStream,
                     this.h1Config.getMaxHeaderCount(),
                     this.h1Config.getMaxLineLength(),
+                    this.h1Config.getMaxHeaderListSize(),
                     this.lineParser,
                     this.headerLines);
             this.message.setHeaders(headers);
@@ -34,6 +34,8 @@
 import java.net.SocketAddress;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
 import java.util.List;
@@ -141,13 +143,17 @@ protected OutputStream createContentOutputStream(
             final SessionOutputBuffer buffer,
             final OutputStream outputStream,
             final Supplier<List<? extends Header>> trailers) {
-        if (len >= 0) {
-            return new ContentLengthOutputStream(buffer, outputStream, len);
-        } else if (len == ContentLengthStrategy.CHUNKED) {
+        if (len == ContentLengthStrategy.CHUNKED) {
             final int chunkSizeHint = h1Config.getChunkSizeHint() >= 0 ? h1Config.getChunkSizeHint() : 2048;
             return new ChunkedOutputStream(buffer, outputStream, chunkSizeHint, trailers);
+        }
+        // Content can be transferred directly to the socket channel if available
+        final SocketHolder socketHolder = this.socketHolderRef.get();
+        final WritableByteChannel channel = socketHolder != null ? socketHolder.getOutputChannel() : null;
+        if (len >= 0) {
+            return new ContentLengthOutputStream(buffer, outputStream, channel, len);
         } else {
-            return new IdentityOutputStream(buffer, outputStream);
+            return new IdentityOutputStream(buffer, outputStream, channel);
         }
     }
 
@@ -290,13 +296,22 @@ public boolean isDataAvailable(final int timeout) throws IOException {
         }
     }
 
+    /**
+     * Determines whether the opposite endpoint has closed the connection.
+     * <p>
+     * Connections bound to a plain socket backed by a {@link SocketChannel}
+     * are probed with a non-blocking read. Otherwise the method attempts to read
+     * from the socket with a timeout of one millisecond.
+     */
     @Override
     public boolean isStale() throws IOException {
         if (!isOpen()) {
             return true;
         }
         try {
-            final int bytesRead = fillInputBuffer(1);
+            final SocketHolder socketHolder = ensureOpen();
+            final SocketChannel channel = socketHolder.getSocket().getChannel();
+            final int bytesRead = channel != null ? probe(channel) : fillInputBuffer(1);
             return bytesRead < 0;
         } catch (final SocketTimeoutException ex) {
             return false;
@@ -305,6 +320,17 @@ public boolean isStale() throws IOException {
         }
     }
 
+    private int probe(final SocketChannel channel) throws IOException {
+        synchronized (channel.blockingLock()) {
+            channel.configureBlocking(false);
+            try {
+                return this.inbuffer.fillBuffer(channel);
+            } finally {
+                channel.configureBlocking(true);
+            }
+        }
+    }
+
     @Override
     public void flush() throws IOException {
         final SocketHolder socketHolder = ensureOpen();
@@ -29,8 +29,11 @@
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.hc.core5.http.StreamClosedException;
+import org.apache.hc.core5.http.io.FileContentOutput;
 import org.apache.hc.core5.http.io.SessionOutputBuffer;
 import org.apache.hc.core5.util.Args;
 
@@ -44,13 +47,17 @@
  * Note that this class NEVER closes the underlying stream, even when close
  * gets called.  Instead, the stream will be marked as closed and no further
  * output will be permitted.
+ * <p>
+ * If the underlying socket is backed by a channel the stream can transfer
+ * file content directly to the channel (see {@link FileContentOutput}).
  *
  * @since 4.0
  */
-public class ContentLengthOutputStream extends OutputStream {
+public class ContentLengthOutputStream extends OutputStream implements FileContentOutput {
 
     private final SessionOutputBuffer buffer;
     private final OutputStream outputStream;
+    private final WritableByteChannel channel;
 
     /**
      * The maximum number of bytes that can be written the stream. Subsequent
@@ -75,9 +82,28 @@ public class ContentLengthOutputStream extends OutputStream {
      * @since 4.0
      */
     public ContentLengthOutputStream(final SessionOutputBuffer buffer, final OutputStream outputStream, final long contentLength) {
+        this(buffer, outputStream, null, contentLength);
+    }
+
+    /**
+     * @param buffer Session output buffer
+     * @param outputStream Output stream
+     * @param channel Channel of the socket the output stream belongs to,
+     * or {@code null} if the socket is not backed by a channel.
+     * @param contentLength The maximum number of bytes that can be written to
+     * the stream. Subsequent write operations will be ignored.
+     *
+     * @since 5.0
+     */
+    public ContentLengthOutputStream(
+            final SessionOutputBuffer buffer,
+            final OutputStream outputStream,
+            final WritableByteChannel channel,
+            final long contentLength) {
         super();
         this.buffer = Args.notNull(buffer, "Session output buffer");
         this.outputStream = Args.notNull(outputStream, "Output stream");
+        this.channel = channel;
         this.contentLength = Args.notNegative(contentLength, "Content length");
     }
 
@@ -131,4 +157,28 @@ public void write(final int b) throws IOException {
         }
     }
 
+    @Override
+    public boolean isFileTransferSupported() {
+        return this.channel != null && !this.closed;
+    }
+
+    @Override
+    public long transfer(final FileChannel src, final long position, final long count) throws IOException {
+        Args.notNull(src, "File channel");
+        if (this.closed) {
+            throw new StreamClosedException("Stream already closed");
+        }
+        if (this.channel == null) {
+            throw new IllegalStateException("File transfer not supported");
+        }
+        final long max = Math.min(count, this.contentLength - this.total);
+        if (max <= 0) {
+            return 0;
+        }
+        final long bytesTransferred = FileContentTransfer.transfer(
+                this.buffer, this.outputStream, this.channel, src, position, max);
+        this.total += bytesTransferred;
+        return bytesTransferred;
+    }
+
 }
@@ -35,6 +35,7 @@
 
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ConnectionLatencyStats;
 import org.apache.hc.core5.http.ContentLengthStrategy;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpException;
@@ -46,26 +47,33 @@
 import org.apache.hc.core5.http.UnsupportedHttpVersionException;
 import org.apache.hc.core5.http.config.H1Config;
 import org.apache.hc.core5.http.impl.DefaultContentLengthStrategy;
+import org.apache.hc.core5.http.impl.RoundTripTimeEstimator;
 import org.apache.hc.core5.http.io.HttpClientConnection;
 import org.apache.hc.core5.http.io.HttpMessageParser;
 import org.apache.hc.core5.http.io.HttpMessageParserFactory;
 import org.apache.hc.core5.http.io.HttpMessageWriter;
 import org.apache.hc.core5.http.io.HttpMessageWriterFactory;
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
 
 /**
  * Default implementation of {@link HttpClientConnection}.
+ * <p>
+ * The connection passively samples time to first response byte of each
+ * message exchange, which it exposes as {@link ConnectionLatencyStats}.
  *
  * @since 4.3
  */
 public class DefaultBHttpClientConnection extends BHttpConnectionBase
-                                                   implements HttpClientConnection {
+                                                   implements HttpClientConnection, ConnectionLatencyStats {
 
     private final HttpMessageParser<ClassicHttpResponse> responseParser;
     private final HttpMessageWriter<ClassicHttpRequest> requestWriter;
     private final ContentLengthStrategy incomingContentStrategy;
     private final ContentLengthStrategy outgoingContentStrategy;
+    private final RoundTripTimeEstimator rttEstimator;
     private volatile boolean consistent;
+    private volatile long requestSentNanos;
 
     /**
      * Creates new instance of DefaultBHttpClientConnection.
@@ -103,6 +111,7 @@ public DefaultBHttpClientConnection(
         this.outgoingContentStrategy = outgoingContentStrategy != null ? outgoingContentStrategy :
                 DefaultContentLengthStrategy.INSTANCE;
         this.consistent = true;
+        this.rttEstimator = new RoundTripTimeEstimator();
     }
 
     public DefaultBHttpClientConnection(
@@ -135,6 +144,7 @@ public void sendRequestHeader(final ClassicHttpRequest request)
         this.requestWriter.write(request, this.outbuffer, socketHolder.getOutputStream());
         onRequestSubmitted(request);
         incrementRequestCount();
+        this.requestSentNanos = System.nanoTime();
     }
 
     @Override
@@ -152,6 +162,7 @@ public void sendRequestEntity(final ClassicHttpRequest request) throws HttpExcep
         try (final OutputStream outstream = createContentOutputStream(len, this.outbuffer, socketHolder.getOutputStream(), entity.getTrailers())) {
             entity.writeTo(outstream);
         }
+        this.requestSentNanos = System.nanoTime();
     }
 
     @Override
@@ -184,6 +195,11 @@ public void terminateRequest(final ClassicHttpRequest request) throws HttpExcept
     public ClassicHttpResponse receiveResponseHeader() throws HttpException, IOException {
         final SocketHolder socketHolder = ensureOpen();
         final ClassicHttpResponse response = this.responseParser.parse(this.inbuffer, socketHolder.getInputStream());
+        final long sentNanos = this.requestSentNanos;
+        if (sentNanos != 0) {
+            this.requestSentNanos = 0;
+            this.rttEstimator.update(System.nanoTime() - sentNanos);
+        }
         final ProtocolVersion transportVersion = response.getVersion();
         if (transportVersion != null && transportVersion.greaterEquals(HttpVersion.HTTP_2)) {
             throw new UnsupportedHttpVersionException("Unsupported version: " + transportVersion);
@@ -210,4 +226,13 @@ public void receiveResponseEntity( final ClassicHttpResponse response) throws Ht
         }
         response.setEntity(createIncomingEntity(response, this.inbuffer, socketHolder.getInputStream(), len));
     }
+
+    /**
+     * @since 5.0
+     */
+    @Override
+    public TimeValue getSmoothedRoundTripTime() {
+        return this.rttEstimator.getSmoothedRoundTripTime();
+    }
+
 }
@@ -0,0 +1,66 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http.impl.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.hc.core5.http.impl.BasicHttpTransportMetrics;
+import org.apache.hc.core5.http.io.HttpTransportMetrics;
+import org.apache.hc.core5.http.io.SessionOutputBuffer;
+
+final class FileContentTransfer {
+
+    private FileContentTransfer() {
+    }
+
+    /**
+     * Flushes content buffered in the session buffer and then transfers
+     * a portion of the file content to the given channel.
+     */
+    static long transfer(
+            final SessionOutputBuffer buffer,
+            final OutputStream outputStream,
+            final WritableByteChannel channel,
+            final FileChannel src,
+            final long position,
+            final long count) throws IOException {
+        buffer.flush(outputStream);
+        final long bytesTransferred = src.transferTo(position, count, channel);
+        if (bytesTransferred > 0) {
+            final HttpTransportMetrics metrics = buffer.getMetrics();
+            if (metrics instanceof BasicHttpTransportMetrics) {
+                ((BasicHttpTransportMetrics) metrics).incrementBytesTransferred(bytesTransferred);
+            }
+        }
+        return bytesTransferred;
+    }
+
+}
@@ -29,8 +29,11 @@
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.hc.core5.http.StreamClosedException;
+import org.apache.hc.core5.http.io.FileContentOutput;
 import org.apache.hc.core5.http.io.SessionOutputBuffer;
 import org.apache.hc.core5.util.Args;
 
@@ -43,13 +46,17 @@
  * Note that this class NEVER closes the underlying stream, even when close
  * gets called.  Instead, the stream will be marked as closed and no further
  * output will be permitted.
+ * <p>
+ * If the underlying socket is backed by a channel the stream can transfer
+ * file content directly to the channel (see {@link FileContentOutput}).
  *
  * @since 4.0
  */
-public class IdentityOutputStream extends OutputStream {
+public class IdentityOutputStream extends OutputStream implements FileContentOutput {
 
     private final SessionOutputBuffer buffer;
     private final OutputStream outputStream;
+    private final WritableByteChannel channel;
 
     /** True if the stream is closed. */
     private boolean closed = false;
@@ -61,9 +68,25 @@ public class IdentityOutputStream extends OutputStream {
      * @param outputStream Output stream
      */
     public IdentityOutputStream(final SessionOutputBuffer buffer, final OutputStream outputStream) {
+        this(buffer, outputStream, null);
+    }
+
+    /**
+     * @param buffer Session output buffer
+     * @param outputStream Output stream
+     * @param channel Channel of the socket the output stream belongs to,
+     * or {@code null} if the socket is not backed by a channel.
+     *
+     * @since 5.0
+     */
+    public IdentityOutputStream(
+            final SessionOutputBuffer buffer,
+            final OutputStream outputStream,
+            final WritableByteChannel channel) {
         super();
         this.buffer = Args.notNull(buffer, "Session output buffer");
         this.outputStream = Args.notNull(outputStream, "Output stream");
+        this.channel = channel;
     }
 
     /**
@@ -105,4 +128,21 @@ public void write(final int b) throws IOException {
         this.buffer.write(b, this.outputStream);
     }
 
+    @Override
+    public boolean isFileTransferSupported() {
+        return this.channel != null && !this.closed;
+    }
+
+    @Override
+    public long transfer(final FileChannel src, final long position, final long count) throws IOException {
+        Args.notNull(src, "File channel");
+        if (this.closed) {
+            throw new StreamClosedException("Stream already closed");
+        }
+        if (this.channel == null) {
+            throw new IllegalStateException("File transfer not supported");
+        }
+        return FileContentTransfer.transfer(this.buffer, this.outputStream, this.channel, src, position, count);
+    }
+
 }
@@ -31,6 +31,7 @@
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CoderResult;
 
@@ -155,6 +156,34 @@ public int fillBuffer(final InputStream inputStream) throws IOException {
         return l;
     }
 
+    /**
+     * Reads available data from the given channel into the buffer. Unlike
+     * {@link #fillBuffer(InputStream)} this method can be used with a non-blocking
+     * channel, in which case it returns zero if no data is immediately available.
+     *
+     * @since 5.0
+     */
+    public int fillBuffer(final ReadableByteChannel channel) throws IOException {
+        Args.notNull(channel, "Channel");
+        // compact the buffer if necessary
+        if (this.bufferpos > 0) {
+            final int len = this.bufferlen - this.bufferpos;
+            if (len > 0) {
+                System.arraycopy(this.buffer, this.bufferpos, this.buffer, 0, len);
+            }
+            this.bufferpos = 0;
+            this.bufferlen = len;
+        }
+        final int off = this.bufferlen;
+        final int l = channel.read(ByteBuffer.wrap(this.buffer, off, this.buffer.length - off));
+        if (l == -1) {
+            return -1;
+        }
+        this.bufferlen = off + l;
+        this.metrics.incrementBytesTransferred(l);
+        return l;
+    }
+
     public boolean hasBufferedData() {
         return this.bufferpos < this.bufferlen;
     }
@@ -372,10 +401,8 @@ private int handleDecodingResult(
         }
         this.cbuf.flip();
         final int len = this.cbuf.remaining();
-        while (this.cbuf.hasRemaining()) {
-            charbuffer.append(this.cbuf.get());
-        }
-        this.cbuf.compact();
+        charbuffer.append(this.cbuf.array(), this.cbuf.position(), len);
+        this.cbuf.clear();
         return len;
     }
 
@@ -235,10 +235,8 @@ private void handleEncodingResult(final CoderResult result, final OutputStream o
             result.throwException();
         }
         this.bbuf.flip();
-        while (this.bbuf.hasRemaining()) {
-            write(this.bbuf.get(), outputStream);
-        }
-        this.bbuf.compact();
+        write(this.bbuf.array(), this.bbuf.position(), this.bbuf.remaining(), outputStream);
+        this.bbuf.clear();
     }
 
     @Override
@@ -31,6 +31,7 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.hc.core5.util.Args;
@@ -93,6 +94,27 @@ public final OutputStream getOutputStream() throws IOException {
         }
     }
 
+    /**
+     * Returns the channel content can be written to directly by-passing
+     * the socket output stream or {@code null} if the socket is not backed
+     * by a channel.
+     *
+     * @since 5.0
+     */
+    protected WritableByteChannel getOutputChannel(final Socket socket) {
+        return socket.getChannel();
+    }
+
+    /**
+     * Returns the channel content can be written to directly by-passing
+     * the socket output stream or {@code null} if not available.
+     *
+     * @since 5.0
+     */
+    public final WritableByteChannel getOutputChannel() {
+        return getOutputChannel(socket);
+    }
+
     @Override
     public String toString() {
         return socket.toString();
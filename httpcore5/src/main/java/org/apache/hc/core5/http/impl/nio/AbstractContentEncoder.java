@@ -29,6 +29,7 @@
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.List;
 
@@ -86,6 +87,33 @@ protected BasicHttpTransportMetrics metrics() {
         return this.metrics;
     }
 
+    /**
+     * Writes content segments one by one using {@link #write(ByteBuffer)} until
+     * a segment cannot be written out in its entirety. Encoders capable of
+     * writing out several segments at once are expected to override this method.
+     *
+     * @since 5.0
+     */
+    @Override
+    public long write(final ByteBuffer[] srcs) throws IOException {
+        if (srcs == null) {
+            return 0;
+        }
+        long total = 0;
+        for (final ByteBuffer src: srcs) {
+            if (isCompleted()) {
+                break;
+            }
+            if (src.hasRemaining()) {
+                total += write(src);
+                if (src.hasRemaining()) {
+                    break;
+                }
+            }
+        }
+        return total;
+    }
+
     @Override
     public boolean isCompleted() {
         return this.completed;
@@ -194,4 +222,104 @@ private int doWriteChunk(final ByteBuffer src, final boolean direct) throws IOEx
         return chunk;
     }
 
+    /**
+     * Transfers content of the given buffers to the channel and updates transport metrics.
+     * If the channel is capable of gathering writes pending content of the session buffer
+     * and the given buffers get written out with a single write operation. Otherwise
+     * the session buffer gets flushed first and the given buffers are written out only
+     * if that succeeds.
+     *
+     * @param srcs sources.
+     * @param offset offset of the first source.
+     * @param length number of sources.
+     * @return number of bytes transferred from the sources.
+     *
+     * @since 5.0
+     */
+    protected long writeToChannel(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+        if (this.channel instanceof GatheringByteChannel) {
+            final GatheringByteChannel gatheringChannel = (GatheringByteChannel) this.channel;
+            if (this.buffer instanceof ExpandableBuffer && this.buffer.hasData()) {
+                final ByteBuffer pending = ((ExpandableBuffer) this.buffer).buffer();
+                final ByteBuffer[] segments = new ByteBuffer[length + 1];
+                segments[0] = pending;
+                System.arraycopy(srcs, offset, segments, 1, length);
+                final int pendingLen = pending.remaining();
+                final long bytesWritten = gatheringChannel.write(segments);
+                if (bytesWritten > 0) {
+                    this.metrics.incrementBytesTransferred(bytesWritten);
+                }
+                return bytesWritten - (pendingLen - pending.remaining());
+            }
+            flushToChannel();
+            if (this.buffer.hasData()) {
+                return 0;
+            }
+            final long bytesWritten = gatheringChannel.write(srcs, offset, length);
+            if (bytesWritten > 0) {
+                this.metrics.incrementBytesTransferred(bytesWritten);
+            }
+            return bytesWritten;
+        }
+        flushToChannel();
+        if (this.buffer.hasData()) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = offset; i < offset + length; i++) {
+            final ByteBuffer src = srcs[i];
+            if (src.hasRemaining()) {
+                total += writeToChannel(src);
+                if (src.hasRemaining()) {
+                    break;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Transfers content of the given buffers to the channel up to the given limit
+     * and updates transport metrics.
+     *
+     * @param srcs sources.
+     * @param limit max number of bytes to transfer.
+     * @return number of bytes transferred from the sources.
+     *
+     * @see #writeToChannel(ByteBuffer[], int, int)
+     *
+     * @since 5.0
+     */
+    protected long writeToChannel(final ByteBuffer[] srcs, final long limit) throws IOException {
+        long remaining = limit;
+        int count = 0;
+        ByteBuffer last = null;
+        int oldLimit = 0;
+        while (count < srcs.length && remaining > 0) {
+            final ByteBuffer src = srcs[count];
+            if (src.remaining() > remaining) {
+                last = src;
+                oldLimit = src.limit();
+                src.limit(src.position() + (int) remaining);
+            }
+            remaining -= src.remaining();
+            count++;
+        }
+        try {
+            return writeToChannel(srcs, 0, count);
+        } finally {
+            if (last != null) {
+                last.limit(oldLimit);
+            }
+        }
+    }
+
+    static long remaining(final ByteBuffer[] srcs) {
+        long total = 0;
+        for (final ByteBuffer src: srcs) {
+            total += src.remaining();
+        }
+        return total;
+    }
+
 }
@@ -64,6 +64,7 @@
 import org.apache.hc.core5.http.nio.CapacityChannel;
 import org.apache.hc.core5.http.nio.ContentDecoder;
 import org.apache.hc.core5.http.nio.ContentEncoder;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
 import org.apache.hc.core5.http.nio.NHttpMessageParser;
 import org.apache.hc.core5.http.nio.NHttpMessageWriter;
 import org.apache.hc.core5.http.nio.ResourceHolder;
@@ -88,6 +89,9 @@
 
     private enum ConnectionState { READY, ACTIVE, GRACEFUL_SHUTDOWN, SHUTDOWN}
 
+    // Direct file transfer per input event as a multiple of the session buffer size
+    private static final int FILE_TRANSFER_BUFFERS_PER_EVENT = 16;
+
     private final TlsCapableIOSession ioSession;
     private final H1Config h1Config;
     private final SessionInputBufferImpl inbuf;
@@ -100,6 +104,7 @@ private enum ConnectionState { READY, ACTIVE, GRACEFUL_SHUTDOWN, SHUTDOWN}
     private final ContentLengthStrategy incomingContentStrategy;
     private final ContentLengthStrategy outgoingContentStrategy;
     private final ByteBuffer contentBuffer;
+    private final long fileTransferLimit;
     private final Lock outputLock;
     private final AtomicInteger outputRequests;
 
@@ -136,6 +141,7 @@ private enum ConnectionState { READY, ACTIVE, GRACEFUL_SHUTDOWN, SHUTDOWN}
         this.outgoingContentStrategy = outgoingContentStrategy != null ? outgoingContentStrategy :
                 DefaultContentLengthStrategy.INSTANCE;
         this.contentBuffer = ByteBuffer.allocate(this.h1Config.getBufferSize());
+        this.fileTransferLimit = (long) this.h1Config.getBufferSize() * FILE_TRANSFER_BUFFERS_PER_EVENT;
         this.outputLock = new ReentrantLock();
         this.outputRequests = new AtomicInteger(0);
         this.connState = ConnectionState.READY;
@@ -193,6 +199,10 @@ abstract ContentEncoder createContentEncoder(
 
     abstract int consumeData(ByteBuffer src) throws HttpException, IOException;
 
+    abstract boolean isFileTransferSupported();
+
+    abstract long consumeData(FileContentDecoder contentDecoder) throws HttpException, IOException;
+
     abstract void updateCapacity(CapacityChannel capacityChannel) throws HttpException, IOException;
 
     abstract void dataEnd(List<? extends Header> trailers) throws HttpException, IOException;
@@ -244,6 +254,7 @@ public final void onConnect(final ByteBuffer prefeed) throws HttpException, IOEx
     }
 
     public final void onInput() throws HttpException, IOException {
+        long fileBytesTransferred = 0;
         while (connState.compareTo(ConnectionState.SHUTDOWN) < 0) {
             int totalBytesRead = 0;
             int messagesReceived = 0;
@@ -305,8 +316,27 @@ public final void onInput() throws HttpException, IOException {
             if (incomingMessage != null) {
                 final ContentDecoder contentDecoder = incomingMessage.getBody();
 
+                if (contentDecoder instanceof FileContentDecoder
+                        && ioSession.getTlsDetails() == null
+                        && isFileTransferSupported()) {
+                    // Let the consumer transfer content directly from the channel. The amount
+                    // transferred per input event is capped so that a large message body cannot
+                    // hold up other sessions served by the same I/O dispatch thread
+                    final LimitedFileContentDecoder limitedDecoder = new LimitedFileContentDecoder(
+                            (FileContentDecoder) contentDecoder, fileTransferLimit - fileBytesTransferred);
+                    long bytesTransferred;
+                    while ((bytesTransferred = consumeData(limitedDecoder)) > 0) {
+                        totalBytesRead += (int) Math.min(bytesTransferred, Integer.MAX_VALUE);
+                    }
+                    fileBytesTransferred += limitedDecoder.getTransferred();
+                    if (limitedDecoder.isLimitReached() && !contentDecoder.isCompleted()) {
+                        // The selector reports the channel as readable again with the next select
+                        return;
+                    }
+                }
+
                 int bytesRead;
-                while ((bytesRead = contentDecoder.read(contentBuffer)) > 0) {
+                while (!contentDecoder.isCompleted() && (bytesRead = contentDecoder.read(contentBuffer)) > 0) {
                     if (bytesRead > 0) {
                         totalBytesRead += bytesRead;
                     }
@@ -519,6 +549,23 @@ int streamOutput(final ByteBuffer src) throws IOException {
         }
     }
 
+    long streamOutput(final ByteBuffer[] srcs) throws IOException {
+        outputLock.lock();
+        try {
+            if (outgoingMessage == null) {
+                throw new ClosedChannelException();
+            }
+            final ContentEncoder contentEncoder = outgoingMessage.getBody();
+            final long bytesWritten = contentEncoder.write(srcs);
+            if (bytesWritten > 0) {
+                ioSession.setEvent(SelectionKey.OP_WRITE);
+            }
+            return bytesWritten;
+        } finally {
+            outputLock.unlock();
+        }
+    }
+
     enum MessageDelineation { NONE, CHUNK_CODED, MESSAGE_HEAD}
 
     MessageDelineation endOutputStream(final List<? extends Header> trailers) throws IOException {
@@ -60,6 +60,7 @@
     private CharArrayBuffer lineBuf;
     private final List<CharArrayBuffer> headerBufs;
     private int emptyLineCount;
+    private int headerListSize;
 
     private final LineParser lineParser;
     private final H1Config messageConstraints;
@@ -91,6 +92,7 @@ public void reset() {
         this.state = READ_HEAD_LINE;
         this.headerBufs.clear();
         this.emptyLineCount = 0;
+        this.headerListSize = 0;
         this.message = null;
     }
 
@@ -158,6 +160,17 @@ public T parse(
                             (!lineComplete && sessionBuffer.length() > maxLineLen))) {
                 throw new MessageConstraintException("Maximum line length limit exceeded");
             }
+            if (this.state == READ_HEADERS) {
+                // Reject excessive header blocks as they arrive instead of once the message head is complete
+                final int maxListSize = this.messageConstraints.getMaxHeaderListSize();
+                if (maxListSize > 0) {
+                    final int lineLen = lineComplete ? this.lineBuf.length() : sessionBuffer.length();
+                    if (this.headerListSize + lineLen > maxListSize) {
+                        throw new MessageConstraintException("Maximum header list size exceeded");
+                    }
+                }
+                this.headerListSize += lineComplete ? this.lineBuf.length() : 0;
+            }
             if (!lineComplete) {
                 break;
             }
@@ -29,6 +29,7 @@
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.List;
 
@@ -49,6 +50,8 @@ public class ChunkEncoder extends AbstractContentEncoder {
 
     private final int chunkSizeHint;
     private final CharArrayBuffer lineBuffer;
+    private final ByteBuffer chunkHead;
+    private final ByteBuffer chunkTail;
 
     /**
      * @param channel underlying channel.
@@ -65,6 +68,8 @@ public ChunkEncoder(
         super(channel, buffer, metrics);
         this.chunkSizeHint = chunkSizeHint > 0 ? chunkSizeHint : 0;
         this.lineBuffer = new CharArrayBuffer(16);
+        this.chunkHead = ByteBuffer.allocate(10);
+        this.chunkTail = ByteBuffer.allocate(2);
     }
 
     public ChunkEncoder(
@@ -123,6 +128,69 @@ public int write(final ByteBuffer src) throws IOException {
         return total;
     }
 
+    /**
+     * Writes content segments as a single chunk. If the underlying channel is
+     * capable of gathering writes the chunk header, the content segments and
+     * the chunk trailing line get written out with a single write operation
+     * without copying the content. Whatever portion of the chunk could not be
+     * written out gets stored in the session buffer.
+     */
+    @Override
+    public long write(final ByteBuffer[] srcs) throws IOException {
+        if (srcs == null) {
+            return 0;
+        }
+        assertNotCompleted();
+        final long total = remaining(srcs);
+        // subtract the length of the longest chunk header and the trailing line
+        final int avail = this.buffer.capacity() - 12;
+        if (!(this.channel instanceof GatheringByteChannel) || total <= this.chunkSizeHint || avail <= 0) {
+            return super.write(srcs);
+        }
+        final int chunk = (int) Math.min(total, avail);
+
+        this.chunkHead.clear();
+        final String hex = Integer.toHexString(chunk);
+        for (int i = 0; i < hex.length(); i++) {
+            this.chunkHead.put((byte) hex.charAt(i));
+        }
+        this.chunkHead.put((byte) '\r').put((byte) '\n').flip();
+        this.chunkTail.clear();
+        this.chunkTail.put((byte) '\r').put((byte) '\n').flip();
+
+        final ByteBuffer[] segments = new ByteBuffer[srcs.length + 2];
+        segments[0] = this.chunkHead;
+        int count = 1;
+        int remaining = chunk;
+        ByteBuffer last = null;
+        int oldLimit = 0;
+        for (int i = 0; i < srcs.length && remaining > 0; i++) {
+            final ByteBuffer src = srcs[i];
+            if (src.remaining() > remaining) {
+                last = src;
+                oldLimit = src.limit();
+                src.limit(src.position() + remaining);
+            }
+            remaining -= src.remaining();
+            segments[count++] = src;
+        }
+        segments[count++] = this.chunkTail;
+        try {
+            writeToChannel(segments, 0, count);
+            // Whatever has not been written out must follow in the session buffer
+            for (int i = 0; i < count; i++) {
+                if (segments[i].hasRemaining()) {
+                    this.buffer.write(segments[i]);
+                }
+            }
+        } finally {
+            if (last != null) {
+                last.limit(oldLimit);
+            }
+        }
+        return chunk;
+    }
+
     @Override
     public void complete(final List<? extends Header> trailers) throws IOException {
         assertNotCompleted();
@@ -29,6 +29,8 @@
 
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.ConnectionLatencyStats;
+import org.apache.hc.core5.util.TimeValue;
 
 /**
  * {@link org.apache.hc.core5.reactor.IOEventHandler} that implements client side HTTP/1.1 messaging protocol.
@@ -36,10 +38,18 @@
  * @since 5.0
  */
 @Contract(threading = ThreadingBehavior.IMMUTABLE_CONDITIONAL)
-public class ClientHttp1IOEventHandler extends AbstractHttp1IOEventHandler {
+public class ClientHttp1IOEventHandler extends AbstractHttp1IOEventHandler implements ConnectionLatencyStats {
+
+    private final ClientHttp1StreamDuplexer streamDuplexer;
 
     public ClientHttp1IOEventHandler(final ClientHttp1StreamDuplexer streamDuplexer) {
         super(streamDuplexer);
+        this.streamDuplexer = streamDuplexer;
+    }
+
+    @Override
+    public TimeValue getSmoothedRoundTripTime() {
+        return streamDuplexer.getSmoothedRoundTripTime();
     }
 
 }
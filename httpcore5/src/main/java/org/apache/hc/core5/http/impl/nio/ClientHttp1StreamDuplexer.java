@@ -36,6 +36,7 @@
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http.ConnectionLatencyStats;
 import org.apache.hc.core5.http.ConnectionReuseStrategy;
 import org.apache.hc.core5.http.ContentLengthStrategy;
 import org.apache.hc.core5.http.EntityDetails;
@@ -50,11 +51,13 @@
 import org.apache.hc.core5.http.impl.BasicHttpTransportMetrics;
 import org.apache.hc.core5.http.impl.DefaultConnectionReuseStrategy;
 import org.apache.hc.core5.http.impl.Http1StreamListener;
+import org.apache.hc.core5.http.impl.RoundTripTimeEstimator;
 import org.apache.hc.core5.http.message.MessageSupport;
 import org.apache.hc.core5.http.nio.AsyncClientExchangeHandler;
 import org.apache.hc.core5.http.nio.CapacityChannel;
 import org.apache.hc.core5.http.nio.ContentDecoder;
 import org.apache.hc.core5.http.nio.ContentEncoder;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
 import org.apache.hc.core5.http.nio.NHttpMessageParser;
 import org.apache.hc.core5.http.nio.NHttpMessageWriter;
 import org.apache.hc.core5.http.nio.SessionInputBuffer;
@@ -67,8 +70,10 @@
 import org.apache.hc.core5.reactor.TlsCapableIOSession;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.Asserts;
+import org.apache.hc.core5.util.TimeValue;
 
-public class ClientHttp1StreamDuplexer extends AbstractHttp1StreamDuplexer<HttpResponse, HttpRequest> {
+public class ClientHttp1StreamDuplexer extends AbstractHttp1StreamDuplexer<HttpResponse, HttpRequest>
+        implements ConnectionLatencyStats {
 
     private final HttpProcessor httpProcessor;
     private final ConnectionReuseStrategy connectionReuseStrategy;
@@ -76,9 +81,12 @@ public class ClientHttp1StreamDuplexer extends AbstractHttp1StreamDuplexer<HttpR
     private final Http1StreamListener streamListener;
     private final Queue<ClientHttp1StreamHandler> pipeline;
     private final Http1StreamChannel<HttpRequest> outputChannel;
+    private final RoundTripTimeEstimator rttEstimator;
 
     private volatile ClientHttp1StreamHandler outgoing;
     private volatile ClientHttp1StreamHandler incoming;
+    // Time the oldest outstanding request has been sent, zero if none
+    private volatile long requestSentNanos;
 
     public ClientHttp1StreamDuplexer(
             final TlsCapableIOSession ioSession,
@@ -98,6 +106,7 @@ public ClientHttp1StreamDuplexer(
                 DefaultConnectionReuseStrategy.INSTANCE;
         this.streamListener = streamListener;
         this.pipeline = new ConcurrentLinkedQueue<>();
+        this.rttEstimator = new RoundTripTimeEstimator();
         this.outputChannel = new Http1StreamChannel<HttpRequest>() {
 
             @Override
@@ -138,6 +147,11 @@ public int write(final ByteBuffer src) throws IOException {
                 return streamOutput(src);
             }
 
+            @Override
+            public long write(final ByteBuffer[] srcs) throws IOException {
+                return streamOutput(srcs);
+            }
+
             @Override
             public void complete(final List<? extends Header> trailers) throws IOException {
                 endOutputStream(trailers);
@@ -246,6 +260,9 @@ void updateInputMetrics(final HttpResponse response, final BasicHttpConnectionMe
     @Override
     void updateOutputMetrics(final HttpRequest request, final BasicHttpConnectionMetrics connMetrics) {
         connMetrics.incrementRequestCount();
+        if (requestSentNanos == 0) {
+            requestSentNanos = System.nanoTime();
+        }
     }
 
     @Override
@@ -257,6 +274,11 @@ protected boolean handleIncomingMessage(final HttpResponse response) throws Http
         if (incoming == null) {
             throw new HttpException("Unexpected response");
         }
+        final long sentNanos = requestSentNanos;
+        if (sentNanos != 0) {
+            requestSentNanos = 0;
+            rttEstimator.update(System.nanoTime() - sentNanos);
+        }
         return MessageSupport.canResponseHaveBody(incoming.getRequestMethod(), response);
     }
 
@@ -310,6 +332,10 @@ boolean outputIdle() {
     @Override
     void outputEnd() throws HttpException, IOException {
         if (outgoing != null) {
+            // Time to first response byte is measured from the end of the request message
+            if (requestSentNanos != 0 && incoming == null) {
+                requestSentNanos = System.nanoTime();
+            }
             if (outgoing.isCompleted()) {
                 outgoing.releaseResources();
             }
@@ -365,6 +391,17 @@ int consumeData(final ByteBuffer src) throws HttpException, IOException {
         return incoming.consumeData(src);
     }
 
+    @Override
+    boolean isFileTransferSupported() {
+        return incoming != null && incoming.isFileTransferSupported();
+    }
+
+    @Override
+    long consumeData(final FileContentDecoder contentDecoder) throws HttpException, IOException {
+        Asserts.notNull(incoming, "Response stream handler");
+        return incoming.consumeData(contentDecoder);
+    }
+
     @Override
     void updateCapacity(final CapacityChannel capacityChannel) throws HttpException, IOException {
         Asserts.notNull(incoming, "Response stream handler");
@@ -390,6 +427,17 @@ void inputEnd() throws HttpException, IOException {
         }
     }
 
+    /**
+     * Returns the smoothed time to first response byte passively sampled
+     * from message exchanges over this connection.
+     *
+     * @since 5.0
+     */
+    @Override
+    public TimeValue getSmoothedRoundTripTime() {
+        return rttEstimator.getSmoothedRoundTripTime();
+    }
+
     @Override
     boolean handleTimeout() {
         return outgoing != null && outgoing.handleTimeout();
@@ -47,6 +47,8 @@
 import org.apache.hc.core5.http.nio.AsyncClientExchangeHandler;
 import org.apache.hc.core5.http.nio.CapacityChannel;
 import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
+import org.apache.hc.core5.http.nio.FileDataConsumer;
 import org.apache.hc.core5.http.nio.RequestChannel;
 import org.apache.hc.core5.http.nio.ResourceHolder;
 import org.apache.hc.core5.http.protocol.HttpCoreContext;
@@ -96,6 +98,11 @@ public int write(final ByteBuffer src) throws IOException {
                 return outputChannel.write(src);
             }
 
+            @Override
+            public long write(final ByteBuffer[] srcs) throws IOException {
+                return outputChannel.write(srcs);
+            }
+
             @Override
             public void endStream() throws IOException {
                 endStream(null);
@@ -257,6 +264,18 @@ int consumeData(final ByteBuffer src) throws HttpException, IOException {
         return exchangeHandler.consume(src);
     }
 
+    boolean isFileTransferSupported() {
+        return exchangeHandler instanceof FileDataConsumer
+                && ((FileDataConsumer) exchangeHandler).isFileTransferSupported();
+    }
+
+    long consumeData(final FileContentDecoder contentDecoder) throws HttpException, IOException {
+        if (done.get() || responseState != MessageState.BODY) {
+            throw new ProtocolException("Unexpected message data");
+        }
+        return ((FileDataConsumer) exchangeHandler).transfer(contentDecoder);
+    }
+
     void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
         exchangeHandler.updateCapacity(capacityChannel);
     }
@@ -116,6 +116,18 @@ public int write(final ByteBuffer src) throws IOException {
         return total;
     }
 
+    @Override
+    public long write(final ByteBuffer[] srcs) throws IOException {
+        if (srcs == null) {
+            return 0;
+        }
+        assertNotCompleted();
+        if (remaining(srcs) <= this.fragHint) {
+            return super.write(srcs);
+        }
+        return writeToChannel(srcs, 0, srcs.length);
+    }
+
     @Override
     public long transfer(
             final FileChannel src,
@@ -141,6 +141,23 @@ public int write(final ByteBuffer src) throws IOException {
         return total;
     }
 
+    @Override
+    public long write(final ByteBuffer[] srcs) throws IOException {
+        if (srcs == null) {
+            return 0;
+        }
+        assertNotCompleted();
+        if (Math.min(remaining(srcs), this.remaining) <= this.fragHint) {
+            return super.write(srcs);
+        }
+        final long bytesWritten = writeToChannel(srcs, this.remaining);
+        this.remaining -= bytesWritten;
+        if (this.remaining <= 0) {
+            super.complete(null);
+        }
+        return bytesWritten;
+    }
+
     @Override
     public long transfer(
             final FileChannel src,
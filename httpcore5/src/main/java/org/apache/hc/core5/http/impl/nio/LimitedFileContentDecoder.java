@@ -0,0 +1,92 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.impl.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
+
+/**
+ * {@link FileContentDecoder} that caps the total number of bytes transferred
+ * directly to a file at the given limit. Content that exceeds the limit remains
+ * in the underlying channel.
+ *
+ * @since 5.0
+ */
+final class LimitedFileContentDecoder implements FileContentDecoder {
+
+    private final FileContentDecoder contentDecoder;
+    private final long limit;
+
+    private long transferred;
+
+    LimitedFileContentDecoder(final FileContentDecoder contentDecoder, final long limit) {
+        this.contentDecoder = contentDecoder;
+        this.limit = limit;
+    }
+
+    @Override
+    public long transfer(final FileChannel dst, final long position, final long count) throws IOException {
+        final long chunk = Math.min(count, this.limit - this.transferred);
+        if (chunk <= 0) {
+            return 0;
+        }
+        final long bytesTransferred = this.contentDecoder.transfer(dst, position, chunk);
+        if (bytesTransferred > 0) {
+            this.transferred += bytesTransferred;
+        }
+        return bytesTransferred;
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        return this.contentDecoder.read(dst);
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return this.contentDecoder.isCompleted();
+    }
+
+    @Override
+    public List<? extends Header> getTrailers() {
+        return this.contentDecoder.getTrailers();
+    }
+
+    long getTransferred() {
+        return this.transferred;
+    }
+
+    boolean isLimitReached() {
+        return this.transferred >= this.limit;
+    }
+
+}
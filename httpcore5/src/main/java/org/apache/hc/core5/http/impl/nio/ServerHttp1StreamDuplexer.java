@@ -53,6 +53,7 @@
 import org.apache.hc.core5.http.nio.CapacityChannel;
 import org.apache.hc.core5.http.nio.ContentDecoder;
 import org.apache.hc.core5.http.nio.ContentEncoder;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
 import org.apache.hc.core5.http.nio.HandlerFactory;
 import org.apache.hc.core5.http.nio.NHttpMessageParser;
 import org.apache.hc.core5.http.nio.NHttpMessageWriter;
@@ -143,6 +144,11 @@ public int write(final ByteBuffer src) throws IOException {
                 return streamOutput(src);
             }
 
+            @Override
+            public long write(final ByteBuffer[] srcs) throws IOException {
+                return streamOutput(srcs);
+            }
+
             @Override
             public void complete(final List<? extends Header> trailers) throws IOException {
                 endOutputStream(trailers);
@@ -336,6 +342,17 @@ int consumeData(final ByteBuffer src) throws HttpException, IOException {
         return incoming.consumeData(src);
     }
 
+    @Override
+    boolean isFileTransferSupported() {
+        return incoming != null && incoming.isFileTransferSupported();
+    }
+
+    @Override
+    long consumeData(final FileContentDecoder contentDecoder) throws HttpException, IOException {
+        Asserts.notNull(incoming, "Request stream handler");
+        return incoming.consumeData(contentDecoder);
+    }
+
     @Override
     void updateCapacity(final CapacityChannel capacityChannel) throws HttpException, IOException {
         Asserts.notNull(incoming, "Request stream handler");
@@ -471,6 +488,17 @@ public int write(final ByteBuffer src) throws IOException {
             }
         }
 
+        @Override
+        public long write(final ByteBuffer[] srcs) throws IOException {
+            synchronized (this) {
+                if (direct) {
+                    return channel.write(srcs);
+                } else {
+                    return 0;
+                }
+            }
+        }
+
         @Override
         public void complete(final List<? extends Header> trailers) throws IOException {
             synchronized (this) {
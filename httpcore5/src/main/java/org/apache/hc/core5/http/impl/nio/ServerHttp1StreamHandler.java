@@ -51,6 +51,8 @@
 import org.apache.hc.core5.http.nio.BasicResponseProducer;
 import org.apache.hc.core5.http.nio.CapacityChannel;
 import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
+import org.apache.hc.core5.http.nio.FileDataConsumer;
 import org.apache.hc.core5.http.nio.HandlerFactory;
 import org.apache.hc.core5.http.nio.ResourceHolder;
 import org.apache.hc.core5.http.nio.ResponseChannel;
@@ -104,6 +106,11 @@ public int write(final ByteBuffer src) throws IOException {
                 return outputChannel.write(src);
             }
 
+            @Override
+            public long write(final ByteBuffer[] srcs) throws IOException {
+                return outputChannel.write(srcs);
+            }
+
             @Override
             public void endStream() throws IOException {
                 endStream(null);
@@ -318,6 +325,21 @@ int consumeData(final ByteBuffer src) throws HttpException, IOException {
         return exchangeHandler.consume(src);
     }
 
+    boolean isFileTransferSupported() {
+        return exchangeHandler instanceof FileDataConsumer
+                && ((FileDataConsumer) exchangeHandler).isFileTransferSupported();
+    }
+
+    long consumeData(final FileContentDecoder contentDecoder) throws HttpException, IOException {
+        if (done.get() || requestState != MessageState.BODY) {
+            throw new ProtocolException("Unexpected message data");
+        }
+        if (responseState == MessageState.ACK) {
+            outputChannel.requestOutput();
+        }
+        return ((FileDataConsumer) exchangeHandler).transfer(contentDecoder);
+    }
+
     void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
         exchangeHandler.updateCapacity(capacityChannel);
     }
@@ -38,6 +38,7 @@
 
 import org.apache.hc.core5.http.Chars;
 import org.apache.hc.core5.http.MessageConstraintException;
+import org.apache.hc.core5.http.impl.CharCodingSupport;
 import org.apache.hc.core5.http.nio.SessionInputBuffer;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.CharArrayBuffer;
@@ -87,7 +88,7 @@ public SessionInputBufferImpl(
             final int lineBuffersize,
             final int maxLineLen,
             final Charset charset) {
-        this(buffersize, lineBuffersize, maxLineLen, charset != null ? charset.newDecoder() : null);
+        this(buffersize, lineBuffersize, maxLineLen, charset != null ? CharCodingSupport.newDecoder(charset) : null);
     }
 
     /**
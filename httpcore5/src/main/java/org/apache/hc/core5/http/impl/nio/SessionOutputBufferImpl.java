@@ -38,6 +38,7 @@
 import java.nio.charset.CoderResult;
 
 import org.apache.hc.core5.http.Chars;
+import org.apache.hc.core5.http.impl.CharCodingSupport;
 import org.apache.hc.core5.http.nio.SessionOutputBuffer;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.CharArrayBuffer;
@@ -84,7 +85,7 @@ public SessionOutputBufferImpl(
             final int buffersize,
             final int linebuffersize,
             final Charset charset) {
-        this(buffersize, linebuffersize, charset != null ? charset.newEncoder() : null);
+        this(buffersize, linebuffersize, charset != null ? CharCodingSupport.newEncoder(charset) : null);
     }
 
     /**
@@ -31,12 +31,19 @@
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.FileContentOutput;
 import org.apache.hc.core5.util.Args;
 
 /**
  * A self contained, repeatable entity that obtains its content from a file.
+ * <p>
+ * Output streams capable of direct file transfer (see {@link FileContentOutput})
+ * receive the file content straight from the file channel.
  *
  * @since 4.0
  */
@@ -78,6 +85,42 @@ public InputStream getContent() throws IOException {
         return new FileInputStream(this.file);
     }
 
+    @Override
+    public void writeTo(final OutputStream outstream) throws IOException {
+        Args.notNull(outstream, "Output stream");
+        if (!transfer(this.file, outstream)) {
+            super.writeTo(outstream);
+        }
+    }
+
+    /**
+     * Transfers content of the given file to the output stream directly from
+     * the file channel if the stream supports it.
+     *
+     * @return {@code true} if the content has been transferred,
+     *   {@code false} if the stream does not support direct file transfer.
+     */
+    static boolean transfer(final File file, final OutputStream outstream) throws IOException {
+        if (!(outstream instanceof FileContentOutput)
+                || !((FileContentOutput) outstream).isFileTransferSupported()) {
+            return false;
+        }
+        final FileContentOutput contentOutput = (FileContentOutput) outstream;
+        try (final FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = fileChannel.size();
+            long position = 0;
+            while (position < size) {
+                final long bytesTransferred = contentOutput.transfer(fileChannel, position, size - position);
+                if (bytesTransferred <= 0) {
+                    // content length limit reached
+                    break;
+                }
+                position += bytesTransferred;
+            }
+        }
+        return true;
+    }
+
     /**
      * Tells that this entity is not streaming.
      *
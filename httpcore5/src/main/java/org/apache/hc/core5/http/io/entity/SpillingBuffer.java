@@ -0,0 +1,250 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http.io.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.Asserts;
+
+/**
+ * Content buffer that keeps up to a fixed number of bytes in memory and spills
+ * its content to a temporary file once that threshold has been exceeded.
+ * Upon spilling the content already held in memory is written out to the file
+ * and the memory buffer is discarded, so the file always holds the complete
+ * content. Spilled content can be re-sent without being read back into memory
+ * by passing the file to {@link FileEntity} or
+ * {@link org.apache.hc.core5.http.nio.entity.FileEntityProducer}.
+ * <p>
+ * The temporary file gets deleted when the buffer is closed.
+ * <p>
+ * Instances of this class are not thread safe.
+ *
+ * @since 5.0
+ */
+public final class SpillingBuffer implements Closeable {
+
+    public static final int DEFAULT_MEMORY_THRESHOLD = 64 * 1024;
+
+    private final int memoryThreshold;
+    private final File directory;
+
+    private byte[] memory;
+    private File file;
+    private FileChannel fileChannel;
+    private long length;
+    private boolean closed;
+
+    /**
+     * @param memoryThreshold maximum number of bytes held in memory.
+     * @param directory directory to create temporary files in or {@code null}
+     *                  for the default temporary-file directory.
+     */
+    public SpillingBuffer(final int memoryThreshold, final File directory) {
+        this.memoryThreshold = Args.notNegative(memoryThreshold, "Memory threshold");
+        this.directory = directory;
+        this.memory = new byte[Math.min(memoryThreshold, 1024)];
+    }
+
+    public SpillingBuffer(final int memoryThreshold) {
+        this(memoryThreshold, null);
+    }
+
+    public SpillingBuffer() {
+        this(DEFAULT_MEMORY_THRESHOLD, null);
+    }
+
+    private void ensureMemoryCapacity(final int required) {
+        if (required > this.memory.length) {
+            final int newCapacity = Math.min(Math.max(this.memory.length << 1, required), this.memoryThreshold);
+            this.memory = Arrays.copyOf(this.memory, newCapacity);
+        }
+    }
+
+    private void spill() throws IOException {
+        final File tmpfile = File.createTempFile("httpcore-", ".tmp", this.directory);
+        boolean success = false;
+        try {
+            @SuppressWarnings("resource")
+            final FileChannel channel = new RandomAccessFile(tmpfile, "rw").getChannel();
+            this.file = tmpfile;
+            this.fileChannel = channel;
+            writeFully(ByteBuffer.wrap(this.memory, 0, (int) this.length));
+            this.memory = null;
+            success = true;
+        } finally {
+            if (!success) {
+                discard();
+            }
+        }
+    }
+
+    private void writeFully(final ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            this.fileChannel.write(src);
+        }
+    }
+
+    /**
+     * Appends content of the given buffer.
+     */
+    public void write(final ByteBuffer src) throws IOException {
+        Args.notNull(src, "Byte buffer");
+        Asserts.check(!this.closed, "Buffer already closed");
+        final int len = src.remaining();
+        if (len == 0) {
+            return;
+        }
+        if (this.fileChannel == null && this.length + len > this.memoryThreshold) {
+            spill();
+        }
+        if (this.fileChannel != null) {
+            writeFully(src);
+        } else {
+            ensureMemoryCapacity((int) this.length + len);
+            src.get(this.memory, (int) this.length, len);
+        }
+        this.length += len;
+    }
+
+    /**
+     * Appends {@code len} bytes from the given array starting at {@code off}.
+     */
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        Args.notNull(b, "Byte array");
+        if ((off < 0) || (off > b.length) || (len < 0) || ((off + len) < 0) || ((off + len) > b.length)) {
+            throw new IndexOutOfBoundsException("off: " + off + " len: " + len + " b.length: " + b.length);
+        }
+        write(ByteBuffer.wrap(b, off, len));
+    }
+
+    /**
+     * Returns total length of the content.
+     */
+    public long length() {
+        return this.length;
+    }
+
+    /**
+     * Returns {@code true} if the content has been spilled to a file.
+     */
+    public boolean isSpilled() {
+        return this.file != null;
+    }
+
+    /**
+     * Returns the file holding the complete content or {@code null}
+     * if the content is held in memory.
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns a new input stream over the content.
+     */
+    public InputStream getContent() throws IOException {
+        Asserts.check(!this.closed, "Buffer already closed");
+        if (this.file != null) {
+            return new FileInputStream(this.file);
+        }
+        return new ByteArrayInputStream(this.memory, 0, (int) this.length);
+    }
+
+    /**
+     * Writes the content to the given output stream.
+     */
+    public void writeTo(final OutputStream outstream) throws IOException {
+        Args.notNull(outstream, "Output stream");
+        Asserts.check(!this.closed, "Buffer already closed");
+        if (this.file != null) {
+            if (!FileEntity.transfer(this.file, outstream)) {
+                Files.copy(this.file.toPath(), outstream);
+            }
+        } else {
+            outstream.write(this.memory, 0, (int) this.length);
+        }
+    }
+
+    /**
+     * Returns a copy of the content as a byte array. Please note this method
+     * reads spilled content back into memory.
+     */
+    public byte[] toByteArray() throws IOException {
+        Asserts.check(!this.closed, "Buffer already closed");
+        if (this.file != null) {
+            return Files.readAllBytes(this.file.toPath());
+        }
+        return Arrays.copyOf(this.memory, (int) this.length);
+    }
+
+    private void discard() {
+        final FileChannel channel = this.fileChannel;
+        this.fileChannel = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (final IOException ignore) {
+            }
+        }
+        final File tmpfile = this.file;
+        this.file = null;
+        if (tmpfile != null) {
+            tmpfile.delete();
+        }
+    }
+
+    /**
+     * Releases the memory buffer and deletes the temporary file if any.
+     */
+    @Override
+    public void close() {
+        if (!this.closed) {
+            this.closed = true;
+            this.memory = null;
+            discard();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[length=" + this.length + ", spilled=" + isSpilled() + "]";
+    }
+
+}
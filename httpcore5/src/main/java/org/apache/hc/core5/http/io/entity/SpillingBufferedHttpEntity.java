@@ -0,0 +1,160 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http.io.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * A wrapping entity that buffers its content if necessary, much like
+ * {@link BufferedHttpEntity}, but keeps at most a fixed number of bytes
+ * in memory. Content in excess of the memory threshold gets spilled to
+ * a temporary file (see {@link SpillingBuffer}).
+ * The buffered entity is always repeatable. The temporary file gets deleted
+ * when the entity is closed.
+ *
+ * @since 5.0
+ */
+public class SpillingBufferedHttpEntity extends HttpEntityWrapper {
+
+    private final SpillingBuffer buffer;
+
+    /**
+     * Creates a new buffered entity wrapper.
+     *
+     * @param entity the entity to wrap, not null
+     * @param memoryThreshold maximum number of bytes held in memory.
+     * @param directory directory to create temporary files in or {@code null}
+     *                  for the default temporary-file directory.
+     */
+    public SpillingBufferedHttpEntity(
+            final HttpEntity entity, final int memoryThreshold, final File directory) throws IOException {
+        super(entity);
+        if (!entity.isRepeatable() || entity.getContentLength() < 0) {
+            final SpillingBuffer spillingBuffer = new SpillingBuffer(memoryThreshold, directory);
+            boolean success = false;
+            try {
+                entity.writeTo(new OutputStream() {
+
+                    @Override
+                    public void write(final int b) throws IOException {
+                        spillingBuffer.write(new byte[] {(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(final byte[] b, final int off, final int len) throws IOException {
+                        spillingBuffer.write(b, off, len);
+                    }
+
+                });
+                success = true;
+            } finally {
+                if (!success) {
+                    spillingBuffer.close();
+                }
+            }
+            this.buffer = spillingBuffer;
+        } else {
+            this.buffer = null;
+        }
+    }
+
+    public SpillingBufferedHttpEntity(final HttpEntity entity, final int memoryThreshold) throws IOException {
+        this(entity, memoryThreshold, null);
+    }
+
+    public SpillingBufferedHttpEntity(final HttpEntity entity) throws IOException {
+        this(entity, SpillingBuffer.DEFAULT_MEMORY_THRESHOLD, null);
+    }
+
+    /**
+     * Returns the file holding the complete content if the content has been
+     * spilled to disk or {@code null} otherwise.
+     */
+    public File getFile() {
+        return this.buffer != null ? this.buffer.getFile() : null;
+    }
+
+    @Override
+    public long getContentLength() {
+        if (this.buffer != null) {
+            return this.buffer.length();
+        }
+        return super.getContentLength();
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        if (this.buffer != null) {
+            return this.buffer.getContent();
+        }
+        return super.getContent();
+    }
+
+    @Override
+    public boolean isChunked() {
+        return (this.buffer == null) && super.isChunked();
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public void writeTo(final OutputStream outstream) throws IOException {
+        Args.notNull(outstream, "Output stream");
+        if (this.buffer != null) {
+            this.buffer.writeTo(outstream);
+        } else {
+            super.writeTo(outstream);
+        }
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return (this.buffer == null) && super.isStreaming();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (this.buffer != null) {
+                this.buffer.close();
+            }
+        } finally {
+            super.close();
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.io.support;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.AdaptiveConcurrencyLimiter;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.HttpFilterChain;
+import org.apache.hc.core5.http.io.HttpFilterHandler;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Filter that limits the number of requests processed concurrently with
+ * an {@link AdaptiveConcurrencyLimiter}. Requests in excess of the limit wait
+ * for admission for no longer than the maximum queue time of the limiter. Requests
+ * that get shed are responded to with {@code 503 Service Unavailable} and
+ * a {@code Retry-After} header before their content is read.
+ * <p>
+ * The time from admission until the filter chain returns is reported to
+ * the limiter as request latency. The filter should be placed at the head
+ * of the filter chain.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class HttpServerAdmissionControlFilter implements HttpFilterHandler {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final TimeValue retryAfter;
+
+    public HttpServerAdmissionControlFilter(final AdaptiveConcurrencyLimiter limiter, final TimeValue retryAfter) {
+        this.limiter = Args.notNull(limiter, "Concurrency limiter");
+        this.retryAfter = Args.notNull(retryAfter, "Retry after");
+    }
+
+    public HttpServerAdmissionControlFilter(final AdaptiveConcurrencyLimiter limiter) {
+        this(limiter, TimeValue.ofSeconds(1));
+    }
+
+    public HttpServerAdmissionControlFilter() {
+        this(new AdaptiveConcurrencyLimiter());
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    protected HttpEntity generateResponseContent(final HttpResponse serviceUnavailable) throws HttpException {
+        return null;
+    }
+
+    @Override
+    public final void handle(
+            final ClassicHttpRequest request,
+            final HttpFilterChain.ResponseTrigger responseTrigger,
+            final HttpContext context,
+            final HttpFilterChain chain) throws HttpException, IOException {
+        final Admission admission = new Admission();
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(admission);
+        if (permit == null) {
+            try {
+                permit = admission.await(limiter.getMaxQueueTime());
+            } catch (final InterruptedException ex) {
+                admission.abandon();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(ex.getMessage());
+            }
+        }
+        if (permit == null) {
+            final ClassicHttpResponse serviceUnavailable = new BasicClassicHttpResponse(HttpStatus.SC_SERVICE_UNAVAILABLE);
+            serviceUnavailable.addHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(retryAfter.toSeconds(), 1)));
+            serviceUnavailable.setEntity(generateResponseContent(serviceUnavailable));
+            responseTrigger.submitResponse(serviceUnavailable);
+            return;
+        }
+        boolean completed = false;
+        try {
+            chain.proceed(request, responseTrigger, context);
+            completed = true;
+        } finally {
+            if (completed) {
+                permit.complete();
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    private class Admission implements FutureCallback<AdaptiveConcurrencyLimiter.Permit> {
+
+        private AdaptiveConcurrencyLimiter.Permit permit;
+        private boolean done;
+        private boolean abandoned;
+
+        @Override
+        public synchronized void completed(final AdaptiveConcurrencyLimiter.Permit result) {
+            if (abandoned) {
+                result.release();
+                return;
+            }
+            permit = result;
+            done = true;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void failed(final Exception ex) {
+            done = true;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void cancelled() {
+            done = true;
+            notifyAll();
+        }
+
+        void abandon() {
+            synchronized (this) {
+                abandoned = true;
+                if (permit != null) {
+                    permit.release();
+                    permit = null;
+                }
+            }
+            limiter.cancel(this);
+        }
+
+        AdaptiveConcurrencyLimiter.Permit await(final TimeValue timeout) throws InterruptedException {
+            final long deadline = System.nanoTime() + timeout.toNanos();
+            synchronized (this) {
+                long remaining;
+                while (!done && (remaining = deadline - System.nanoTime()) > 0) {
+                    TimeValue.ofNanoseconds(remaining).timedWait(this);
+                }
+                if (done) {
+                    return permit;
+                }
+            }
+            if (limiter.cancel(this)) {
+                return null;
+            }
+            // Admitted or rejected concurrently with cancellation
+            synchronized (this) {
+                while (!done) {
+                    wait();
+                }
+                return permit;
+            }
+        }
+
+    }
+
+}
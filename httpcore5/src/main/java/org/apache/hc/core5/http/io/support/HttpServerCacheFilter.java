@@ -0,0 +1,315 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.io.support;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.impl.CachedResponse;
+import org.apache.hc.core5.http.impl.ResponseCache;
+import org.apache.hc.core5.http.io.HttpFilterChain;
+import org.apache.hc.core5.http.io.HttpFilterHandler;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteArrayBuffer;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Filter that serves responses to {@code GET} and {@code HEAD} requests from
+ * a {@link ResponseCache} and stores cacheable responses to {@code GET} requests
+ * produced by the rest of the filter chain.
+ * <p>
+ * Concurrent {@code GET} requests that miss the cache for the same key are
+ * coalesced: only the first one proceeds down the filter chain, the others block
+ * for no longer than the coalescing timeout waiting for its response to be written
+ * out. Waiting requests proceed down the filter chain on their own if the response
+ * turns out not to be cacheable, the exchange fails or the timeout expires.
+ * <p>
+ * {@code HEAD} requests are served from cached responses to {@code GET} requests
+ * but never get stored or coalesced. Requests enclosing an entity are passed on
+ * unchanged.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class HttpServerCacheFilter implements HttpFilterHandler {
+
+    private final ResponseCache cache;
+    private final TimeValue coalescingTimeout;
+
+    public HttpServerCacheFilter(final ResponseCache cache, final TimeValue coalescingTimeout) {
+        this.cache = Args.notNull(cache, "Response cache");
+        this.coalescingTimeout = Args.notNull(coalescingTimeout, "Coalescing timeout");
+    }
+
+    public HttpServerCacheFilter(final ResponseCache cache) {
+        this(cache, TimeValue.ofSeconds(10));
+    }
+
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    private static void sendCached(
+            final CachedResponse cached,
+            final HttpFilterChain.ResponseTrigger responseTrigger) throws HttpException, IOException {
+        final ClassicHttpResponse response = new BasicClassicHttpResponse(cached.getCode(), cached.getReasonPhrase());
+        cached.populate(response);
+        final byte[] content = cached.getContent();
+        if (content.length > 0 || cached.getContentType() != null) {
+            response.setEntity(new ByteArrayEntity(content, ContentType.parseLenient(cached.getContentType())));
+        }
+        responseTrigger.submitResponse(response);
+    }
+
+    @Override
+    public void handle(
+            final ClassicHttpRequest request,
+            final HttpFilterChain.ResponseTrigger responseTrigger,
+            final HttpContext context,
+            final HttpFilterChain chain) throws HttpException, IOException {
+        final String key = request.getEntity() == null ? cache.generateKey(request) : null;
+        if (key == null) {
+            chain.proceed(request, responseTrigger, context);
+            return;
+        }
+        final CachedResponse cached = cache.get(key);
+        if (cached != null) {
+            sendCached(cached, responseTrigger);
+            return;
+        }
+        if ("HEAD".equalsIgnoreCase(request.getMethod())) {
+            chain.proceed(request, responseTrigger, context);
+            return;
+        }
+        final Waiter waiter = new Waiter();
+        final ResponseCache.Fill fill = cache.fill(key, waiter);
+        if (fill == null) {
+            final CachedResponse result;
+            try {
+                result = waiter.await(key, coalescingTimeout);
+            } catch (final InterruptedException ex) {
+                cache.cancel(key, waiter);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(ex.getMessage());
+            }
+            if (result != null) {
+                sendCached(result, responseTrigger);
+            } else {
+                chain.proceed(request, responseTrigger, context);
+            }
+            return;
+        }
+        try {
+            chain.proceed(request, new HttpFilterChain.ResponseTrigger() {
+
+                @Override
+                public void sendInformation(final ClassicHttpResponse response) throws HttpException, IOException {
+                    responseTrigger.sendInformation(response);
+                }
+
+                @Override
+                public void submitResponse(final ClassicHttpResponse response) throws HttpException, IOException {
+                    final CapturingEntity capturingEntity = capture(response, fill);
+                    if (capturingEntity != null) {
+                        response.setEntity(capturingEntity);
+                    }
+                    responseTrigger.submitResponse(response);
+                    if (capturingEntity != null) {
+                        capturingEntity.complete();
+                    }
+                }
+
+            }, context);
+        } finally {
+            // No effect if the response has already been stored
+            fill.abandon();
+        }
+    }
+
+    private CapturingEntity capture(final ClassicHttpResponse response, final ResponseCache.Fill fill) {
+        if (!cache.isCacheable(response)) {
+            fill.abandon();
+            return null;
+        }
+        // Take a snapshot of the response head before it gets processed by the protocol handler
+        final HttpResponse head = new BasicHttpResponse(response.getCode(), response.getReasonPhrase());
+        head.setHeaders(response.getAllHeaders());
+        final HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            fill.complete(head, null, null);
+            return null;
+        }
+        if (entity.getContentEncoding() != null
+                || entity.getTrailers() != null
+                || entity.getContentLength() > cache.getMaxEntrySize()) {
+            fill.abandon();
+            return null;
+        }
+        String contentType = entity.getContentType();
+        if (contentType == null) {
+            final Header header = response.getFirstHeader(HttpHeaders.CONTENT_TYPE);
+            contentType = header != null ? header.getValue() : null;
+        }
+        return new CapturingEntity(entity, fill, head, contentType, cache.getMaxEntrySize());
+    }
+
+    private static class CapturingEntity extends HttpEntityWrapper {
+
+        private final ResponseCache.Fill fill;
+        private final HttpResponse head;
+        private final String contentType;
+        private final int maxSize;
+
+        private ByteArrayBuffer buffer;
+        private boolean written;
+
+        CapturingEntity(
+                final HttpEntity entity,
+                final ResponseCache.Fill fill,
+                final HttpResponse head,
+                final String contentType,
+                final int maxSize) {
+            super(entity);
+            this.fill = fill;
+            this.head = head;
+            this.contentType = contentType;
+            this.maxSize = maxSize;
+            final long len = entity.getContentLength();
+            this.buffer = new ByteArrayBuffer(len >= 0 ? (int) len : Math.min(maxSize, 1024));
+        }
+
+        private void append(final byte[] b, final int off, final int len) {
+            if (buffer == null) {
+                return;
+            }
+            if (buffer.length() + len > maxSize) {
+                buffer = null;
+                fill.abandon();
+                return;
+            }
+            buffer.append(b, off, len);
+        }
+
+        @Override
+        public void writeTo(final OutputStream outstream) throws IOException {
+            super.writeTo(new FilterOutputStream(outstream) {
+
+                @Override
+                public void write(final int b) throws IOException {
+                    out.write(b);
+                    append(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(final byte[] b, final int off, final int len) throws IOException {
+                    out.write(b, off, len);
+                    append(b, off, len);
+                }
+
+            });
+            written = true;
+        }
+
+        void complete() {
+            if (written && buffer != null) {
+                fill.complete(head, contentType, buffer.toByteArray());
+            } else {
+                fill.abandon();
+            }
+            buffer = null;
+        }
+
+    }
+
+    private class Waiter implements FutureCallback<CachedResponse> {
+
+        private CachedResponse result;
+        private boolean done;
+
+        @Override
+        public synchronized void completed(final CachedResponse result) {
+            this.result = result;
+            this.done = true;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void failed(final Exception ex) {
+            this.done = true;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void cancelled() {
+            this.done = true;
+            notifyAll();
+        }
+
+        CachedResponse await(final String key, final TimeValue timeout) throws InterruptedException {
+            final long deadline = System.nanoTime() + timeout.toNanos();
+            synchronized (this) {
+                long remaining;
+                while (!done && (remaining = deadline - System.nanoTime()) > 0) {
+                    TimeValue.ofNanoseconds(remaining).timedWait(this);
+                }
+                if (done) {
+                    return result;
+                }
+            }
+            if (cache.cancel(key, this)) {
+                return null;
+            }
+            // Completed concurrently with cancellation
+            synchronized (this) {
+                while (!done) {
+                    wait();
+                }
+                return result;
+            }
+        }
+
+    }
+
+}
@@ -27,6 +27,8 @@
 
 package org.apache.hc.core5.http.message;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -43,7 +45,10 @@
  * A class for combining a set of headers.
  * This class allows for multiple headers with the same name and
  * keeps track of the order in which headers were added.
- *
+ * <p>
+ * Larger groups maintain a case insensitive name index that is updated whenever
+ * the group is modified. Lookups do not modify the group, so it can be read
+ * by multiple threads concurrently provided it is not modified at the same time.
  *
  * @since 4.0
  */
@@ -60,11 +65,15 @@ public class HeaderGroup implements MessageHeaders, Serializable {
     /** The list of headers for this group, in the order in which they were added */
     private final List<Header> headers;
 
+    /** Case insensitive name index over {@link #headers}, updated upon modification */
+    private transient HeaderIndex index;
+
     /**
      * Constructor for HeaderGroup.
      */
     public HeaderGroup() {
         this.headers = new ArrayList<>(16);
+        this.index = new HeaderIndex();
     }
 
     /**
@@ -72,6 +81,13 @@ public HeaderGroup() {
      */
     public void clear() {
         headers.clear();
+        index.update(this.headers);
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.index = new HeaderIndex();
+        this.index.update(this.headers);
     }
 
     /**
@@ -85,6 +101,7 @@ public void addHeader(final Header header) {
             return;
         }
         headers.add(header);
+        index.added(headers, headers.size() - 1);
     }
 
     /**
@@ -96,7 +113,9 @@ public void removeHeader(final Header header) {
         if (header == null) {
             return;
         }
-        headers.remove(header);
+        if (headers.remove(header)) {
+            index.update(this.headers);
+        }
     }
 
     /**
@@ -112,14 +131,13 @@ public void setHeader(final Header header) {
         if (header == null) {
             return;
         }
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header current = this.headers.get(i);
-            if (current.getName().equalsIgnoreCase(header.getName())) {
-                this.headers.set(i, header);
-                return;
-            }
+        final int i = index.first(this.headers, header.getName());
+        if (i >= 0) {
+            // replacement has the same name, so the index remains valid
+            this.headers.set(i, header);
+            return;
         }
-        this.headers.add(header);
+        addHeader(header);
     }
 
     /**
@@ -135,6 +153,7 @@ public void setHeaders(final Header[] headers) {
             return;
         }
         Collections.addAll(this.headers, headers);
+        index.update(this.headers);
     }
 
     /**
@@ -179,17 +198,17 @@ public Header getCondensedHeader(final String name) {
      */
     @Override
     public Header[] getHeaders(final String name) {
-        List<Header> headersFound = null;
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                if (headersFound == null) {
-                    headersFound = new ArrayList<>();
-                }
-                headersFound.add(header);
-            }
+        final HeaderIndex idx = index;
+        final int count = idx.count(this.headers, name);
+        if (count == 0) {
+            return EMPTY;
         }
-        return headersFound != null ? headersFound.toArray(new Header[headersFound.size()]) : EMPTY;
+        final Header[] headersFound = new Header[count];
+        int n = 0;
+        for (int i = idx.first(this.headers, name); i >= 0 && n < count; i = idx.next(this.headers, name, i)) {
+            headersFound[n++] = this.headers.get(i);
+        }
+        return headersFound;
     }
 
     /**
@@ -202,13 +221,8 @@ public Header[] getHeaders(final String name) {
      */
     @Override
     public Header getFirstHeader(final String name) {
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                return header;
-            }
-        }
-        return null;
+        final int i = index.first(this.headers, name);
+        return i >= 0 ? this.headers.get(i) : null;
     }
 
     /**
@@ -222,19 +236,12 @@ public Header getFirstHeader(final String name) {
      */
     @Override
     public Header getSingleHeader(final String name) throws ProtocolException {
-        int count = 0;
-        Header singleHeader = null;
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                singleHeader = header;
-                count++;
-            }
-        }
+        final HeaderIndex idx = index;
+        final int count = idx.count(this.headers, name);
         if (count > 1) {
             throw new ProtocolException("Multiple headers '" + name + "' found");
         }
-        return singleHeader;
+        return count == 1 ? this.headers.get(idx.first(this.headers, name)) : null;
     }
 
     /**
@@ -247,15 +254,8 @@ public Header getSingleHeader(final String name) throws ProtocolException {
      */
     @Override
     public Header getLastHeader(final String name) {
-        // start at the end of the list and work backwards
-        for (int i = headers.size() - 1; i >= 0; i--) {
-            final Header header = headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                return header;
-            }
-        }
-
-        return null;
+        final int i = index.last(this.headers, name);
+        return i >= 0 ? this.headers.get(i) : null;
     }
 
     /**
@@ -279,17 +279,7 @@ public Header[] getAllHeaders() {
      */
     @Override
     public boolean containsHeader(final String name) {
-        // HTTPCORE-361 : we don't use the for-each syntax, i.e.
-        //     for (Header header : headers)
-        // as that creates an Iterator that needs to be garbage-collected
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return index.first(this.headers, name) >= 0;
     }
 
     /**
@@ -301,17 +291,7 @@ public boolean containsHeader(final String name) {
      */
     @Override
     public int containsHeaders(final String name) {
-        // HTTPCORE-361 : we don't use the for-each syntax, i.e.
-        //     for (Header header : headers)
-        // as that creates an Iterator that needs to be garbage-collected
-        int count = 0;
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                count++;
-            }
-        }
-        return count;
+        return index.count(this.headers, name);
     }
 
     /**
@@ -323,7 +303,7 @@ public int containsHeaders(final String name) {
      */
     @Override
     public Iterator<Header> headerIterator() {
-        return new BasicListHeaderIterator(this.headers, null);
+        return new IndexedHeaderIterator(null);
     }
 
     /**
@@ -338,7 +318,7 @@ public Iterator<Header> headerIterator() {
      */
     @Override
     public Iterator<Header> headerIterator(final String name) {
-        return new BasicListHeaderIterator(this.headers, name);
+        return new IndexedHeaderIterator(name);
     }
 
     /**
@@ -352,12 +332,20 @@ public void removeHeaders(final String name) {
         if (name == null) {
             return;
         }
-        for (final Iterator<Header> i = headerIterator(); i.hasNext(); ) {
-            final Header header = i.next();
-            if (header.getName().equalsIgnoreCase(name)) {
-                i.remove();
+        final int first = index.first(this.headers, name);
+        if (first < 0) {
+            return;
+        }
+        // compact the list in place preserving the order of the remaining headers
+        int n = first;
+        for (int i = first + 1; i < this.headers.size(); i++) {
+            final Header header = this.headers.get(i);
+            if (!header.getName().equalsIgnoreCase(name)) {
+                this.headers.set(n++, header);
             }
         }
+        this.headers.subList(n, this.headers.size()).clear();
+        index.update(this.headers);
     }
 
     @Override
@@ -365,4 +353,18 @@ public String toString() {
         return this.headers.toString();
     }
 
+    private class IndexedHeaderIterator extends BasicListHeaderIterator {
+
+        IndexedHeaderIterator(final String name) {
+            super(headers, name);
+        }
+
+        @Override
+        public void remove() throws UnsupportedOperationException {
+            super.remove();
+            index.update(HeaderGroup.this.headers);
+        }
+
+    }
+
 }
@@ -0,0 +1,317 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http.message;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+
+/**
+ * Case insensitive name index over a list of headers kept in insertion order.
+ * <p>
+ * Small header lists are scanned linearly. Once the list grows beyond
+ * {@link #THRESHOLD} elements an open-addressed table keyed on the case-folded
+ * header name is built. Each table slot refers to the first and the last position
+ * of headers with the same name; headers with the same name are chained
+ * by position in the order in which they were added.
+ * <p>
+ * The index is updated incrementally when headers are appended and rebuilt eagerly
+ * upon any other structural modification of the list. Lookups never modify
+ * the index, so concurrent lookups are safe as long as the list is not modified
+ * at the same time.
+ * <p>
+ * Instances of this class are not thread safe.
+ *
+ * @since 5.0
+ */
+final class HeaderIndex {
+
+    static final int THRESHOLD = 8;
+
+    private static final String[] KNOWN_NAMES;
+    private static final int[] KNOWN_HASHES;
+
+    static {
+        final String[] names = {
+                HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_CHARSET, HttpHeaders.ACCEPT_ENCODING,
+                HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.ACCEPT_RANGES, HttpHeaders.AGE,
+                HttpHeaders.ALLOW, HttpHeaders.AUTHORIZATION, HttpHeaders.CACHE_CONTROL,
+                HttpHeaders.CONNECTION, HttpHeaders.CONTENT_ENCODING, HttpHeaders.CONTENT_LANGUAGE,
+                HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_LOCATION, HttpHeaders.CONTENT_MD5,
+                HttpHeaders.CONTENT_RANGE, HttpHeaders.CONTENT_TYPE, HttpHeaders.DATE,
+                HttpHeaders.DAV, HttpHeaders.DEPTH, HttpHeaders.DESTINATION,
+                HttpHeaders.ETAG, HttpHeaders.EXPECT, HttpHeaders.EXPIRES,
+                HttpHeaders.FROM, HttpHeaders.HOST, HttpHeaders.IF,
+                HttpHeaders.IF_MATCH, HttpHeaders.IF_MODIFIED_SINCE, HttpHeaders.IF_NONE_MATCH,
+                HttpHeaders.IF_RANGE, HttpHeaders.IF_UNMODIFIED_SINCE, HttpHeaders.LAST_MODIFIED,
+                HttpHeaders.LOCATION, HttpHeaders.LOCK_TOKEN, HttpHeaders.MAX_FORWARDS,
+                HttpHeaders.OVERWRITE, HttpHeaders.PRAGMA, HttpHeaders.PROXY_AUTHENTICATE,
+                HttpHeaders.PROXY_AUTHORIZATION, HttpHeaders.RANGE, HttpHeaders.REFERER,
+                HttpHeaders.RETRY_AFTER, HttpHeaders.SERVER, HttpHeaders.STATUS_URI,
+                HttpHeaders.TE, HttpHeaders.TIMEOUT, HttpHeaders.TRAILER,
+                HttpHeaders.TRANSFER_ENCODING, HttpHeaders.UPGRADE, HttpHeaders.USER_AGENT,
+                HttpHeaders.VARY, HttpHeaders.VIA, HttpHeaders.WARNING,
+                HttpHeaders.WWW_AUTHENTICATE, "Keep-Alive", "Proxy-Connection", "Cookie", "Set-Cookie"
+        };
+        // Both canonical and lower case (HTTP/2) forms of well-known names are registered
+        final int size = Integer.highestOneBit(names.length * 4) << 1;
+        KNOWN_NAMES = new String[size];
+        KNOWN_HASHES = new int[size];
+        for (final String name: names) {
+            registerKnown(name);
+            registerKnown(name.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private static void registerKnown(final String name) {
+        final int mask = KNOWN_NAMES.length - 1;
+        int i = name.hashCode() & mask;
+        while (KNOWN_NAMES[i] != null) {
+            if (KNOWN_NAMES[i].equals(name)) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        KNOWN_NAMES[i] = name;
+        KNOWN_HASHES[i] = foldedHash(name);
+    }
+
+    private static int foldedHash(final String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char ch = name.charAt(i);
+            if (ch < 128) {
+                if (ch >= 'A' && ch <= 'Z') {
+                    ch += 'a' - 'A';
+                }
+            } else {
+                // consistent with String#equalsIgnoreCase
+                ch = Character.toLowerCase(Character.toUpperCase(ch));
+            }
+            h = 31 * h + ch;
+        }
+        return h;
+    }
+
+    /**
+     * Returns a hash code of the given header name that is consistent with
+     * {@link String#equalsIgnoreCase(String)}. Hash codes of well-known header
+     * names are pre-computed.
+     */
+    static int hash(final String name) {
+        final int mask = KNOWN_NAMES.length - 1;
+        int i = name.hashCode() & mask;
+        String known;
+        while ((known = KNOWN_NAMES[i]) != null) {
+            if (known == name || known.equals(name)) {
+                return KNOWN_HASHES[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return foldedHash(name);
+    }
+
+    // Open-addressed table; positions are stored incremented by one, zero denotes a free slot
+    private int[] slotHashes;
+    private int[] slotHeads;
+    private int[] slotTails;
+    private int[] slotCounts;
+    private int slotsUsed;
+
+    // Per position link to the next header with the same name, -1 if none
+    private int[] chain;
+    private boolean valid;
+
+    HeaderIndex() {
+        super();
+    }
+
+    /**
+     * Brings the index up to date after an arbitrary structural modification
+     * of the list.
+     */
+    void update(final List<Header> headers) {
+        final int size = headers.size();
+        if (size <= THRESHOLD) {
+            this.valid = false;
+            return;
+        }
+        int capacity = 16;
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+        if (this.slotHeads == null || this.slotHeads.length != capacity) {
+            this.slotHashes = new int[capacity];
+            this.slotHeads = new int[capacity];
+            this.slotTails = new int[capacity];
+            this.slotCounts = new int[capacity];
+        } else {
+            Arrays.fill(this.slotHeads, 0);
+        }
+        if (this.chain == null || this.chain.length < size) {
+            this.chain = new int[capacity];
+        }
+        this.slotsUsed = 0;
+        for (int i = 0; i < size; i++) {
+            insert(headers, i);
+        }
+        this.valid = true;
+    }
+
+    /**
+     * Registers header at the given position, which is expected to be the last
+     * position of the list.
+     */
+    void added(final List<Header> headers, final int pos) {
+        if (!this.valid || (this.slotsUsed + 1) * 2 > this.slotHeads.length) {
+            update(headers);
+            return;
+        }
+        if (pos >= this.chain.length) {
+            this.chain = Arrays.copyOf(this.chain, this.chain.length * 2);
+        }
+        insert(headers, pos);
+    }
+
+    private void insert(final List<Header> headers, final int pos) {
+        final String name = headers.get(pos).getName();
+        final int h = hash(name);
+        final int slot = probe(headers, name, h);
+        this.chain[pos] = -1;
+        if (this.slotHeads[slot] == 0) {
+            this.slotHashes[slot] = h;
+            this.slotHeads[slot] = pos + 1;
+            this.slotTails[slot] = pos + 1;
+            this.slotCounts[slot] = 1;
+            this.slotsUsed++;
+        } else {
+            this.chain[this.slotTails[slot] - 1] = pos;
+            this.slotTails[slot] = pos + 1;
+            this.slotCounts[slot]++;
+        }
+    }
+
+    private int probe(final List<Header> headers, final String name, final int h) {
+        final int mask = this.slotHeads.length - 1;
+        int i = (h ^ (h >>> 16)) & mask;
+        int head;
+        while ((head = this.slotHeads[i]) != 0) {
+            if (this.slotHashes[i] == h && headers.get(head - 1).getName().equalsIgnoreCase(name)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private boolean indexed(final List<Header> headers) {
+        return this.valid && headers.size() > THRESHOLD;
+    }
+
+    private int slot(final List<Header> headers, final String name) {
+        final int slot = probe(headers, name, hash(name));
+        return this.slotHeads[slot] != 0 ? slot : -1;
+    }
+
+    /**
+     * Returns position of the first header with the given name or {@code -1}.
+     */
+    int first(final List<Header> headers, final String name) {
+        if (name == null) {
+            return -1;
+        }
+        if (indexed(headers)) {
+            final int slot = slot(headers, name);
+            return slot >= 0 ? this.slotHeads[slot] - 1 : -1;
+        }
+        return scan(headers, name, 0);
+    }
+
+    /**
+     * Returns position of the next header with the given name following
+     * the given position or {@code -1}.
+     */
+    int next(final List<Header> headers, final String name, final int pos) {
+        if (indexed(headers)) {
+            return this.chain[pos];
+        }
+        return scan(headers, name, pos + 1);
+    }
+
+    /**
+     * Returns position of the last header with the given name or {@code -1}.
+     */
+    int last(final List<Header> headers, final String name) {
+        if (name == null) {
+            return -1;
+        }
+        if (indexed(headers)) {
+            final int slot = slot(headers, name);
+            return slot >= 0 ? this.slotTails[slot] - 1 : -1;
+        }
+        for (int i = headers.size() - 1; i >= 0; i--) {
+            if (headers.get(i).getName().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns number of headers with the given name.
+     */
+    int count(final List<Header> headers, final String name) {
+        if (name == null) {
+            return 0;
+        }
+        if (indexed(headers)) {
+            final int slot = slot(headers, name);
+            return slot >= 0 ? this.slotCounts[slot] : 0;
+        }
+        int count = 0;
+        for (int i = 0; i < headers.size(); i++) {
+            if (headers.get(i).getName().equalsIgnoreCase(name)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int scan(final List<Header> headers, final String name, final int from) {
+        for (int i = from; i < headers.size(); i++) {
+            if (headers.get(i).getName().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -41,7 +41,7 @@
 /**
  * @since 5.0
  */
-public class BasicRequestConsumer<T> implements AsyncRequestConsumer<Message<HttpRequest, T>> {
+public class BasicRequestConsumer<T> implements AsyncRequestConsumer<Message<HttpRequest, T>>, FileDataConsumer {
 
     private final AsyncEntityConsumer<T> dataConsumer;
 
@@ -105,6 +105,16 @@ public int consume(final ByteBuffer src) throws IOException {
         return dataConsumer.consume(src);
     }
 
+    @Override
+    public boolean isFileTransferSupported() {
+        return dataConsumer instanceof FileDataConsumer && ((FileDataConsumer) dataConsumer).isFileTransferSupported();
+    }
+
+    @Override
+    public long transfer(final FileContentDecoder contentDecoder) throws IOException {
+        return ((FileDataConsumer) dataConsumer).transfer(contentDecoder);
+    }
+
     @Override
     public void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
         dataConsumer.streamEnd(trailers);
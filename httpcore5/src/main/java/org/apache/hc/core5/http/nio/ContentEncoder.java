@@ -51,6 +51,20 @@ public interface ContentEncoder {
      */
     int write(ByteBuffer src) throws IOException;
 
+    /**
+     * Writes a sequence of content segments to the underlying channel, preferably
+     * with a single gathering write and without copying the content into an
+     * intermediate buffer. Segments are written in order; bytes that could not be
+     * written remain in their buffers.
+     *
+     * @param srcs The buffers from which content is to be retrieved
+     * @return The number of bytes read, possibly zero
+     * @throws IOException if I/O error occurs while writing content
+     *
+     * @since 5.0
+     */
+    long write(ByteBuffer[] srcs) throws IOException;
+
     /**
      * Terminates the content stream.
      *
@@ -47,6 +47,17 @@ public interface DataStreamChannel extends StreamChannel<ByteBuffer> {
 
     void requestOutput();
 
+    /**
+     * Writes a sequence of data segments to the stream. Segments are written
+     * in order; bytes that could not be written remain in their buffers.
+     * Implementations are expected to pass the segments to the underlying
+     * transport with a single gathering write whenever possible.
+     *
+     * @param srcs The buffers from which data is to be retrieved
+     * @return The number of bytes written, possibly zero
+     */
+    long write(ByteBuffer[] srcs) throws IOException;
+
     void endStream(List<? extends Header> trailers) throws IOException;
 
 }
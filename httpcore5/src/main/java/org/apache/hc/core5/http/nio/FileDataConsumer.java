@@ -0,0 +1,62 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio;
+
+import java.io.IOException;
+
+/**
+ * Abstract data consumer capable of accepting content directly from
+ * a {@link FileContentDecoder}, for instance in order to transfer content
+ * from the underlying network channel into a file without passing it
+ * through intermediate buffers.
+ * <p>
+ * Protocol handlers that support direct content transfer use this interface
+ * in preference to {@link AsyncDataConsumer#consume(java.nio.ByteBuffer)}
+ * whenever {@link #isFileTransferSupported()} returns {@code true} and
+ * the transfer coding permits that.
+ *
+ * @since 5.0
+ */
+public interface FileDataConsumer {
+
+    /**
+     * Determines whether or not content can currently be transferred
+     * with {@link #transfer(FileContentDecoder)}.
+     */
+    boolean isFileTransferSupported();
+
+    /**
+     * Transfers a portion of content from the given content decoder.
+     *
+     * @param contentDecoder the content decoder.
+     * @return the number of bytes transferred, possibly zero, or {@code -1}
+     *   if the end of stream has been reached.
+     * @throws IOException if an I/O error occurs.
+     */
+    long transfer(FileContentDecoder contentDecoder) throws IOException;
+
+}
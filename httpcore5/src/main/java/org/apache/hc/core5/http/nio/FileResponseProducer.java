@@ -0,0 +1,195 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.entity.ByteRange;
+import org.apache.hc.core5.http.nio.entity.FileRangeEntityProducer;
+import org.apache.hc.core5.http.nio.entity.MappedFileCache;
+import org.apache.hc.core5.http.protocol.HttpDateGenerator;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * {@link AsyncResponseProducer} that serves content of a file with support for
+ * range requests as defined by RFC 7233.
+ * <p>
+ * The response carries a strong {@code ETag} derived from the length and the last
+ * modification time of the file along with {@code Last-Modified} and
+ * {@code Accept-Ranges} headers. A {@code Range} header of a {@code GET} or
+ * a {@code HEAD} request results in a {@code 206 Partial Content} response with
+ * a single range or a {@code multipart/byteranges} body, or a {@code 416 Range Not
+ * Satisfiable} response if none of the ranges overlaps the file. The {@code Range}
+ * header is ignored if it is malformed, specifies more than {@link #MAX_RANGES}
+ * ranges or the request carries an {@code If-Range} validator that does not match
+ * the current representation.
+ * <p>
+ * If a {@link MappedFileCache} is given, content of files eligible for caching
+ * is served from memory mapped buffers.
+ *
+ * @since 5.0
+ */
+public class FileResponseProducer implements AsyncResponseProducer {
+
+    public static final int MAX_RANGES = 32;
+
+    private final HttpRequest request;
+    private final File file;
+    private final ContentType contentType;
+    private final MappedFileCache cache;
+
+    private volatile AsyncEntityProducer dataProducer;
+
+    public FileResponseProducer(
+            final HttpRequest request,
+            final File file,
+            final ContentType contentType,
+            final MappedFileCache cache) {
+        this.request = Args.notNull(request, "Request");
+        this.file = Args.notNull(file, "File");
+        this.contentType = contentType;
+        this.cache = cache;
+    }
+
+    public FileResponseProducer(final HttpRequest request, final File file, final ContentType contentType) {
+        this(request, file, contentType, null);
+    }
+
+    static String formatETag(final long length, final long lastModified) {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    static String formatDate(final long time) {
+        final DateFormat dateFormat = new SimpleDateFormat(HttpDateGenerator.PATTERN_RFC1123, Locale.US);
+        dateFormat.setTimeZone(HttpDateGenerator.GMT);
+        return dateFormat.format(new Date(time));
+    }
+
+    /**
+     * Determines whether the {@code If-Range} precondition holds. Entity tags are matched
+     * using the strong comparison function, dates must match the {@code Last-Modified}
+     * value exactly.
+     */
+    static boolean matchesIfRange(final Header ifRange, final String eTag, final String lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        final String value = ifRange.getValue().trim();
+        if (value.startsWith("\"")) {
+            return value.equals(eTag);
+        }
+        if (value.startsWith("W/")) {
+            return false;
+        }
+        return value.equals(lastModified);
+    }
+
+    @Override
+    public void sendResponse(final ResponseChannel responseChannel) throws HttpException, IOException {
+        final ByteBuffer content = cache != null ? cache.get(file) : null;
+        final long length = content != null ? content.remaining() : file.length();
+        final String eTag = formatETag(length, file.lastModified());
+        final String lastModified = formatDate(file.lastModified());
+
+        List<ByteRange> ranges = null;
+        final String method = request.getMethod();
+        final Header range = request.getFirstHeader(HttpHeaders.RANGE);
+        if (range != null
+                && ("GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method))
+                && matchesIfRange(request.getFirstHeader(HttpHeaders.IF_RANGE), eTag, lastModified)) {
+            ranges = ByteRange.parse(range.getValue(), length);
+            if (ranges != null && ranges.size() > MAX_RANGES) {
+                ranges = null;
+            }
+        }
+
+        final HttpResponse response;
+        if (ranges == null) {
+            response = new BasicHttpResponse(HttpStatus.SC_OK);
+        } else if (ranges.isEmpty()) {
+            response = new BasicHttpResponse(HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.addHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+        } else {
+            response = new BasicHttpResponse(HttpStatus.SC_PARTIAL_CONTENT);
+            if (ranges.size() == 1) {
+                response.addHeader(HttpHeaders.CONTENT_RANGE, "bytes " + ranges.get(0) + "/" + length);
+            }
+        }
+        response.addHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.addHeader(HttpHeaders.ETAG, eTag);
+        response.addHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        if (ranges != null && ranges.isEmpty()) {
+            responseChannel.sendResponse(response, null);
+        } else {
+            dataProducer = new FileRangeEntityProducer(file, content, contentType, ranges);
+            responseChannel.sendResponse(response, dataProducer);
+        }
+    }
+
+    @Override
+    public int available() {
+        final AsyncEntityProducer producer = dataProducer;
+        return producer != null ? producer.available() : 0;
+    }
+
+    @Override
+    public void produce(final DataStreamChannel channel) throws IOException {
+        final AsyncEntityProducer producer = dataProducer;
+        if (producer != null) {
+            producer.produce(channel);
+        }
+    }
+
+    @Override
+    public void failed(final Exception cause) {
+        releaseResources();
+    }
+
+    @Override
+    public void releaseResources() {
+        final AsyncEntityProducer producer = dataProducer;
+        if (producer != null) {
+            producer.releaseResources();
+        }
+    }
+
+}
@@ -36,6 +36,7 @@
 import java.util.Set;
 
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.impl.CharCodingSupport;
 import org.apache.hc.core5.http.nio.AsyncEntityProducer;
 import org.apache.hc.core5.http.nio.DataStreamChannel;
 import org.apache.hc.core5.http.nio.StreamChannel;
@@ -70,7 +71,7 @@ public AbstractCharAsyncEntityProducer(
         if (charset == null) {
             charset = StandardCharsets.US_ASCII;
         }
-        this.charsetEncoder = charset.newEncoder();
+        this.charsetEncoder = CharCodingSupport.newEncoder(charset);
         this.charDataStream = new StreamChannel<CharBuffer>() {
 
             @Override
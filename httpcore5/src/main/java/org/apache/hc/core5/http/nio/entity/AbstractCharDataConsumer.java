@@ -37,6 +37,7 @@
 
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.impl.CharCodingSupport;
 import org.apache.hc.core5.http.nio.AsyncDataConsumer;
 import org.apache.hc.core5.http.nio.CapacityChannel;
 
@@ -45,6 +46,8 @@ public abstract class AbstractCharDataConsumer implements AsyncDataConsumer {
     private static final ByteBuffer EMPTY_BIN = ByteBuffer.wrap(new byte[0]);
 
     private final CharBuffer charbuf = CharBuffer.allocate(8192);
+    // Incomplete multi-byte sequence carried over to the next chunk of input
+    private final ByteBuffer pending = ByteBuffer.allocate(8);
 
     private volatile Charset charset = StandardCharsets.US_ASCII;
     private volatile CharsetDecoder charsetDecoder;
@@ -58,6 +61,7 @@ public abstract class AbstractCharDataConsumer implements AsyncDataConsumer {
     protected final void setCharset(final Charset charset) {
         this.charset = charset != null ? charset : StandardCharsets.US_ASCII;
         this.charsetDecoder = null;
+        this.pending.clear();
     }
 
     @Override
@@ -79,7 +83,7 @@ private void doDecode(final boolean endOfStream) throws IOException {
 
     private CharsetDecoder getCharsetDecoder() {
         if (charsetDecoder == null) {
-            charsetDecoder = charset != null ? charset.newDecoder() : StandardCharsets.US_ASCII.newDecoder();
+            charsetDecoder = CharCodingSupport.newDecoder(charset != null ? charset : StandardCharsets.US_ASCII);
         }
         return charsetDecoder;
     }
@@ -87,9 +91,20 @@ private CharsetDecoder getCharsetDecoder() {
     @Override
     public final int consume(final ByteBuffer src) throws IOException {
         final CharsetDecoder charsetDecoder = getCharsetDecoder();
+        // Complete the pending sequence one byte at a time
+        while (pending.position() > 0 && src.hasRemaining()) {
+            pending.put(src.get());
+            pending.flip();
+            checkResult(charsetDecoder.decode(pending, charbuf, false));
+            pending.compact();
+        }
         while (src.hasRemaining()) {
-            checkResult(charsetDecoder.decode(src, charbuf, false));
+            final CoderResult result = charsetDecoder.decode(src, charbuf, false);
+            checkResult(result);
             doDecode(false);
+            if (result.isUnderflow() && src.hasRemaining()) {
+                pending.put(src);
+            }
         }
         return capacity();
     }
@@ -97,7 +112,9 @@ public final int consume(final ByteBuffer src) throws IOException {
     @Override
     public final void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
         final CharsetDecoder charsetDecoder = getCharsetDecoder();
-        checkResult(charsetDecoder.decode(EMPTY_BIN, charbuf, true));
+        pending.flip();
+        checkResult(charsetDecoder.decode(pending.hasRemaining() ? pending : EMPTY_BIN, charbuf, true));
+        pending.clear();
         doDecode(false);
         checkResult(charsetDecoder.flush(charbuf));
         doDecode(true);
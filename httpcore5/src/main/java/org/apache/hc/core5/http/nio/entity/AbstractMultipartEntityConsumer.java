@@ -0,0 +1,293 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.MessageConstraintException;
+import org.apache.hc.core5.http.ProtocolException;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteArrayBuffer;
+
+/**
+ * Abstract incremental parser of {@code multipart/*} entities as defined by RFC 2046.
+ * <p>
+ * The boundary delimiter is searched for with the Knuth-Morris-Pratt algorithm across
+ * the sequence of incoming data chunks. Incoming data is never re-buffered: content of
+ * parts is passed to {@link #partData(ByteBuffer, boolean)} as slices of the incoming
+ * chunks. The only state carried over from one chunk to another is the length of
+ * a partial match of the delimiter at the end of the chunk. Part headers are buffered
+ * up to the maximum header size. Memory use is therefore independent of the size
+ * of the entity.
+ *
+ * @param <T> entity representation.
+ *
+ * @since 5.0
+ */
+public abstract class AbstractMultipartEntityConsumer<T> extends AbstractBinAsyncEntityConsumer<T> {
+
+    private enum State { PREAMBLE, DELIMITER_SUFFIX, HEADERS, BODY, EPILOGUE }
+
+    private final int maxHeaderSize;
+    private final ByteArrayBuffer headerBuffer;
+
+    private byte[] delimiter;
+    private int[] fallbacks;
+    private int matched;
+    private State state;
+    private boolean dash;
+    private int lineStart;
+
+    /**
+     * @param maxHeaderSize the maximum total size of headers of an individual part.
+     */
+    protected AbstractMultipartEntityConsumer(final int maxHeaderSize) {
+        this.maxHeaderSize = Args.positive(maxHeaderSize, "Max header size");
+        this.headerBuffer = new ByteArrayBuffer(256);
+    }
+
+    protected AbstractMultipartEntityConsumer() {
+        this(8 * 1024);
+    }
+
+    /**
+     * Triggered to signal beginning of entity content stream.
+     *
+     * @param contentType the entity content type.
+     */
+    protected abstract void multipartStart(ContentType contentType) throws HttpException, IOException;
+
+    /**
+     * Triggered to signal beginning of a part.
+     *
+     * @param headers the part headers.
+     */
+    protected abstract void partStart(List<Header> headers) throws IOException;
+
+    /**
+     * Triggered to pass a chunk of part content. The chunk must be consumed
+     * by the time this method returns.
+     *
+     * @param src the chunk of part content, a slice of incoming data.
+     * @param endOfPart flag indicating whether this is the last chunk of the part.
+     */
+    protected abstract void partData(ByteBuffer src, boolean endOfPart) throws IOException;
+
+    @Override
+    protected final void streamStart(final ContentType contentType) throws HttpException, IOException {
+        final String boundary = contentType != null ? contentType.getParameter("boundary") : null;
+        if (boundary == null || boundary.isEmpty()
+                || !contentType.getMimeType().regionMatches(true, 0, "multipart/", 0, 10)) {
+            throw new ProtocolException("Invalid multipart content type: " + contentType);
+        }
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        this.fallbacks = new int[delimiter.length];
+        for (int i = 1, k = 0; i < delimiter.length; i++) {
+            while (k > 0 && delimiter[i] != delimiter[k]) {
+                k = fallbacks[k - 1];
+            }
+            if (delimiter[i] == delimiter[k]) {
+                k++;
+            }
+            fallbacks[i] = k;
+        }
+        // The first boundary delimiter may not be preceded with a line break
+        this.matched = 2;
+        this.state = State.PREAMBLE;
+        this.dash = false;
+        this.headerBuffer.clear();
+        this.lineStart = 0;
+        multipartStart(contentType);
+    }
+
+    @Override
+    protected int capacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    private static ByteBuffer slice(final ByteBuffer src, final int from, final int to) {
+        final ByteBuffer dup = src.duplicate();
+        dup.limit(to);
+        dup.position(from);
+        return dup;
+    }
+
+    private void emit(final ByteBuffer src, final int start, final int end, final int carried, final int carryInMatch)
+            throws IOException {
+        if (carried > carryInMatch) {
+            // Bytes of an earlier partial match that turned out to be content
+            partData(ByteBuffer.wrap(delimiter, 0, carried - carryInMatch), false);
+        }
+        if (end > start) {
+            partData(slice(src, start, end), false);
+        }
+    }
+
+    /**
+     * Scans the chunk for the boundary delimiter, passing content preceding
+     * the delimiter on if required.
+     */
+    private void scan(final ByteBuffer src, final boolean content) throws IOException {
+        final int start = src.position();
+        final int limit = src.limit();
+        final int carried = matched;
+        for (int i = start; i < limit; i++) {
+            final byte b = src.get(i);
+            while (matched > 0 && delimiter[matched] != b) {
+                matched = fallbacks[matched - 1];
+            }
+            if (delimiter[matched] == b) {
+                matched++;
+            }
+            if (matched == delimiter.length) {
+                final int consumed = i + 1 - start;
+                final int carryInMatch = Math.max(0, matched - consumed);
+                if (content) {
+                    emit(src, start, i + 1 - (matched - carryInMatch), carried, carryInMatch);
+                    partData(ByteBuffer.wrap(delimiter, 0, 0), true);
+                }
+                src.position(i + 1);
+                matched = 0;
+                dash = false;
+                state = State.DELIMITER_SUFFIX;
+                return;
+            }
+        }
+        if (content) {
+            final int carryInMatch = Math.max(0, matched - (limit - start));
+            emit(src, start, limit - (matched - carryInMatch), carried, carryInMatch);
+        }
+        src.position(limit);
+    }
+
+    private void delimiterSuffix(final ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            final byte b = src.get();
+            if (dash) {
+                if (b != '-') {
+                    throw new IOException("Malformed multipart content: invalid close delimiter");
+                }
+                state = State.EPILOGUE;
+                return;
+            }
+            switch (b) {
+                case '-':
+                    dash = true;
+                    break;
+                case ' ':
+                case '\t':
+                case '\r':
+                    break;
+                case '\n':
+                    headerBuffer.clear();
+                    lineStart = 0;
+                    state = State.HEADERS;
+                    return;
+                default:
+                    throw new IOException("Malformed multipart content: invalid boundary delimiter");
+            }
+        }
+    }
+
+    private void headers(final ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            final byte b = src.get();
+            if (b == '\n') {
+                final int len = headerBuffer.length();
+                final boolean empty = len == lineStart || len == lineStart + 1 && headerBuffer.byteAt(lineStart) == '\r';
+                if (empty) {
+                    final List<Header> headers = parseHeaders();
+                    headerBuffer.clear();
+                    state = State.BODY;
+                    partStart(headers);
+                    return;
+                }
+                lineStart = len + 1;
+            }
+            if (headerBuffer.length() >= maxHeaderSize) {
+                throw new MessageConstraintException("Maximum part header size limit exceeded");
+            }
+            headerBuffer.append(b);
+        }
+    }
+
+    private List<Header> parseHeaders() throws IOException {
+        final List<Header> headers = new ArrayList<>();
+        final String s = new String(headerBuffer.array(), 0, lineStart, StandardCharsets.UTF_8);
+        for (final String line: s.split("\r?\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            if ((line.charAt(0) == ' ' || line.charAt(0) == '\t') && !headers.isEmpty()) {
+                // Obsolete line folding
+                final Header last = headers.remove(headers.size() - 1);
+                headers.add(new BasicHeader(last.getName(), last.getValue() + ' ' + line.trim()));
+                continue;
+            }
+            final int colon = line.indexOf(':');
+            if (colon <= 0) {
+                throw new IOException("Malformed multipart content: invalid part header: " + line);
+            }
+            headers.add(new BasicHeader(line.substring(0, colon).trim(), line.substring(colon + 1).trim()));
+        }
+        return headers;
+    }
+
+    @Override
+    protected final void data(final ByteBuffer src, final boolean endOfStream) throws IOException {
+        while (src.hasRemaining()) {
+            switch (state) {
+                case PREAMBLE:
+                    scan(src, false);
+                    break;
+                case BODY:
+                    scan(src, true);
+                    break;
+                case DELIMITER_SUFFIX:
+                    delimiterSuffix(src);
+                    break;
+                case HEADERS:
+                    headers(src);
+                    break;
+                default:
+                    src.position(src.limit());
+            }
+        }
+        if (endOfStream && state != State.EPILOGUE) {
+            throw new IOException("Malformed multipart content: unexpected end of stream");
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.LangUtils;
+
+/**
+ * Satisfiable byte range of a representation of known length as defined by
+ * RFC 7233, section 2.1. Both positions are inclusive.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.IMMUTABLE)
+public final class ByteRange {
+
+    private static final String UNIT = "bytes=";
+
+    private final long first;
+    private final long last;
+
+    public ByteRange(final long first, final long last) {
+        Args.notNegative(first, "First byte position");
+        Args.check(last >= first, "Last byte position may not be less than first byte position");
+        this.first = first;
+        this.last = last;
+    }
+
+    public long getFirst() {
+        return first;
+    }
+
+    public long getLast() {
+        return last;
+    }
+
+    public long getLength() {
+        return last - first + 1;
+    }
+
+    /**
+     * Parses the value of a {@code Range} header against a representation of the given length.
+     * <p>
+     * Ranges that extend beyond the end of the representation are truncated. Overlapping
+     * and adjacent ranges get coalesced, so the result is always sorted and contains
+     * no overlaps.
+     *
+     * @return list of satisfiable ranges, an empty list if none of the ranges can be satisfied
+     * or {@code null} if the value is not a syntactically valid byte range set or contains
+     * no range specs at all, in which case the header is expected to be ignored.
+     */
+    public static List<ByteRange> parse(final String value, final long contentLength) {
+        Args.notNegative(contentLength, "Content length");
+        if (value == null) {
+            return null;
+        }
+        final String s = value.trim();
+        if (!s.regionMatches(true, 0, UNIT, 0, UNIT.length())) {
+            return null;
+        }
+        final List<ByteRange> ranges = new ArrayList<>();
+        int specCount = 0;
+        for (final String token: s.substring(UNIT.length()).split(",")) {
+            final String spec = token.trim();
+            if (spec.isEmpty()) {
+                continue;
+            }
+            final int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            specCount++;
+            final long first = parsePosition(spec.substring(0, dash).trim());
+            final long last = parsePosition(spec.substring(dash + 1).trim());
+            if (first == -1) {
+                // suffix-byte-range-spec
+                if (last < 0) {
+                    return null;
+                }
+                if (last > 0 && contentLength > 0) {
+                    ranges.add(new ByteRange(Math.max(contentLength - last, 0), contentLength - 1));
+                }
+            } else {
+                if (first < 0 || last < -1 || (last != -1 && last < first)) {
+                    return null;
+                }
+                if (first < contentLength) {
+                    ranges.add(new ByteRange(first, last == -1 ? contentLength - 1 : Math.min(last, contentLength - 1)));
+                }
+            }
+        }
+        if (specCount == 0) {
+            return null;
+        }
+        return coalesce(ranges);
+    }
+
+    /**
+     * @return position, {@code -1} if empty or {@code -2} if malformed.
+     */
+    private static long parsePosition(final String s) {
+        if (s.isEmpty()) {
+            return -1;
+        }
+        if (s.length() > 18) {
+            return -2;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            final char ch = s.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -2;
+            }
+        }
+        return Long.parseLong(s);
+    }
+
+    private static List<ByteRange> coalesce(final List<ByteRange> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+        Collections.sort(ranges, new Comparator<ByteRange>() {
+
+            @Override
+            public int compare(final ByteRange r1, final ByteRange r2) {
+                return Long.compare(r1.first, r2.first);
+            }
+
+        });
+        final List<ByteRange> result = new ArrayList<>(ranges.size());
+        ByteRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            final ByteRange next = ranges.get(i);
+            if (next.first <= current.last + 1) {
+                if (next.last > current.last) {
+                    current = new ByteRange(current.first, next.last);
+                }
+            } else {
+                result.add(current);
+                current = next;
+            }
+        }
+        result.add(current);
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof ByteRange) {
+            final ByteRange that = (ByteRange) obj;
+            return this.first == that.first && this.last == that.last;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = LangUtils.HASH_SEED;
+        hash = LangUtils.hashCode(hash, Long.valueOf(first));
+        hash = LangUtils.hashCode(hash, Long.valueOf(last));
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return first + "-" + last;
+    }
+
+}
@@ -120,6 +120,22 @@ public int write(final ByteBuffer src) throws IOException {
                 return writtenBytes;
             }
 
+            @Override
+            public long write(final ByteBuffer[] srcs) throws IOException {
+                final ByteBuffer[] dups = new ByteBuffer[srcs.length];
+                for (int i = 0; i < srcs.length; i++) {
+                    dups[i] = srcs[i].duplicate();
+                }
+                final long writtenBytes = channel.write(srcs);
+                if (writtenBytes > 0) {
+                    for (int i = 0; i < srcs.length; i++) {
+                        dups[i].limit(srcs[i].position());
+                        digester.update(dups[i]);
+                    }
+                }
+                return writtenBytes;
+            }
+
             @Override
             public void endStream(final List<? extends Header> trailers) throws IOException {
                 digest = digester.digest();
@@ -0,0 +1,128 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
+import org.apache.hc.core5.http.nio.FileDataConsumer;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Entity consumer that stores content in a file.
+ * <p>
+ * With content decoders capable of direct file transfer (identity and
+ * content length delimited coding over a plain connection) content gets
+ * transferred from the network channel into the file by-passing
+ * the intermediate content buffers. Otherwise content gets copied
+ * from the buffers passed to {@link #consume(ByteBuffer)}.
+ *
+ * @since 5.0
+ */
+public class FileEntityConsumer extends AbstractBinAsyncEntityConsumer<File> implements FileDataConsumer {
+
+    private final File file;
+
+    private volatile FileChannel fileChannel;
+    private volatile long position;
+
+    public FileEntityConsumer(final File file) {
+        this.file = Args.notNull(file, "File");
+    }
+
+    @Override
+    protected void streamStart(final ContentType contentType) throws HttpException, IOException {
+        @SuppressWarnings("resource")
+        final FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+        channel.truncate(0);
+        this.fileChannel = channel;
+        this.position = 0;
+    }
+
+    @Override
+    protected int capacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    protected void data(final ByteBuffer src, final boolean endOfStream) throws IOException {
+        final FileChannel channel = this.fileChannel;
+        if (channel == null) {
+            throw new IOException("File channel closed");
+        }
+        while (src.hasRemaining()) {
+            this.position += channel.write(src, this.position);
+        }
+    }
+
+    @Override
+    public boolean isFileTransferSupported() {
+        return this.fileChannel != null;
+    }
+
+    @Override
+    public long transfer(final FileContentDecoder contentDecoder) throws IOException {
+        final FileChannel channel = this.fileChannel;
+        if (channel == null) {
+            throw new IOException("File channel closed");
+        }
+        final long bytesTransferred = contentDecoder.transfer(channel, this.position, Integer.MAX_VALUE);
+        if (bytesTransferred > 0) {
+            this.position += bytesTransferred;
+        }
+        return bytesTransferred;
+    }
+
+    @Override
+    protected File generateContent() throws IOException {
+        final FileChannel channel = this.fileChannel;
+        if (channel != null) {
+            this.fileChannel = null;
+            channel.close();
+        }
+        return file;
+    }
+
+    @Override
+    public void releaseResources() {
+        final FileChannel channel = this.fileChannel;
+        if (channel != null) {
+            this.fileChannel = null;
+            try {
+                channel.close();
+            } catch (final IOException ignore) {
+            }
+        }
+    }
+
+}
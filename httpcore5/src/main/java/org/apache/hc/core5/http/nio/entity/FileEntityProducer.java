@@ -57,7 +57,9 @@ public FileEntityProducer(final File file, final int bufferSize, final ContentTy
         this.length = file.length();
         this.contentType = contentType;
         this.exception = new AtomicReference<>(null);
-        this.bytebuf = ByteBuffer.allocate((int)(bufferSize > this.length ? bufferSize : this.length));
+        // Do not allocate more than the file length: there is no point
+        // in holding large files in memory in their entirety
+        this.bytebuf = ByteBuffer.allocate((int) Math.max(Math.min(bufferSize, this.length), 1));
     }
 
     public FileEntityProducer(final File file, final ContentType contentType) {
@@ -140,6 +142,8 @@ public void releaseResources() {
             }
             accessFile = null;
         }
+        bytebuf.clear();
+        eof = false;
     }
 
 }
@@ -0,0 +1,302 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * {@link AsyncEntityProducer} that streams the entire content of a file or one or more
+ * byte ranges of it. Multiple ranges are enclosed in a {@code multipart/byteranges}
+ * body as defined by RFC 7233, appendix A.
+ * <p>
+ * The content can optionally be supplied as a buffer with the file mapped into memory
+ * (see {@link MappedFileCache}), in which case the file is not opened and content
+ * is written to the data channel directly from the mapped buffer. Otherwise content
+ * is read from the file with positional reads through an intermediate buffer.
+ *
+ * @since 5.0
+ */
+public class FileRangeEntityProducer implements AsyncEntityProducer {
+
+    private static final char[] BOUNDARY_CHARS =
+            "-_1234567890abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private final File file;
+    private final ByteBuffer content;
+    private final long fileLength;
+    private final String contentType;
+    private final List<ByteRange> ranges;
+    private final List<byte[]> partHeaders;
+    private final byte[] trailer;
+    private final long contentLength;
+    private final int bufferSize;
+    private final AtomicReference<Exception> exception;
+
+    private RandomAccessFile accessFile;
+    private ByteBuffer bytebuf;
+    private ByteBuffer header;
+    private ByteBuffer trailerBuf;
+    private int partIndex;
+    private long pos;
+
+    /**
+     * @param file the file.
+     * @param content content of the file mapped into memory or {@code null} if the content
+     *                is to be read from the file.
+     * @param bufferSize size of the intermediate buffer used for reading content from the file.
+     * @param contentType content type of the file.
+     * @param ranges satisfiable ranges as returned by {@link ByteRange#parse(String, long)}
+     *               or {@code null} to stream the entire file.
+     */
+    public FileRangeEntityProducer(
+            final File file,
+            final ByteBuffer content,
+            final int bufferSize,
+            final ContentType contentType,
+            final List<ByteRange> ranges) {
+        this.file = Args.notNull(file, "File");
+        this.content = content;
+        this.fileLength = content != null ? content.remaining() : file.length();
+        this.bufferSize = Args.positive(bufferSize, "Buffer size");
+        this.exception = new AtomicReference<>(null);
+        if (ranges == null) {
+            this.ranges = fileLength > 0
+                    ? Collections.singletonList(new ByteRange(0, fileLength - 1))
+                    : Collections.<ByteRange>emptyList();
+        } else {
+            Args.notEmpty(ranges, "Ranges");
+            for (final ByteRange range: ranges) {
+                Args.check(range.getLast() < fileLength, "Range %s is beyond the end of the file", range);
+            }
+            this.ranges = Collections.unmodifiableList(new ArrayList<>(ranges));
+        }
+        if (this.ranges.size() > 1) {
+            final String boundary = generateBoundary();
+            this.contentType = "multipart/byteranges; boundary=" + boundary;
+            this.partHeaders = new ArrayList<>(this.ranges.size());
+            long total = 0;
+            for (int i = 0; i < this.ranges.size(); i++) {
+                final ByteRange range = this.ranges.get(i);
+                final StringBuilder buf = new StringBuilder();
+                if (i > 0) {
+                    buf.append("\r\n");
+                }
+                buf.append("--").append(boundary).append("\r\n");
+                if (contentType != null) {
+                    buf.append("Content-Type: ").append(contentType).append("\r\n");
+                }
+                buf.append("Content-Range: bytes ").append(range).append('/').append(fileLength).append("\r\n");
+                buf.append("\r\n");
+                final byte[] b = buf.toString().getBytes(StandardCharsets.US_ASCII);
+                this.partHeaders.add(b);
+                total += b.length + range.getLength();
+            }
+            this.trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+            this.contentLength = total + this.trailer.length;
+        } else {
+            this.contentType = contentType != null ? contentType.toString() : null;
+            this.partHeaders = null;
+            this.trailer = null;
+            this.contentLength = ranges != null ? this.ranges.get(0).getLength() : fileLength;
+        }
+        this.partIndex = 0;
+        this.pos = firstPosition();
+    }
+
+    public FileRangeEntityProducer(
+            final File file,
+            final ByteBuffer content,
+            final ContentType contentType,
+            final List<ByteRange> ranges) {
+        this(file, content, 8192, contentType, ranges);
+    }
+
+    public FileRangeEntityProducer(final File file, final ContentType contentType, final List<ByteRange> ranges) {
+        this(file, null, contentType, ranges);
+    }
+
+    static String generateBoundary() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final char[] buf = new char[32];
+        for (int i = 0; i < buf.length; i++) {
+            buf[i] = BOUNDARY_CHARS[random.nextInt(BOUNDARY_CHARS.length)];
+        }
+        return new String(buf);
+    }
+
+    private long firstPosition() {
+        return !ranges.isEmpty() ? ranges.get(0).getFirst() : 0;
+    }
+
+    public List<ByteRange> getRanges() {
+        return ranges;
+    }
+
+    @Override
+    public final String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public int available() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return null;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return false;
+    }
+
+    @Override
+    public Set<String> getTrailerNames() {
+        return null;
+    }
+
+    private ByteBuffer nextChunk(final ByteRange range) throws IOException {
+        if (content != null) {
+            final ByteBuffer chunk = content.duplicate();
+            chunk.limit(content.position() + (int) (range.getLast() + 1));
+            chunk.position(content.position() + (int) pos);
+            return chunk;
+        }
+        if (bytebuf == null) {
+            bytebuf = ByteBuffer.allocate((int) Math.max(Math.min(bufferSize, contentLength), 1));
+            bytebuf.flip();
+        }
+        final long remaining = range.getLast() + 1 - pos;
+        if (!bytebuf.hasRemaining() && remaining > 0) {
+            if (accessFile == null) {
+                accessFile = new RandomAccessFile(file, "r");
+            }
+            bytebuf.clear();
+            bytebuf.limit((int) Math.min(bytebuf.capacity(), remaining));
+            final int bytesRead = accessFile.getChannel().read(bytebuf, pos);
+            if (bytesRead < 0) {
+                throw new IOException("Unexpected end of file " + file);
+            }
+            pos += bytesRead;
+            bytebuf.flip();
+        }
+        return bytebuf;
+    }
+
+    @Override
+    public final void produce(final DataStreamChannel channel) throws IOException {
+        while (partIndex < ranges.size()) {
+            final ByteRange range = ranges.get(partIndex);
+            if (header == null && partHeaders != null) {
+                header = ByteBuffer.wrap(partHeaders.get(partIndex));
+            }
+            final ByteBuffer chunk = nextChunk(range);
+            final long bytesWritten;
+            if (header != null && header.hasRemaining()) {
+                bytesWritten = channel.write(new ByteBuffer[] { header, chunk });
+            } else {
+                bytesWritten = channel.write(chunk);
+            }
+            if (content != null) {
+                pos = chunk.position() - content.position();
+            }
+            if ((header == null || !header.hasRemaining()) && !chunk.hasRemaining() && pos > range.getLast()) {
+                partIndex++;
+                header = null;
+                if (partIndex < ranges.size()) {
+                    pos = ranges.get(partIndex).getFirst();
+                }
+            } else if (bytesWritten == 0) {
+                return;
+            }
+        }
+        if (trailer != null) {
+            if (trailerBuf == null) {
+                trailerBuf = ByteBuffer.wrap(trailer);
+            }
+            channel.write(trailerBuf);
+            if (trailerBuf.hasRemaining()) {
+                return;
+            }
+        }
+        channel.endStream();
+        releaseResources();
+    }
+
+    @Override
+    public final void failed(final Exception cause) {
+        if (exception.compareAndSet(null, cause)) {
+            releaseResources();
+        }
+    }
+
+    public final Exception getException() {
+        return exception.get();
+    }
+
+    @Override
+    public void releaseResources() {
+        if (accessFile != null) {
+            try {
+                accessFile.close();
+            } catch (final IOException ignore) {
+            }
+            accessFile = null;
+        }
+        if (bytebuf != null) {
+            bytebuf.clear();
+            bytebuf.flip();
+        }
+        header = null;
+        trailerBuf = null;
+        partIndex = 0;
+        pos = firstPosition();
+    }
+
+}
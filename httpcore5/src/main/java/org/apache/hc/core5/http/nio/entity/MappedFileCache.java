@@ -0,0 +1,201 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Bounded cache of read-only memory mapped file content intended for
+ * frequently requested (hot) files. Content of cached files is served
+ * from the OS page cache without re-opening files or copying their content
+ * to the heap.
+ * <p>
+ * Entries are evicted in the least recently used order once the total size of
+ * mapped content exceeds the configured maximum. A cached entry is considered
+ * stale and gets re-mapped if the length or the last modification time of
+ * the file changes. Files that are being served should be replaced atomically
+ * (by renaming) rather than modified in place, as changes to the content of
+ * a mapped file become visible through the mapping.
+ * <p>
+ * Please note that the JRE provides no means of unmapping a buffer explicitly.
+ * Mappings of evicted entries are released once the buffers become unreachable
+ * and get garbage collected.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public final class MappedFileCache {
+
+    private static class Entry {
+
+        final long length;
+        final long lastModified;
+        final MappedByteBuffer buffer;
+
+        Entry(final long length, final long lastModified, final MappedByteBuffer buffer) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.buffer = buffer;
+        }
+
+    }
+
+    private final long maxTotalSize;
+    private final long maxFileSize;
+    private final LinkedHashMap<String, Entry> map;
+
+    private long totalSize;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * @param maxTotalSize maximum total size of mapped content.
+     * @param maxFileSize maximum size of individual files eligible for caching.
+     */
+    public MappedFileCache(final long maxTotalSize, final long maxFileSize) {
+        this.maxTotalSize = Args.notNegative(maxTotalSize, "Max total size");
+        this.maxFileSize = Math.min(Args.notNegative(maxFileSize, "Max file size"), Integer.MAX_VALUE);
+        this.map = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns read-only content of the given file mapped into memory or {@code null}
+     * if the file is too large to be cached. The returned buffer is positioned
+     * at the beginning of the file and does not share its position and limit with
+     * other callers.
+     */
+    public ByteBuffer get(final File file) throws IOException {
+        Args.notNull(file, "File");
+        final String key = file.getAbsolutePath();
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+        if (length > maxFileSize || length > maxTotalSize) {
+            synchronized (this) {
+                missCount++;
+            }
+            return null;
+        }
+        synchronized (this) {
+            final Entry entry = map.get(key);
+            if (entry != null && entry.length == length && entry.lastModified == lastModified) {
+                hitCount++;
+                return entry.buffer.asReadOnlyBuffer();
+            }
+            missCount++;
+        }
+        // Map the file outside the lock
+        final MappedByteBuffer buffer;
+        final RandomAccessFile accessFile = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel fileChannel = accessFile.getChannel();
+            final long size = fileChannel.size();
+            if (size > maxFileSize || size > maxTotalSize) {
+                return null;
+            }
+            buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } finally {
+            accessFile.close();
+        }
+        synchronized (this) {
+            final Entry previous = map.put(key, new Entry(buffer.capacity(), lastModified, buffer));
+            if (previous != null) {
+                totalSize -= previous.length;
+            }
+            totalSize += buffer.capacity();
+            evict();
+        }
+        return buffer.asReadOnlyBuffer();
+    }
+
+    private void evict() {
+        final Iterator<Map.Entry<String, Entry>> it = map.entrySet().iterator();
+        while (totalSize > maxTotalSize && it.hasNext()) {
+            final Entry entry = it.next().getValue();
+            it.remove();
+            totalSize -= entry.length;
+        }
+    }
+
+    /**
+     * Removes the given file from the cache.
+     */
+    public synchronized void remove(final File file) {
+        Args.notNull(file, "File");
+        final Entry entry = map.remove(file.getAbsolutePath());
+        if (entry != null) {
+            totalSize -= entry.length;
+        }
+    }
+
+    public synchronized void clear() {
+        map.clear();
+        totalSize = 0;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    public long getMaxTotalSize() {
+        return maxTotalSize;
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "[entries: " + map.size() + "; total size: " + totalSize + "; max total size: " + maxTotalSize
+                + "; hits: " + hitCount + "; misses: " + missCount + "]";
+    }
+
+}
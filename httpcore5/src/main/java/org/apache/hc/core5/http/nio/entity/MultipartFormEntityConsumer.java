@@ -0,0 +1,245 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.MessageConstraintException;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteArrayBuffer;
+
+/**
+ * {@code multipart/form-data} entity consumer that keeps content of small
+ * parts in memory and streams content of file parts as well as parts exceeding
+ * the in-memory limit to temporary files. Once the total size of content held
+ * in memory reaches its own limit all subsequent parts are streamed to temporary
+ * files as well. The number of parts and the total size of their content can
+ * optionally be limited, in which case the consumer fails with
+ * {@link MessageConstraintException} once a limit is exceeded.
+ * <p>
+ * Temporary files referred to by parts of the resultant list are owned
+ * by the caller and are expected to be deleted when no longer needed. Temporary
+ * files of a partially received entity are deleted when resources of the consumer
+ * are released.
+ *
+ * @since 5.0
+ */
+public class MultipartFormEntityConsumer extends AbstractMultipartEntityConsumer<List<MultipartFormPart>> {
+
+    public static final int DEFAULT_MAX_IN_MEMORY_SIZE = 64 * 1024;
+    public static final int DEFAULT_MAX_TOTAL_IN_MEMORY_SIZE = 1024 * 1024;
+    public static final int DEFAULT_MAX_PART_COUNT = 1000;
+
+    private final File directory;
+    private final int maxInMemorySize;
+    private final int maxTotalInMemorySize;
+    private final int maxPartCount;
+    private final long maxContentLength;
+    private final List<MultipartFormPart> parts;
+    private final List<File> tempFiles;
+    private final ByteArrayBuffer buffer;
+
+    private List<Header> headers;
+    private File file;
+    private FileChannel fileChannel;
+    private boolean completed;
+    private int inMemorySize;
+    private int partCount;
+    private long contentLength;
+
+    /**
+     * @param directory the directory to create temporary files in or {@code null}
+     *                  for the default temporary directory.
+     * @param maxInMemorySize the maximum size of content of a part held in memory.
+     * @param maxTotalInMemorySize the maximum total size of content of all parts held
+     *                             in memory.
+     * @param maxHeaderSize the maximum total size of headers of an individual part.
+     * @param maxPartCount the maximum number of parts. A value of zero or less
+     *                     means no limit.
+     * @param maxContentLength the maximum total size of content of all parts. A value
+     *                         of zero or less means no limit.
+     */
+    public MultipartFormEntityConsumer(
+            final File directory,
+            final int maxInMemorySize,
+            final int maxTotalInMemorySize,
+            final int maxHeaderSize,
+            final int maxPartCount,
+            final long maxContentLength) {
+        super(maxHeaderSize);
+        this.directory = directory;
+        this.maxInMemorySize = Args.notNegative(maxInMemorySize, "Max in-memory size");
+        this.maxTotalInMemorySize = Args.notNegative(maxTotalInMemorySize, "Max total in-memory size");
+        this.maxPartCount = maxPartCount;
+        this.maxContentLength = maxContentLength;
+        this.parts = new ArrayList<>();
+        this.tempFiles = new ArrayList<>();
+        this.buffer = new ByteArrayBuffer(1024);
+    }
+
+    /**
+     * @param directory the directory to create temporary files in or {@code null}
+     *                  for the default temporary directory.
+     * @param maxInMemorySize the maximum size of content of a part held in memory.
+     * @param maxHeaderSize the maximum total size of headers of an individual part.
+     */
+    public MultipartFormEntityConsumer(final File directory, final int maxInMemorySize, final int maxHeaderSize) {
+        this(directory, maxInMemorySize, Math.max(maxInMemorySize, DEFAULT_MAX_TOTAL_IN_MEMORY_SIZE),
+                maxHeaderSize, DEFAULT_MAX_PART_COUNT, -1);
+    }
+
+    public MultipartFormEntityConsumer(final File directory, final int maxInMemorySize) {
+        this(directory, maxInMemorySize, 8 * 1024);
+    }
+
+    public MultipartFormEntityConsumer() {
+        this(null, DEFAULT_MAX_IN_MEMORY_SIZE);
+    }
+
+    @Override
+    protected void multipartStart(final ContentType contentType) throws HttpException, IOException {
+        // Content of an incomplete entity still has not been handed over
+        discardTempFiles();
+        parts.clear();
+        buffer.clear();
+        completed = false;
+        inMemorySize = 0;
+        partCount = 0;
+        contentLength = 0;
+    }
+
+    private void spill() throws IOException {
+        final File tempFile = File.createTempFile("part", ".tmp", directory);
+        tempFiles.add(tempFile);
+        file = tempFile;
+        @SuppressWarnings("resource")
+        final FileChannel channel = new RandomAccessFile(tempFile, "rw").getChannel();
+        fileChannel = channel;
+        write(ByteBuffer.wrap(buffer.array(), 0, buffer.length()));
+        buffer.clear();
+    }
+
+    private void write(final ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            fileChannel.write(src);
+        }
+    }
+
+    @Override
+    protected void partStart(final List<Header> headers) throws IOException {
+        partCount++;
+        if (maxPartCount > 0 && partCount > maxPartCount) {
+            throw new MessageConstraintException("Maximum part count limit exceeded");
+        }
+        this.headers = headers;
+        this.buffer.clear();
+        if (MultipartFormPart.getDispositionParameter(headers, "filename") != null) {
+            spill();
+        }
+    }
+
+    @Override
+    protected void partData(final ByteBuffer src, final boolean endOfPart) throws IOException {
+        contentLength += src.remaining();
+        if (maxContentLength > 0 && contentLength > maxContentLength) {
+            throw new MessageConstraintException("Maximum content length limit exceeded");
+        }
+        if (fileChannel == null) {
+            final long size = (long) buffer.length() + src.remaining();
+            if (size > maxInMemorySize || inMemorySize + size > maxTotalInMemorySize) {
+                spill();
+            }
+        }
+        if (fileChannel != null) {
+            write(src);
+        } else {
+            final int len = src.remaining();
+            if (src.hasArray()) {
+                buffer.append(src.array(), src.arrayOffset() + src.position(), len);
+                src.position(src.limit());
+            } else {
+                final byte[] tmp = new byte[len];
+                src.get(tmp);
+                buffer.append(tmp, 0, len);
+            }
+        }
+        if (endOfPart) {
+            if (fileChannel != null) {
+                fileChannel.close();
+                fileChannel = null;
+                parts.add(MultipartFormPart.create(headers, null, file));
+                file = null;
+            } else {
+                parts.add(MultipartFormPart.create(headers, buffer.toByteArray(), null));
+                inMemorySize += buffer.length();
+                buffer.clear();
+            }
+            headers = null;
+        }
+    }
+
+    @Override
+    protected List<MultipartFormPart> generateContent() throws IOException {
+        completed = true;
+        return Collections.unmodifiableList(new ArrayList<>(parts));
+    }
+
+    private void discardTempFiles() {
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            } catch (final IOException ignore) {
+            }
+            fileChannel = null;
+        }
+        if (!completed) {
+            for (final File tempFile: tempFiles) {
+                tempFile.delete();
+            }
+        }
+        tempFiles.clear();
+    }
+
+    @Override
+    public void releaseResources() {
+        discardTempFiles();
+        parts.clear();
+        file = null;
+        headers = null;
+    }
+
+}
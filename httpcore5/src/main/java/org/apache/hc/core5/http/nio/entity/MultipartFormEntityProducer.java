@@ -0,0 +1,260 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * {@code multipart/form-data} entity producer that streams parts one by one.
+ * <p>
+ * Content of file parts is never copied to the heap: files are read into a direct
+ * buffer of a fixed size that gets reused for all file parts and passed to the data
+ * channel along with the part headers in a single gathering write. Memory use is
+ * therefore independent of the size of the parts. The content length is computed in advance from the lengths
+ * of parts, so files must not change while the entity is being produced.
+ *
+ * @since 5.0
+ */
+public class MultipartFormEntityProducer implements AsyncEntityProducer {
+
+    private final List<MultipartFormPart> parts;
+    private final String boundary;
+    private final String contentType;
+    private final List<byte[]> partHeaders;
+    private final byte[] trailer;
+    private final long contentLength;
+    private final int bufferSize;
+    private final AtomicReference<Exception> exception;
+
+    private FileChannel fileChannel;
+    private ByteBuffer fileBuffer;
+    private ByteBuffer header;
+    private ByteBuffer chunk;
+    private ByteBuffer trailerBuf;
+    private int partIndex;
+    private long pos;
+
+    /**
+     * @param parts the entity parts.
+     * @param boundary the boundary delimiting parts or {@code null} to generate a random one.
+     * @param bufferSize the size of the direct buffer file content is read into.
+     */
+    public MultipartFormEntityProducer(final List<MultipartFormPart> parts, final String boundary, final int bufferSize) {
+        Args.notNull(parts, "Parts");
+        this.parts = Collections.unmodifiableList(new ArrayList<>(parts));
+        this.boundary = boundary != null ? boundary : FileRangeEntityProducer.generateBoundary();
+        Args.check(this.boundary.length() > 0 && this.boundary.length() <= 70, "Boundary length must be between 1 and 70");
+        this.bufferSize = Args.positive(bufferSize, "Buffer size");
+        this.contentType = "multipart/form-data; boundary=" + this.boundary;
+        this.partHeaders = new ArrayList<>(this.parts.size());
+        long total = 0;
+        for (int i = 0; i < this.parts.size(); i++) {
+            final MultipartFormPart part = this.parts.get(i);
+            final StringBuilder buf = new StringBuilder();
+            if (i > 0) {
+                buf.append("\r\n");
+            }
+            buf.append("--").append(this.boundary).append("\r\n");
+            for (final Header h: part.getHeaders()) {
+                buf.append(h.getName()).append(": ").append(h.getValue()).append("\r\n");
+            }
+            buf.append("\r\n");
+            final byte[] b = buf.toString().getBytes(StandardCharsets.UTF_8);
+            this.partHeaders.add(b);
+            total += b.length + part.getContentLength();
+        }
+        this.trailer = ((this.parts.isEmpty() ? "" : "\r\n") + "--" + this.boundary + "--\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        this.contentLength = total + this.trailer.length;
+        this.exception = new AtomicReference<>(null);
+    }
+
+    public MultipartFormEntityProducer(final List<MultipartFormPart> parts, final String boundary) {
+        this(parts, boundary, 64 * 1024);
+    }
+
+    public MultipartFormEntityProducer(final List<MultipartFormPart> parts) {
+        this(parts, null);
+    }
+
+    public MultipartFormEntityProducer(final MultipartFormPart... parts) {
+        this(Arrays.asList(parts));
+    }
+
+    public List<MultipartFormPart> getParts() {
+        return parts;
+    }
+
+    public String getBoundary() {
+        return boundary;
+    }
+
+    @Override
+    public final String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public int available() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return null;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return false;
+    }
+
+    @Override
+    public Set<String> getTrailerNames() {
+        return null;
+    }
+
+    private ByteBuffer nextChunk(final MultipartFormPart part) throws IOException {
+        final File file = part.getFile();
+        if (file == null) {
+            if (chunk == null) {
+                chunk = ByteBuffer.wrap(part.getContent());
+                pos = part.getContentLength();
+            }
+            return chunk;
+        }
+        final long length = part.getContentLength();
+        if ((chunk == null || !chunk.hasRemaining()) && pos < length) {
+            if (fileChannel == null) {
+                fileChannel = new RandomAccessFile(file, "r").getChannel();
+            }
+            if (fileBuffer == null) {
+                fileBuffer = ByteBuffer.allocateDirect(bufferSize);
+            }
+            fileBuffer.clear();
+            fileBuffer.limit((int) Math.min(bufferSize, length - pos));
+            final int bytesRead = fileChannel.read(fileBuffer, pos);
+            if (bytesRead < 0) {
+                throw new IOException("Unexpected end of file: " + file);
+            }
+            pos += bytesRead;
+            fileBuffer.flip();
+            chunk = fileBuffer;
+        } else if (chunk == null) {
+            chunk = ByteBuffer.allocate(0);
+        }
+        return chunk;
+    }
+
+    private void closeFile() {
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            } catch (final IOException ignore) {
+            }
+            fileChannel = null;
+        }
+    }
+
+    @Override
+    public final void produce(final DataStreamChannel channel) throws IOException {
+        while (partIndex < parts.size()) {
+            final MultipartFormPart part = parts.get(partIndex);
+            if (header == null) {
+                header = ByteBuffer.wrap(partHeaders.get(partIndex));
+            }
+            final ByteBuffer buf = nextChunk(part);
+            final long bytesWritten;
+            if (header.hasRemaining()) {
+                bytesWritten = channel.write(new ByteBuffer[] { header, buf });
+            } else {
+                bytesWritten = channel.write(buf);
+            }
+            if (!header.hasRemaining() && !buf.hasRemaining() && pos >= part.getContentLength()) {
+                partIndex++;
+                header = null;
+                chunk = null;
+                pos = 0;
+                closeFile();
+            } else if (bytesWritten == 0) {
+                return;
+            }
+        }
+        if (trailerBuf == null) {
+            trailerBuf = ByteBuffer.wrap(trailer);
+        }
+        channel.write(trailerBuf);
+        if (trailerBuf.hasRemaining()) {
+            return;
+        }
+        channel.endStream();
+        releaseResources();
+    }
+
+    @Override
+    public final void failed(final Exception cause) {
+        if (exception.compareAndSet(null, cause)) {
+            releaseResources();
+        }
+    }
+
+    public final Exception getException() {
+        return exception.get();
+    }
+
+    @Override
+    public void releaseResources() {
+        closeFile();
+        header = null;
+        chunk = null;
+        trailerBuf = null;
+        partIndex = 0;
+        pos = 0;
+    }
+
+}
@@ -0,0 +1,258 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HeaderElement;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http.message.BasicHeaderValueParser;
+import org.apache.hc.core5.http.message.ParserCursor;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Part of a {@code multipart/form-data} entity as defined by RFC 7578.
+ * Part content is either held in memory or backed by a file.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.IMMUTABLE)
+public final class MultipartFormPart {
+
+    private final String name;
+    private final String fileName;
+    private final ContentType contentType;
+    private final List<Header> headers;
+    private final byte[] content;
+    private final File file;
+    private final long contentLength;
+
+    MultipartFormPart(
+            final List<Header> headers,
+            final String name,
+            final String fileName,
+            final ContentType contentType,
+            final byte[] content,
+            final File file) {
+        this.headers = Collections.unmodifiableList(new ArrayList<>(headers));
+        this.name = name;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.content = content;
+        this.file = file;
+        this.contentLength = file != null ? file.length() : content.length;
+    }
+
+    private MultipartFormPart(
+            final String name,
+            final String fileName,
+            final ContentType contentType,
+            final byte[] content,
+            final File file) {
+        this(generateHeaders(
+                Args.notNull(name, "Name"), fileName, contentType), name, fileName, contentType, content, file);
+    }
+
+    /**
+     * Creates a part with the given content.
+     *
+     * @param name the name of the form field.
+     * @param fileName the original file name or {@code null}.
+     * @param contentType the content type or {@code null}.
+     * @param content the part content.
+     */
+    public MultipartFormPart(
+            final String name,
+            final String fileName,
+            final ContentType contentType,
+            final byte[] content) {
+        this(name, fileName, contentType, Args.notNull(content, "Content"), null);
+    }
+
+    /**
+     * Creates a part with content of the given file.
+     *
+     * @param name the name of the form field.
+     * @param fileName the original file name or {@code null}.
+     * @param contentType the content type or {@code null}.
+     * @param file the file with the part content.
+     */
+    public MultipartFormPart(
+            final String name,
+            final String fileName,
+            final ContentType contentType,
+            final File file) {
+        this(name, fileName, contentType, null, Args.notNull(file, "File"));
+    }
+
+    /**
+     * Creates a part with content of the given file using the name of the file
+     * as the original file name.
+     */
+    public MultipartFormPart(final String name, final ContentType contentType, final File file) {
+        this(name, Args.notNull(file, "File").getName(), contentType, file);
+    }
+
+    /**
+     * Creates a text field encoded in UTF-8.
+     */
+    public MultipartFormPart(final String name, final String value) {
+        this(name, null, null, Args.notNull(value, "Value").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String quote(final String s) {
+        final StringBuilder buf = new StringBuilder(s.length() + 2);
+        buf.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            final char ch = s.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                buf.append('\\');
+            }
+            if (ch == '\r' || ch == '\n') {
+                buf.append(' ');
+            } else {
+                buf.append(ch);
+            }
+        }
+        buf.append('"');
+        return buf.toString();
+    }
+
+    private static List<Header> generateHeaders(final String name, final String fileName, final ContentType contentType) {
+        final List<Header> headers = new ArrayList<>(2);
+        final StringBuilder buf = new StringBuilder("form-data; name=").append(quote(name));
+        if (fileName != null) {
+            buf.append("; filename=").append(quote(fileName));
+        }
+        headers.add(new BasicHeader("Content-Disposition", buf.toString()));
+        if (contentType != null) {
+            headers.add(new BasicHeader(HttpHeaders.CONTENT_TYPE, contentType.toString()));
+        }
+        return headers;
+    }
+
+    /**
+     * Returns the value of the given parameter of the {@code Content-Disposition}
+     * header or {@code null} if not present.
+     */
+    static String getDispositionParameter(final List<Header> headers, final String param) {
+        for (final Header header: headers) {
+            if ("Content-Disposition".equalsIgnoreCase(header.getName())) {
+                final String value = header.getValue();
+                final HeaderElement[] elements = BasicHeaderValueParser.INSTANCE.parseElements(
+                        value, new ParserCursor(0, value.length()));
+                if (elements.length > 0) {
+                    final NameValuePair nvp = elements[0].getParameterByName(param);
+                    return nvp != null ? nvp.getValue() : null;
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a part from headers and content received from the opposite endpoint.
+     */
+    static MultipartFormPart create(final List<Header> headers, final byte[] content, final File file) {
+        ContentType contentType = null;
+        for (final Header header: headers) {
+            if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getName())) {
+                contentType = ContentType.parseLenient(header.getValue());
+                break;
+            }
+        }
+        return new MultipartFormPart(
+                headers,
+                getDispositionParameter(headers, "name"),
+                getDispositionParameter(headers, "filename"),
+                contentType,
+                content,
+                file);
+    }
+
+    /**
+     * Returns the name of the form field or {@code null} if not known.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the original file name or {@code null} if not given.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    public ContentType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the part headers.
+     */
+    public List<Header> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the part content or {@code null} if the content is backed by a file.
+     * The returned array must not be modified.
+     */
+    public byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * Returns the file with the part content or {@code null} if the content is held in memory.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public String toString() {
+        return "[name: " + name + "; file name: " + fileName + "; content type: " + contentType
+                + "; content length: " + contentLength + "]";
+    }
+
+}
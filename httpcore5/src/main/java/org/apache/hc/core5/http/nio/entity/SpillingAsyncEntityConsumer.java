@@ -0,0 +1,114 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.io.entity.SpillingBuffer;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Entity consumer that keeps at most a fixed number of bytes in memory
+ * and spills content in excess of the memory threshold to a temporary file.
+ * <p>
+ * The caller takes ownership of the resultant {@link SpillingBuffer} and is
+ * expected to close it in order to delete the temporary file. Spilled content
+ * can be re-sent with {@link FileEntityProducer} using
+ * {@link SpillingBuffer#getFile()}.
+ *
+ * @since 5.0
+ */
+public class SpillingAsyncEntityConsumer extends AbstractBinAsyncEntityConsumer<SpillingBuffer> {
+
+    private final int memoryThreshold;
+    private final File directory;
+
+    private volatile SpillingBuffer buffer;
+
+    /**
+     * @param memoryThreshold maximum number of bytes held in memory.
+     * @param directory directory to create temporary files in or {@code null}
+     *                  for the default temporary-file directory.
+     */
+    public SpillingAsyncEntityConsumer(final int memoryThreshold, final File directory) {
+        super();
+        this.memoryThreshold = Args.notNegative(memoryThreshold, "Memory threshold");
+        this.directory = directory;
+    }
+
+    public SpillingAsyncEntityConsumer(final int memoryThreshold) {
+        this(memoryThreshold, null);
+    }
+
+    public SpillingAsyncEntityConsumer() {
+        this(SpillingBuffer.DEFAULT_MEMORY_THRESHOLD, null);
+    }
+
+    @Override
+    protected void streamStart(final ContentType contentType) throws HttpException, IOException {
+        this.buffer = new SpillingBuffer(memoryThreshold, directory);
+    }
+
+    @Override
+    protected int capacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    protected void data(final ByteBuffer src, final boolean endOfStream) throws IOException {
+        final SpillingBuffer localBuffer = this.buffer;
+        if (localBuffer == null) {
+            throw new IOException("Buffer already released");
+        }
+        if (src != null) {
+            localBuffer.write(src);
+        }
+    }
+
+    @Override
+    protected SpillingBuffer generateContent() throws IOException {
+        final SpillingBuffer localBuffer = this.buffer;
+        // ownership of the buffer passes on to the caller
+        this.buffer = null;
+        return localBuffer;
+    }
+
+    @Override
+    public void releaseResources() {
+        final SpillingBuffer localBuffer = this.buffer;
+        if (localBuffer != null) {
+            this.buffer = null;
+            localBuffer.close();
+        }
+    }
+
+}
@@ -46,6 +46,8 @@
 import org.apache.hc.core5.http.nio.BasicResponseProducer;
 import org.apache.hc.core5.http.nio.CapacityChannel;
 import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
+import org.apache.hc.core5.http.nio.FileDataConsumer;
 import org.apache.hc.core5.http.nio.ResponseChannel;
 import org.apache.hc.core5.http.protocol.HttpContext;
 import org.apache.hc.core5.util.Asserts;
@@ -53,7 +55,7 @@
 /**
  * @since 5.0
  */
-public abstract class AbstractServerExchangeHandler<T> implements AsyncServerExchangeHandler {
+public abstract class AbstractServerExchangeHandler<T> implements AsyncServerExchangeHandler, FileDataConsumer {
 
     private final AtomicReference<AsyncRequestConsumer<T>> requestConsumerRef;
     private final AtomicReference<AsyncResponseProducer> responseProducerRef;
@@ -157,6 +159,20 @@ public final int consume(final ByteBuffer src) throws IOException {
         return requestConsumer.consume(src);
     }
 
+    @Override
+    public final boolean isFileTransferSupported() {
+        final AsyncRequestConsumer<T> requestConsumer = requestConsumerRef.get();
+        return requestConsumer instanceof FileDataConsumer
+                && ((FileDataConsumer) requestConsumer).isFileTransferSupported();
+    }
+
+    @Override
+    public final long transfer(final FileContentDecoder contentDecoder) throws IOException {
+        final AsyncRequestConsumer<T> requestConsumer = requestConsumerRef.get();
+        Asserts.notNull(requestConsumer, "Data consumer");
+        return ((FileDataConsumer) requestConsumer).transfer(contentDecoder);
+    }
+
     @Override
     public final void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
         final AsyncRequestConsumer<T> requestConsumer = requestConsumerRef.get();
@@ -0,0 +1,578 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.support;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.AdaptiveConcurrencyLimiter;
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncFilterChain;
+import org.apache.hc.core5.http.nio.AsyncFilterHandler;
+import org.apache.hc.core5.http.nio.AsyncPushProducer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
+import org.apache.hc.core5.http.nio.FileDataConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.Asserts;
+import org.apache.hc.core5.util.ByteArrayBuffer;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Filter that limits the number of requests processed concurrently with
+ * an {@link AdaptiveConcurrencyLimiter}. Requests that get shed are responded to
+ * with {@code 503 Service Unavailable} and a {@code Retry-After} header without
+ * their content being consumed.
+ * <p>
+ * Requests in excess of the limit are held back until admitted. Content of those
+ * requests is not read beyond what has already been received; the received portion
+ * is buffered and passed on to the data consumer upon admission. Queued requests
+ * proceed down the filter chain on the dispatch executor rather than on the thread
+ * that returns a permit to the limiter, which usually is an I/O dispatch thread
+ * of another connection. Queued requests that have not been admitted within
+ * the maximum queue time of the limiter are responded to with
+ * {@code 503 Service Unavailable} by a timer, even if no permit is returned
+ * in the meantime.
+ * <p>
+ * The permit is returned to the limiter once the final response has been fully
+ * produced, reporting the time since admission as request latency, or once
+ * the message exchange gets terminated. The filter should be placed at the head
+ * of the filter chain.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class AsyncServerAdmissionControlFilter implements AsyncFilterHandler {
+
+    private static final ScheduledExecutorService DEFAULT_SCHEDULER = createDefaultScheduler();
+
+    private static ScheduledExecutorService createDefaultScheduler() {
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(
+                1, new DefaultThreadFactory("admission-control", true));
+        scheduler.setKeepAliveTime(30, TimeUnit.SECONDS);
+        scheduler.allowCoreThreadTimeOut(true);
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private static final Executor DEFAULT_DISPATCHER = createDefaultDispatcher();
+
+    private static Executor createDefaultDispatcher() {
+        final int threads = Runtime.getRuntime().availableProcessors();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new DefaultThreadFactory("admission-dispatch", true));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final TimeValue retryAfter;
+    private final ScheduledExecutorService scheduler;
+    private final Executor dispatcher;
+    private final Runnable expiryTask;
+
+    /**
+     * @param limiter the concurrency limiter.
+     * @param retryAfter the retry period advertised to shed requests.
+     * @param scheduler the scheduler used to reject queued requests once their maximum
+     *                  queue time elapses. If {@code null} a shared daemon scheduler is used.
+     * @param dispatcher the executor queued requests proceed down the filter chain on
+     *                   once admitted. If {@code null} a shared pool of daemon threads,
+     *                   one per available processor, is used.
+     */
+    public AsyncServerAdmissionControlFilter(
+            final AdaptiveConcurrencyLimiter limiter,
+            final TimeValue retryAfter,
+            final ScheduledExecutorService scheduler,
+            final Executor dispatcher) {
+        this.limiter = Args.notNull(limiter, "Concurrency limiter");
+        this.retryAfter = Args.notNull(retryAfter, "Retry after");
+        this.scheduler = scheduler != null ? scheduler : DEFAULT_SCHEDULER;
+        this.dispatcher = dispatcher != null ? dispatcher : DEFAULT_DISPATCHER;
+        this.expiryTask = new Runnable() {
+
+            @Override
+            public void run() {
+                limiter.rejectExpired();
+            }
+
+        };
+    }
+
+    public AsyncServerAdmissionControlFilter(final AdaptiveConcurrencyLimiter limiter, final TimeValue retryAfter) {
+        this(limiter, retryAfter, null, null);
+    }
+
+    public AsyncServerAdmissionControlFilter(final AdaptiveConcurrencyLimiter limiter) {
+        this(limiter, TimeValue.ofSeconds(1));
+    }
+
+    public AsyncServerAdmissionControlFilter() {
+        this(new AdaptiveConcurrencyLimiter());
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    protected AsyncEntityProducer generateResponseContent(final HttpResponse serviceUnavailable) throws HttpException {
+        return null;
+    }
+
+    private void sendServiceUnavailable(
+            final AsyncFilterChain.ResponseTrigger responseTrigger) throws HttpException, IOException {
+        final HttpResponse serviceUnavailable = new BasicHttpResponse(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        serviceUnavailable.addHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(retryAfter.toSeconds(), 1)));
+        responseTrigger.submitResponse(serviceUnavailable, generateResponseContent(serviceUnavailable));
+    }
+
+    @Override
+    public AsyncDataConsumer handle(
+            final HttpRequest request,
+            final EntityDetails entityDetails,
+            final HttpContext context,
+            final AsyncFilterChain.ResponseTrigger responseTrigger,
+            final AsyncFilterChain chain) throws HttpException, IOException {
+        final AdmissionHandler handler = new AdmissionHandler(request, entityDetails, context, responseTrigger, chain);
+        final AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(handler);
+        if (permit != null) {
+            handler.proceed(permit);
+            return handler;
+        }
+        if (handler.queued()) {
+            handler.scheduleExpiry();
+            return handler;
+        }
+        sendServiceUnavailable(responseTrigger);
+        return null;
+    }
+
+    private class AdmissionHandler implements AsyncDataConsumer, FileDataConsumer,
+            FutureCallback<AdaptiveConcurrencyLimiter.Permit> {
+
+        private final HttpRequest request;
+        private final EntityDetails entityDetails;
+        private final HttpContext context;
+        private final AsyncFilterChain.ResponseTrigger responseTrigger;
+        private final AsyncFilterChain chain;
+
+        private AdaptiveConcurrencyLimiter.Permit permit;
+        private AsyncDataConsumer dataConsumer;
+        private boolean queued;
+        private boolean proceeded;
+        private boolean rejected;
+        private boolean released;
+        private ByteArrayBuffer pendingContent;
+        private CapacityChannel pendingCapacityChannel;
+        private boolean pendingStreamEnd;
+        private List<? extends Header> pendingTrailers;
+        private Future<?> expiryFuture;
+
+        AdmissionHandler(
+                final HttpRequest request,
+                final EntityDetails entityDetails,
+                final HttpContext context,
+                final AsyncFilterChain.ResponseTrigger responseTrigger,
+                final AsyncFilterChain chain) {
+            this.request = request;
+            this.entityDetails = entityDetails;
+            this.context = context;
+            this.responseTrigger = responseTrigger;
+            this.chain = chain;
+        }
+
+        synchronized boolean queued() {
+            queued = !rejected;
+            return queued;
+        }
+
+        void scheduleExpiry() {
+            final TimeValue maxQueueTime = limiter.getMaxQueueTime();
+            final Future<?> future;
+            try {
+                future = scheduler.schedule(expiryTask, maxQueueTime.getDuration(), maxQueueTime.getTimeUnit());
+            } catch (final RejectedExecutionException ex) {
+                // Expired requests still get rejected whenever the limiter is used
+                return;
+            }
+            synchronized (this) {
+                if (permit == null && !rejected && !released) {
+                    expiryFuture = future;
+                    return;
+                }
+            }
+            future.cancel(false);
+        }
+
+        private void cancelExpiry() {
+            final Future<?> future;
+            synchronized (this) {
+                future = expiryFuture;
+                expiryFuture = null;
+            }
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        void proceed(final AdaptiveConcurrencyLimiter.Permit permit) throws HttpException, IOException {
+            synchronized (this) {
+                if (released) {
+                    permit.release();
+                    return;
+                }
+                this.permit = permit;
+            }
+            cancelExpiry();
+            final AsyncDataConsumer consumer;
+            try {
+                consumer = chain.proceed(request, entityDetails, context, new AsyncFilterChain.ResponseTrigger() {
+
+                    @Override
+                    public void sendInformation(final HttpResponse response) throws HttpException, IOException {
+                        responseTrigger.sendInformation(response);
+                    }
+
+                    @Override
+                    public void submitResponse(
+                            final HttpResponse response,
+                            final AsyncEntityProducer entityProducer) throws HttpException, IOException {
+                        if (entityProducer != null) {
+                            responseTrigger.submitResponse(response, new AdmittedEntityProducer(entityProducer, permit));
+                        } else {
+                            responseTrigger.submitResponse(response, null);
+                            permit.complete();
+                        }
+                    }
+
+                    @Override
+                    public void pushPromise(
+                            final HttpRequest promise,
+                            final AsyncPushProducer responseProducer) throws HttpException, IOException {
+                        responseTrigger.pushPromise(promise, responseProducer);
+                    }
+
+                });
+            } catch (final HttpException | IOException | RuntimeException ex) {
+                permit.release();
+                throw ex;
+            }
+            synchronized (this) {
+                proceeded = true;
+                if (released) {
+                    if (consumer != null) {
+                        consumer.releaseResources();
+                    }
+                    return;
+                }
+                dataConsumer = consumer;
+                if (consumer != null) {
+                    if (pendingContent != null && !pendingContent.isEmpty()) {
+                        consumer.consume(ByteBuffer.wrap(pendingContent.array(), 0, pendingContent.length()));
+                    }
+                    if (pendingStreamEnd) {
+                        consumer.streamEnd(pendingTrailers);
+                    }
+                }
+                pendingContent = null;
+                pendingTrailers = null;
+                if (pendingCapacityChannel != null) {
+                    if (consumer != null) {
+                        consumer.updateCapacity(pendingCapacityChannel);
+                    } else {
+                        pendingCapacityChannel.update(Integer.MAX_VALUE);
+                    }
+                    pendingCapacityChannel = null;
+                }
+            }
+        }
+
+        @Override
+        public void completed(final AdaptiveConcurrencyLimiter.Permit result) {
+            try {
+                dispatcher.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        resume(result);
+                    }
+
+                });
+            } catch (final RejectedExecutionException ex) {
+                result.release();
+                failed(ex);
+            }
+        }
+
+        private void resume(final AdaptiveConcurrencyLimiter.Permit result) {
+            try {
+                proceed(result);
+            } catch (final HttpException | IOException | RuntimeException ex) {
+                try {
+                    responseTrigger.submitResponse(
+                            new BasicHttpResponse(HttpStatus.SC_INTERNAL_SERVER_ERROR), null);
+                } catch (final HttpException | IOException | RuntimeException ignore) {
+                }
+            }
+        }
+
+        @Override
+        public void failed(final Exception ex) {
+            final CapacityChannel capacityChannel;
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                rejected = true;
+                pendingContent = null;
+                pendingTrailers = null;
+                capacityChannel = pendingCapacityChannel;
+                pendingCapacityChannel = null;
+                if (!queued) {
+                    // Rejected before the request could be queued
+                    return;
+                }
+            }
+            cancelExpiry();
+            try {
+                sendServiceUnavailable(responseTrigger);
+                if (capacityChannel != null) {
+                    capacityChannel.update(Integer.MAX_VALUE);
+                }
+            } catch (final HttpException | IOException | RuntimeException ignore) {
+            }
+        }
+
+        @Override
+        public void cancelled() {
+            failed(null);
+        }
+
+        @Override
+        public synchronized void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
+            if (dataConsumer != null) {
+                dataConsumer.updateCapacity(capacityChannel);
+            } else if (proceeded || rejected) {
+                capacityChannel.update(Integer.MAX_VALUE);
+            } else {
+                pendingCapacityChannel = capacityChannel;
+            }
+        }
+
+        @Override
+        public synchronized int consume(final ByteBuffer src) throws IOException {
+            if (dataConsumer != null) {
+                return dataConsumer.consume(src);
+            }
+            if (proceeded || rejected || released) {
+                src.position(src.limit());
+                return Integer.MAX_VALUE;
+            }
+            // Not admitted yet: hold on to the content and stop reading
+            if (pendingContent == null) {
+                pendingContent = new ByteArrayBuffer(Math.max(src.remaining(), 1024));
+            }
+            final byte[] tmp = new byte[src.remaining()];
+            src.get(tmp);
+            pendingContent.append(tmp, 0, tmp.length);
+            return 0;
+        }
+
+        @Override
+        public synchronized void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
+            if (dataConsumer != null) {
+                dataConsumer.streamEnd(trailers);
+            } else if (!proceeded && !rejected) {
+                pendingStreamEnd = true;
+                pendingTrailers = trailers;
+            }
+        }
+
+        @Override
+        public synchronized boolean isFileTransferSupported() {
+            return dataConsumer instanceof FileDataConsumer
+                    && ((FileDataConsumer) dataConsumer).isFileTransferSupported();
+        }
+
+        @Override
+        public synchronized long transfer(final FileContentDecoder contentDecoder) throws IOException {
+            Asserts.notNull(dataConsumer, "Data consumer");
+            return ((FileDataConsumer) dataConsumer).transfer(contentDecoder);
+        }
+
+        @Override
+        public void releaseResources() {
+            final AsyncDataConsumer consumer;
+            final AdaptiveConcurrencyLimiter.Permit currentPermit;
+            final boolean waiting;
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                consumer = dataConsumer;
+                dataConsumer = null;
+                currentPermit = permit;
+                waiting = !proceeded && !rejected && currentPermit == null;
+                pendingContent = null;
+                pendingTrailers = null;
+                pendingCapacityChannel = null;
+            }
+            cancelExpiry();
+            if (waiting) {
+                limiter.cancel(this);
+            }
+            if (consumer != null) {
+                consumer.releaseResources();
+            }
+            if (currentPermit != null) {
+                currentPermit.release();
+            }
+        }
+
+    }
+
+    private static class AdmittedEntityProducer implements AsyncEntityProducer {
+
+        private final AsyncEntityProducer entityProducer;
+        private final AdaptiveConcurrencyLimiter.Permit permit;
+
+        AdmittedEntityProducer(final AsyncEntityProducer entityProducer, final AdaptiveConcurrencyLimiter.Permit permit) {
+            this.entityProducer = entityProducer;
+            this.permit = permit;
+        }
+
+        @Override
+        public long getContentLength() {
+            return entityProducer.getContentLength();
+        }
+
+        @Override
+        public String getContentType() {
+            return entityProducer.getContentType();
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return entityProducer.getContentEncoding();
+        }
+
+        @Override
+        public boolean isChunked() {
+            return entityProducer.isChunked();
+        }
+
+        @Override
+        public Set<String> getTrailerNames() {
+            return entityProducer.getTrailerNames();
+        }
+
+        @Override
+        public int available() {
+            return entityProducer.available();
+        }
+
+        @Override
+        public void produce(final DataStreamChannel channel) throws IOException {
+            entityProducer.produce(new DataStreamChannel() {
+
+                @Override
+                public void requestOutput() {
+                    channel.requestOutput();
+                }
+
+                @Override
+                public int write(final ByteBuffer src) throws IOException {
+                    return channel.write(src);
+                }
+
+                @Override
+                public long write(final ByteBuffer[] srcs) throws IOException {
+                    return channel.write(srcs);
+                }
+
+                @Override
+                public void endStream(final List<? extends Header> trailers) throws IOException {
+                    channel.endStream(trailers);
+                    permit.complete();
+                }
+
+                @Override
+                public void endStream() throws IOException {
+                    endStream(null);
+                }
+
+            });
+        }
+
+        @Override
+        public void failed(final Exception cause) {
+            try {
+                entityProducer.failed(cause);
+            } finally {
+                permit.release();
+            }
+        }
+
+        @Override
+        public void releaseResources() {
+            try {
+                entityProducer.releaseResources();
+            } finally {
+                permit.release();
+            }
+        }
+
+    }
+
+}
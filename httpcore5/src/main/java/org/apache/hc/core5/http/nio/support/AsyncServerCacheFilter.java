@@ -0,0 +1,481 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.support;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.impl.CachedResponse;
+import org.apache.hc.core5.http.impl.ResponseCache;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncFilterChain;
+import org.apache.hc.core5.http.nio.AsyncFilterHandler;
+import org.apache.hc.core5.http.nio.AsyncPushProducer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteArrayBuffer;
+
+/**
+ * Filter that serves responses to {@code GET} and {@code HEAD} requests from
+ * a {@link ResponseCache} and stores cacheable responses to {@code GET} requests
+ * produced by the rest of the filter chain.
+ * <p>
+ * Concurrent {@code GET} requests that miss the cache for the same key are
+ * coalesced: only the first one proceeds down the filter chain, the others wait
+ * for its response and are served from the cache once the response content has been
+ * fully written out. Should the response turn out not to be cacheable or the exchange
+ * fail, waiting requests proceed down the filter chain on their own. Please note that
+ * waiting requests are resumed on the thread that completes the first exchange.
+ * <p>
+ * {@code HEAD} requests are served from cached responses to {@code GET} requests
+ * but never get stored or coalesced. Requests enclosing an entity are passed on
+ * unchanged.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class AsyncServerCacheFilter implements AsyncFilterHandler {
+
+    private final ResponseCache cache;
+
+    public AsyncServerCacheFilter(final ResponseCache cache) {
+        this.cache = Args.notNull(cache, "Response cache");
+    }
+
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    private static void sendCached(
+            final CachedResponse cached,
+            final AsyncFilterChain.ResponseTrigger responseTrigger) throws HttpException, IOException {
+        final HttpResponse response = new BasicHttpResponse(cached.getCode(), cached.getReasonPhrase());
+        cached.populate(response);
+        final byte[] content = cached.getContent();
+        final AsyncEntityProducer entityProducer;
+        if (content.length > 0 || cached.getContentType() != null) {
+            entityProducer = new BasicAsyncEntityProducer(content, ContentType.parseLenient(cached.getContentType()));
+        } else {
+            entityProducer = null;
+        }
+        responseTrigger.submitResponse(response, entityProducer);
+    }
+
+    @Override
+    public AsyncDataConsumer handle(
+            final HttpRequest request,
+            final EntityDetails entityDetails,
+            final HttpContext context,
+            final AsyncFilterChain.ResponseTrigger responseTrigger,
+            final AsyncFilterChain chain) throws HttpException, IOException {
+        final String key = entityDetails == null ? cache.generateKey(request) : null;
+        if (key == null) {
+            return chain.proceed(request, entityDetails, context, responseTrigger);
+        }
+        final CachedResponse cached = cache.get(key);
+        if (cached != null) {
+            sendCached(cached, responseTrigger);
+            return null;
+        }
+        if ("HEAD".equalsIgnoreCase(request.getMethod())) {
+            return chain.proceed(request, entityDetails, context, responseTrigger);
+        }
+        final Follower follower = new Follower(key, request, context, responseTrigger, chain);
+        final ResponseCache.Fill fill = cache.fill(key, follower);
+        if (fill == null) {
+            return follower;
+        }
+        final Leader leader = new Leader(fill);
+        try {
+            leader.dataConsumer = chain.proceed(request, entityDetails, context, new AsyncFilterChain.ResponseTrigger() {
+
+                @Override
+                public void sendInformation(final HttpResponse response) throws HttpException, IOException {
+                    responseTrigger.sendInformation(response);
+                }
+
+                @Override
+                public void submitResponse(
+                        final HttpResponse response,
+                        final AsyncEntityProducer entityProducer) throws HttpException, IOException {
+                    responseTrigger.submitResponse(response, leader.capture(response, entityProducer));
+                }
+
+                @Override
+                public void pushPromise(
+                        final HttpRequest promise,
+                        final AsyncPushProducer responseProducer) throws HttpException, IOException {
+                    responseTrigger.pushPromise(promise, responseProducer);
+                }
+
+            });
+        } catch (final HttpException | IOException | RuntimeException ex) {
+            fill.abandon();
+            throw ex;
+        }
+        return leader;
+    }
+
+    private class Leader implements AsyncDataConsumer {
+
+        private final ResponseCache.Fill fill;
+
+        volatile AsyncDataConsumer dataConsumer;
+
+        Leader(final ResponseCache.Fill fill) {
+            this.fill = fill;
+        }
+
+        AsyncEntityProducer capture(final HttpResponse response, final AsyncEntityProducer entityProducer) {
+            if (!cache.isCacheable(response)) {
+                fill.abandon();
+                return entityProducer;
+            }
+            // Take a snapshot of the response head before it gets processed by the protocol handler
+            final HttpResponse head = new BasicHttpResponse(response.getCode(), response.getReasonPhrase());
+            head.setHeaders(response.getAllHeaders());
+            if (entityProducer == null) {
+                fill.complete(head, null, null);
+                return null;
+            }
+            if (entityProducer.getContentEncoding() != null
+                    || entityProducer.getContentLength() > cache.getMaxEntrySize()) {
+                fill.abandon();
+                return entityProducer;
+            }
+            String contentType = entityProducer.getContentType();
+            if (contentType == null) {
+                final Header header = response.getFirstHeader(HttpHeaders.CONTENT_TYPE);
+                contentType = header != null ? header.getValue() : null;
+            }
+            return new CapturingEntityProducer(entityProducer, fill, head, contentType, cache.getMaxEntrySize());
+        }
+
+        @Override
+        public void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
+            final AsyncDataConsumer consumer = dataConsumer;
+            if (consumer != null) {
+                consumer.updateCapacity(capacityChannel);
+            } else {
+                capacityChannel.update(Integer.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public int consume(final ByteBuffer src) throws IOException {
+            final AsyncDataConsumer consumer = dataConsumer;
+            if (consumer != null) {
+                return consumer.consume(src);
+            }
+            src.position(src.limit());
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
+            final AsyncDataConsumer consumer = dataConsumer;
+            if (consumer != null) {
+                consumer.streamEnd(trailers);
+            }
+        }
+
+        @Override
+        public void releaseResources() {
+            // No effect if the response has already been stored
+            fill.abandon();
+            final AsyncDataConsumer consumer = dataConsumer;
+            if (consumer != null) {
+                consumer.releaseResources();
+            }
+        }
+
+    }
+
+    private static class CapturingEntityProducer implements AsyncEntityProducer {
+
+        private final AsyncEntityProducer wrapped;
+        private final ResponseCache.Fill fill;
+        private final HttpResponse head;
+        private final String contentType;
+        private final int maxSize;
+
+        private ByteArrayBuffer buffer;
+
+        CapturingEntityProducer(
+                final AsyncEntityProducer wrapped,
+                final ResponseCache.Fill fill,
+                final HttpResponse head,
+                final String contentType,
+                final int maxSize) {
+            this.wrapped = wrapped;
+            this.fill = fill;
+            this.head = head;
+            this.contentType = contentType;
+            this.maxSize = maxSize;
+            final long len = wrapped.getContentLength();
+            this.buffer = new ByteArrayBuffer(len >= 0 ? (int) len : Math.min(maxSize, 1024));
+        }
+
+        @Override
+        public long getContentLength() {
+            return wrapped.getContentLength();
+        }
+
+        @Override
+        public String getContentType() {
+            return wrapped.getContentType();
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return wrapped.getContentEncoding();
+        }
+
+        @Override
+        public boolean isChunked() {
+            return wrapped.isChunked();
+        }
+
+        @Override
+        public Set<String> getTrailerNames() {
+            return wrapped.getTrailerNames();
+        }
+
+        @Override
+        public int available() {
+            return wrapped.available();
+        }
+
+        private void append(final ByteBuffer src, final int len) {
+            if (buffer == null || len <= 0) {
+                return;
+            }
+            if (buffer.length() + len > maxSize) {
+                buffer = null;
+                fill.abandon();
+                return;
+            }
+            final ByteBuffer dup = src.duplicate();
+            dup.position(src.position() - len);
+            dup.limit(src.position());
+            final byte[] tmp = new byte[len];
+            dup.get(tmp);
+            buffer.append(tmp, 0, len);
+        }
+
+        @Override
+        public void produce(final DataStreamChannel channel) throws IOException {
+            wrapped.produce(new DataStreamChannel() {
+
+                @Override
+                public void requestOutput() {
+                    channel.requestOutput();
+                }
+
+                @Override
+                public int write(final ByteBuffer src) throws IOException {
+                    final int writtenBytes = channel.write(src);
+                    append(src, writtenBytes);
+                    return writtenBytes;
+                }
+
+                @Override
+                public long write(final ByteBuffer[] srcs) throws IOException {
+                    final int[] positions = new int[srcs.length];
+                    for (int i = 0; i < srcs.length; i++) {
+                        positions[i] = srcs[i].position();
+                    }
+                    final long writtenBytes = channel.write(srcs);
+                    if (writtenBytes > 0) {
+                        for (int i = 0; i < srcs.length; i++) {
+                            append(srcs[i], srcs[i].position() - positions[i]);
+                        }
+                    }
+                    return writtenBytes;
+                }
+
+                @Override
+                public void endStream(final List<? extends Header> trailers) throws IOException {
+                    if (buffer != null && (trailers == null || trailers.isEmpty())) {
+                        fill.complete(head, contentType, buffer.toByteArray());
+                    } else {
+                        fill.abandon();
+                    }
+                    buffer = null;
+                    channel.endStream(trailers);
+                }
+
+                @Override
+                public void endStream() throws IOException {
+                    endStream(null);
+                }
+
+            });
+        }
+
+        @Override
+        public void failed(final Exception cause) {
+            fill.abandon();
+            wrapped.failed(cause);
+        }
+
+        @Override
+        public void releaseResources() {
+            fill.abandon();
+            wrapped.releaseResources();
+        }
+
+    }
+
+    private class Follower implements AsyncDataConsumer, FutureCallback<CachedResponse> {
+
+        private final String key;
+        private final HttpRequest request;
+        private final HttpContext context;
+        private final AsyncFilterChain.ResponseTrigger responseTrigger;
+        private final AsyncFilterChain chain;
+
+        private AsyncDataConsumer dataConsumer;
+        private boolean released;
+
+        Follower(
+                final String key,
+                final HttpRequest request,
+                final HttpContext context,
+                final AsyncFilterChain.ResponseTrigger responseTrigger,
+                final AsyncFilterChain chain) {
+            this.key = key;
+            this.request = request;
+            this.context = context;
+            this.responseTrigger = responseTrigger;
+            this.chain = chain;
+        }
+
+        private synchronized boolean isReleased() {
+            return released;
+        }
+
+        private void sendInternalError() {
+            try {
+                responseTrigger.submitResponse(new BasicHttpResponse(HttpStatus.SC_INTERNAL_SERVER_ERROR), null);
+            } catch (final HttpException | IOException | RuntimeException ignore) {
+            }
+        }
+
+        @Override
+        public void completed(final CachedResponse result) {
+            if (isReleased()) {
+                return;
+            }
+            try {
+                sendCached(result, responseTrigger);
+            } catch (final HttpException | IOException | RuntimeException ex) {
+                sendInternalError();
+            }
+        }
+
+        @Override
+        public void failed(final Exception ex) {
+            cancelled();
+        }
+
+        @Override
+        public void cancelled() {
+            if (isReleased()) {
+                return;
+            }
+            final AsyncDataConsumer consumer;
+            try {
+                consumer = chain.proceed(request, null, context, responseTrigger);
+            } catch (final HttpException | IOException | RuntimeException ex) {
+                sendInternalError();
+                return;
+            }
+            synchronized (this) {
+                if (!released) {
+                    dataConsumer = consumer;
+                    return;
+                }
+            }
+            if (consumer != null) {
+                consumer.releaseResources();
+            }
+        }
+
+        @Override
+        public void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
+            capacityChannel.update(Integer.MAX_VALUE);
+        }
+
+        @Override
+        public int consume(final ByteBuffer src) throws IOException {
+            src.position(src.limit());
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
+        }
+
+        @Override
+        public void releaseResources() {
+            final AsyncDataConsumer consumer;
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                consumer = dataConsumer;
+                dataConsumer = null;
+            }
+            cache.cancel(key, this);
+            if (consumer != null) {
+                consumer.releaseResources();
+            }
+        }
+
+    }
+
+}
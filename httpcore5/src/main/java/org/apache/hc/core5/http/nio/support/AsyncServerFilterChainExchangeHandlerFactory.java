@@ -46,6 +46,8 @@
 import org.apache.hc.core5.http.nio.BasicResponseProducer;
 import org.apache.hc.core5.http.nio.CapacityChannel;
 import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
+import org.apache.hc.core5.http.nio.FileDataConsumer;
 import org.apache.hc.core5.http.nio.HandlerFactory;
 import org.apache.hc.core5.http.nio.ResponseChannel;
 import org.apache.hc.core5.http.protocol.HttpContext;
@@ -62,104 +64,120 @@ public AsyncServerFilterChainExchangeHandlerFactory(final AsyncServerFilterChain
 
     @Override
     public AsyncServerExchangeHandler create(final HttpRequest request, final HttpContext context) throws HttpException {
-        return new AsyncServerExchangeHandler() {
-
-            private final AtomicReference<AsyncDataConsumer> dataConsumerRef = new AtomicReference<>();
-            private final AtomicReference<AsyncResponseProducer> responseProducerRef = new AtomicReference<>();
-
-            @Override
-            public void handleRequest(
-                    final HttpRequest request,
-                    final EntityDetails entityDetails,
-                    final ResponseChannel responseChannel,
-                    final HttpContext context) throws HttpException, IOException {
-                dataConsumerRef.set(filterChain.handle(request, entityDetails, context, new AsyncFilterChain.ResponseTrigger() {
-
-                    @Override
-                    public void sendInformation(
-                            final HttpResponse response) throws HttpException, IOException {
-                        responseChannel.sendInformation(response);
-                    }
-
-                    @Override
-                    public void submitResponse(
-                            final HttpResponse response,
-                            final AsyncEntityProducer entityProducer) throws HttpException, IOException {
-                        final AsyncResponseProducer responseProducer = new BasicResponseProducer(response, entityProducer);
-                        responseProducerRef.set(responseProducer);
-                        responseProducer.sendResponse(responseChannel);
-                    }
-
-                    @Override
-                    public void pushPromise(final HttpRequest promise, final AsyncPushProducer responseProducer) throws HttpException, IOException {
-                        responseChannel.pushPromise(promise, responseProducer);
-                    }
-
-                }));
-            }
+        return new FilterChainExchangeHandler();
+    }
 
-            @Override
-            public void failed(final Exception cause) {
-                final AsyncResponseProducer handler = responseProducerRef.get();
-                if (handler != null) {
-                    handler.failed(cause);
-                }
-            }
+    private class FilterChainExchangeHandler implements AsyncServerExchangeHandler, FileDataConsumer {
 
-            @Override
-            public void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
-                final AsyncDataConsumer dataConsumer = dataConsumerRef.get();
-                if (dataConsumer != null) {
-                    dataConsumer.updateCapacity(capacityChannel);
-                } else {
-                    capacityChannel.update(Integer.MAX_VALUE);
+        private final AtomicReference<AsyncDataConsumer> dataConsumerRef = new AtomicReference<>();
+        private final AtomicReference<AsyncResponseProducer> responseProducerRef = new AtomicReference<>();
+
+        @Override
+        public void handleRequest(
+                final HttpRequest request,
+                final EntityDetails entityDetails,
+                final ResponseChannel responseChannel,
+                final HttpContext context) throws HttpException, IOException {
+            dataConsumerRef.set(filterChain.handle(request, entityDetails, context, new AsyncFilterChain.ResponseTrigger() {
+
+                @Override
+                public void sendInformation(
+                        final HttpResponse response) throws HttpException, IOException {
+                    responseChannel.sendInformation(response);
                 }
-            }
 
-            @Override
-            public int consume(final ByteBuffer src) throws IOException {
-                final AsyncDataConsumer dataConsumer = dataConsumerRef.get();
-                if (dataConsumer != null) {
-                    return dataConsumer.consume(src);
-                } else {
-                    return Integer.MAX_VALUE;
+                @Override
+                public void submitResponse(
+                        final HttpResponse response,
+                        final AsyncEntityProducer entityProducer) throws HttpException, IOException {
+                    final AsyncResponseProducer responseProducer = new BasicResponseProducer(response, entityProducer);
+                    responseProducerRef.set(responseProducer);
+                    responseProducer.sendResponse(responseChannel);
                 }
-            }
 
-            @Override
-            public void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
-                final AsyncDataConsumer dataConsumer = dataConsumerRef.get();
-                if (dataConsumer != null) {
-                    dataConsumer.streamEnd(trailers);
+                @Override
+                public void pushPromise(final HttpRequest promise, final AsyncPushProducer responseProducer) throws HttpException, IOException {
+                    responseChannel.pushPromise(promise, responseProducer);
                 }
-            }
 
-            @Override
-            public int available() {
-                final AsyncResponseProducer responseProducer = responseProducerRef.get();
-                Asserts.notNull(responseProducer, "Response producer");
-                return responseProducer.available();
-            }
+            }));
+        }
 
-            @Override
-            public void produce(final DataStreamChannel channel) throws IOException {
-                final AsyncResponseProducer responseProducer = responseProducerRef.get();
-                Asserts.notNull(responseProducer, "Response producer");
-                responseProducer.produce(channel);
+        @Override
+        public void failed(final Exception cause) {
+            final AsyncResponseProducer handler = responseProducerRef.get();
+            if (handler != null) {
+                handler.failed(cause);
+            }
+        }
+
+        @Override
+        public void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
+            final AsyncDataConsumer dataConsumer = dataConsumerRef.get();
+            if (dataConsumer != null) {
+                dataConsumer.updateCapacity(capacityChannel);
+            } else {
+                capacityChannel.update(Integer.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public int consume(final ByteBuffer src) throws IOException {
+            final AsyncDataConsumer dataConsumer = dataConsumerRef.get();
+            if (dataConsumer != null) {
+                return dataConsumer.consume(src);
+            } else {
+                return Integer.MAX_VALUE;
             }
+        }
 
-            @Override
-            public void releaseResources() {
-                final AsyncDataConsumer dataConsumer = dataConsumerRef.getAndSet(null);
-                if (dataConsumer != null) {
-                    dataConsumer.releaseResources();
-                }
-                final AsyncResponseProducer responseProducer = responseProducerRef.getAndSet(null);
-                if (responseProducer != null) {
-                    responseProducer.releaseResources();
-                }
+        @Override
+        public void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
+            final AsyncDataConsumer dataConsumer = dataConsumerRef.get();
+            if (dataConsumer != null) {
+                dataConsumer.streamEnd(trailers);
+            }
+        }
+
+        @Override
+        public boolean isFileTransferSupported() {
+            final AsyncDataConsumer dataConsumer = dataConsumerRef.get();
+            return dataConsumer instanceof FileDataConsumer
+                    && ((FileDataConsumer) dataConsumer).isFileTransferSupported();
+        }
+
+        @Override
+        public long transfer(final FileContentDecoder contentDecoder) throws IOException {
+            final AsyncDataConsumer dataConsumer = dataConsumerRef.get();
+            Asserts.notNull(dataConsumer, "Data consumer");
+            return ((FileDataConsumer) dataConsumer).transfer(contentDecoder);
+        }
+
+        @Override
+        public int available() {
+            final AsyncResponseProducer responseProducer = responseProducerRef.get();
+            Asserts.notNull(responseProducer, "Response producer");
+            return responseProducer.available();
+        }
+
+        @Override
+        public void produce(final DataStreamChannel channel) throws IOException {
+            final AsyncResponseProducer responseProducer = responseProducerRef.get();
+            Asserts.notNull(responseProducer, "Response producer");
+            responseProducer.produce(channel);
+        }
+
+        @Override
+        public void releaseResources() {
+            final AsyncDataConsumer dataConsumer = dataConsumerRef.getAndSet(null);
+            if (dataConsumer != null) {
+                dataConsumer.releaseResources();
+            }
+            final AsyncResponseProducer responseProducer = responseProducerRef.getAndSet(null);
+            if (responseProducer != null) {
+                responseProducer.releaseResources();
             }
-        };
+        }
     }
 
 }
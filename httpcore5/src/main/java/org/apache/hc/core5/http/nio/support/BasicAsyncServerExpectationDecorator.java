@@ -42,6 +42,8 @@
 import org.apache.hc.core5.http.nio.AsyncServerExchangeHandler;
 import org.apache.hc.core5.http.nio.CapacityChannel;
 import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
+import org.apache.hc.core5.http.nio.FileDataConsumer;
 import org.apache.hc.core5.http.nio.ResponseChannel;
 import org.apache.hc.core5.http.protocol.HttpContext;
 import org.apache.hc.core5.util.Args;
@@ -49,7 +51,7 @@
 /**
  * @since 5.0
  */
-public class BasicAsyncServerExpectationDecorator implements AsyncServerExchangeHandler {
+public class BasicAsyncServerExpectationDecorator implements AsyncServerExchangeHandler, FileDataConsumer {
 
     private final AsyncServerExchangeHandler handler;
     private final AtomicReference<AsyncResponseProducer> responseProducerRef;
@@ -107,6 +109,19 @@ public final int consume(final ByteBuffer src) throws IOException {
         }
     }
 
+    @Override
+    public final boolean isFileTransferSupported() {
+        final AsyncResponseProducer responseProducer = responseProducerRef.get();
+        return responseProducer == null
+                && handler instanceof FileDataConsumer
+                && ((FileDataConsumer) handler).isFileTransferSupported();
+    }
+
+    @Override
+    public final long transfer(final FileContentDecoder contentDecoder) throws IOException {
+        return ((FileDataConsumer) handler).transfer(contentDecoder);
+    }
+
     @Override
     public final void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
         final AsyncResponseProducer responseProducer = responseProducerRef.get();
@@ -42,13 +42,15 @@
 import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
 import org.apache.hc.core5.http.nio.CapacityChannel;
 import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
+import org.apache.hc.core5.http.nio.FileDataConsumer;
 import org.apache.hc.core5.http.nio.RequestChannel;
 import org.apache.hc.core5.util.Args;
 
 /**
  * @since 5.0
  */
-public class BasicClientExchangeHandler<T> implements AsyncClientExchangeHandler {
+public class BasicClientExchangeHandler<T> implements AsyncClientExchangeHandler, FileDataConsumer {
 
     private final AsyncRequestProducer requestProducer;
     private final AsyncResponseConsumer<T> responseConsumer;
@@ -141,6 +143,17 @@ public int consume(final ByteBuffer src) throws IOException {
         return responseConsumer.consume(src);
     }
 
+    @Override
+    public boolean isFileTransferSupported() {
+        return responseConsumer instanceof FileDataConsumer
+                && ((FileDataConsumer) responseConsumer).isFileTransferSupported();
+    }
+
+    @Override
+    public long transfer(final FileContentDecoder contentDecoder) throws IOException {
+        return ((FileDataConsumer) responseConsumer).transfer(contentDecoder);
+    }
+
     @Override
     public void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
         responseConsumer.streamEnd(trailers);
@@ -0,0 +1,55 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.net;
+
+import java.util.concurrent.Future;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+
+/**
+ * Non-blocking host name resolver. Implementations must never block the calling
+ * thread, which is usually an I/O dispatch thread.
+ *
+ * @since 5.0
+ */
+public interface AsyncAddressResolver {
+
+    /**
+     * Resolves the given host name to one or several addresses.
+     * <p>
+     * Upon successful completion the future yields a {@link ResolvedAddresses}
+     * with a non-empty list of addresses. Resolution failures are reported as
+     * {@link java.net.UnknownHostException}s.
+     *
+     * @param hostName the host name.
+     * @param callback interface. Can be {@code null}.
+     * @return resolution result future.
+     */
+    Future<ResolvedAddresses> resolve(String hostName, FutureCallback<ResolvedAddresses> callback);
+
+}
@@ -0,0 +1,242 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.net;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * {@link AsyncAddressResolver} decorator that caches resolution results for
+ * the period of time reported by the underlying resolver, optionally capped
+ * by a maximum time to live. Concurrent lookups of the same host name are
+ * coalesced: only the first one is passed on to the underlying resolver, all
+ * others get completed with its result. Failures are not cached.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class CachingAddressResolver implements AsyncAddressResolver {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final AsyncAddressResolver resolver;
+    private final TimeValue maxTimeToLive;
+    private final int maxEntries;
+    private final ConcurrentMap<String, CacheEntry> cache;
+
+    /**
+     * @param resolver the underlying resolver.
+     * @param maxTimeToLive maximum period of time results may be cached for
+     *   regardless of the time to live reported by the underlying resolver.
+     *   {@code null} means no cap.
+     * @param maxEntries maximum number of cached entries.
+     */
+    public CachingAddressResolver(
+            final AsyncAddressResolver resolver,
+            final TimeValue maxTimeToLive,
+            final int maxEntries) {
+        this.resolver = Args.notNull(resolver, "Address resolver");
+        this.maxTimeToLive = maxTimeToLive;
+        this.maxEntries = Args.positive(maxEntries, "Max entries");
+        this.cache = new ConcurrentHashMap<>();
+    }
+
+    public CachingAddressResolver(final AsyncAddressResolver resolver) {
+        this(resolver, null, DEFAULT_MAX_ENTRIES);
+    }
+
+    @Override
+    public Future<ResolvedAddresses> resolve(final String hostName, final FutureCallback<ResolvedAddresses> callback) {
+        Args.notNull(hostName, "Host name");
+        final String key = hostName.toLowerCase(Locale.ROOT);
+        final BasicFuture<ResolvedAddresses> future = new BasicFuture<>(callback);
+        for (;;) {
+            CacheEntry entry = cache.get(key);
+            if (entry == null) {
+                final CacheEntry newEntry = new CacheEntry();
+                newEntry.waiters.add(future);
+                entry = cache.putIfAbsent(key, newEntry);
+                if (entry == null) {
+                    if (cache.size() > maxEntries) {
+                        evict(System.currentTimeMillis());
+                    }
+                    lookup(key, hostName, newEntry);
+                    return future;
+                }
+            }
+            final ResolvedAddresses result;
+            synchronized (entry) {
+                if (!entry.done) {
+                    entry.waiters.add(future);
+                    return future;
+                }
+                result = entry.result;
+                if (result == null || entry.expiry <= System.currentTimeMillis()) {
+                    cache.remove(key, entry);
+                    continue;
+                }
+            }
+            future.completed(result);
+            return future;
+        }
+    }
+
+    private void lookup(final String key, final String hostName, final CacheEntry entry) {
+        resolver.resolve(hostName, new FutureCallback<ResolvedAddresses>() {
+
+            @Override
+            public void completed(final ResolvedAddresses result) {
+                long ttl = result.getTimeToLive().toMillis();
+                if (maxTimeToLive != null) {
+                    ttl = Math.min(ttl, maxTimeToLive.toMillis());
+                }
+                final List<BasicFuture<ResolvedAddresses>> waiters;
+                synchronized (entry) {
+                    entry.done = true;
+                    if (ttl > 0) {
+                        entry.result = result;
+                        entry.expiry = System.currentTimeMillis() + ttl;
+                    }
+                    waiters = entry.drainWaiters();
+                }
+                if (ttl <= 0) {
+                    cache.remove(key, entry);
+                }
+                for (int i = 0; i < waiters.size(); i++) {
+                    waiters.get(i).completed(result);
+                }
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+                final List<BasicFuture<ResolvedAddresses>> waiters = complete();
+                for (int i = 0; i < waiters.size(); i++) {
+                    waiters.get(i).failed(ex);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                final List<BasicFuture<ResolvedAddresses>> waiters = complete();
+                for (int i = 0; i < waiters.size(); i++) {
+                    waiters.get(i).cancel();
+                }
+            }
+
+            private List<BasicFuture<ResolvedAddresses>> complete() {
+                final List<BasicFuture<ResolvedAddresses>> waiters;
+                synchronized (entry) {
+                    entry.done = true;
+                    waiters = entry.drainWaiters();
+                }
+                cache.remove(key, entry);
+                return waiters;
+            }
+
+        });
+    }
+
+    private void evict(final long now) {
+        for (final Iterator<Map.Entry<String, CacheEntry>> it = cache.entrySet().iterator(); it.hasNext(); ) {
+            final CacheEntry entry = it.next().getValue();
+            synchronized (entry) {
+                if (entry.done && entry.expiry <= now) {
+                    it.remove();
+                }
+            }
+        }
+        for (final Iterator<Map.Entry<String, CacheEntry>> it = cache.entrySet().iterator();
+             it.hasNext() && cache.size() > maxEntries; ) {
+            final CacheEntry entry = it.next().getValue();
+            synchronized (entry) {
+                if (entry.done) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes cached result for the given host name, if present.
+     */
+    public void invalidate(final String hostName) {
+        Args.notNull(hostName, "Host name");
+        final String key = hostName.toLowerCase(Locale.ROOT);
+        final CacheEntry entry = cache.get(key);
+        if (entry != null) {
+            synchronized (entry) {
+                if (entry.done) {
+                    cache.remove(key, entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void clear() {
+        for (final String key: cache.keySet()) {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[cached entries: " + cache.size() + "; resolver: " + resolver + "]";
+    }
+
+    static class CacheEntry {
+
+        final List<BasicFuture<ResolvedAddresses>> waiters = new ArrayList<>(2);
+        boolean done;
+        ResolvedAddresses result;
+        long expiry;
+
+        List<BasicFuture<ResolvedAddresses>> drainWaiters() {
+            final List<BasicFuture<ResolvedAddresses>> list = new ArrayList<>(waiters);
+            waiters.clear();
+            return list;
+        }
+
+    }
+
+}
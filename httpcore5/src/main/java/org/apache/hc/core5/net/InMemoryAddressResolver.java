@@ -0,0 +1,189 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.net;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * {@link AsyncAddressResolver} implementation backed by a static table of host
+ * names. Lookups complete immediately on the calling thread. IP literals resolve
+ * to themselves. This class is primarily intended as a stand-in for the system
+ * resolver in tests and in environments with a fixed set of upstream hosts.
+ * <p>
+ * The table can be populated programmatically or from a file in the
+ * {@code /etc/hosts} format.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class InMemoryAddressResolver implements AsyncAddressResolver {
+
+    private final Map<String, ResolvedAddresses> hostMap;
+    private final TimeValue defaultTimeToLive;
+
+    public InMemoryAddressResolver(final TimeValue defaultTimeToLive) {
+        this.hostMap = new ConcurrentHashMap<>();
+        this.defaultTimeToLive = TimeValue.defaultsToZeroMillis(defaultTimeToLive);
+    }
+
+    public InMemoryAddressResolver() {
+        this(null);
+    }
+
+    /**
+     * Maps the given host name to the given addresses replacing any existing mapping.
+     */
+    public void add(final String hostName, final TimeValue timeToLive, final InetAddress... addresses) {
+        Args.notBlank(hostName, "Host name");
+        hostMap.put(hostName.toLowerCase(Locale.ROOT), new ResolvedAddresses(
+                hostName, TimeValue.defaultsTo(timeToLive, defaultTimeToLive), addresses));
+    }
+
+    /**
+     * Maps the given host name to the given addresses replacing any existing mapping.
+     */
+    public void add(final String hostName, final InetAddress... addresses) {
+        add(hostName, defaultTimeToLive, addresses);
+    }
+
+    public void remove(final String hostName) {
+        Args.notNull(hostName, "Host name");
+        hostMap.remove(hostName.toLowerCase(Locale.ROOT));
+    }
+
+    public void clear() {
+        hostMap.clear();
+    }
+
+    /**
+     * Loads host entries in the {@code /etc/hosts} format: an IP address followed
+     * by a canonical host name and optional aliases; {@code #} starts a comment.
+     * Multiple entries for the same name are merged in the order of appearance.
+     */
+    public void load(final Reader reader) throws IOException {
+        Args.notNull(reader, "Reader");
+        final Map<String, List<InetAddress>> entries = new LinkedHashMap<>();
+        final BufferedReader lineReader = new BufferedReader(reader);
+        String line;
+        while ((line = lineReader.readLine()) != null) {
+            final int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            final String[] tokens = line.trim().split("\\s+");
+            if (tokens.length < 2) {
+                continue;
+            }
+            final InetAddress address = parseLiteral(tokens[0]);
+            if (address == null) {
+                throw new IOException("Invalid IP address: " + tokens[0]);
+            }
+            for (int i = 1; i < tokens.length; i++) {
+                final String name = tokens[i];
+                List<InetAddress> addresses = entries.get(name);
+                if (addresses == null) {
+                    addresses = new ArrayList<>();
+                    entries.put(name, addresses);
+                }
+                addresses.add(InetAddress.getByAddress(name, address.getAddress()));
+            }
+        }
+        for (final Map.Entry<String, List<InetAddress>> entry: entries.entrySet()) {
+            final String name = entry.getKey();
+            hostMap.put(name.toLowerCase(Locale.ROOT), new ResolvedAddresses(name, defaultTimeToLive, entry.getValue()));
+        }
+    }
+
+    /**
+     * Creates a resolver with host entries loaded from a file in
+     * the {@code /etc/hosts} format.
+     *
+     * @see #load(Reader)
+     */
+    public static InMemoryAddressResolver create(final File file, final TimeValue defaultTimeToLive) throws IOException {
+        Args.notNull(file, "File");
+        final InMemoryAddressResolver resolver = new InMemoryAddressResolver(defaultTimeToLive);
+        try (final Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.US_ASCII)) {
+            resolver.load(reader);
+        }
+        return resolver;
+    }
+
+    private static InetAddress parseLiteral(final String s) throws UnknownHostException {
+        if (InetAddressUtils.isIPv4Address(s) || InetAddressUtils.isIPv6Address(s)) {
+            // IP literals are parsed without a name service lookup
+            return InetAddress.getByName(s);
+        }
+        return null;
+    }
+
+    @Override
+    public Future<ResolvedAddresses> resolve(final String hostName, final FutureCallback<ResolvedAddresses> callback) {
+        Args.notNull(hostName, "Host name");
+        final BasicFuture<ResolvedAddresses> future = new BasicFuture<>(callback);
+        final ResolvedAddresses resolved = hostMap.get(hostName.toLowerCase(Locale.ROOT));
+        if (resolved != null) {
+            future.completed(resolved);
+            return future;
+        }
+        try {
+            final InetAddress address = parseLiteral(hostName);
+            if (address != null) {
+                future.completed(new ResolvedAddresses(hostName, defaultTimeToLive, address));
+            } else {
+                future.failed(new UnknownHostException(hostName));
+            }
+        } catch (final UnknownHostException ex) {
+            future.failed(ex);
+        }
+        return future;
+    }
+
+}
@@ -27,10 +27,13 @@
 
 package org.apache.hc.core5.net;
 
+import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import org.apache.hc.core5.util.Args;
@@ -160,4 +163,43 @@ public static String getCanonicalLocalHostName() {
         }
     }
 
+    /**
+     * Re-orders the given list of addresses so that address families alternate
+     * as recommended by RFC 8305 (Happy Eyeballs), section 4. The family of the first
+     * address is considered preferred. The relative order of addresses within
+     * the same family is preserved.
+     *
+     * @since 5.0
+     */
+    public static List<InetAddress> interleaveFamilies(final List<InetAddress> addresses) {
+        Args.notNull(addresses, "Address list");
+        if (addresses.size() < 2) {
+            return addresses;
+        }
+        final boolean preferIPv6 = addresses.get(0) instanceof Inet6Address;
+        final List<InetAddress> preferred = new ArrayList<>(addresses.size());
+        final List<InetAddress> other = new ArrayList<>(addresses.size());
+        for (int i = 0; i < addresses.size(); i++) {
+            final InetAddress address = addresses.get(i);
+            if ((address instanceof Inet6Address) == preferIPv6) {
+                preferred.add(address);
+            } else {
+                other.add(address);
+            }
+        }
+        if (other.isEmpty()) {
+            return addresses;
+        }
+        final List<InetAddress> result = new ArrayList<>(addresses.size());
+        for (int i = 0; i < preferred.size() || i < other.size(); i++) {
+            if (i < preferred.size()) {
+                result.add(preferred.get(i));
+            }
+            if (i < other.size()) {
+                result.add(other.get(i));
+            }
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,99 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.net;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Result of a host name resolution: a non-empty list of addresses in the order
+ * of preference and the period of time the result may be cached for.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.IMMUTABLE)
+public final class ResolvedAddresses {
+
+    private final String hostName;
+    private final List<InetAddress> addresses;
+    private final TimeValue timeToLive;
+
+    public ResolvedAddresses(final String hostName, final TimeValue timeToLive, final List<InetAddress> addresses) {
+        this.hostName = Args.notNull(hostName, "Host name");
+        Args.notEmpty(addresses, "Address list");
+        this.addresses = Collections.unmodifiableList(new ArrayList<>(addresses));
+        this.timeToLive = TimeValue.defaultsToZeroMillis(timeToLive);
+    }
+
+    public ResolvedAddresses(final String hostName, final TimeValue timeToLive, final InetAddress... addresses) {
+        this(hostName, timeToLive, Arrays.asList(Args.notNull(addresses, "Addresses")));
+    }
+
+    public String getHostName() {
+        return hostName;
+    }
+
+    /**
+     * Returns addresses in the order of preference as reported by the resolver.
+     */
+    public List<InetAddress> getAddresses() {
+        return addresses;
+    }
+
+    /**
+     * Returns addresses re-ordered for staggered connection attempts as
+     * recommended by RFC 8305 (Happy Eyeballs), section 4: the family of the most
+     * preferred address goes first and address families alternate from there on.
+     * The relative order of addresses within the same family is preserved.
+     */
+    public List<InetAddress> getInterleavedAddresses() {
+        return InetAddressUtils.interleaveFamilies(addresses);
+    }
+
+    /**
+     * Returns the period of time this result may be cached for.
+     * Zero means the result must not be cached.
+     */
+    public TimeValue getTimeToLive() {
+        return timeToLive;
+    }
+
+    @Override
+    public String toString() {
+        return hostName + " -> " + addresses + " (ttl: " + timeToLive + ")";
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.net;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * {@link AsyncAddressResolver} implementation that delegates to the system resolver
+ * by means of {@link InetAddress#getAllByName(String)} executed by an {@link Executor}
+ * so the blocking lookup never takes place on the calling thread.
+ * <p>
+ * The system resolver does not report record TTLs. Results are reported with
+ * a fixed time to live that is expected to be used by a caching resolver.
+ * <p>
+ * {@link #INSTANCE} runs lookups on a shared pool of daemon threads that terminate
+ * when idle. Resolvers constructed with a custom executor leave the lifecycle
+ * of the executor to the caller.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class SystemAddressResolver implements AsyncAddressResolver {
+
+    public static final TimeValue DEFAULT_TTL = TimeValue.ofSeconds(30);
+
+    private static final int DEFAULT_MAX_THREADS = 8;
+
+    /**
+     * Creates a bounded pool of daemon threads suitable for blocking lookups.
+     * Idle threads are disposed of after the given period of inactivity, so
+     * the pool does not need to be shut down explicitly.
+     *
+     * @param maxThreads the maximum number of concurrent lookups.
+     * @param keepAlive the period of inactivity after which idle threads terminate.
+     */
+    public static ExecutorService createDefaultExecutor(final int maxThreads, final TimeValue keepAlive) {
+        Args.positive(maxThreads, "Max threads");
+        Args.notNull(keepAlive, "Keep alive");
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxThreads, maxThreads,
+                keepAlive.getDuration(), keepAlive.getTimeUnit(),
+                new LinkedBlockingQueue<Runnable>(),
+                new DefaultThreadFactory("dns-resolver", true));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static final ExecutorService DEFAULT_EXECUTOR = createDefaultExecutor(
+            DEFAULT_MAX_THREADS, TimeValue.ofSeconds(30));
+
+    public static final SystemAddressResolver INSTANCE = new SystemAddressResolver(DEFAULT_EXECUTOR, DEFAULT_TTL);
+
+    private final Executor executor;
+    private final TimeValue timeToLive;
+
+    public SystemAddressResolver(final Executor executor, final TimeValue timeToLive) {
+        this.executor = Args.notNull(executor, "Executor");
+        this.timeToLive = TimeValue.defaultsTo(timeToLive, DEFAULT_TTL);
+    }
+
+    public SystemAddressResolver(final Executor executor) {
+        this(executor, DEFAULT_TTL);
+    }
+
+    @Override
+    public Future<ResolvedAddresses> resolve(final String hostName, final FutureCallback<ResolvedAddresses> callback) {
+        Args.notNull(hostName, "Host name");
+        final BasicFuture<ResolvedAddresses> future = new BasicFuture<>(callback);
+        try {
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    if (future.isDone()) {
+                        return;
+                    }
+                    try {
+                        final InetAddress[] addresses = InetAddress.getAllByName(hostName);
+                        if (addresses == null || addresses.length == 0) {
+                            throw new UnknownHostException(hostName);
+                        }
+                        future.completed(new ResolvedAddresses(hostName, timeToLive, Arrays.asList(addresses)));
+                    } catch (final Exception ex) {
+                        future.failed(ex);
+                    }
+                }
+
+            });
+        } catch (final RejectedExecutionException ex) {
+            future.failed(ex);
+        }
+        return future;
+    }
+
+}
@@ -0,0 +1,353 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.pool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.io.GracefullyCloseable;
+import org.apache.hc.core5.io.ShutdownType;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Maintains a minimum number of idle connections per route in a {@link ManagedConnPool}.
+ * <p>
+ * Once a positive minimum has been set for at least one route, a maintenance task
+ * is scheduled at a fixed interval. The task evicts expired connections and opens
+ * new ones for every route with fewer idle connections than its minimum, provided
+ * the route and the pool have spare capacity. Connections closed by
+ * {@link ConnPoolControl#closeIdle(TimeValue)} or {@link ConnPoolControl#closeExpired()}
+ * get replaced the same way.
+ * <p>
+ * Connections are opened with the help of a {@link Connector} supplied by the owner
+ * of the pool and each is released to the pool as idle as soon as it has been
+ * fully established.
+ *
+ * @param <T> the route type that represents the opposite endpoint of a pooled
+ *   connection.
+ * @param <C> the type of pooled connections.
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public final class ConnPoolMaintainer<T, C extends GracefullyCloseable> implements GracefullyCloseable {
+
+    public static final TimeValue DEFAULT_INTERVAL = TimeValue.ofSeconds(5);
+    public static final Timeout DEFAULT_TIMEOUT = Timeout.ofMinutes(1);
+
+    /**
+     * Opens new connections to a route.
+     *
+     * @param <T> the route type.
+     * @param <C> the connection type.
+     */
+    public interface Connector<T, C> {
+
+        /**
+         * Opens a new connection to the given route. Implementations are expected
+         * to complete protocol level handshakes (such as TLS) where possible prior to
+         * reporting the connection as completed.
+         */
+        void connect(T route, Timeout timeout, FutureCallback<C> callback);
+
+    }
+
+    private final ManagedConnPool<T, C> connPool;
+    private final Connector<T, C> connector;
+    private final TimeValue interval;
+    private final Timeout timeout;
+    private final ConcurrentMap<T, Integer> minIdleMap;
+    private final ConcurrentMap<T, Boolean> routesInProgress;
+
+    private ScheduledExecutorService scheduler;
+    private boolean shutdown;
+
+    public ConnPoolMaintainer(
+            final ManagedConnPool<T, C> connPool,
+            final Connector<T, C> connector,
+            final TimeValue interval,
+            final Timeout timeout) {
+        super();
+        this.connPool = Args.notNull(connPool, "Connection pool");
+        this.connector = Args.notNull(connector, "Connector");
+        this.interval = interval != null ? interval : DEFAULT_INTERVAL;
+        this.timeout = timeout != null ? timeout : DEFAULT_TIMEOUT;
+        this.minIdleMap = new ConcurrentHashMap<>();
+        this.routesInProgress = new ConcurrentHashMap<>();
+    }
+
+    public ConnPoolMaintainer(final ManagedConnPool<T, C> connPool, final Connector<T, C> connector) {
+        this(connPool, connector, DEFAULT_INTERVAL, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Sets the minimum number of idle connections to be kept in the pool
+     * for the given route. Zero disables maintenance of the route.
+     */
+    public void setMinIdle(final T route, final int minIdle) {
+        Args.notNull(route, "Route");
+        Args.notNegative(minIdle, "Min idle");
+        if (minIdle > 0) {
+            this.minIdleMap.put(route, minIdle);
+            ensureScheduled();
+            requestMaintenance();
+        } else {
+            this.minIdleMap.remove(route);
+        }
+    }
+
+    public int getMinIdle(final T route) {
+        Args.notNull(route, "Route");
+        final Integer minIdle = this.minIdleMap.get(route);
+        return minIdle != null ? minIdle.intValue() : 0;
+    }
+
+    private synchronized void ensureScheduled() {
+        if (this.scheduler != null || this.shutdown || !TimeValue.isPositive(this.interval)) {
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new DefaultThreadFactory("pool-maintenance", true));
+        this.scheduler.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    maintain();
+                } catch (final RuntimeException ignore) {
+                    // keep the task scheduled
+                }
+            }
+
+        }, this.interval.toMillis(), this.interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Asynchronously runs the maintenance task if it has been scheduled.
+     */
+    public synchronized void requestMaintenance() {
+        if (this.scheduler != null && !this.minIdleMap.isEmpty()) {
+            try {
+                this.scheduler.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        maintain();
+                    }
+
+                });
+            } catch (final RejectedExecutionException ignore) {
+            }
+        }
+    }
+
+    /**
+     * Evicts expired connections and opens new connections for all routes
+     * with fewer idle connections than required.
+     */
+    public void maintain() {
+        if (this.minIdleMap.isEmpty()) {
+            return;
+        }
+        this.connPool.closeExpired();
+        for (final Map.Entry<T, Integer> entry: this.minIdleMap.entrySet()) {
+            warmUp(entry.getKey(), entry.getValue().intValue());
+        }
+    }
+
+    /**
+     * Opens as many new connections to the given route as required to
+     * have the given number of idle connections in the pool.
+     *
+     * @return the number of new connections being opened.
+     */
+    int warmUp(final T route, final int minIdle) {
+        if (this.routesInProgress.putIfAbsent(route, Boolean.TRUE) != null) {
+            return 0;
+        }
+        final PoolStats stats = this.connPool.getStats(route);
+        final PoolStats totalStats = this.connPool.getTotalStats();
+        final int available = stats.getAvailable();
+        final int deficit = Math.min(minIdle - available, Math.min(
+                stats.getMax() - stats.getLeased() - stats.getPending() - available,
+                totalStats.getMax() - totalStats.getLeased() - totalStats.getPending() - totalStats.getAvailable()));
+        if (deficit <= 0) {
+            this.routesInProgress.remove(route);
+            return 0;
+        }
+        // Idle connections get leased along with the new ones to make sure only
+        // missing connections get opened. Connections that become available while
+        // lease requests are being issued are put back once all of them have been
+        // issued, so that they cannot be leased again by the same batch
+        final Batch batch = new Batch(route, available + deficit);
+        for (int i = 0; i < available + deficit; i++) {
+            lease(route, batch);
+        }
+        batch.releaseIdle();
+        return deficit;
+    }
+
+    private void lease(final T route, final Batch batch) {
+        try {
+            this.connPool.lease(route, null, this.timeout, new FutureCallback<PoolEntry<T, C>>() {
+
+                @Override
+                public void completed(final PoolEntry<T, C> poolEntry) {
+                    if (poolEntry.hasConnection()) {
+                        batch.available(poolEntry);
+                        return;
+                    }
+                    try {
+                        connector.connect(route, timeout, new FutureCallback<C>() {
+
+                            @Override
+                            public void completed(final C conn) {
+                                poolEntry.assignConnection(conn);
+                                batch.available(poolEntry);
+                            }
+
+                            @Override
+                            public void failed(final Exception ex) {
+                                batch.discard(poolEntry);
+                            }
+
+                            @Override
+                            public void cancelled() {
+                                batch.discard(poolEntry);
+                            }
+
+                        });
+                    } catch (final RuntimeException ex) {
+                        batch.discard(poolEntry);
+                    }
+                }
+
+                @Override
+                public void failed(final Exception ex) {
+                    batch.countDown();
+                }
+
+                @Override
+                public void cancelled() {
+                    batch.countDown();
+                }
+
+            });
+        } catch (final IllegalStateException ex) {
+            // pool shut down
+            batch.countDown();
+        }
+    }
+
+    @Override
+    public void shutdown(final ShutdownType shutdownType) {
+        final ScheduledExecutorService localScheduler;
+        synchronized (this) {
+            this.shutdown = true;
+            localScheduler = this.scheduler;
+            this.scheduler = null;
+        }
+        if (localScheduler != null) {
+            localScheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        shutdown(ShutdownType.GRACEFUL);
+    }
+
+    private class Batch {
+
+        private final T route;
+        private final AtomicInteger remaining;
+        private final List<PoolEntry<T, C>> heldEntries;
+        private boolean leasing;
+
+        Batch(final T route, final int count) {
+            this.route = route;
+            this.remaining = new AtomicInteger(count);
+            this.heldEntries = new ArrayList<>();
+            this.leasing = true;
+        }
+
+        /**
+         * Releases an entry with an open connection, either idle or newly
+         * established, back to the pool.
+         */
+        void available(final PoolEntry<T, C> poolEntry) {
+            synchronized (this.heldEntries) {
+                if (this.leasing) {
+                    this.heldEntries.add(poolEntry);
+                    return;
+                }
+            }
+            connPool.release(poolEntry, true);
+            countDown();
+        }
+
+        void releaseIdle() {
+            final List<PoolEntry<T, C>> entries;
+            synchronized (this.heldEntries) {
+                this.leasing = false;
+                entries = new ArrayList<>(this.heldEntries);
+                this.heldEntries.clear();
+            }
+            for (int i = 0; i < entries.size(); i++) {
+                connPool.release(entries.get(i), true);
+                countDown();
+            }
+        }
+
+        void discard(final PoolEntry<T, C> poolEntry) {
+            connPool.release(poolEntry, false);
+            countDown();
+        }
+
+        void countDown() {
+            if (this.remaining.decrementAndGet() == 0) {
+                routesInProgress.remove(this.route);
+            }
+        }
+
+    }
+
+}
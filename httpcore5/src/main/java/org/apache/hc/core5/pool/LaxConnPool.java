@@ -67,29 +67,46 @@
     private final TimeValue timeToLive;
     private final ConnPoolListener<T> connPoolListener;
     private final PoolReusePolicy policy;
+    private final ConnLatencyEstimator<C> latencyEstimator;
     private final ConcurrentMap<T, PerRoutePool<T, C>> routeToPool;
     private final AtomicBoolean isShutDown;
 
     private volatile int defaultMaxPerRoute;
 
     /**
+     * @param latencyEstimator optional estimator of connection latency. If present
+     *  the available connection with the lowest expected latency gets leased first.
+     *
      * @since 5.0
      */
     public LaxConnPool(
             final int defaultMaxPerRoute,
             final TimeValue timeToLive,
             final PoolReusePolicy policy,
+            final ConnLatencyEstimator<C> latencyEstimator,
             final ConnPoolListener<T> connPoolListener) {
         super();
         Args.positive(defaultMaxPerRoute, "Max per route value");
         this.timeToLive = TimeValue.defaultsToNegativeOneMillisecond(timeToLive);
         this.connPoolListener = connPoolListener;
         this.policy = policy != null ? policy : PoolReusePolicy.LIFO;
+        this.latencyEstimator = latencyEstimator;
         this.routeToPool = new ConcurrentHashMap<>();
         this.isShutDown = new AtomicBoolean(false);
         this.defaultMaxPerRoute = defaultMaxPerRoute;
     }
 
+    /**
+     * @since 5.0
+     */
+    public LaxConnPool(
+            final int defaultMaxPerRoute,
+            final TimeValue timeToLive,
+            final PoolReusePolicy policy,
+            final ConnPoolListener<T> connPoolListener) {
+        this(defaultMaxPerRoute, timeToLive, policy, null, connPoolListener);
+    }
+
     public LaxConnPool(final int defaultMaxPerRoute) {
         this(defaultMaxPerRoute, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
     }
@@ -122,6 +139,7 @@ private PerRoutePool<T, C> getPool(final T route) {
                     defaultMaxPerRoute,
                     timeToLive,
                     policy,
+                    latencyEstimator,
                     this,
                     connPoolListener);
             routePool = routeToPool.putIfAbsent(route, newRoutePool);
@@ -342,6 +360,7 @@ public boolean cancel() {
         private final T route;
         private final TimeValue timeToLive;
         private final PoolReusePolicy policy;
+        private final ConnLatencyEstimator<C> latencyEstimator;
         private final ConnPoolStats<T> connPoolStats;
         private final ConnPoolListener<T> connPoolListener;
         private final ConcurrentMap<PoolEntry<T, C>, Boolean> leased;
@@ -356,12 +375,14 @@ public boolean cancel() {
                 final int max,
                 final TimeValue timeToLive,
                 final PoolReusePolicy policy,
+                final ConnLatencyEstimator<C> latencyEstimator,
                 final ConnPoolStats<T> connPoolStats,
                 final ConnPoolListener<T> connPoolListener) {
             super();
             this.route = route;
             this.timeToLive = timeToLive;
             this.policy = policy;
+            this.latencyEstimator = latencyEstimator;
             this.connPoolStats = connPoolStats;
             this.connPoolListener = connPoolListener;
             this.leased = new ConcurrentHashMap<>();
@@ -405,8 +426,34 @@ private void removeLeased(final PoolEntry<T, C> entry) {
             }
         }
 
+        private PoolEntry<T, C> pollLowestLatency() {
+            for (;;) {
+                PoolEntry<T, C> selected = null;
+                long lowest = Long.MAX_VALUE;
+                for (final PoolEntry<T, C> entry: available) {
+                    final C conn = entry.getConnection();
+                    final long latency = conn != null ? latencyEstimator.estimateLatency(conn) : -1;
+                    if (latency < 0) {
+                        selected = entry;
+                        break;
+                    }
+                    if (latency < lowest) {
+                        lowest = latency;
+                        selected = entry;
+                    }
+                }
+                if (selected == null) {
+                    return null;
+                }
+                // The entry may have been taken by another thread in the meantime
+                if (available.remove(selected)) {
+                    return selected;
+                }
+            }
+        }
+
         private PoolEntry<T, C> getAvailableEntry(final Object state) {
-            final PoolEntry<T, C> entry = available.poll();
+            final PoolEntry<T, C> entry = latencyEstimator != null ? pollLowestLatency() : available.poll();
             if (entry != null) {
                 if (entry.getExpiry() < System.currentTimeMillis()) {
                     entry.discardConnection(ShutdownType.GRACEFUL);
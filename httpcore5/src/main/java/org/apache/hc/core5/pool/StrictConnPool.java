@@ -67,6 +67,7 @@
     private final TimeValue timeToLive;
     private final ConnPoolListener<T> connPoolListener;
     private final PoolReusePolicy policy;
+    private final ConnLatencyEstimator<C> latencyEstimator;
     private final Map<T, PerRoutePool<T, C>> routeToPool;
     private final LinkedList<LeaseRequest<T, C>> leasingRequests;
     private final Set<PoolEntry<T, C>> leased;
@@ -80,6 +81,9 @@
     private volatile int maxTotal;
 
     /**
+     * @param latencyEstimator optional estimator of connection latency. If present
+     *  the available connection with the lowest expected latency gets leased first.
+     *
      * @since 5.0
      */
     public StrictConnPool(
@@ -87,6 +91,7 @@ public StrictConnPool(
             final int maxTotal,
             final TimeValue timeToLive,
             final PoolReusePolicy policy,
+            final ConnLatencyEstimator<C> latencyEstimator,
             final ConnPoolListener<T> connPoolListener) {
         super();
         Args.positive(defaultMaxPerRoute, "Max per route value");
@@ -94,6 +99,7 @@ public StrictConnPool(
         this.timeToLive = TimeValue.defaultsToNegativeOneMillisecond(timeToLive);
         this.connPoolListener = connPoolListener;
         this.policy = policy != null ? policy : PoolReusePolicy.LIFO;
+        this.latencyEstimator = latencyEstimator;
         this.routeToPool = new HashMap<>();
         this.leasingRequests = new LinkedList<>();
         this.leased = new HashSet<>();
@@ -106,6 +112,18 @@ public StrictConnPool(
         this.maxTotal = maxTotal;
     }
 
+    /**
+     * @since 5.0
+     */
+    public StrictConnPool(
+            final int defaultMaxPerRoute,
+            final int maxTotal,
+            final TimeValue timeToLive,
+            final PoolReusePolicy policy,
+            final ConnPoolListener<T> connPoolListener) {
+        this(defaultMaxPerRoute, maxTotal, timeToLive, policy, null, connPoolListener);
+    }
+
     public StrictConnPool(final int defaultMaxPerRoute, final int maxTotal) {
         this(defaultMaxPerRoute, maxTotal, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
     }
@@ -276,7 +294,7 @@ private boolean processPendingRequest(final LeaseRequest<T, C> request) {
         final PerRoutePool<T, C> pool = getPool(route);
         PoolEntry<T, C> entry;
         for (;;) {
-            entry = pool.getFree(state);
+            entry = pool.getFree(state, this.latencyEstimator);
             if (entry == null) {
                 break;
             }
@@ -725,7 +743,21 @@ public int getAllocatedCount() {
             return this.available.size() + this.leased.size();
         }
 
-        public PoolEntry<T, C> getFree(final Object state) {
+        public PoolEntry<T, C> getFree(final Object state, final ConnLatencyEstimator<C> latencyEstimator) {
+            if (latencyEstimator != null) {
+                if (this.available.isEmpty()) {
+                    return null;
+                }
+                PoolEntry<T, C> entry = state != null ? select(state, latencyEstimator) : null;
+                if (entry == null) {
+                    entry = select(null, latencyEstimator);
+                }
+                if (entry != null) {
+                    this.available.remove(entry);
+                    this.leased.add(entry);
+                }
+                return entry;
+            }
             if (!this.available.isEmpty()) {
                 if (state != null) {
                     final Iterator<PoolEntry<T, C>> it = this.available.iterator();
@@ -751,6 +783,29 @@ public PoolEntry<T, C> getFree(final Object state) {
             return null;
         }
 
+        public PoolEntry<T, C> getFree(final Object state) {
+            return getFree(state, null);
+        }
+
+        private PoolEntry<T, C> select(final Object state, final ConnLatencyEstimator<C> latencyEstimator) {
+            PoolEntry<T, C> selected = null;
+            long lowest = Long.MAX_VALUE;
+            for (final PoolEntry<T, C> entry: this.available) {
+                if (LangUtils.equals(state, entry.getState())) {
+                    final C conn = entry.getConnection();
+                    final long latency = conn != null ? latencyEstimator.estimateLatency(conn) : -1;
+                    if (latency < 0) {
+                        return entry;
+                    }
+                    if (latency < lowest) {
+                        lowest = latency;
+                        selected = entry;
+                    }
+                }
+            }
+            return selected;
+        }
+
         public PoolEntry<T, C> getLastUsed() {
             return this.available.peekLast();
         }
@@ -0,0 +1,182 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hc.core5.io.GracefullyCloseable;
+import org.apache.hc.core5.io.ShutdownType;
+
+/**
+ * Staggered connection attempts to multiple addresses of the same remote
+ * endpoint as described in RFC 8305 (Happy Eyeballs). The first attempt to
+ * succeed completes the session request and all other attempts get cancelled.
+ * The session request fails only once all addresses have been tried and all
+ * attempts have failed.
+ * <p>
+ * Attempts are started by the I/O reactor thread. Pending attempts may be
+ * cancelled from any thread.
+ */
+final class ConnectionAttempts implements GracefullyCloseable {
+
+    final IOSessionRequest sessionRequest;
+
+    private final List<SocketAddress> addresses;
+    private final long attemptDelay;
+    private final List<InternalConnectChannel> activeChannels;
+
+    private int nextIndex;
+    private long nextAttemptTime;
+    private volatile boolean done;
+
+    ConnectionAttempts(
+            final IOSessionRequest sessionRequest,
+            final List<SocketAddress> addresses,
+            final long attemptDelay) {
+        super();
+        this.sessionRequest = sessionRequest;
+        this.addresses = addresses;
+        this.attemptDelay = attemptDelay;
+        this.activeChannels = new ArrayList<>(addresses.size());
+        this.nextIndex = 0;
+        this.nextAttemptTime = 0;
+    }
+
+    boolean isDone() {
+        return done || sessionRequest.isDone();
+    }
+
+    synchronized boolean hasNext() {
+        return nextIndex < addresses.size();
+    }
+
+    /**
+     * Returns time at which the next attempt is due or {@link Long#MAX_VALUE}
+     * if the next attempt is to be made only once an active attempt fails.
+     */
+    synchronized long getNextAttemptTime() {
+        return nextAttemptTime;
+    }
+
+    /**
+     * Returns the next address to connect to and schedules the following attempt.
+     */
+    synchronized SocketAddress next(final long now) {
+        final SocketAddress address = addresses.get(nextIndex++);
+        nextAttemptTime = attemptDelay > 0 ? now + attemptDelay : Long.MAX_VALUE;
+        return address;
+    }
+
+    /**
+     * Registers a connection attempt in progress.
+     */
+    void started(final InternalConnectChannel channel) {
+        synchronized (this) {
+            if (!done) {
+                activeChannels.add(channel);
+                return;
+            }
+        }
+        channel.shutdown(ShutdownType.IMMEDIATE);
+    }
+
+    /**
+     * Signals successful completion of the given connection attempt.
+     *
+     * @return {@code true} if the attempt won, {@code false} if another
+     *   attempt has already succeeded or the request has been cancelled.
+     */
+    boolean connected(final InternalConnectChannel channel) {
+        final List<InternalConnectChannel> losers;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            done = true;
+            activeChannels.remove(channel);
+            losers = new ArrayList<>(activeChannels);
+            activeChannels.clear();
+        }
+        for (int i = 0; i < losers.size(); i++) {
+            losers.get(i).shutdown(ShutdownType.IMMEDIATE);
+        }
+        return true;
+    }
+
+    /**
+     * Signals failure of the given connection attempt. The next address gets tried
+     * immediately if there is one. The session request fails if there are no more
+     * addresses to try and no other attempt is in progress.
+     */
+    void failed(final InternalConnectChannel channel, final Exception cause) {
+        synchronized (this) {
+            if (channel != null) {
+                activeChannels.remove(channel);
+            }
+            if (done) {
+                return;
+            }
+            if (nextIndex < addresses.size()) {
+                nextAttemptTime = 0;
+                return;
+            }
+            if (!activeChannels.isEmpty()) {
+                return;
+            }
+            done = true;
+        }
+        sessionRequest.failed(cause);
+    }
+
+    @Override
+    public void shutdown(final ShutdownType shutdownType) {
+        final List<InternalConnectChannel> channels;
+        synchronized (this) {
+            done = true;
+            channels = new ArrayList<>(activeChannels);
+            activeChannels.clear();
+        }
+        for (int i = 0; i < channels.size(); i++) {
+            channels.get(i).shutdown(shutdownType);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        shutdown(ShutdownType.GRACEFUL);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + sessionRequest.remoteEndpoint + ": " + addresses + "]";
+    }
+
+}
@@ -30,19 +30,20 @@
 import java.io.IOException;
 import java.net.SocketAddress;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hc.core5.concurrent.DefaultThreadFactory;
 import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.function.Callback;
 import org.apache.hc.core5.function.Decorator;
 import org.apache.hc.core5.io.ShutdownType;
+import org.apache.hc.core5.net.AsyncAddressResolver;
 import org.apache.hc.core5.net.NamedEndpoint;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.TimeValue;
@@ -62,17 +63,26 @@ public class DefaultConnectingIOReactor implements IOReactorService, ConnectionI
     private final int workerCount;
     private final SingleCoreIOReactor[] dispatchers;
     private final MultiCoreIOReactor ioReactor;
-    private final AtomicInteger currentWorker;
+    private final List<IOWorkerStats> workerStats;
+    private final IOWorkerSelector workerSelector;
 
     private final static ThreadFactory THREAD_FACTORY = new DefaultThreadFactory("I/O client dispatch", true);
 
+    /**
+     * @param addressResolver resolver of remote endpoints given as unresolved
+     *   socket addresses or given without an explicit socket address. If {@code null}
+     *   such endpoints get resolved synchronously by the system resolver.
+     *
+     * @since 5.0
+     */
     public DefaultConnectingIOReactor(
             final IOEventHandlerFactory eventHandlerFactory,
             final IOReactorConfig ioReactorConfig,
             final ThreadFactory threadFactory,
             final Decorator<IOSession> ioSessionDecorator,
             final IOSessionListener sessionListener,
-            final Callback<IOSession> sessionShutdownCallback) {
+            final Callback<IOSession> sessionShutdownCallback,
+            final AsyncAddressResolver addressResolver) {
         Args.notNull(eventHandlerFactory, "Event handler factory");
         this.auditLog = new ConcurrentLinkedDeque<>();
         this.workerCount = ioReactorConfig != null ? ioReactorConfig.getIoThreadCount() : IOReactorConfig.DEFAULT.getIoThreadCount();
@@ -85,12 +95,26 @@ public DefaultConnectingIOReactor(
                     ioReactorConfig,
                     ioSessionDecorator,
                     sessionListener,
-                    sessionShutdownCallback);
+                    sessionShutdownCallback,
+                    addressResolver);
             this.dispatchers[i] = dispatcher;
             threads[i] = (threadFactory != null ? threadFactory : THREAD_FACTORY).newThread(new IOReactorWorker(dispatcher));
         }
         this.ioReactor = new MultiCoreIOReactor(this.dispatchers, threads);
-        this.currentWorker = new AtomicInteger(0);
+        final IOWorkerSelector selector = ioReactorConfig != null ? ioReactorConfig.getWorkerSelector() : null;
+        this.workerStats = Collections.unmodifiableList(Arrays.<IOWorkerStats>asList(this.dispatchers));
+        this.workerSelector = IOWorkerSelectors.guarded(selector != null ? selector : IOWorkerSelectors.roundRobin());
+    }
+
+    public DefaultConnectingIOReactor(
+            final IOEventHandlerFactory eventHandlerFactory,
+            final IOReactorConfig ioReactorConfig,
+            final ThreadFactory threadFactory,
+            final Decorator<IOSession> ioSessionDecorator,
+            final IOSessionListener sessionListener,
+            final Callback<IOSession> sessionShutdownCallback) {
+        this(eventHandlerFactory, ioReactorConfig, threadFactory, ioSessionDecorator, sessionListener,
+                sessionShutdownCallback, null);
     }
 
     public DefaultConnectingIOReactor(
@@ -124,6 +148,15 @@ public List<ExceptionEvent> getExceptionLog() {
         return auditLog.isEmpty() ? Collections.<ExceptionEvent>emptyList() : new ArrayList<>(auditLog);
     }
 
+    /**
+     * Returns load statistics of I/O dispatch workers.
+     *
+     * @since 5.0
+     */
+    public List<IOWorkerStats> getWorkerStats() {
+        return workerStats;
+    }
+
     @Override
     public Future<IOSession> connect(
             final NamedEndpoint remoteEndpoint,
@@ -136,7 +169,7 @@ public Future<IOSession> connect(
         if (getStatus().compareTo(IOReactorStatus.ACTIVE) > 0) {
             throw new IOReactorShutdownException("I/O reactor has been shut down");
         }
-        final int i = Math.abs(currentWorker.incrementAndGet() % workerCount);
+        final int i = workerSelector.select(workerStats);
         try {
             return dispatchers[i].connect(remoteEndpoint, remoteAddress, localAddress, timeout, attachment, callback);
         } catch (final IOReactorShutdownException ex) {
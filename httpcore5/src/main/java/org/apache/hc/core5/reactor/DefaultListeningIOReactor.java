@@ -31,6 +31,7 @@
 import java.net.SocketAddress;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
@@ -38,7 +39,6 @@
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hc.core5.concurrent.DefaultThreadFactory;
 import org.apache.hc.core5.concurrent.FutureCallback;
@@ -68,7 +68,8 @@ public class DefaultListeningIOReactor implements IOReactorService, ConnectionIn
     private final SingleCoreIOReactor[] dispatchers;
     private final SingleCoreListeningIOReactor listener;
     private final MultiCoreIOReactor ioReactor;
-    private final AtomicInteger currentWorker;
+    private final List<IOWorkerStats> workerStats;
+    private final IOWorkerSelector workerSelector;
 
     /**
      * Creates an instance of DefaultListeningIOReactor with the given configuration.
@@ -102,7 +103,8 @@ public DefaultListeningIOReactor(
                     ioReactorConfig,
                     ioSessionDecorator,
                     sessionListener,
-                    sessionShutdownCallback);
+                    sessionShutdownCallback,
+                    null);
             this.dispatchers[i] = dispatcher;
             threads[i + 1] = (dispatchThreadFactory != null ? dispatchThreadFactory : DISPATCH_THREAD_FACTORY).newThread(new IOReactorWorker(dispatcher));
         }
@@ -115,12 +117,21 @@ public void execute(final SocketChannel channel) {
                 enqueueChannel(channel);
             }
 
+        }, new Callback<LocalChannel>() {
+
+            @Override
+            public void execute(final LocalChannel channel) {
+                enqueueLocalChannel(channel);
+            }
+
         });
         ioReactors[0] = this.listener;
         threads[0] = (listenerThreadFactory != null ? listenerThreadFactory : LISTENER_THREAD_FACTORY).newThread(new IOReactorWorker(listener));
 
         this.ioReactor = new MultiCoreIOReactor(ioReactors, threads);
-        this.currentWorker = new AtomicInteger(0);
+        final IOWorkerSelector selector = ioReactorConfig != null ? ioReactorConfig.getWorkerSelector() : null;
+        this.workerStats = Collections.unmodifiableList(Arrays.<IOWorkerStats>asList(this.dispatchers));
+        this.workerSelector = IOWorkerSelectors.guarded(selector != null ? selector : IOWorkerSelectors.roundRobin());
     }
 
     /**
@@ -189,8 +200,17 @@ public List<ExceptionEvent> getExceptionLog() {
         return auditLog.isEmpty() ? Collections.<ExceptionEvent>emptyList() : new ArrayList<>(auditLog);
     }
 
+    /**
+     * Returns load statistics of I/O dispatch workers.
+     *
+     * @since 5.0
+     */
+    public List<IOWorkerStats> getWorkerStats() {
+        return workerStats;
+    }
+
     private void enqueueChannel(final SocketChannel socketChannel) {
-        final int i = Math.abs(currentWorker.incrementAndGet() % workerCount);
+        final int i = workerSelector.select(workerStats);
         try {
             dispatchers[i].enqueueChannel(socketChannel);
         } catch (final IOReactorShutdownException ex) {
@@ -198,6 +218,16 @@ private void enqueueChannel(final SocketChannel socketChannel) {
         }
     }
 
+    private void enqueueLocalChannel(final LocalChannel localChannel) {
+        final int i = workerSelector.select(workerStats);
+        try {
+            dispatchers[i].enqueueLocalChannel(localChannel);
+        } catch (final IOReactorShutdownException ex) {
+            localChannel.close();
+            initiateShutdown();
+        }
+    }
+
     @Override
     public Future<IOSession> connect(
             final NamedEndpoint remoteEndpoint,
@@ -210,7 +240,7 @@ public Future<IOSession> connect(
         if (getStatus().compareTo(IOReactorStatus.ACTIVE) > 0) {
             throw new IOReactorShutdownException("I/O reactor has been shut down");
         }
-        final int i = Math.abs(currentWorker.incrementAndGet() % workerCount);
+        final int i = workerSelector.select(workerStats);
         try {
             return dispatchers[i].connect(remoteEndpoint, remoteAddress, localAddress, timeout, attachment, callback);
         } catch (final IOReactorShutdownException ex) {
@@ -57,6 +57,10 @@ public final class IOReactorConfig {
     private final int sndBufSize;
     private final int rcvBufSize;
     private final int backlogSize;
+    private final TimeValue connectionAttemptDelay;
+    private final IOWorkerSelector workerSelector;
+    private final LocalTransport localTransport;
+    private final TimeValue selectSpinTime;
 
     IOReactorConfig(
             final long selectInterval,
@@ -68,7 +72,11 @@ public final class IOReactorConfig {
             final boolean tcpNoDelay,
             final int sndBufSize,
             final int rcvBufSize,
-            final int backlogSize) {
+            final int backlogSize,
+            final TimeValue connectionAttemptDelay,
+            final IOWorkerSelector workerSelector,
+            final LocalTransport localTransport,
+            final TimeValue selectSpinTime) {
         super();
         this.selectInterval = selectInterval;
         this.ioThreadCount = ioThreadCount;
@@ -80,6 +88,10 @@ public final class IOReactorConfig {
         this.sndBufSize = sndBufSize;
         this.rcvBufSize = rcvBufSize;
         this.backlogSize = backlogSize;
+        this.connectionAttemptDelay = connectionAttemptDelay;
+        this.workerSelector = workerSelector;
+        this.localTransport = localTransport;
+        this.selectSpinTime = selectSpinTime;
     }
 
     /**
@@ -195,6 +207,75 @@ public int getBacklogSize() {
         return backlogSize;
     }
 
+    /**
+     * Determines the delay between staggered connection attempts when the remote
+     * endpoint resolves to multiple addresses (Happy Eyeballs, RFC 8305). Another
+     * attempt to the next address is started if no connection has been established
+     * within this period of time or immediately once an attempt fails. The first
+     * attempt to succeed wins and all other attempts are cancelled.
+     * <p>
+     * A non-positive value disables concurrent attempts; addresses are then tried
+     * one after another as individual attempts fail. The connect timeout of
+     * a session request applies to all of its attempts together.
+     * <p>
+     * Multiple addresses are only known if the I/O reactor has been given an
+     * {@link org.apache.hc.core5.net.AsyncAddressResolver}, which the requester
+     * bootstraps do by default. Otherwise the remote endpoint is resolved to
+     * a single address and no concurrent attempts are made.
+     * <p>
+     * Default: {@code 250} milliseconds
+     *
+     * @since 5.0
+     */
+    public TimeValue getConnectionAttemptDelay() {
+        return connectionAttemptDelay;
+    }
+
+    /**
+     * Determines the strategy of distributing new I/O sessions across
+     * I/O dispatch workers.
+     * <p>
+     * Default: {@code null} (round robin)
+     *
+     * @see IOWorkerSelectors
+     * @since 5.0
+     */
+    public IOWorkerSelector getWorkerSelector() {
+        return workerSelector;
+    }
+
+    /**
+     * Determines the in-process transport I/O sessions get connected through.
+     * If set, the I/O reactor listens on and connects to endpoints of the local
+     * transport only and no sockets are opened.
+     * <p>
+     * Default: {@code null} (socket transport)
+     *
+     * @see LocalTransport
+     * @since 5.0
+     */
+    public LocalTransport getLocalTransport() {
+        return localTransport;
+    }
+
+    /**
+     * Determines the maximum period of time I/O dispatch threads busy-spin polling
+     * for I/O events with non-blocking select operations before falling back
+     * to a blocking select. Busy-spinning trades CPU time for lower latency of
+     * event delivery. The actual spin period adapts to the observed event rate:
+     * it shrinks while spinning yields no events and grows back as soon as
+     * events arrive while spinning.
+     * <p>
+     * Default: {@code 0} (disabled)
+     *
+     * @see IOWorkerStats#getSpinSelectCount()
+     * @see IOWorkerStats#getBlockingSelectCount()
+     * @since 5.0
+     */
+    public TimeValue getSelectSpinTime() {
+        return selectSpinTime;
+    }
+
     public static Builder custom() {
         return new Builder();
     }
@@ -211,7 +292,11 @@ public static Builder copy(final IOReactorConfig config) {
             .setTcpNoDelay(config.isTcpNoDelay())
             .setSndBufSize(config.getSndBufSize())
             .setRcvBufSize(config.getRcvBufSize())
-            .setBacklogSize(config.getBacklogSize());
+            .setBacklogSize(config.getBacklogSize())
+            .setConnectionAttemptDelay(config.getConnectionAttemptDelay())
+            .setWorkerSelector(config.getWorkerSelector())
+            .setLocalTransport(config.getLocalTransport())
+            .setSelectSpinTime(config.getSelectSpinTime());
     }
 
     public static class Builder {
@@ -226,6 +311,10 @@ public static class Builder {
         private int sndBufSize;
         private int rcvBufSize;
         private int backlogSize;
+        private TimeValue connectionAttemptDelay;
+        private IOWorkerSelector workerSelector;
+        private LocalTransport localTransport;
+        private TimeValue selectSpinTime;
 
         Builder() {
             this.selectInterval = 1000;
@@ -238,6 +327,7 @@ public static class Builder {
             this.sndBufSize = 0;
             this.rcvBufSize = 0;
             this.backlogSize = 0;
+            this.connectionAttemptDelay = TimeValue.ofMillis(250);
         }
 
         public Builder setSelectInterval(final long selectInterval) {
@@ -300,6 +390,38 @@ public Builder setBacklogSize(final int backlogSize) {
             return this;
         }
 
+        /**
+         * @since 5.0
+         */
+        public Builder setConnectionAttemptDelay(final TimeValue connectionAttemptDelay) {
+            this.connectionAttemptDelay = connectionAttemptDelay;
+            return this;
+        }
+
+        /**
+         * @since 5.0
+         */
+        public Builder setWorkerSelector(final IOWorkerSelector workerSelector) {
+            this.workerSelector = workerSelector;
+            return this;
+        }
+
+        /**
+         * @since 5.0
+         */
+        public Builder setLocalTransport(final LocalTransport localTransport) {
+            this.localTransport = localTransport;
+            return this;
+        }
+
+        /**
+         * @since 5.0
+         */
+        public Builder setSelectSpinTime(final TimeValue selectSpinTime) {
+            this.selectSpinTime = selectSpinTime;
+            return this;
+        }
+
         public IOReactorConfig build() {
             return new IOReactorConfig(
                     selectInterval, ioThreadCount,
@@ -308,7 +430,11 @@ public IOReactorConfig build() {
                     TimeValue.defaultsToNegativeOneMillisecond(soLinger),
                     soKeepAlive,
                     tcpNoDelay,
-                    sndBufSize, rcvBufSize, backlogSize);
+                    sndBufSize, rcvBufSize, backlogSize,
+                    TimeValue.defaultsToZeroMillis(connectionAttemptDelay),
+                    workerSelector,
+                    localTransport,
+                    TimeValue.defaultsToZeroMillis(selectSpinTime));
         }
 
     }
@@ -326,6 +452,10 @@ public String toString() {
                 .append(", sndBufSize=").append(this.sndBufSize)
                 .append(", rcvBufSize=").append(this.rcvBufSize)
                 .append(", backlogSize=").append(this.backlogSize)
+                .append(", connectionAttemptDelay=").append(this.connectionAttemptDelay)
+                .append(", workerSelector=").append(this.workerSelector)
+                .append(", localTransport=").append(this.localTransport)
+                .append(", selectSpinTime=").append(this.selectSpinTime)
                 .append("]");
         return builder.toString();
     }
@@ -30,10 +30,12 @@
 import java.io.IOException;
 import java.net.SocketAddress;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.util.Deque;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -49,26 +51,48 @@ class IOSessionImpl implements IOSession {
     private final String id;
     private final AtomicInteger status;
     private final Deque<Command> commandQueue;
+    private final SingleCoreIOReactor ioReactor;
+    // set while the session is queued for an interest ops update by the I/O reactor
+    final AtomicBoolean eventMaskPending;
 
     private volatile IOEventHandler eventHandler;
     private volatile int socketTimeout;
+    private volatile int eventMask;
 
     /**
      * Creates new instance of IOSessionImpl.
      *
      * @param key the selection key.
      * @param socketChannel the socket channel
+     * @param ioReactor the I/O reactor the selection key is registered with. If set,
+     *   interest ops updates made by the I/O dispatch thread are applied directly and
+     *   updates made by other threads are passed to the I/O reactor.
      *
-     * @since 4.1
+     * @since 5.0
      */
-    public IOSessionImpl(final SelectionKey key, final SocketChannel socketChannel) {
+    IOSessionImpl(final SelectionKey key, final SocketChannel socketChannel, final SingleCoreIOReactor ioReactor) {
         super();
         this.key = Args.notNull(key, "Selection key");
         this.channel = Args.notNull(socketChannel, "Socket channel");
+        this.ioReactor = ioReactor;
         this.commandQueue = new ConcurrentLinkedDeque<>();
         this.socketTimeout = 0;
         this.id = String.format("i/o-%08X", COUNT.getAndIncrement());
         this.status = new AtomicInteger(ACTIVE);
+        this.eventMaskPending = new AtomicBoolean(false);
+        this.eventMask = key.interestOps();
+    }
+
+    /**
+     * Creates new instance of IOSessionImpl.
+     *
+     * @param key the selection key.
+     * @param socketChannel the socket channel
+     *
+     * @since 4.1
+     */
+    public IOSessionImpl(final SelectionKey key, final SocketChannel socketChannel) {
+        this(key, socketChannel, null);
     }
 
     @Override
@@ -120,7 +144,7 @@ public SocketAddress getRemoteAddress() {
 
     @Override
     public int getEventMask() {
-        return this.key.interestOps();
+        return this.eventMask;
     }
 
     @Override
@@ -128,10 +152,13 @@ public void setEventMask(final int newValue) {
         if (this.status.get() == CLOSED) {
             return;
         }
-        synchronized (this.key) {
-            this.key.interestOps(newValue);
-            this.key.selector().wakeup();
+        synchronized (this) {
+            if (this.eventMask == newValue) {
+                return;
+            }
+            this.eventMask = newValue;
         }
+        updateEventMask();
     }
 
     @Override
@@ -139,10 +166,13 @@ public void setEvent(final int op) {
         if (this.status.get() == CLOSED) {
             return;
         }
-        synchronized (this.key) {
-            this.key.interestOps(this.key.interestOps() | op);
-            this.key.selector().wakeup();
+        synchronized (this) {
+            if ((this.eventMask & op) == op) {
+                return;
+            }
+            this.eventMask |= op;
         }
+        updateEventMask();
     }
 
     @Override
@@ -150,9 +180,38 @@ public void clearEvent(final int op) {
         if (this.status.get() == CLOSED) {
             return;
         }
-        synchronized (this.key) {
-            this.key.interestOps(this.key.interestOps() & ~op);
-            this.key.selector().wakeup();
+        synchronized (this) {
+            if ((this.eventMask & op) == 0) {
+                return;
+            }
+            this.eventMask &= ~op;
+        }
+        updateEventMask();
+    }
+
+    private void updateEventMask() {
+        if (this.ioReactor == null) {
+            synchronized (this.key) {
+                applyEventMask();
+                this.key.selector().wakeup();
+            }
+        } else if (this.ioReactor.isDispatchThread()) {
+            // No need to wake up the selector: the new interest ops take effect
+            // with the next select operation of this very thread
+            applyEventMask();
+        } else if (this.eventMaskPending.compareAndSet(false, true)) {
+            this.ioReactor.enqueueEventMaskUpdate(this);
+        }
+    }
+
+    /**
+     * Applies the current event mask to the selection key.
+     */
+    void applyEventMask() {
+        try {
+            this.key.interestOps(this.eventMask);
+        } catch (final CancelledKeyException ignore) {
+            // the session is being closed
         }
     }
 
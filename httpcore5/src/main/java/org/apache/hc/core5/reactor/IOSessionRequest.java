@@ -28,6 +28,7 @@
 package org.apache.hc.core5.reactor;
 
 import java.net.SocketAddress;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -49,8 +50,12 @@ final class IOSessionRequest implements Future<IOSession> {
     final TimeValue timeout;
     final Object attachment;
     final BasicFuture<IOSession> future;
+    final long deadline;
 
     private final AtomicReference<GracefullyCloseable> closeableRef;
+    private final AtomicReference<Future<?>> resolutionRef;
+
+    private volatile List<SocketAddress> resolvedAddresses;
 
     public IOSessionRequest(
             final NamedEndpoint remoteEndpoint,
@@ -66,17 +71,22 @@ public IOSessionRequest(
         this.timeout = timeout;
         this.attachment = attachment;
         this.future = new BasicFuture<>(callback);
+        final int timeoutMillis = timeout.toMillisIntBound();
+        this.deadline = timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : 0;
         this.closeableRef = new AtomicReference<>(null);
+        this.resolutionRef = new AtomicReference<>(null);
     }
 
     public void completed(final TlsCapableIOSession ioSession) {
         future.completed(ioSession);
         closeableRef.set(null);
+        cancelResolution();
     }
 
     public void failed(final Exception cause) {
         future.failed(cause);
         closeableRef.set(null);
+        cancelResolution();
     }
 
     public boolean cancel() {
@@ -85,9 +95,47 @@ public boolean cancel() {
         if (cancelled && closeable != null) {
             closeable.shutdown(ShutdownType.IMMEDIATE);
         }
+        cancelResolution();
         return cancelled;
     }
 
+    private void cancelResolution() {
+        final Future<?> resolution = resolutionRef.getAndSet(null);
+        if (resolution != null) {
+            resolution.cancel(true);
+        }
+    }
+
+    /**
+     * Assigns the name resolution in progress, which gets cancelled
+     * along with the request.
+     */
+    void resolving(final Future<?> resolution) {
+        resolutionRef.set(resolution);
+        if (future.isDone()) {
+            cancelResolution();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the connect timeout, which covers name resolution
+     * as well as all connection attempts, has elapsed at the given time.
+     */
+    boolean isExpired(final long now) {
+        return deadline > 0 && now >= deadline;
+    }
+
+    /**
+     * Returns the connect timeout remaining after the given point in time,
+     * which is at least one millisecond, or zero if the request has no timeout.
+     */
+    int getRemainingTimeout(final long since) {
+        if (deadline <= 0) {
+            return 0;
+        }
+        return (int) Math.min(Math.max(deadline - since, 1), Integer.MAX_VALUE);
+    }
+
     @Override
     public boolean cancel(final boolean mayInterruptIfRunning) {
         return cancel();
@@ -98,6 +146,18 @@ public boolean isCancelled() {
         return future.isCancelled();
     }
 
+    /**
+     * Assigns addresses the remote endpoint has been resolved to in the order
+     * connection attempts are expected to be made.
+     */
+    void resolved(final List<SocketAddress> addresses) {
+        this.resolvedAddresses = addresses;
+    }
+
+    List<SocketAddress> getResolvedAddresses() {
+        return resolvedAddresses;
+    }
+
     public void assign(final GracefullyCloseable closeable) {
         closeableRef.set(closeable);
     }
@@ -0,0 +1,52 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.reactor;
+
+import java.util.List;
+
+/**
+ * Strategy of distributing new I/O sessions across I/O dispatch workers.
+ * <p>
+ * Implementations must be thread safe.
+ *
+ * @since 5.0
+ *
+ * @see IOWorkerSelectors
+ */
+public interface IOWorkerSelector {
+
+    /**
+     * Selects the worker a new I/O session is to be assigned to. I/O reactors
+     * fall back onto round-robin selection if the selector throws an exception
+     * or returns an index out of range.
+     *
+     * @param workers read-only list of load statistics of all workers.
+     * @return index of the selected worker.
+     */
+    int select(List<IOWorkerStats> workers);
+
+}
@@ -0,0 +1,157 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.reactor;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Standard {@link IOWorkerSelector} implementations.
+ *
+ * @since 5.0
+ */
+public final class IOWorkerSelectors {
+
+    private IOWorkerSelectors() {
+        // Do not allow utility class to be instantiated.
+    }
+
+    /**
+     * Returns a selector that assigns sessions to workers in turn regardless
+     * of their load.
+     */
+    public static IOWorkerSelector roundRobin() {
+        return new RoundRobinSelector();
+    }
+
+    /**
+     * Returns a selector that assigns sessions to the worker with the fewest
+     * active and pending sessions.
+     */
+    public static IOWorkerSelector leastSessions() {
+        return new LeastSessionsSelector();
+    }
+
+    /**
+     * Returns a selector that assigns sessions to the worker with the lowest
+     * recent I/O load. Workers with the same load are compared by the number
+     * of active and pending sessions.
+     */
+    public static IOWorkerSelector leastLoad() {
+        return new LeastLoadSelector();
+    }
+
+    /**
+     * Returns a selector that delegates to the given selector and falls back onto
+     * round-robin selection if the selector fails or returns an invalid index.
+     */
+    static IOWorkerSelector guarded(final IOWorkerSelector selector) {
+        return selector instanceof GuardedSelector ? selector : new GuardedSelector(selector);
+    }
+
+    static final class RoundRobinSelector implements IOWorkerSelector {
+
+        private final AtomicInteger current = new AtomicInteger(0);
+
+        @Override
+        public int select(final List<IOWorkerStats> workers) {
+            return Math.abs(current.incrementAndGet() % workers.size());
+        }
+
+    }
+
+    static abstract class AbstractLeastSelector implements IOWorkerSelector {
+
+        // Comparison starts at a different worker each time so that equally
+        // loaded workers get picked in turn
+        private final AtomicInteger offset = new AtomicInteger(0);
+
+        abstract int compare(IOWorkerStats worker1, IOWorkerStats worker2);
+
+        @Override
+        public final int select(final List<IOWorkerStats> workers) {
+            final int count = workers.size();
+            final int start = Math.abs(offset.incrementAndGet() % count);
+            int selected = start;
+            for (int n = 1; n < count; n++) {
+                final int i = (start + n) % count;
+                if (compare(workers.get(i), workers.get(selected)) < 0) {
+                    selected = i;
+                }
+            }
+            return selected;
+        }
+
+    }
+
+    static final class LeastSessionsSelector extends AbstractLeastSelector {
+
+        @Override
+        int compare(final IOWorkerStats worker1, final IOWorkerStats worker2) {
+            final int sessions1 = worker1.getSessionCount() + worker1.getPendingCount();
+            final int sessions2 = worker2.getSessionCount() + worker2.getPendingCount();
+            return sessions1 < sessions2 ? -1 : (sessions1 == sessions2 ? 0 : 1);
+        }
+
+    }
+
+    static final class LeastLoadSelector extends AbstractLeastSelector {
+
+        private final LeastSessionsSelector sessionComparison = new LeastSessionsSelector();
+
+        @Override
+        int compare(final IOWorkerStats worker1, final IOWorkerStats worker2) {
+            final int result = Double.compare(worker1.getRecentLoad(), worker2.getRecentLoad());
+            return result != 0 ? result : sessionComparison.compare(worker1, worker2);
+        }
+
+    }
+
+    static final class GuardedSelector implements IOWorkerSelector {
+
+        private final IOWorkerSelector selector;
+        private final RoundRobinSelector fallback;
+
+        GuardedSelector(final IOWorkerSelector selector) {
+            this.selector = selector;
+            this.fallback = new RoundRobinSelector();
+        }
+
+        @Override
+        public int select(final List<IOWorkerStats> workers) {
+            final int i;
+            try {
+                i = selector.select(workers);
+            } catch (final RuntimeException ex) {
+                return fallback.select(workers);
+            }
+            return i >= 0 && i < workers.size() ? i : fallback.select(workers);
+        }
+
+    }
+
+}
@@ -40,17 +40,30 @@ final class InternalConnectChannel extends InternalChannel {
     private final SocketChannel socketChannel;
     private final IOSessionRequest sessionRequest;
     private final InternalDataChannelFactory dataChannelFactory;
+    private final ConnectionAttempts attempts;
+    private final long startTime;
 
     InternalConnectChannel(
             final SelectionKey key,
             final SocketChannel socketChannel,
             final IOSessionRequest sessionRequest,
-            final InternalDataChannelFactory dataChannelFactory) {
+            final InternalDataChannelFactory dataChannelFactory,
+            final ConnectionAttempts attempts) {
         super();
         this.key = key;
         this.socketChannel = socketChannel;
         this.sessionRequest = sessionRequest;
         this.dataChannelFactory = dataChannelFactory;
+        this.attempts = attempts;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    InternalConnectChannel(
+            final SelectionKey key,
+            final SocketChannel socketChannel,
+            final IOSessionRequest sessionRequest,
+            final InternalDataChannelFactory dataChannelFactory) {
+        this(key, socketChannel, sessionRequest, dataChannelFactory, null);
     }
 
     @Override
@@ -62,6 +75,10 @@ void onIOEvent(final int readyOps) throws IOException {
             //check out connectTimeout
             final long now = System.currentTimeMillis();
             if (checkTimeout(now)) {
+                if (attempts != null && !attempts.connected(this)) {
+                    close();
+                    return;
+                }
                 final InternalDataChannel dataChannel = dataChannelFactory.create(
                         key,
                         socketChannel,
@@ -76,18 +93,28 @@ void onIOEvent(final int readyOps) throws IOException {
 
     @Override
     int getTimeout() {
-        return sessionRequest.timeout.toMillisIntBound();
+        // the connect timeout also covers name resolution and earlier attempts
+        return sessionRequest.getRemainingTimeout(startTime);
     }
 
     @Override
     void onTimeout() throws IOException {
-        sessionRequest.failed(new SocketTimeoutException());
+        final SocketTimeoutException cause = new SocketTimeoutException();
+        if (attempts != null) {
+            attempts.failed(this, cause);
+        } else {
+            sessionRequest.failed(cause);
+        }
         close();
     }
 
     @Override
     void onException(final Exception cause) {
-        sessionRequest.failed(cause);
+        if (attempts != null) {
+            attempts.failed(this, cause);
+        } else {
+            sessionRequest.failed(cause);
+        }
     }
 
     @Override
@@ -0,0 +1,102 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One end of an in-memory duplex connection made of two {@link LocalPipe}s.
+ */
+final class LocalChannel implements ByteChannel {
+
+    final LocalPipe inbound;
+    final LocalPipe outbound;
+    private final SocketAddress localAddress;
+    private final SocketAddress remoteAddress;
+    private final AtomicBoolean open;
+
+    LocalChannel(
+            final LocalPipe inbound,
+            final LocalPipe outbound,
+            final SocketAddress localAddress,
+            final SocketAddress remoteAddress) {
+        this.inbound = inbound;
+        this.outbound = outbound;
+        this.localAddress = localAddress;
+        this.remoteAddress = remoteAddress;
+        this.open = new AtomicBoolean(true);
+    }
+
+    SocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    SocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        if (!open.get()) {
+            throw new ClosedChannelException();
+        }
+        return inbound.read(dst);
+    }
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        if (!open.get()) {
+            throw new ClosedChannelException();
+        }
+        return outbound.write(src);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open.get();
+    }
+
+    @Override
+    public void close() {
+        if (open.compareAndSet(true, false)) {
+            outbound.closeWrite();
+            inbound.closeRead();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return localAddress + "<->" + remoteAddress;
+    }
+
+}
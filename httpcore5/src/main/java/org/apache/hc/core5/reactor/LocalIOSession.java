@@ -0,0 +1,257 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import java.net.SocketAddress;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectionKey;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.core5.io.ShutdownType;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * {@link IOSession} backed by a {@link LocalChannel}. Readiness of the channel
+ * is tracked by the session itself instead of a {@link java.nio.channels.Selector};
+ * the owning I/O reactor gets signalled whenever the session may have become
+ * ready for one of the operations it is interested in.
+ */
+final class LocalIOSession implements IOSession {
+
+    private final static AtomicLong COUNT = new AtomicLong(0);
+
+    private final LocalChannel channel;
+    private final SingleCoreIOReactor ioReactor;
+    private final String id;
+    private final AtomicInteger status;
+    private final Deque<Command> commandQueue;
+
+    final AtomicBoolean queued;
+
+    private volatile IOEventHandler eventHandler;
+    private volatile int socketTimeout;
+    private volatile int eventMask;
+    private volatile InternalChannel attachment;
+
+    LocalIOSession(final LocalChannel channel, final SingleCoreIOReactor ioReactor) {
+        super();
+        this.channel = Args.notNull(channel, "Local channel");
+        this.ioReactor = Args.notNull(ioReactor, "I/O reactor");
+        this.commandQueue = new ConcurrentLinkedDeque<>();
+        this.socketTimeout = 0;
+        this.eventMask = SelectionKey.OP_READ;
+        this.id = String.format("i/o-local-%08X", COUNT.getAndIncrement());
+        this.status = new AtomicInteger(ACTIVE);
+        this.queued = new AtomicBoolean(false);
+    }
+
+    /**
+     * Attaches the internal channel I/O events get dispatched to
+     * and starts tracking readiness of the underlying channel.
+     */
+    void attach(final InternalChannel attachment) {
+        this.attachment = attachment;
+        this.channel.inbound.setReader(this);
+        this.channel.outbound.setWriter(this);
+    }
+
+    InternalChannel attachment() {
+        return this.attachment;
+    }
+
+    int readyOps() {
+        int ops = 0;
+        if (this.channel.inbound.isReadable()) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (this.channel.outbound.isWritable()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        return ops;
+    }
+
+    void signal() {
+        if (this.status.get() != CLOSED && this.attachment != null && (this.eventMask & readyOps()) != 0) {
+            this.ioReactor.signal(this);
+        }
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public IOEventHandler getHandler() {
+        return this.eventHandler;
+    }
+
+    @Override
+    public void setHandler(final IOEventHandler handler) {
+        this.eventHandler = handler;
+    }
+
+    @Override
+    public void addLast(final Command command) {
+        commandQueue.addLast(command);
+        setEvent(SelectionKey.OP_WRITE);
+    }
+
+    @Override
+    public void addFirst(final Command command) {
+        commandQueue.addFirst(command);
+        setEvent(SelectionKey.OP_WRITE);
+    }
+
+    @Override
+    public Command getCommand() {
+        return commandQueue.poll();
+    }
+
+    @Override
+    public ByteChannel channel() {
+        return this.channel;
+    }
+
+    @Override
+    public SocketAddress getLocalAddress() {
+        return this.channel.getLocalAddress();
+    }
+
+    @Override
+    public SocketAddress getRemoteAddress() {
+        return this.channel.getRemoteAddress();
+    }
+
+    @Override
+    public int getEventMask() {
+        return this.eventMask;
+    }
+
+    @Override
+    public void setEventMask(final int newValue) {
+        if (this.status.get() == CLOSED) {
+            return;
+        }
+        this.eventMask = newValue;
+        signal();
+    }
+
+    @Override
+    public void setEvent(final int op) {
+        if (this.status.get() == CLOSED) {
+            return;
+        }
+        synchronized (this) {
+            this.eventMask = this.eventMask | op;
+        }
+        signal();
+    }
+
+    @Override
+    public void clearEvent(final int op) {
+        if (this.status.get() == CLOSED) {
+            return;
+        }
+        synchronized (this) {
+            this.eventMask = this.eventMask & ~op;
+        }
+    }
+
+    @Override
+    public int getSocketTimeout() {
+        return this.socketTimeout;
+    }
+
+    @Override
+    public void setSocketTimeout(final int timeout) {
+        this.socketTimeout = timeout;
+    }
+
+    @Override
+    public void close() {
+        if (this.status.compareAndSet(ACTIVE, CLOSED)) {
+            this.channel.close();
+            this.ioReactor.closed(this);
+        }
+    }
+
+    @Override
+    public int getStatus() {
+        return this.status.get();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.status.get() == CLOSED || !this.channel.isOpen();
+    }
+
+    @Override
+    public void shutdown(final ShutdownType shutdownType) {
+        close();
+    }
+
+    private static void formatOps(final StringBuilder buffer, final int ops) {
+        if ((ops & SelectionKey.OP_READ) > 0) {
+            buffer.append('r');
+        }
+        if ((ops & SelectionKey.OP_WRITE) > 0) {
+            buffer.append('w');
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append(id).append("[");
+        switch (this.status.get()) {
+        case ACTIVE:
+            buffer.append("ACTIVE");
+            break;
+        case CLOSING:
+            buffer.append("CLOSING");
+            break;
+        case CLOSED:
+            buffer.append("CLOSED");
+            break;
+        }
+        buffer.append("][");
+        if (this.status.get() != CLOSED) {
+            formatOps(buffer, this.eventMask);
+            buffer.append(":");
+            formatOps(buffer, readyOps());
+        }
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.hc.core5.function.Callback;
+import org.apache.hc.core5.io.ShutdownType;
+
+final class LocalListenerEndpoint implements ListenerEndpoint {
+
+    private final LocalTransport transport;
+    private final InetSocketAddress address;
+    private final Callback<LocalChannel> acceptor;
+    private final AtomicBoolean closed;
+
+    LocalListenerEndpoint(
+            final LocalTransport transport,
+            final InetSocketAddress address,
+            final Callback<LocalChannel> acceptor) {
+        super();
+        this.transport = transport;
+        this.address = address;
+        this.acceptor = acceptor;
+        this.closed = new AtomicBoolean(false);
+    }
+
+    void accept(final LocalChannel channel) {
+        acceptor.execute(channel);
+    }
+
+    @Override
+    public SocketAddress getAddress() {
+        return this.address;
+    }
+
+    int getPort() {
+        return this.address.getPort();
+    }
+
+    @Override
+    public String toString() {
+        return "local endpoint: " + address;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.closed.get();
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            transport.unbind(this);
+        }
+    }
+
+    @Override
+    public void shutdown(final ShutdownType shutdownType) {
+        close();
+    }
+
+}
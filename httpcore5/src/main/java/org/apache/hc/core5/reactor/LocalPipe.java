@@ -0,0 +1,143 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Bounded in-memory byte pipe with a single writer and a single reader.
+ * Sessions at both ends get signalled whenever the pipe becomes readable
+ * or writable.
+ */
+final class LocalPipe {
+
+    private final byte[] buffer;
+
+    private int readPos;
+    private int count;
+    private boolean writeClosed;
+    private boolean readClosed;
+
+    private volatile LocalIOSession reader;
+    private volatile LocalIOSession writer;
+
+    LocalPipe(final int capacity) {
+        this.buffer = new byte[capacity];
+    }
+
+    void setReader(final LocalIOSession reader) {
+        this.reader = reader;
+    }
+
+    void setWriter(final LocalIOSession writer) {
+        this.writer = writer;
+    }
+
+    int write(final ByteBuffer src) throws IOException {
+        final int n;
+        synchronized (this) {
+            if (this.readClosed) {
+                throw new IOException("Broken pipe");
+            }
+            n = Math.min(src.remaining(), this.buffer.length - this.count);
+            if (n > 0) {
+                final int writePos = (this.readPos + this.count) % this.buffer.length;
+                final int chunk = Math.min(n, this.buffer.length - writePos);
+                src.get(this.buffer, writePos, chunk);
+                if (chunk < n) {
+                    src.get(this.buffer, 0, n - chunk);
+                }
+                this.count += n;
+            }
+        }
+        if (n > 0) {
+            signal(this.reader);
+        }
+        return n;
+    }
+
+    int read(final ByteBuffer dst) {
+        final int n;
+        synchronized (this) {
+            if (this.count == 0) {
+                return this.writeClosed ? -1 : 0;
+            }
+            n = Math.min(dst.remaining(), this.count);
+            if (n > 0) {
+                final int chunk = Math.min(n, this.buffer.length - this.readPos);
+                dst.put(this.buffer, this.readPos, chunk);
+                if (chunk < n) {
+                    dst.put(this.buffer, 0, n - chunk);
+                }
+                this.readPos = (this.readPos + n) % this.buffer.length;
+                this.count -= n;
+            }
+        }
+        if (n > 0) {
+            signal(this.writer);
+        }
+        return n;
+    }
+
+    synchronized boolean isReadable() {
+        return this.count > 0 || this.writeClosed;
+    }
+
+    synchronized boolean isWritable() {
+        return this.count < this.buffer.length || this.readClosed;
+    }
+
+    /**
+     * Closes the writing end; the reader gets end of stream once all pending data has been read.
+     */
+    void closeWrite() {
+        synchronized (this) {
+            this.writeClosed = true;
+        }
+        signal(this.reader);
+    }
+
+    /**
+     * Closes the reading end; pending data gets discarded and any further write fails.
+     */
+    void closeRead() {
+        synchronized (this) {
+            this.readClosed = true;
+            this.count = 0;
+        }
+        signal(this.writer);
+    }
+
+    private static void signal(final LocalIOSession session) {
+        if (session != null) {
+            session.signal();
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.UnsupportedAddressTypeException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.function.Callback;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * In-process transport that connects I/O sessions through pairs of in-memory
+ * pipes instead of sockets. Sessions of the local transport are driven by the same
+ * I/O dispatch event loop as socket based sessions, which makes it possible to
+ * exercise and measure protocol handlers without kernel socket overhead and
+ * without allocating real ports.
+ * <p>
+ * I/O reactors configured to use the same instance of this class
+ * (see {@link IOReactorConfig.Builder#setLocalTransport(LocalTransport)})
+ * can connect to each other but cannot accept or initiate socket connections.
+ * Endpoints are identified by port only; host part of socket addresses is ignored.
+ * Listening on port {@code 0} binds the endpoint to an unused ephemeral port.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public final class LocalTransport {
+
+    private static final int EPHEMERAL_PORT_MIN = 49152;
+    private static final int EPHEMERAL_PORT_MAX = 65535;
+
+    private final int bufferSize;
+    private final ConcurrentMap<Integer, LocalListenerEndpoint> endpoints;
+    private final AtomicInteger nextPort;
+
+    /**
+     * @param bufferSize the capacity of the in-memory pipe in each direction of a connection.
+     */
+    public LocalTransport(final int bufferSize) {
+        this.bufferSize = Args.positive(bufferSize, "Buffer size");
+        this.endpoints = new ConcurrentHashMap<>();
+        this.nextPort = new AtomicInteger(EPHEMERAL_PORT_MIN);
+    }
+
+    public LocalTransport() {
+        this(64 * 1024);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    private static int getPort(final SocketAddress address) {
+        if (address instanceof InetSocketAddress) {
+            return ((InetSocketAddress) address).getPort();
+        }
+        throw new UnsupportedAddressTypeException();
+    }
+
+    private int nextEphemeralPort() {
+        for (;;) {
+            final int current = nextPort.get();
+            final int next = current < EPHEMERAL_PORT_MAX ? current + 1 : EPHEMERAL_PORT_MIN;
+            if (nextPort.compareAndSet(current, next)) {
+                return current;
+            }
+        }
+    }
+
+    LocalListenerEndpoint bind(final SocketAddress address, final Callback<LocalChannel> acceptor) throws IOException {
+        final int port = address != null ? getPort(address) : 0;
+        if (port != 0) {
+            final LocalListenerEndpoint endpoint = new LocalListenerEndpoint(
+                    this, new InetSocketAddress(InetAddress.getLoopbackAddress(), port), acceptor);
+            if (endpoints.putIfAbsent(port, endpoint) != null) {
+                throw new BindException("Address already in use: " + port);
+            }
+            return endpoint;
+        }
+        for (int i = EPHEMERAL_PORT_MIN; i <= EPHEMERAL_PORT_MAX; i++) {
+            final int ephemeralPort = nextEphemeralPort();
+            final LocalListenerEndpoint endpoint = new LocalListenerEndpoint(
+                    this, new InetSocketAddress(InetAddress.getLoopbackAddress(), ephemeralPort), acceptor);
+            if (endpoints.putIfAbsent(ephemeralPort, endpoint) == null) {
+                return endpoint;
+            }
+        }
+        throw new BindException("No ephemeral port available");
+    }
+
+    void unbind(final LocalListenerEndpoint endpoint) {
+        endpoints.remove(endpoint.getPort(), endpoint);
+    }
+
+    LocalChannel connect(final SocketAddress remoteAddress) throws IOException {
+        final int port = getPort(remoteAddress);
+        final LocalListenerEndpoint endpoint = endpoints.get(port);
+        if (endpoint == null || endpoint.isClosed()) {
+            throw new ConnectException("Connection refused: " + remoteAddress);
+        }
+        final SocketAddress serverAddress = endpoint.getAddress();
+        final SocketAddress clientAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), nextEphemeralPort());
+        final LocalPipe upstream = new LocalPipe(bufferSize);
+        final LocalPipe downstream = new LocalPipe(bufferSize);
+        final LocalChannel clientChannel = new LocalChannel(downstream, upstream, clientAddress, serverAddress);
+        final LocalChannel serverChannel = new LocalChannel(upstream, downstream, serverAddress, clientAddress);
+        endpoint.accept(serverChannel);
+        return clientChannel;
+    }
+
+    @Override
+    public String toString() {
+        return "[bufferSize=" + bufferSize + ", endpoints=" + endpoints.keySet() + "]";
+    }
+
+}
@@ -28,41 +28,73 @@
 package org.apache.hc.core5.reactor;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.function.Callback;
 import org.apache.hc.core5.function.Decorator;
 import org.apache.hc.core5.io.ShutdownType;
+import org.apache.hc.core5.net.AsyncAddressResolver;
 import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.net.ResolvedAddresses;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.TimeValue;
 
-class SingleCoreIOReactor extends AbstractSingleCoreIOReactor implements ConnectionInitiator {
+class SingleCoreIOReactor extends AbstractSingleCoreIOReactor implements ConnectionInitiator, IOWorkerStats {
 
     private static final int MAX_CHANNEL_REQUESTS = 10000;
+    private static final double LOAD_DECAY = 0.8;
+    // The spin period shrinks down to this fraction of the configured maximum
+    private static final int MIN_SPIN_SHIFT = 6;
 
     private final IOEventHandlerFactory eventHandlerFactory;
     private final IOReactorConfig reactorConfig;
     private final Decorator<IOSession> ioSessionDecorator;
     private final IOSessionListener sessionListener;
     private final Callback<IOSession> sessionShutdownCallback;
+    private final AsyncAddressResolver addressResolver;
     private final Queue<InternalDataChannel> closedSessions;
     private final Queue<SocketChannel> channelQueue;
     private final Queue<IOSessionRequest> requestQueue;
     private final AtomicBoolean shutdownInitiated;
+    private final List<ConnectionAttempts> pendingAttempts;
+    private final Set<IOSessionRequest> pendingResolutions;
+    private final AtomicInteger sessionCount;
+    private final AtomicInteger pendingCount;
+    private final LocalTransport localTransport;
+    private final Queue<LocalChannel> localChannelQueue;
+    private final Queue<LocalIOSession> localReadyQueue;
+    private final List<LocalIOSession> localReadyList;
+    private final Set<LocalIOSession> localSessions;
+    private final Queue<IOSessionImpl> eventMaskQueue;
+    private final AtomicBoolean wakeupPending;
+    private final long maxSpinNanos;
+
+    private volatile Thread thread;
+    private volatile double recentLoad;
+    private volatile long spinSelectCount;
+    private volatile long blockingSelectCount;
+    private long spinNanos;
 
     private volatile long lastTimeoutCheck;
 
@@ -72,17 +104,57 @@ class SingleCoreIOReactor extends AbstractSingleCoreIOReactor implements Connect
             final IOReactorConfig reactorConfig,
             final Decorator<IOSession> ioSessionDecorator,
             final IOSessionListener sessionListener,
-            final Callback<IOSession> sessionShutdownCallback) {
+            final Callback<IOSession> sessionShutdownCallback,
+            final AsyncAddressResolver addressResolver) {
         super(auditLog);
         this.eventHandlerFactory = Args.notNull(eventHandlerFactory, "Event handler factory");
         this.reactorConfig = Args.notNull(reactorConfig, "I/O reactor config");
         this.ioSessionDecorator = ioSessionDecorator;
         this.sessionListener = sessionListener;
         this.sessionShutdownCallback = sessionShutdownCallback;
+        this.addressResolver = addressResolver;
         this.shutdownInitiated = new AtomicBoolean(false);
         this.closedSessions = new ConcurrentLinkedQueue<>();
         this.channelQueue = new ConcurrentLinkedQueue<>();
         this.requestQueue = new ConcurrentLinkedQueue<>();
+        this.pendingAttempts = new ArrayList<>();
+        this.pendingResolutions = Collections.newSetFromMap(new ConcurrentHashMap<IOSessionRequest, Boolean>());
+        this.sessionCount = new AtomicInteger(0);
+        this.pendingCount = new AtomicInteger(0);
+        this.localTransport = reactorConfig.getLocalTransport();
+        this.localChannelQueue = new ConcurrentLinkedQueue<>();
+        this.localReadyQueue = new ConcurrentLinkedQueue<>();
+        this.localReadyList = new ArrayList<>();
+        this.localSessions = Collections.newSetFromMap(new ConcurrentHashMap<LocalIOSession, Boolean>());
+        this.eventMaskQueue = new ConcurrentLinkedQueue<>();
+        this.wakeupPending = new AtomicBoolean(false);
+        this.maxSpinNanos = reactorConfig.getSelectSpinTime().toNanos();
+        this.spinNanos = this.maxSpinNanos;
+    }
+
+    @Override
+    public int getSessionCount() {
+        return this.sessionCount.get();
+    }
+
+    @Override
+    public int getPendingCount() {
+        return this.pendingCount.get();
+    }
+
+    @Override
+    public double getRecentLoad() {
+        return this.recentLoad;
+    }
+
+    @Override
+    public long getSpinSelectCount() {
+        return this.spinSelectCount;
+    }
+
+    @Override
+    public long getBlockingSelectCount() {
+        return this.blockingSelectCount;
     }
 
     void enqueueChannel(final SocketChannel socketChannel) throws IOReactorShutdownException {
@@ -90,23 +162,82 @@ void enqueueChannel(final SocketChannel socketChannel) throws IOReactorShutdownE
         if (getStatus().compareTo(IOReactorStatus.ACTIVE) > 0) {
             throw new IOReactorShutdownException("I/O reactor has been shut down");
         }
+        this.pendingCount.incrementAndGet();
         this.channelQueue.add(socketChannel);
         this.selector.wakeup();
     }
 
+    void enqueueLocalChannel(final LocalChannel localChannel) throws IOReactorShutdownException {
+        Args.notNull(localChannel, "Local channel");
+        if (getStatus().compareTo(IOReactorStatus.ACTIVE) > 0) {
+            throw new IOReactorShutdownException("I/O reactor has been shut down");
+        }
+        this.pendingCount.incrementAndGet();
+        this.localChannelQueue.add(localChannel);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Schedules the local session for event processing. The selector is woken up
+     * only if the session is signalled from outside of the I/O dispatch thread.
+     */
+    void signal(final LocalIOSession localSession) {
+        if (localSession.queued.compareAndSet(false, true)) {
+            this.localReadyQueue.add(localSession);
+            if (Thread.currentThread() != this.thread) {
+                this.selector.wakeup();
+            }
+        }
+    }
+
+    boolean isDispatchThread() {
+        return Thread.currentThread() == this.thread;
+    }
+
+    /**
+     * Queues interest ops update of the session made outside of the I/O dispatch thread.
+     * Updates queued since the last select operation share a single selector wakeup.
+     */
+    void enqueueEventMaskUpdate(final IOSessionImpl ioSession) {
+        this.eventMaskQueue.add(ioSession);
+        if (this.wakeupPending.compareAndSet(false, true)) {
+            this.selector.wakeup();
+        }
+    }
+
+    private void processEventMaskUpdates() {
+        this.wakeupPending.set(false);
+        IOSessionImpl ioSession;
+        while ((ioSession = this.eventMaskQueue.poll()) != null) {
+            ioSession.eventMaskPending.set(false);
+            ioSession.applyEventMask();
+        }
+    }
+
+    void closed(final LocalIOSession localSession) {
+        if (this.localSessions.remove(localSession) && Thread.currentThread() != this.thread) {
+            this.selector.wakeup();
+        }
+    }
+
     @Override
     void doTerminate() {
         closePendingChannels();
         closePendingConnectionRequests();
+        closeLocalSessions();
         processClosedSessions();
     }
 
     @Override
     void doExecute() throws IOException {
-        final long selectTimeout = this.reactorConfig.getSelectInterval();
+        final long selectInterval = this.reactorConfig.getSelectInterval();
+        this.thread = Thread.currentThread();
         while (!Thread.currentThread().isInterrupted()) {
 
-            final int readyCount = this.selector.select(selectTimeout);
+            final long selectTimeout = this.pendingAttempts.isEmpty() ? selectInterval : nextAttemptTimeout(selectInterval);
+            final int readyCount = select(selectTimeout);
+            this.recentLoad = this.recentLoad * LOAD_DECAY + readyCount * (1 - LOAD_DECAY);
+            processEventMaskUpdates();
 
             if (getStatus().compareTo(IOReactorStatus.SHUTTING_DOWN) >= 0) {
                 if (this.shutdownInitiated.compareAndSet(false, true)) {
@@ -122,6 +253,7 @@ void doExecute() throws IOException {
             if (readyCount > 0) {
                 processEvents(this.selector.selectedKeys());
             }
+            processLocalEvents();
 
             validateActiveChannels();
 
@@ -132,10 +264,12 @@ void doExecute() throws IOException {
             if (getStatus().compareTo(IOReactorStatus.ACTIVE) == 0) {
                 processPendingChannels();
                 processPendingConnectionRequests();
+                processPendingAttempts();
             }
 
             // Exit select loop if graceful shutdown has been completed
-            if (getStatus().compareTo(IOReactorStatus.SHUTTING_DOWN) == 0 && this.selector.keys().isEmpty()) {
+            if (getStatus().compareTo(IOReactorStatus.SHUTTING_DOWN) == 0
+                    && this.selector.keys().isEmpty() && this.localSessions.isEmpty()) {
                 break;
             }
             if (getStatus().compareTo(IOReactorStatus.SHUT_DOWN) == 0) {
@@ -144,6 +278,41 @@ void doExecute() throws IOException {
         }
     }
 
+    private boolean hasPendingWork() {
+        return !this.localReadyQueue.isEmpty()
+                || !this.eventMaskQueue.isEmpty()
+                || !this.channelQueue.isEmpty()
+                || !this.localChannelQueue.isEmpty()
+                || !this.requestQueue.isEmpty()
+                || !this.closedSessions.isEmpty()
+                || getStatus().compareTo(IOReactorStatus.ACTIVE) != 0;
+    }
+
+    private int select(final long selectTimeout) throws IOException {
+        // Do not block if local sessions are ready for processing
+        if (!this.localReadyQueue.isEmpty()) {
+            return this.selector.selectNow();
+        }
+        if (this.spinNanos > 0) {
+            final long deadline = System.nanoTime() + this.spinNanos;
+            do {
+                final int readyCount = this.selector.selectNow();
+                this.spinSelectCount++;
+                // A non-blocking select clears pending wakeups. Pending work
+                // must be checked after the select operation
+                if (readyCount > 0 || hasPendingWork()) {
+                    // Events keep arriving: spin longer
+                    this.spinNanos = Math.min(this.spinNanos << 1, this.maxSpinNanos);
+                    return readyCount;
+                }
+            } while (System.nanoTime() - deadline < 0);
+            // Spinning was of no use: back off
+            this.spinNanos = Math.max(this.spinNanos >> 1, this.maxSpinNanos >> MIN_SPIN_SHIFT);
+        }
+        this.blockingSelectCount++;
+        return this.selector.select(selectTimeout);
+    }
+
     private void initiateSessionShutdown() {
         if (this.sessionShutdownCallback != null) {
             final Set<SelectionKey> keys = this.selector.keys();
@@ -153,6 +322,12 @@ private void initiateSessionShutdown() {
                     this.sessionShutdownCallback.execute((InternalDataChannel) channel);
                 }
             }
+            for (final LocalIOSession localSession : this.localSessions) {
+                final InternalChannel channel = localSession.attachment();
+                if (channel instanceof InternalDataChannel) {
+                    this.sessionShutdownCallback.execute((InternalDataChannel) channel);
+                }
+            }
         }
     }
 
@@ -163,6 +338,21 @@ private void validateActiveChannels() {
             for (final SelectionKey key : this.selector.keys()) {
                 timeoutCheck(key, currentTime);
             }
+            for (final LocalIOSession localSession : this.localSessions) {
+                final InternalChannel channel = localSession.attachment();
+                if (channel != null) {
+                    channel.checkTimeout(currentTime);
+                }
+            }
+            for (final Iterator<IOSessionRequest> it = this.pendingResolutions.iterator(); it.hasNext(); ) {
+                final IOSessionRequest sessionRequest = it.next();
+                if (sessionRequest.isDone()) {
+                    it.remove();
+                } else if (sessionRequest.isExpired(currentTime)) {
+                    it.remove();
+                    sessionRequest.failed(new SocketTimeoutException("Name resolution timed out"));
+                }
+            }
         }
     }
 
@@ -178,9 +368,30 @@ private void processEvents(final Set<SelectionKey> selectedKeys) {
         selectedKeys.clear();
     }
 
+    private void processLocalEvents() {
+        // Sessions signalled while processing events get processed in the next round
+        LocalIOSession localSession;
+        while ((localSession = this.localReadyQueue.poll()) != null) {
+            localSession.queued.set(false);
+            this.localReadyList.add(localSession);
+        }
+        for (int i = 0; i < this.localReadyList.size(); i++) {
+            localSession = this.localReadyList.get(i);
+            final InternalChannel channel = localSession.attachment();
+            final int readyOps = localSession.getEventMask() & localSession.readyOps();
+            if (channel != null && readyOps != 0 && localSession.getStatus() != IOSession.CLOSED) {
+                channel.handleIOEvent(readyOps);
+            }
+            // Events are level triggered
+            localSession.signal();
+        }
+        this.localReadyList.clear();
+    }
+
     private void processPendingChannels() throws IOException {
         SocketChannel socketChannel;
         for (int i = 0; i < MAX_CHANNEL_REQUESTS && (socketChannel = this.channelQueue.poll()) != null; i++) {
+            this.pendingCount.decrementAndGet();
             try {
                 prepareSocket(socketChannel.socket());
                 socketChannel.configureBlocking(false);
@@ -199,16 +410,59 @@ private void processPendingChannels() throws IOException {
             } catch (final ClosedChannelException ex) {
                 return;
             }
-            IOSession ioSession = new IOSessionImpl(key, socketChannel);
+            IOSession ioSession = new IOSessionImpl(key, socketChannel, this);
             if (ioSessionDecorator != null) {
                 ioSession = ioSessionDecorator.decorate(ioSession);
             }
             final InternalDataChannel dataChannel = new InternalDataChannel(ioSession, null, sessionListener, closedSessions);
+            this.sessionCount.incrementAndGet();
             dataChannel.setHandler(this.eventHandlerFactory.createHandler(dataChannel, null));
             dataChannel.setSocketTimeout(this.reactorConfig.getSoTimeout().toMillisIntBound());
             key.attach(dataChannel);
             dataChannel.handleIOEvent(SelectionKey.OP_CONNECT);
         }
+        LocalChannel localChannel;
+        for (int i = 0; i < MAX_CHANNEL_REQUESTS && (localChannel = this.localChannelQueue.poll()) != null; i++) {
+            this.pendingCount.decrementAndGet();
+            openLocalSession(localChannel, null);
+        }
+    }
+
+    private void openLocalSession(final LocalChannel localChannel, final IOSessionRequest sessionRequest) {
+        final LocalIOSession localSession = new LocalIOSession(localChannel, this);
+        IOSession ioSession = localSession;
+        if (ioSessionDecorator != null) {
+            ioSession = ioSessionDecorator.decorate(ioSession);
+        }
+        final InternalDataChannel dataChannel = new InternalDataChannel(
+                ioSession,
+                sessionRequest != null ? sessionRequest.remoteEndpoint : null,
+                sessionListener,
+                closedSessions);
+        this.sessionCount.incrementAndGet();
+        dataChannel.setHandler(this.eventHandlerFactory.createHandler(
+                dataChannel, sessionRequest != null ? sessionRequest.attachment : null));
+        dataChannel.setSocketTimeout(this.reactorConfig.getSoTimeout().toMillisIntBound());
+        this.localSessions.add(localSession);
+        localSession.attach(dataChannel);
+        if (sessionRequest != null) {
+            sessionRequest.completed(dataChannel);
+        }
+        dataChannel.handleIOEvent(SelectionKey.OP_CONNECT);
+        // Pick up data that may have arrived before the session got attached
+        localSession.signal();
+    }
+
+    private void closeLocalSessions() {
+        for (final LocalIOSession localSession : this.localSessions) {
+            final InternalChannel channel = localSession.attachment();
+            if (channel != null) {
+                channel.shutdown(ShutdownType.IMMEDIATE);
+            } else {
+                localSession.close();
+            }
+        }
+        this.localSessions.clear();
     }
 
     private void processClosedSessions() {
@@ -217,6 +471,7 @@ private void processClosedSessions() {
             if (dataChannel == null) {
                 break;
             }
+            this.sessionCount.decrementAndGet();
             try {
                 dataChannel.disconnected();
             } catch (final CancelledKeyException ex) {
@@ -241,14 +496,24 @@ public Future<IOSession> connect(
             final Object attachment,
             final FutureCallback<IOSession> callback) throws IOReactorShutdownException {
         Args.notNull(remoteEndpoint, "Remote endpoint");
+        final SocketAddress targetAddress;
+        if (remoteAddress != null) {
+            targetAddress = remoteAddress;
+        } else if (addressResolver != null) {
+            // defer name resolution to the address resolver
+            targetAddress = InetSocketAddress.createUnresolved(remoteEndpoint.getHostName(), remoteEndpoint.getPort());
+        } else {
+            targetAddress = new InetSocketAddress(remoteEndpoint.getHostName(), remoteEndpoint.getPort());
+        }
         final IOSessionRequest sessionRequest = new IOSessionRequest(
                 remoteEndpoint,
-                remoteAddress != null ? remoteAddress : new InetSocketAddress(remoteEndpoint.getHostName(), remoteEndpoint.getPort()),
+                targetAddress,
                 localAddress,
                 timeout,
                 attachment,
                 callback);
 
+        this.pendingCount.incrementAndGet();
         this.requestQueue.add(sessionRequest);
         this.selector.wakeup();
 
@@ -282,7 +547,33 @@ private void validateAddress(final SocketAddress address) throws UnknownHostExce
     private void processPendingConnectionRequests() {
         IOSessionRequest sessionRequest;
         for (int i = 0; i < MAX_CHANNEL_REQUESTS && (sessionRequest = this.requestQueue.poll()) != null; i++) {
+            this.pendingCount.decrementAndGet();
             if (!sessionRequest.isCancelled()) {
+                if (this.localTransport != null) {
+                    final LocalChannel localChannel;
+                    try {
+                        localChannel = this.localTransport.connect(sessionRequest.remoteAddress);
+                    } catch (final IOException | RuntimeException ex) {
+                        sessionRequest.failed(ex);
+                        continue;
+                    }
+                    openLocalSession(localChannel, sessionRequest);
+                    continue;
+                }
+                if (requiresResolution(sessionRequest)) {
+                    resolveAddress(sessionRequest);
+                    continue;
+                }
+                final List<SocketAddress> resolvedAddresses = sessionRequest.getResolvedAddresses();
+                if (resolvedAddresses != null && resolvedAddresses.size() > 1) {
+                    final ConnectionAttempts attempts = new ConnectionAttempts(
+                            sessionRequest,
+                            resolvedAddresses,
+                            this.reactorConfig.getConnectionAttemptDelay().toMillis());
+                    sessionRequest.assign(attempts);
+                    this.pendingAttempts.add(attempts);
+                    continue;
+                }
                 final SocketChannel socketChannel;
                 try {
                     socketChannel = SocketChannel.open();
@@ -303,9 +594,125 @@ private void processPendingConnectionRequests() {
         }
     }
 
+    private boolean requiresResolution(final IOSessionRequest sessionRequest) {
+        return this.addressResolver != null
+                && sessionRequest.getResolvedAddresses() == null
+                && sessionRequest.remoteAddress instanceof InetSocketAddress
+                && ((InetSocketAddress) sessionRequest.remoteAddress).isUnresolved();
+    }
+
+    private void resolveAddress(final IOSessionRequest sessionRequest) {
+        final InetSocketAddress unresolved = (InetSocketAddress) sessionRequest.remoteAddress;
+        this.pendingResolutions.add(sessionRequest);
+        final Future<ResolvedAddresses> resolution = this.addressResolver.resolve(
+                unresolved.getHostString(), new FutureCallback<ResolvedAddresses>() {
+
+            @Override
+            public void completed(final ResolvedAddresses result) {
+                pendingResolutions.remove(sessionRequest);
+                if (sessionRequest.isDone()) {
+                    return;
+                }
+                if (sessionRequest.isExpired(System.currentTimeMillis())) {
+                    sessionRequest.failed(new SocketTimeoutException("Name resolution timed out"));
+                    return;
+                }
+                final List<InetAddress> addresses = result.getInterleavedAddresses();
+                final List<SocketAddress> socketAddresses = new ArrayList<>(addresses.size());
+                for (int i = 0; i < addresses.size(); i++) {
+                    socketAddresses.add(new InetSocketAddress(addresses.get(i), unresolved.getPort()));
+                }
+                sessionRequest.resolved(socketAddresses);
+                if (getStatus().compareTo(IOReactorStatus.ACTIVE) > 0) {
+                    sessionRequest.cancel();
+                    return;
+                }
+                pendingCount.incrementAndGet();
+                requestQueue.add(sessionRequest);
+                selector.wakeup();
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+                pendingResolutions.remove(sessionRequest);
+                sessionRequest.failed(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                pendingResolutions.remove(sessionRequest);
+                sessionRequest.cancel();
+            }
+
+        });
+        if (resolution != null) {
+            sessionRequest.resolving(resolution);
+        }
+    }
+
+    private long nextAttemptTimeout(final long selectInterval) {
+        final long now = System.currentTimeMillis();
+        long timeout = selectInterval;
+        for (int i = 0; i < this.pendingAttempts.size(); i++) {
+            final long nextAttemptTime = this.pendingAttempts.get(i).getNextAttemptTime();
+            if (nextAttemptTime != Long.MAX_VALUE) {
+                timeout = Math.min(timeout, Math.max(nextAttemptTime - now, 1));
+            }
+        }
+        return timeout;
+    }
+
+    private void processPendingAttempts() {
+        final long now = System.currentTimeMillis();
+        for (final Iterator<ConnectionAttempts> it = this.pendingAttempts.iterator(); it.hasNext(); ) {
+            final ConnectionAttempts attempts = it.next();
+            if (!attempts.isDone() && attempts.sessionRequest.isExpired(now)) {
+                // the connect timeout covers all attempts
+                it.remove();
+                attempts.shutdown(ShutdownType.IMMEDIATE);
+                attempts.sessionRequest.failed(new SocketTimeoutException("Connect timed out"));
+                continue;
+            }
+            while (!attempts.isDone() && attempts.hasNext() && now >= attempts.getNextAttemptTime()) {
+                final SocketAddress remoteAddress = attempts.next(now);
+                final SocketChannel socketChannel;
+                try {
+                    socketChannel = SocketChannel.open();
+                } catch (final IOException ex) {
+                    attempts.failed(null, ex);
+                    continue;
+                }
+                try {
+                    initiateConnection(socketChannel, attempts.sessionRequest, remoteAddress, attempts);
+                } catch (final IOException ex) {
+                    try {
+                        socketChannel.close();
+                    } catch (IOException ignore) {
+                    }
+                    attempts.failed(null, ex);
+                }
+            }
+            if (attempts.isDone() || !attempts.hasNext()) {
+                // attempts in progress, if any, complete by themselves
+                it.remove();
+            }
+        }
+    }
+
     private void processConnectionRequest(final SocketChannel socketChannel, final IOSessionRequest sessionRequest) throws IOException {
+        final List<SocketAddress> resolvedAddresses = sessionRequest.getResolvedAddresses();
+        final SocketAddress remoteAddress = resolvedAddresses != null && !resolvedAddresses.isEmpty()
+                ? resolvedAddresses.get(0) : sessionRequest.remoteAddress;
+        initiateConnection(socketChannel, sessionRequest, remoteAddress, null);
+    }
+
+    private void initiateConnection(
+            final SocketChannel socketChannel,
+            final IOSessionRequest sessionRequest,
+            final SocketAddress remoteAddress,
+            final ConnectionAttempts attempts) throws IOException {
         validateAddress(sessionRequest.localAddress);
-        validateAddress(sessionRequest.remoteAddress);
+        validateAddress(remoteAddress);
 
         socketChannel.configureBlocking(false);
         prepareSocket(socketChannel.socket());
@@ -315,9 +722,9 @@ private void processConnectionRequest(final SocketChannel socketChannel, final I
             sock.setReuseAddress(this.reactorConfig.isSoReuseAddress());
             sock.bind(sessionRequest.localAddress);
         }
-        final boolean connected = socketChannel.connect(sessionRequest.remoteAddress);
+        final boolean connected = socketChannel.connect(remoteAddress);
         final SelectionKey key = socketChannel.register(this.selector, SelectionKey.OP_CONNECT | SelectionKey.OP_READ);
-        final InternalChannel channel = new InternalConnectChannel(key, socketChannel, sessionRequest, new InternalDataChannelFactory() {
+        final InternalConnectChannel channel = new InternalConnectChannel(key, socketChannel, sessionRequest, new InternalDataChannelFactory() {
 
             @Override
             public InternalDataChannel create(
@@ -325,41 +732,62 @@ public InternalDataChannel create(
                     final SocketChannel socketChannel,
                     final NamedEndpoint namedEndpoint,
                     final Object attachment) {
-                IOSession ioSession = new IOSessionImpl(key, socketChannel);
+                IOSession ioSession = new IOSessionImpl(key, socketChannel, SingleCoreIOReactor.this);
                 if (ioSessionDecorator != null) {
                     ioSession = ioSessionDecorator.decorate(ioSession);
                 }
                 final InternalDataChannel dataChannel = new InternalDataChannel(ioSession, namedEndpoint, sessionListener, closedSessions);
+                sessionCount.incrementAndGet();
                 dataChannel.setHandler(eventHandlerFactory.createHandler(dataChannel, attachment));
                 dataChannel.setSocketTimeout(reactorConfig.getSoTimeout().toMillisIntBound());
                 return dataChannel;
             }
 
-        });
+        }, attempts);
         if (connected) {
             channel.handleIOEvent(SelectionKey.OP_CONNECT);
         } else {
             key.attach(channel);
-            sessionRequest.assign(channel);
+            if (attempts != null) {
+                attempts.started(channel);
+            } else {
+                sessionRequest.assign(channel);
+            }
         }
     }
 
     private void closePendingChannels() {
         SocketChannel socketChannel;
         while ((socketChannel = this.channelQueue.poll()) != null) {
+            this.pendingCount.decrementAndGet();
             try {
                 socketChannel.close();
             } catch (final IOException ex) {
                 addExceptionEvent(ex);
             }
         }
+        LocalChannel localChannel;
+        while ((localChannel = this.localChannelQueue.poll()) != null) {
+            this.pendingCount.decrementAndGet();
+            localChannel.close();
+        }
     }
 
     private void closePendingConnectionRequests() {
         IOSessionRequest sessionRequest;
         while ((sessionRequest = this.requestQueue.poll()) != null) {
+            this.pendingCount.decrementAndGet();
             sessionRequest.cancel();
         }
+        for (int i = 0; i < this.pendingAttempts.size(); i++) {
+            this.pendingAttempts.get(i).sessionRequest.cancel();
+        }
+        this.pendingAttempts.clear();
+        for (final Iterator<IOSessionRequest> it = this.pendingResolutions.iterator(); it.hasNext(); ) {
+            final IOSessionRequest resolvingRequest = it.next();
+            it.remove();
+            resolvingRequest.cancel();
+        }
     }
 
 }
@@ -52,6 +52,7 @@ class SingleCoreListeningIOReactor extends AbstractSingleCoreIOReactor implement
 
     private final IOReactorConfig reactorConfig;
     private final Callback<SocketChannel> callback;
+    private final Callback<LocalChannel> localCallback;
     private final Queue<ListenerEndpointRequest> requestQueue;
     private final ConcurrentMap<ListenerEndpoint, Boolean> endpoints;
 
@@ -60,10 +61,12 @@ class SingleCoreListeningIOReactor extends AbstractSingleCoreIOReactor implement
     SingleCoreListeningIOReactor(
             final Queue<ExceptionEvent> auditLog,
             final IOReactorConfig ioReactorConfig,
-            final Callback<SocketChannel> callback) {
+            final Callback<SocketChannel> callback,
+            final Callback<LocalChannel> localCallback) {
         super(auditLog);
         this.reactorConfig = ioReactorConfig != null ? ioReactorConfig : IOReactorConfig.DEFAULT;
         this.callback = callback;
+        this.localCallback = localCallback;
         this.requestQueue = new ConcurrentLinkedQueue<>();
         this.endpoints = new ConcurrentHashMap<>();
         this.paused = new AtomicBoolean(false);
@@ -151,6 +154,17 @@ private void processSessionRequests() throws IOException {
                 continue;
             }
             final SocketAddress address = request.address;
+            final LocalTransport localTransport = this.reactorConfig.getLocalTransport();
+            if (localTransport != null) {
+                try {
+                    final ListenerEndpoint endpoint = localTransport.bind(address, this.localCallback);
+                    this.endpoints.put(endpoint, Boolean.TRUE);
+                    request.completed(endpoint);
+                } catch (final IOException | RuntimeException ex) {
+                    request.failed(ex);
+                }
+                continue;
+            }
             final ServerSocketChannel serverChannel = ServerSocketChannel.open();
             try {
                 final ServerSocket socket = serverChannel.socket();
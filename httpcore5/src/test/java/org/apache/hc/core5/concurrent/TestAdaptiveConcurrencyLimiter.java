@@ -0,0 +1,180 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.concurrent;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAdaptiveConcurrencyLimiter {
+
+    @Test
+    public void testAdmission() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 10, TimeValue.ofMinutes(1));
+        final AdaptiveConcurrencyLimiter.Permit permit1 = limiter.acquire(new BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit>());
+        final AdaptiveConcurrencyLimiter.Permit permit2 = limiter.acquire(new BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit>());
+        Assert.assertNotNull(permit1);
+        Assert.assertNotNull(permit2);
+        Assert.assertEquals(2, limiter.getInFlightCount());
+
+        final BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit> callback = new BasicFutureCallback<>();
+        Assert.assertNull(limiter.acquire(callback));
+        Assert.assertEquals(1, limiter.getQueueSize());
+        Assert.assertFalse(callback.isCompleted());
+
+        permit1.release();
+        Assert.assertTrue(callback.isCompleted());
+        Assert.assertNotNull(callback.getResult());
+        Assert.assertEquals(0, limiter.getQueueSize());
+        Assert.assertEquals(2, limiter.getInFlightCount());
+
+        // Subsequent release has no effect
+        permit1.release();
+        Assert.assertEquals(2, limiter.getInFlightCount());
+
+        permit2.release();
+        callback.getResult().release();
+        Assert.assertEquals(0, limiter.getInFlightCount());
+        Assert.assertEquals(3, limiter.getAdmittedCount());
+        Assert.assertEquals(0, limiter.getRejectedCount());
+    }
+
+    @Test
+    public void testLastInFirstOutQueueing() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 2, TimeValue.ofMinutes(1));
+        final AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(new BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit>());
+        Assert.assertNotNull(permit);
+
+        final BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit> callback1 = new BasicFutureCallback<>();
+        final BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit> callback2 = new BasicFutureCallback<>();
+        final BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit> callback3 = new BasicFutureCallback<>();
+        Assert.assertNull(limiter.acquire(callback1));
+        Assert.assertNull(limiter.acquire(callback2));
+        Assert.assertNull(limiter.acquire(callback3));
+
+        // The oldest waiter gets shed
+        Assert.assertTrue(callback1.isFailed());
+        Assert.assertTrue(callback1.getException() instanceof RejectedExecutionException);
+        Assert.assertEquals(2, limiter.getQueueSize());
+        Assert.assertEquals(1, limiter.getRejectedCount());
+
+        // The most recent waiter gets admitted first
+        permit.release();
+        Assert.assertTrue(callback3.isCompleted());
+        Assert.assertFalse(callback2.isCompleted());
+        callback3.getResult().release();
+        Assert.assertTrue(callback2.isCompleted());
+    }
+
+    @Test
+    public void testNoQueue() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0, TimeValue.ofMinutes(1));
+        Assert.assertNotNull(limiter.acquire(new BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit>()));
+        final BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit> callback = new BasicFutureCallback<>();
+        Assert.assertNull(limiter.acquire(callback));
+        Assert.assertTrue(callback.isFailed());
+        Assert.assertEquals(0, limiter.getQueueSize());
+    }
+
+    @Test
+    public void testQueueTimeExpiry() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMillis(10));
+        final AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(new BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit>());
+        final BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit> callback = new BasicFutureCallback<>();
+        Assert.assertNull(limiter.acquire(callback));
+        Thread.sleep(50);
+        permit.release();
+        Assert.assertTrue(callback.isFailed());
+        Assert.assertEquals(0, limiter.getInFlightCount());
+        Assert.assertEquals(0, limiter.getQueueSize());
+    }
+
+    @Test
+    public void testRejectExpired() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMillis(10));
+        final AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(new BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit>());
+        final BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit> callback = new BasicFutureCallback<>();
+        Assert.assertNull(limiter.acquire(callback));
+        limiter.rejectExpired();
+        Assert.assertFalse(callback.isFailed());
+        Thread.sleep(50);
+        limiter.rejectExpired();
+        Assert.assertTrue(callback.isFailed());
+        Assert.assertEquals(1, limiter.getInFlightCount());
+        Assert.assertEquals(0, limiter.getQueueSize());
+        Assert.assertEquals(1, limiter.getRejectedCount());
+        permit.release();
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMinutes(1));
+        final AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(new BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit>());
+        final BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit> callback = new BasicFutureCallback<>();
+        Assert.assertNull(limiter.acquire(callback));
+        Assert.assertTrue(limiter.cancel(callback));
+        Assert.assertFalse(limiter.cancel(callback));
+        permit.release();
+        Assert.assertFalse(callback.isCompleted());
+        Assert.assertEquals(0, limiter.getInFlightCount());
+    }
+
+    @Test
+    public void testLimitAdaptation() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0, TimeValue.ofMinutes(1));
+
+        // Limit grows while latency is stable and the limit is in use
+        for (int i = 0; i < 20; i++) {
+            final AdaptiveConcurrencyLimiter.Permit[] permits = new AdaptiveConcurrencyLimiter.Permit[limiter.getLimit()];
+            for (int n = 0; n < permits.length; n++) {
+                permits[n] = limiter.acquire(new BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit>());
+                Assert.assertNotNull(permits[n]);
+            }
+            Thread.sleep(2);
+            for (final AdaptiveConcurrencyLimiter.Permit permit: permits) {
+                permit.complete();
+            }
+        }
+        final int limit = limiter.getLimit();
+        Assert.assertTrue(limit > 10);
+
+        // Limit does not grow while mostly unused
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(new BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit>()).complete();
+        }
+        Assert.assertTrue(limiter.getLimit() <= limit);
+
+        // Limit shrinks as latency grows
+        final AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(new BasicFutureCallback<AdaptiveConcurrencyLimiter.Permit>());
+        Thread.sleep(200);
+        permit.complete();
+        Assert.assertTrue(limiter.getLimit() < limit);
+    }
+
+}
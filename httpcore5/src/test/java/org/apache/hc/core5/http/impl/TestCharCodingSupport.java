@@ -0,0 +1,182 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCharCodingSupport {
+
+    private static final Charset[] CHARSETS = {
+            StandardCharsets.US_ASCII, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_8 };
+
+    private static final String[] SAMPLES = {
+            "",
+            "{\"name\":\"value\",\"list\":[1,2,3]}",
+            "caf\u00e9 cr\u00e8me br\u00fbl\u00e9e",
+            "\u20ac\u20ac\u20ac and \u0444\u0443\u043d\u0442",
+            "smile \ud83d\ude00 smile",
+            "\u00e9",
+            "lone \ud83d surrogate",
+            "trailing surrogate \ud83d"
+    };
+
+    private static String decode(final CharsetDecoder decoder, final byte[] raw, final int chunk) throws CharacterCodingException {
+        decoder.reset();
+        final ByteBuffer src = ByteBuffer.allocate(raw.length);
+        final CharBuffer dst = CharBuffer.allocate(7);
+        final StringBuilder buffer = new StringBuilder();
+        int off = 0;
+        while (off < raw.length) {
+            final int len = Math.min(chunk, raw.length - off);
+            src.put(raw, off, len);
+            off += len;
+            src.flip();
+            for (;;) {
+                final CoderResult result = decoder.decode(src, dst, off == raw.length);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                dst.flip();
+                buffer.append(dst);
+                dst.clear();
+                if (result.isUnderflow()) {
+                    break;
+                }
+            }
+            src.compact();
+        }
+        decoder.decode(src, dst, true);
+        decoder.flush(dst);
+        dst.flip();
+        buffer.append(dst);
+        return buffer.toString();
+    }
+
+    private static byte[] encode(final CharsetEncoder encoder, final String s, final int chunk) throws CharacterCodingException {
+        encoder.reset();
+        final CharBuffer src = CharBuffer.allocate(s.length());
+        final ByteBuffer dst = ByteBuffer.allocate(5);
+        final ByteBuffer out = ByteBuffer.allocate(s.length() * 4 + 16);
+        int off = 0;
+        while (off < s.length()) {
+            final int len = Math.min(chunk, s.length() - off);
+            src.put(s, off, off + len);
+            off += len;
+            src.flip();
+            for (;;) {
+                final CoderResult result = encoder.encode(src, dst, off == s.length());
+                if (result.isError()) {
+                    result.throwException();
+                }
+                dst.flip();
+                out.put(dst);
+                dst.clear();
+                if (result.isUnderflow()) {
+                    break;
+                }
+            }
+            src.compact();
+        }
+        encoder.encode(src, dst, true);
+        encoder.flush(dst);
+        dst.flip();
+        out.put(dst);
+        out.flip();
+        final byte[] result = new byte[out.remaining()];
+        out.get(result);
+        return result;
+    }
+
+    @Test
+    public void testFastCodersSelected() {
+        for (final Charset charset: CHARSETS) {
+            Assert.assertTrue(CharCodingSupport.newDecoder(charset) instanceof AsciiCompatibleDecoder);
+            Assert.assertTrue(CharCodingSupport.newEncoder(charset) instanceof AsciiCompatibleEncoder);
+        }
+        final Charset utf16 = StandardCharsets.UTF_16;
+        Assert.assertFalse(CharCodingSupport.newDecoder(utf16) instanceof AsciiCompatibleDecoder);
+        Assert.assertFalse(CharCodingSupport.newEncoder(utf16) instanceof AsciiCompatibleEncoder);
+    }
+
+    @Test
+    public void testDecodingMatchesStandardDecoder() throws Exception {
+        for (final Charset charset: CHARSETS) {
+            for (final String sample: SAMPLES) {
+                final byte[] raw = sample.getBytes(StandardCharsets.UTF_8);
+                for (int chunk = 1; chunk <= raw.length + 1; chunk++) {
+                    final String expected = decode(charset.newDecoder()
+                            .onMalformedInput(CodingErrorAction.REPLACE)
+                            .onUnmappableCharacter(CodingErrorAction.REPLACE), raw, chunk);
+                    final String actual = decode(CharCodingSupport.newDecoder(charset)
+                            .onMalformedInput(CodingErrorAction.REPLACE)
+                            .onUnmappableCharacter(CodingErrorAction.REPLACE), raw, chunk);
+                    Assert.assertEquals(charset + " / " + sample + " / " + chunk, expected, actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEncodingMatchesStandardEncoder() throws Exception {
+        for (final Charset charset: CHARSETS) {
+            for (final String sample: SAMPLES) {
+                for (int chunk = 1; chunk <= sample.length() + 1; chunk++) {
+                    final byte[] expected = encode(charset.newEncoder()
+                            .onMalformedInput(CodingErrorAction.REPLACE)
+                            .onUnmappableCharacter(CodingErrorAction.REPLACE), sample, chunk);
+                    final byte[] actual = encode(CharCodingSupport.newEncoder(charset)
+                            .onMalformedInput(CodingErrorAction.REPLACE)
+                            .onUnmappableCharacter(CodingErrorAction.REPLACE), sample, chunk);
+                    Assert.assertArrayEquals(charset + " / " + sample + " / " + chunk, expected, actual);
+                }
+            }
+        }
+    }
+
+    @Test(expected = CharacterCodingException.class)
+    public void testMalformedInputReported() throws Exception {
+        decode(CharCodingSupport.newDecoder(StandardCharsets.UTF_8), new byte[] {'a', (byte) 0xc3, 'b'}, 3);
+    }
+
+    @Test(expected = CharacterCodingException.class)
+    public void testUnmappableInputReported() throws Exception {
+        encode(CharCodingSupport.newEncoder(StandardCharsets.US_ASCII), "caf\u00e9", 4);
+    }
+
+}
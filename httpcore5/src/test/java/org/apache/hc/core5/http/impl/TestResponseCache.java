@@ -0,0 +1,260 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestResponseCache {
+
+    static class RecordingCallback implements FutureCallback<CachedResponse> {
+
+        final AtomicReference<CachedResponse> result = new AtomicReference<>();
+        final AtomicInteger cancelled = new AtomicInteger();
+
+        @Override
+        public void completed(final CachedResponse response) {
+            result.set(response);
+        }
+
+        @Override
+        public void failed(final Exception ex) {
+        }
+
+        @Override
+        public void cancelled() {
+            cancelled.incrementAndGet();
+        }
+
+    }
+
+    private static HttpRequest get(final String path) {
+        final HttpRequest request = new BasicHttpRequest("GET", path);
+        request.setHeader(HttpHeaders.HOST, "somehost");
+        return request;
+    }
+
+    private static void store(final ResponseCache cache, final String key, final HttpResponse response, final String content) {
+        final ResponseCache.Fill fill = cache.fill(key, new RecordingCallback());
+        Assert.assertNotNull(fill);
+        fill.complete(response, "text/plain", content != null ? content.getBytes(StandardCharsets.US_ASCII) : null);
+    }
+
+    @Test
+    public void testKeyGeneration() throws Exception {
+        final ResponseCache cache = new ResponseCache(TimeValue.ofSeconds(1), HttpHeaders.ACCEPT_ENCODING);
+        final String key = cache.generateKey(get("/stuff"));
+        Assert.assertNotNull(key);
+        final HttpRequest head = new BasicHttpRequest("HEAD", "/stuff");
+        head.setHeader(HttpHeaders.HOST, "somehost");
+        Assert.assertEquals(key, cache.generateKey(head));
+        Assert.assertNotEquals(key, cache.generateKey(get("/other-stuff")));
+
+        final HttpRequest gzip = get("/stuff");
+        gzip.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        Assert.assertNotEquals(key, cache.generateKey(gzip));
+
+        final HttpRequest otherHost = get("/stuff");
+        otherHost.setHeader(HttpHeaders.HOST, "otherhost");
+        Assert.assertNotEquals(key, cache.generateKey(otherHost));
+
+        Assert.assertNull(cache.generateKey(new BasicHttpRequest("POST", "/stuff")));
+        final HttpRequest authorized = get("/stuff");
+        authorized.setHeader(HttpHeaders.AUTHORIZATION, "Basic stuff");
+        Assert.assertNull(cache.generateKey(authorized));
+        final HttpRequest noCache = get("/stuff");
+        noCache.setHeader(HttpHeaders.CACHE_CONTROL, "max-age=0, no-cache");
+        Assert.assertNull(cache.generateKey(noCache));
+        final HttpRequest pragma = get("/stuff");
+        pragma.setHeader(HttpHeaders.PRAGMA, "no-cache");
+        Assert.assertNull(cache.generateKey(pragma));
+    }
+
+    @Test
+    public void testCacheability() throws Exception {
+        final ResponseCache cache = new ResponseCache(TimeValue.ofSeconds(1), HttpHeaders.ACCEPT_ENCODING);
+        Assert.assertTrue(cache.isCacheable(new BasicHttpResponse(HttpStatus.SC_OK)));
+        Assert.assertTrue(cache.isCacheable(new BasicHttpResponse(HttpStatus.SC_NOT_FOUND)));
+        Assert.assertFalse(cache.isCacheable(new BasicHttpResponse(HttpStatus.SC_CREATED)));
+        Assert.assertFalse(cache.isCacheable(new BasicHttpResponse(HttpStatus.SC_INTERNAL_SERVER_ERROR)));
+
+        final HttpResponse cookie = new BasicHttpResponse(HttpStatus.SC_OK);
+        cookie.setHeader("Set-Cookie", "id=1");
+        Assert.assertFalse(cache.isCacheable(cookie));
+        final HttpResponse privateResponse = new BasicHttpResponse(HttpStatus.SC_OK);
+        privateResponse.setHeader(HttpHeaders.CACHE_CONTROL, "private");
+        Assert.assertFalse(cache.isCacheable(privateResponse));
+        final HttpResponse noStore = new BasicHttpResponse(HttpStatus.SC_OK);
+        noStore.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        Assert.assertFalse(cache.isCacheable(noStore));
+        final HttpResponse zeroAge = new BasicHttpResponse(HttpStatus.SC_OK);
+        zeroAge.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=0");
+        Assert.assertFalse(cache.isCacheable(zeroAge));
+        final HttpResponse sharedAge = new BasicHttpResponse(HttpStatus.SC_OK);
+        sharedAge.setHeader(HttpHeaders.CACHE_CONTROL, "max-age=0, s-maxage=10");
+        Assert.assertTrue(cache.isCacheable(sharedAge));
+
+        final HttpResponse vary = new BasicHttpResponse(HttpStatus.SC_OK);
+        vary.setHeader(HttpHeaders.VARY, "accept-encoding");
+        Assert.assertTrue(cache.isCacheable(vary));
+        vary.setHeader(HttpHeaders.VARY, "Accept-Encoding, User-Agent");
+        Assert.assertFalse(cache.isCacheable(vary));
+        vary.setHeader(HttpHeaders.VARY, "*");
+        Assert.assertFalse(cache.isCacheable(vary));
+    }
+
+    @Test
+    public void testStoreAndExpire() throws Exception {
+        final ResponseCache cache = new ResponseCache(TimeValue.ofSeconds(10));
+        final String key = cache.generateKey(get("/stuff"));
+        Assert.assertNull(cache.get(key));
+
+        final HttpResponse response = new BasicHttpResponse(HttpStatus.SC_OK);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "max-age=1");
+        response.setHeader(HttpHeaders.ETAG, "\"1\"");
+        response.setHeader(HttpHeaders.CONNECTION, "keep-alive");
+        response.setHeader(HttpHeaders.CONTENT_LENGTH, "5");
+        store(cache, key, response, "stuff");
+
+        final CachedResponse cached = cache.get(key);
+        Assert.assertNotNull(cached);
+        Assert.assertEquals(HttpStatus.SC_OK, cached.getCode());
+        Assert.assertEquals("text/plain", cached.getContentType());
+        Assert.assertEquals("stuff", new String(cached.getContent(), StandardCharsets.US_ASCII));
+        Assert.assertEquals(2, cached.getHeaders().length);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(cached.getSize(), cache.getTotalSize());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+
+        final HttpResponse copy = new BasicHttpResponse(HttpStatus.SC_OK);
+        cached.populate(copy);
+        Assert.assertEquals("\"1\"", copy.getFirstHeader(HttpHeaders.ETAG).getValue());
+        Assert.assertEquals("0", copy.getFirstHeader(HttpHeaders.AGE).getValue());
+        Assert.assertFalse(copy.containsHeader(HttpHeaders.CONNECTION));
+
+        Thread.sleep(1100);
+        Assert.assertNull(cache.get(key));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getTotalSize());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        final ResponseCache cache = new ResponseCache(300, 100, TimeValue.ofMinutes(1));
+        final String key1 = cache.generateKey(get("/1"));
+        final String key2 = cache.generateKey(get("/2"));
+        final String key3 = cache.generateKey(get("/3"));
+        final String content = "0123456789012345678901234567890123456789";
+        store(cache, key1, new BasicHttpResponse(HttpStatus.SC_OK), content);
+        store(cache, key2, new BasicHttpResponse(HttpStatus.SC_OK), content);
+        Assert.assertNotNull(cache.get(key1));
+        store(cache, key3, new BasicHttpResponse(HttpStatus.SC_OK), content);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.get(key1));
+        Assert.assertNull(cache.get(key2));
+        Assert.assertNotNull(cache.get(key3));
+        Assert.assertTrue(cache.getTotalSize() <= 300);
+
+        // Too large to be cached
+        final String key4 = cache.generateKey(get("/4"));
+        store(cache, key4, new BasicHttpResponse(HttpStatus.SC_OK), content + content + content);
+        Assert.assertNull(cache.get(key4));
+    }
+
+    @Test
+    public void testFillCoalescing() throws Exception {
+        final ResponseCache cache = new ResponseCache(TimeValue.ofMinutes(1));
+        final String key = cache.generateKey(get("/stuff"));
+
+        final RecordingCallback leaderCallback = new RecordingCallback();
+        final ResponseCache.Fill fill = cache.fill(key, leaderCallback);
+        Assert.assertNotNull(fill);
+        final RecordingCallback callback1 = new RecordingCallback();
+        final RecordingCallback callback2 = new RecordingCallback();
+        final RecordingCallback callback3 = new RecordingCallback();
+        Assert.assertNull(cache.fill(key, callback1));
+        Assert.assertNull(cache.fill(key, callback2));
+        Assert.assertNull(cache.fill(key, callback3));
+        Assert.assertTrue(cache.cancel(key, callback3));
+        Assert.assertFalse(cache.cancel(key, callback3));
+
+        fill.complete(new BasicHttpResponse(HttpStatus.SC_OK), "text/plain",
+                "stuff".getBytes(StandardCharsets.US_ASCII));
+        Assert.assertNotNull(callback1.result.get());
+        Assert.assertSame(callback1.result.get(), callback2.result.get());
+        Assert.assertNull(callback3.result.get());
+        Assert.assertNull(leaderCallback.result.get());
+
+        // Fresh entry available
+        final RecordingCallback callback4 = new RecordingCallback();
+        Assert.assertNull(cache.fill(key, callback4));
+        Assert.assertSame(callback1.result.get(), callback4.result.get());
+
+        // Subsequent calls have no effect
+        fill.abandon();
+        Assert.assertEquals(0, callback1.cancelled.get());
+        Assert.assertNotNull(cache.get(key));
+    }
+
+    @Test
+    public void testFillAbandoned() throws Exception {
+        final ResponseCache cache = new ResponseCache(TimeValue.ofMinutes(1));
+        final String key = cache.generateKey(get("/stuff"));
+
+        final ResponseCache.Fill fill = cache.fill(key, new RecordingCallback());
+        Assert.assertNotNull(fill);
+        final RecordingCallback callback1 = new RecordingCallback();
+        Assert.assertNull(cache.fill(key, callback1));
+        fill.abandon();
+        Assert.assertEquals(1, callback1.cancelled.get());
+        Assert.assertNull(callback1.result.get());
+
+        final ResponseCache.Fill fill2 = cache.fill(key, new RecordingCallback());
+        Assert.assertNotNull(fill2);
+        final RecordingCallback callback2 = new RecordingCallback();
+        Assert.assertNull(cache.fill(key, callback2));
+        // Not cacheable
+        fill2.complete(new BasicHttpResponse(HttpStatus.SC_INTERNAL_SERVER_ERROR), null, null);
+        Assert.assertEquals(1, callback2.cancelled.get());
+        Assert.assertEquals(0, cache.size());
+    }
+
+}
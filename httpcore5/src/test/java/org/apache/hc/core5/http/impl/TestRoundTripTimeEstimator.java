@@ -0,0 +1,61 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http.impl;
+
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRoundTripTimeEstimator {
+
+    @Test
+    public void testEstimate() throws Exception {
+        final RoundTripTimeEstimator estimator = new RoundTripTimeEstimator();
+        Assert.assertEquals(-1, estimator.getSmoothedNanos());
+        Assert.assertEquals(-1, estimator.getVariationNanos());
+        Assert.assertNull(estimator.getSmoothedRoundTripTime());
+
+        estimator.update(800);
+        Assert.assertEquals(800, estimator.getSmoothedNanos());
+        Assert.assertEquals(400, estimator.getVariationNanos());
+        Assert.assertEquals(TimeValue.ofNanoseconds(800), estimator.getSmoothedRoundTripTime());
+
+        estimator.update(1600);
+        Assert.assertEquals(900, estimator.getSmoothedNanos());
+        Assert.assertEquals(500, estimator.getVariationNanos());
+
+        estimator.update(-1);
+        Assert.assertEquals(900, estimator.getSmoothedNanos());
+        Assert.assertEquals(2, estimator.getSampleCount());
+
+        estimator.reset();
+        Assert.assertEquals(-1, estimator.getSmoothedNanos());
+        Assert.assertEquals(0, estimator.getSampleCount());
+    }
+
+}
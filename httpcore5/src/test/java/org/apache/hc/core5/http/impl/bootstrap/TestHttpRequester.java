@@ -0,0 +1,109 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.impl.bootstrap;
+
+import java.util.concurrent.Future;
+
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.impl.io.HttpRequestExecutor;
+import org.apache.hc.core5.http.io.HttpClientConnection;
+import org.apache.hc.core5.http.io.HttpResponseInformationCallback;
+import org.apache.hc.core5.http.message.BasicClassicHttpRequest;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.http.protocol.HttpProcessor;
+import org.apache.hc.core5.pool.PoolEntry;
+import org.apache.hc.core5.pool.StrictConnPool;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestHttpRequester {
+
+    private HttpHost host;
+    private HttpRequestExecutor requestExecutor;
+    private HttpClientConnection connection;
+    private StrictConnPool<HttpHost, HttpClientConnection> connPool;
+    private HttpRequester requester;
+
+    @Before
+    public void setup() throws Exception {
+        host = new HttpHost("somehost");
+        requestExecutor = Mockito.mock(HttpRequestExecutor.class);
+        connection = Mockito.mock(HttpClientConnection.class);
+        Mockito.when(connection.isOpen()).thenReturn(true);
+        Mockito.when(requestExecutor.execute(
+                Mockito.any(ClassicHttpRequest.class),
+                Mockito.any(HttpClientConnection.class),
+                Mockito.<HttpResponseInformationCallback>any(),
+                Mockito.any(HttpContext.class))).thenReturn(new BasicClassicHttpResponse(200));
+        Mockito.when(requestExecutor.keepAlive(
+                Mockito.any(ClassicHttpRequest.class),
+                Mockito.any(ClassicHttpResponse.class),
+                Mockito.any(HttpClientConnection.class),
+                Mockito.any(HttpContext.class))).thenReturn(true);
+        connPool = new StrictConnPool<>(2, 2);
+        requester = new HttpRequester(requestExecutor, Mockito.mock(HttpProcessor.class), connPool,
+                null, null, null, TimeValue.ofSeconds(1));
+
+        final Future<PoolEntry<HttpHost, HttpClientConnection>> future = connPool.lease(host, null);
+        final PoolEntry<HttpHost, HttpClientConnection> poolEntry = future.get();
+        poolEntry.assignConnection(connection);
+        connPool.release(poolEntry, true);
+    }
+
+    private void execute() throws Exception {
+        final ClassicHttpResponse response = requester.execute(
+                host, new BasicClassicHttpRequest("GET", "/"), Timeout.ofSeconds(5), HttpCoreContext.create());
+        Assert.assertEquals(200, response.getCode());
+        Assert.assertEquals(1, connPool.getStats(host).getAvailable());
+    }
+
+    @Test
+    public void testInactivityMeasuredFromLastUse() throws Exception {
+        Thread.sleep(600);
+        execute();
+        Mockito.verify(connection, Mockito.never()).isStale();
+
+        // Idle longer than the window since creation but not since last use
+        Thread.sleep(600);
+        execute();
+        Mockito.verify(connection, Mockito.never()).isStale();
+
+        // Idle longer than the window since last use
+        Thread.sleep(1200);
+        execute();
+        Mockito.verify(connection).isStale();
+    }
+
+}
@@ -34,6 +34,9 @@
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentLengthStrategy;
@@ -349,4 +352,31 @@ public void testStaleWhenIOError() throws Exception {
         Assert.assertTrue(conn.isStale());
     }
 
+    @Test
+    public void testStaleCheckWithSocketChannel() throws Exception {
+        try (final ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            final SocketChannel clientChannel = SocketChannel.open(serverChannel.getLocalAddress());
+            final SocketChannel peerChannel = serverChannel.accept();
+
+            conn.bind(clientChannel.socket());
+            Assert.assertFalse(conn.isStale());
+            Assert.assertTrue(clientChannel.isBlocking());
+
+            peerChannel.write(ByteBuffer.wrap(new byte[] {'a'}));
+            Assert.assertTrue(conn.isDataAvailable(1000));
+            Assert.assertFalse(conn.isStale());
+
+            peerChannel.close();
+            boolean stale = false;
+            for (int i = 0; i < 100 && !stale; i++) {
+                stale = conn.isStale();
+                Thread.sleep(10);
+            }
+            Assert.assertTrue(stale);
+            Assert.assertTrue(clientChannel.isBlocking());
+            conn.close();
+        }
+    }
+
 }
@@ -28,10 +28,15 @@
 package org.apache.hc.core5.http.impl.io;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import org.apache.hc.core5.http.StreamClosedException;
 import org.apache.hc.core5.http.io.SessionOutputBuffer;
+import org.apache.hc.core5.http.io.entity.FileEntity;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -77,5 +82,36 @@ public void testClose() throws Exception {
         }
     }
 
+    @Test
+    public void testFileTransfer() throws Exception {
+        final File file = File.createTempFile("testFile", ".txt");
+        try {
+            Files.write(file.toPath(), "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII));
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            final SessionOutputBuffer outbuffer = new SessionOutputBufferImpl(16);
+            final ContentLengthOutputStream out = new ContentLengthOutputStream(
+                    outbuffer, outputStream, Channels.newChannel(outputStream), 15L);
+            Assert.assertTrue(out.isFileTransferSupported());
+
+            out.write(new byte[] {'x', 'y', 'z'});
+            new FileEntity(file).writeTo(out);
+            out.close();
+            Assert.assertFalse(out.isFileTransferSupported());
+
+            Assert.assertEquals("xyz0123456789ab", new String(outputStream.toByteArray(), StandardCharsets.US_ASCII));
+            Assert.assertEquals(15, outbuffer.getMetrics().getBytesTransferred());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testFileTransferNotSupported() throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final SessionOutputBuffer outbuffer = new SessionOutputBufferImpl(16);
+        final ContentLengthOutputStream out = new ContentLengthOutputStream(outbuffer, outputStream, 15L);
+        Assert.assertFalse(out.isFileTransferSupported());
+    }
+
 }
 
@@ -28,11 +28,16 @@
 package org.apache.hc.core5.http.impl.io;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import org.apache.hc.core5.http.StreamClosedException;
 import org.apache.hc.core5.http.io.SessionOutputBuffer;
+import org.apache.hc.core5.http.io.entity.FileEntity;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -120,5 +125,27 @@ public void testClosedCondition() throws Exception {
         }
     }
 
+    @Test
+    public void testFileTransfer() throws Exception {
+        final File file = File.createTempFile("testFile", ".txt");
+        try {
+            Files.write(file.toPath(), "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII));
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            final SessionOutputBuffer outbuffer = new SessionOutputBufferImpl(16);
+            final IdentityOutputStream out = new IdentityOutputStream(
+                    outbuffer, outputStream, Channels.newChannel(outputStream));
+            Assert.assertTrue(out.isFileTransferSupported());
+
+            out.write(new byte[] {'x', 'y', 'z'});
+            new FileEntity(file).writeTo(out);
+            out.write(new byte[] {'!'});
+            out.close();
+
+            Assert.assertEquals("xyz0123456789abcdefghij!", new String(outputStream.toByteArray(), StandardCharsets.US_ASCII));
+        } finally {
+            file.delete();
+        }
+    }
+
 }
 
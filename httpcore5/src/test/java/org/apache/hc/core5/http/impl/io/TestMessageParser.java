@@ -30,10 +30,14 @@
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 
 import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.MessageConstraintException;
 import org.apache.hc.core5.http.ProtocolException;
 import org.apache.hc.core5.http.io.SessionInputBuffer;
+import org.apache.hc.core5.http.message.LazyLineParser;
+import org.apache.hc.core5.util.CharArrayBuffer;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -163,5 +167,28 @@ public void testMaxHeaderCountForFoldedHeader() throws Exception {
         }
     }
 
-}
+    @Test
+    public void testMaxHeaderListSize() throws Exception {
+        final String s =
+            "header1: stuff\r\n" +
+            "header2: stuff\r\n" +
+            "header3: stuff\r\n" +
+            "\r\n";
+        final SessionInputBuffer inbuffer1 = new SessionInputBufferImpl(16, StandardCharsets.US_ASCII.newDecoder());
+        final Header[] headers = AbstractMessageParser.parseHeaders(
+                inbuffer1, new ByteArrayInputStream(s.getBytes(StandardCharsets.US_ASCII)),
+                -1, -1, 42, LazyLineParser.INSTANCE, new ArrayList<CharArrayBuffer>());
+        Assert.assertEquals(3, headers.length);
 
+        final SessionInputBuffer inbuffer2 = new SessionInputBufferImpl(16, StandardCharsets.US_ASCII.newDecoder());
+        try {
+            AbstractMessageParser.parseHeaders(
+                    inbuffer2, new ByteArrayInputStream(s.getBytes(StandardCharsets.US_ASCII)),
+                    -1, -1, 41, LazyLineParser.INSTANCE, new ArrayList<CharArrayBuffer>());
+            Assert.fail("MessageConstraintException should have been thrown");
+        } catch (final MessageConstraintException ex) {
+            // expected
+        }
+    }
+
+}
@@ -168,7 +168,7 @@ public void testCodingEmptyBuffer() throws Exception {
         final ByteBuffer empty = ByteBuffer.allocate(100);
         empty.flip();
         encoder.write(empty);
-        encoder.write(null);
+        encoder.write((ByteBuffer) null);
 
         encoder.complete();
 
@@ -249,4 +249,51 @@ public void testTrailers() throws IOException {
         Assert.assertEquals("1\r\n1\r\n2\r\n23\r\n0\r\nE: \r\nY: Z\r\n\r\n", s);
         Assert.assertEquals("[chunk-coded; completed: true]", encoder.toString());
     }
+    @Test
+    public void testGatheringWrite() throws Exception {
+        final WritableByteChannelMock channel = new WritableByteChannelMock(64);
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128);
+        final BasicHttpTransportMetrics metrics = new BasicHttpTransportMetrics();
+        final ChunkEncoder encoder = new ChunkEncoder(channel, outbuf, metrics);
+
+        final ByteBuffer[] srcs = new ByteBuffer[] {
+                CodecTestUtils.wrap("12345"), CodecTestUtils.wrap("678"), CodecTestUtils.wrap("90") };
+        Assert.assertEquals(10, encoder.write(srcs));
+        for (final ByteBuffer src: srcs) {
+            Assert.assertFalse(src.hasRemaining());
+        }
+        Assert.assertFalse(outbuf.hasData());
+        encoder.complete();
+
+        outbuf.flush(channel);
+
+        final String s = channel.dump(StandardCharsets.US_ASCII);
+
+        Assert.assertEquals("a\r\n1234567890\r\n0\r\n\r\n", s);
+    }
+
+    @Test
+    public void testGatheringWritePartial() throws Exception {
+        final WritableByteChannelMock channel = new WritableByteChannelMock(64, 4);
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128);
+        final BasicHttpTransportMetrics metrics = new BasicHttpTransportMetrics();
+        final ChunkEncoder encoder = new ChunkEncoder(channel, outbuf, metrics);
+
+        final ByteBuffer[] srcs = new ByteBuffer[] {
+                CodecTestUtils.wrap("12345"), CodecTestUtils.wrap("67890") };
+        Assert.assertEquals(10, encoder.write(srcs));
+        Assert.assertEquals(4, metrics.getBytesTransferred());
+        Assert.assertTrue(outbuf.hasData());
+        encoder.complete();
+
+        while (outbuf.hasData()) {
+            channel.flush();
+            outbuf.flush(channel);
+        }
+
+        final String s = channel.dump(StandardCharsets.US_ASCII);
+
+        Assert.assertEquals("a\r\n1234567890\r\n0\r\n\r\n", s);
+    }
+
 }
@@ -95,7 +95,7 @@ public void testCodingEmptySrcBuffer() throws Exception {
         final ByteBuffer empty = ByteBuffer.allocate(100);
         empty.flip();
         encoder.write(empty);
-        encoder.write(null);
+        encoder.write((ByteBuffer) null);
         encoder.complete();
 
         outbuf.flush(channel);
@@ -578,4 +578,42 @@ public void testCodingFragmentBufferingChannelSaturated2() throws Exception {
         Assert.assertEquals(0, outbuf.length());
     }
 
+    @Test
+    public void testGatheringWrite() throws Exception {
+        final WritableByteChannelMock channel = new WritableByteChannelMock(64);
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128);
+        final BasicHttpTransportMetrics metrics = new BasicHttpTransportMetrics();
+
+        outbuf.write(CodecTestUtils.wrap("header:"));
+        final IdentityEncoder encoder = new IdentityEncoder(channel, outbuf, metrics);
+        final ByteBuffer[] srcs = new ByteBuffer[] {
+                CodecTestUtils.wrap("stuff"), CodecTestUtils.wrap(";"), CodecTestUtils.wrap("more stuff") };
+        Assert.assertEquals(16, encoder.write(srcs));
+        encoder.complete();
+
+        Assert.assertFalse(outbuf.hasData());
+        Assert.assertEquals(23, metrics.getBytesTransferred());
+
+        final String s = channel.dump(StandardCharsets.US_ASCII);
+        Assert.assertEquals("header:stuff;more stuff", s);
+    }
+
+    @Test
+    public void testGatheringWritePendingData() throws Exception {
+        final WritableByteChannelMock channel = new WritableByteChannelMock(64, 4);
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128);
+        final BasicHttpTransportMetrics metrics = new BasicHttpTransportMetrics();
+
+        outbuf.write(CodecTestUtils.wrap("header:"));
+        final IdentityEncoder encoder = new IdentityEncoder(channel, outbuf, metrics);
+        final ByteBuffer[] srcs = new ByteBuffer[] {
+                CodecTestUtils.wrap("stuff"), CodecTestUtils.wrap("more stuff") };
+        Assert.assertEquals(0, encoder.write(srcs));
+        Assert.assertEquals(5, srcs[0].remaining());
+
+        channel.flush();
+        Assert.assertEquals(1, encoder.write(srcs));
+        Assert.assertEquals(4, srcs[0].remaining());
+    }
+
 }
@@ -111,7 +111,7 @@ public void testCodingEmptyBuffer() throws Exception {
         final ByteBuffer empty = ByteBuffer.allocate(100);
         empty.flip();
         encoder.write(empty);
-        encoder.write(null);
+        encoder.write((ByteBuffer) null);
 
         encoder.write(CodecTestUtils.wrap("more stuff"));
 
@@ -671,4 +671,40 @@ public void testCodingFragmentBufferingChannelSaturated2() throws Exception {
         Assert.assertEquals(0, outbuf.length());
     }
 
+    @Test
+    public void testGatheringWrite() throws Exception {
+        final WritableByteChannelMock channel = new WritableByteChannelMock(64);
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128);
+        final BasicHttpTransportMetrics metrics = new BasicHttpTransportMetrics();
+
+        final LengthDelimitedEncoder encoder = new LengthDelimitedEncoder(channel, outbuf, metrics, 12);
+        final ByteBuffer[] srcs = new ByteBuffer[] {
+                CodecTestUtils.wrap("stuff"), CodecTestUtils.wrap(";"), CodecTestUtils.wrap("more stuff") };
+        Assert.assertEquals(12, encoder.write(srcs));
+        Assert.assertTrue(encoder.isCompleted());
+        Assert.assertEquals(4, srcs[2].remaining());
+        Assert.assertEquals(10, srcs[2].limit());
+
+        final String s = channel.dump(StandardCharsets.US_ASCII);
+        Assert.assertEquals("stuff;more s", s);
+    }
+
+    @Test
+    public void testGatheringWriteBuffered() throws Exception {
+        final WritableByteChannelMock channel = new WritableByteChannelMock(64);
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128);
+        final BasicHttpTransportMetrics metrics = new BasicHttpTransportMetrics();
+
+        final LengthDelimitedEncoder encoder = new LengthDelimitedEncoder(channel, outbuf, metrics, 8, 32);
+        final ByteBuffer[] srcs = new ByteBuffer[] {
+                CodecTestUtils.wrap("stuff"), CodecTestUtils.wrap("more stuff") };
+        Assert.assertEquals(8, encoder.write(srcs));
+        Assert.assertTrue(encoder.isCompleted());
+        Assert.assertEquals(7, srcs[1].remaining());
+
+        outbuf.flush(channel);
+        final String s = channel.dump(StandardCharsets.US_ASCII);
+        Assert.assertEquals("stuffmor", s);
+    }
+
 }
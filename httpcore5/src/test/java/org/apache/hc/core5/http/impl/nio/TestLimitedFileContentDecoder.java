@@ -0,0 +1,94 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.impl.nio;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hc.core5.http.ReadableByteChannelMock;
+import org.apache.hc.core5.http.impl.BasicHttpTransportMetrics;
+import org.apache.hc.core5.http.nio.SessionInputBuffer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestLimitedFileContentDecoder {
+
+    private File tmpfile;
+
+    @Before
+    public void createTempFile() throws Exception {
+        this.tmpfile = File.createTempFile("testFile", ".txt");
+    }
+
+    @After
+    public void deleteTempFile() {
+        if (this.tmpfile != null && this.tmpfile.exists()) {
+            this.tmpfile.delete();
+        }
+    }
+
+    @Test
+    public void testTransferLimit() throws Exception {
+        final ReadableByteChannel channel = new ReadableByteChannelMock(
+                new String[] {"stuff; ", "more stuff; ", "a lot more stuff!"}, StandardCharsets.US_ASCII);
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 256, 0, StandardCharsets.US_ASCII);
+        final LengthDelimitedDecoder decoder = new LengthDelimitedDecoder(
+                channel, inbuf, new BasicHttpTransportMetrics(), 36);
+
+        try (final RandomAccessFile testfile = new RandomAccessFile(this.tmpfile, "rw")) {
+            final FileChannel fchannel = testfile.getChannel();
+
+            final LimitedFileContentDecoder limitedDecoder1 = new LimitedFileContentDecoder(decoder, 10);
+            long pos = 0;
+            long bytesTransferred;
+            while ((bytesTransferred = limitedDecoder1.transfer(fchannel, pos, Integer.MAX_VALUE)) > 0) {
+                pos += bytesTransferred;
+            }
+            Assert.assertEquals(10, pos);
+            Assert.assertEquals(10, limitedDecoder1.getTransferred());
+            Assert.assertTrue(limitedDecoder1.isLimitReached());
+            Assert.assertFalse(limitedDecoder1.isCompleted());
+
+            final LimitedFileContentDecoder limitedDecoder2 = new LimitedFileContentDecoder(decoder, 100);
+            while (!limitedDecoder2.isCompleted()) {
+                bytesTransferred = limitedDecoder2.transfer(fchannel, pos, Integer.MAX_VALUE);
+                if (bytesTransferred > 0) {
+                    pos += bytesTransferred;
+                }
+            }
+            Assert.assertEquals(26, limitedDecoder2.getTransferred());
+            Assert.assertFalse(limitedDecoder2.isLimitReached());
+        }
+        Assert.assertEquals("stuff; more stuff; a lot more stuff!", CodecTestUtils.readFromFile(this.tmpfile));
+    }
+
+}
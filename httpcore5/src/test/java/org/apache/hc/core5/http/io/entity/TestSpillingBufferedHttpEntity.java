@@ -0,0 +1,150 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.io.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SpillingBufferedHttpEntity}.
+ *
+ */
+public class TestSpillingBufferedHttpEntity {
+
+    private static byte[] read(final InputStream instream) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            final byte[] tmp = new byte[64];
+            int l;
+            while ((l = instream.read(tmp)) != -1) {
+                out.write(tmp, 0, l);
+            }
+        } finally {
+            instream.close();
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testBufferingInMemory() throws Exception {
+        final byte[] bytes = "Message content".getBytes(StandardCharsets.US_ASCII);
+        final InputStreamEntity httpentity = new InputStreamEntity(new ByteArrayInputStream(bytes), -1);
+        final SpillingBufferedHttpEntity bufentity = new SpillingBufferedHttpEntity(httpentity, 1024);
+        Assert.assertEquals(bytes.length, bufentity.getContentLength());
+        Assert.assertTrue(bufentity.isRepeatable());
+        Assert.assertFalse(bufentity.isChunked());
+        Assert.assertFalse(bufentity.isStreaming());
+        Assert.assertNull(bufentity.getFile());
+
+        Assert.assertArrayEquals(bytes, read(bufentity.getContent()));
+        Assert.assertArrayEquals(bytes, read(bufentity.getContent()));
+        bufentity.close();
+    }
+
+    @Test
+    public void testBufferingSpilled() throws Exception {
+        final byte[] bytes = "Message content. Some more message content".getBytes(StandardCharsets.US_ASCII);
+        final InputStreamEntity httpentity = new InputStreamEntity(new ByteArrayInputStream(bytes), -1);
+        final SpillingBufferedHttpEntity bufentity = new SpillingBufferedHttpEntity(httpentity, 16);
+        Assert.assertEquals(bytes.length, bufentity.getContentLength());
+        Assert.assertTrue(bufentity.isRepeatable());
+        Assert.assertFalse(bufentity.isChunked());
+        Assert.assertFalse(bufentity.isStreaming());
+
+        final File file = bufentity.getFile();
+        Assert.assertNotNull(file);
+        Assert.assertTrue(file.exists());
+        Assert.assertArrayEquals(bytes, Files.readAllBytes(file.toPath()));
+
+        Assert.assertArrayEquals(bytes, read(bufentity.getContent()));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bufentity.writeTo(out);
+        Assert.assertArrayEquals(bytes, out.toByteArray());
+
+        bufentity.close();
+        Assert.assertFalse(file.exists());
+    }
+
+    @Test
+    public void testWrappingEntity() throws Exception {
+        final byte[] bytes = "Message content".getBytes(StandardCharsets.US_ASCII);
+        final ByteArrayEntity httpentity = new ByteArrayEntity(bytes);
+        httpentity.setChunked(true);
+        final SpillingBufferedHttpEntity bufentity = new SpillingBufferedHttpEntity(httpentity, 4);
+        Assert.assertEquals(bytes.length, bufentity.getContentLength());
+        Assert.assertTrue(bufentity.isRepeatable());
+        Assert.assertTrue(bufentity.isChunked());
+        Assert.assertFalse(bufentity.isStreaming());
+        Assert.assertNull(bufentity.getFile());
+        Assert.assertArrayEquals(bytes, read(bufentity.getContent()));
+    }
+
+    @Test
+    public void testSpillingBuffer() throws Exception {
+        final SpillingBuffer buffer = new SpillingBuffer(8);
+        buffer.write("1234".getBytes(StandardCharsets.US_ASCII), 0, 4);
+        buffer.write("5678".getBytes(StandardCharsets.US_ASCII), 0, 4);
+        Assert.assertFalse(buffer.isSpilled());
+        Assert.assertEquals(8, buffer.length());
+        Assert.assertEquals("12345678", new String(buffer.toByteArray(), StandardCharsets.US_ASCII));
+
+        buffer.write("9".getBytes(StandardCharsets.US_ASCII), 0, 1);
+        Assert.assertTrue(buffer.isSpilled());
+        Assert.assertEquals(9, buffer.length());
+        Assert.assertEquals("123456789", new String(buffer.toByteArray(), StandardCharsets.US_ASCII));
+        final File file = buffer.getFile();
+        Assert.assertEquals(9, file.length());
+
+        buffer.close();
+        Assert.assertFalse(file.exists());
+        Assert.assertNull(buffer.getFile());
+        try {
+            buffer.write("more".getBytes(StandardCharsets.US_ASCII), 0, 4);
+            Assert.fail("IllegalStateException should have been thrown");
+        } catch (final IllegalStateException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testIllegalConstructor() throws Exception {
+        try {
+            new SpillingBufferedHttpEntity(null);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.io.support;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.core5.concurrent.AdaptiveConcurrencyLimiter;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.HttpFilterChain;
+import org.apache.hc.core5.http.message.BasicClassicHttpRequest;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class TestHttpServerAdmissionControlFilter {
+
+    static class CountingFilterChain implements HttpFilterChain {
+
+        final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void proceed(
+                final ClassicHttpRequest request,
+                final ResponseTrigger responseTrigger,
+                final HttpContext context) throws HttpException, IOException {
+            count.incrementAndGet();
+        }
+
+    }
+
+    private static final FutureCallback<AdaptiveConcurrencyLimiter.Permit> NOOP = new FutureCallback<AdaptiveConcurrencyLimiter.Permit>() {
+
+        @Override
+        public void completed(final AdaptiveConcurrencyLimiter.Permit result) {
+        }
+
+        @Override
+        public void failed(final Exception ex) {
+        }
+
+        @Override
+        public void cancelled() {
+        }
+
+    };
+
+    @Test
+    public void testAdmission() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMinutes(1));
+        final HttpServerAdmissionControlFilter filter = new HttpServerAdmissionControlFilter(limiter);
+        final HttpFilterChain.ResponseTrigger responseTrigger = Mockito.mock(HttpFilterChain.ResponseTrigger.class);
+        final CountingFilterChain chain = new CountingFilterChain();
+
+        filter.handle(new BasicClassicHttpRequest("GET", "/"), responseTrigger, new BasicHttpContext(), chain);
+        Assert.assertEquals(1, chain.count.get());
+        Assert.assertEquals(0, limiter.getInFlightCount());
+        Assert.assertEquals(1, limiter.getAdmittedCount());
+        Mockito.verifyZeroInteractions(responseTrigger);
+    }
+
+    @Test
+    public void testPermitReleasedOnFailure() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMinutes(1));
+        final HttpServerAdmissionControlFilter filter = new HttpServerAdmissionControlFilter(limiter);
+        try {
+            filter.handle(new BasicClassicHttpRequest("GET", "/"),
+                    Mockito.mock(HttpFilterChain.ResponseTrigger.class), new BasicHttpContext(), new HttpFilterChain() {
+
+                        @Override
+                        public void proceed(
+                                final ClassicHttpRequest request,
+                                final ResponseTrigger responseTrigger,
+                                final HttpContext context) throws HttpException, IOException {
+                            throw new IOException("Oppsie");
+                        }
+
+                    });
+            Assert.fail("IOException expected");
+        } catch (final IOException expected) {
+        }
+        Assert.assertEquals(0, limiter.getInFlightCount());
+    }
+
+    @Test
+    public void testQueuedRequestAdmitted() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMinutes(1));
+        final HttpServerAdmissionControlFilter filter = new HttpServerAdmissionControlFilter(limiter);
+        final AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(NOOP);
+        Assert.assertNotNull(permit);
+
+        final Thread thread = new Thread() {
+
+            @Override
+            public void run() {
+                try {
+                    while (limiter.getQueueSize() == 0) {
+                        Thread.sleep(10);
+                    }
+                } catch (final InterruptedException ignore) {
+                }
+                permit.complete();
+            }
+
+        };
+        thread.start();
+
+        final HttpFilterChain.ResponseTrigger responseTrigger = Mockito.mock(HttpFilterChain.ResponseTrigger.class);
+        final CountingFilterChain chain = new CountingFilterChain();
+        filter.handle(new BasicClassicHttpRequest("GET", "/"), responseTrigger, new BasicHttpContext(), chain);
+        thread.join();
+
+        Assert.assertEquals(1, chain.count.get());
+        Assert.assertEquals(0, limiter.getInFlightCount());
+        Mockito.verifyZeroInteractions(responseTrigger);
+    }
+
+    @Test
+    public void testQueueTimeout() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMillis(50));
+        final HttpServerAdmissionControlFilter filter = new HttpServerAdmissionControlFilter(limiter, TimeValue.ofSeconds(3));
+        Assert.assertNotNull(limiter.acquire(NOOP));
+
+        final HttpFilterChain.ResponseTrigger responseTrigger = Mockito.mock(HttpFilterChain.ResponseTrigger.class);
+        final CountingFilterChain chain = new CountingFilterChain();
+        filter.handle(new BasicClassicHttpRequest("GET", "/"), responseTrigger, new BasicHttpContext(), chain);
+
+        Assert.assertEquals(0, chain.count.get());
+        Assert.assertEquals(0, limiter.getQueueSize());
+        final ArgumentCaptor<ClassicHttpResponse> responseCaptor = ArgumentCaptor.forClass(ClassicHttpResponse.class);
+        Mockito.verify(responseTrigger).submitResponse(responseCaptor.capture());
+        final ClassicHttpResponse response = responseCaptor.getValue();
+        Assert.assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, response.getCode());
+        Assert.assertEquals("3", response.getFirstHeader(HttpHeaders.RETRY_AFTER).getValue());
+    }
+
+    @Test
+    public void testLoadShedding() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0, TimeValue.ofMinutes(1));
+        final HttpServerAdmissionControlFilter filter = new HttpServerAdmissionControlFilter(limiter);
+        Assert.assertNotNull(limiter.acquire(NOOP));
+
+        final HttpFilterChain.ResponseTrigger responseTrigger = Mockito.mock(HttpFilterChain.ResponseTrigger.class);
+        final CountingFilterChain chain = new CountingFilterChain();
+        filter.handle(new BasicClassicHttpRequest("GET", "/"), responseTrigger, new BasicHttpContext(), chain);
+
+        Assert.assertEquals(0, chain.count.get());
+        final ArgumentCaptor<ClassicHttpResponse> responseCaptor = ArgumentCaptor.forClass(ClassicHttpResponse.class);
+        Mockito.verify(responseTrigger).submitResponse(responseCaptor.capture());
+        Assert.assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, responseCaptor.getValue().getCode());
+        Assert.assertEquals(1, limiter.getRejectedCount());
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.io.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.impl.ResponseCache;
+import org.apache.hc.core5.http.io.HttpFilterChain;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpRequest;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestHttpServerCacheFilter {
+
+    static class RecordingResponseTrigger implements HttpFilterChain.ResponseTrigger {
+
+        ClassicHttpResponse response;
+        String content;
+
+        @Override
+        public void sendInformation(final ClassicHttpResponse response) throws HttpException, IOException {
+        }
+
+        @Override
+        public void submitResponse(final ClassicHttpResponse response) throws HttpException, IOException {
+            this.response = response;
+            if (response.getEntity() != null) {
+                final ByteArrayOutputStream outstream = new ByteArrayOutputStream();
+                response.getEntity().writeTo(outstream);
+                this.content = new String(outstream.toByteArray(), StandardCharsets.US_ASCII);
+            }
+        }
+
+    }
+
+    static class CountingFilterChain implements HttpFilterChain {
+
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CountDownLatch entered = new CountDownLatch(1);
+
+        @Override
+        public void proceed(
+                final ClassicHttpRequest request,
+                final ResponseTrigger responseTrigger,
+                final HttpContext context) throws HttpException, IOException {
+            final int n = count.incrementAndGet();
+            entered.countDown();
+            try {
+                latch.await();
+            } catch (final InterruptedException ex) {
+                throw new IOException(ex);
+            }
+            final ClassicHttpResponse response = new BasicClassicHttpResponse(HttpStatus.SC_OK);
+            response.setEntity(new StringEntity("stuff " + n, ContentType.TEXT_PLAIN));
+            responseTrigger.submitResponse(response);
+        }
+
+    }
+
+    private static ClassicHttpRequest request(final String method) {
+        final ClassicHttpRequest request = new BasicClassicHttpRequest(method, "/stuff");
+        request.setHeader(HttpHeaders.HOST, "somehost");
+        return request;
+    }
+
+    @Test
+    public void testResponseCached() throws Exception {
+        final HttpServerCacheFilter filter = new HttpServerCacheFilter(new ResponseCache(TimeValue.ofMinutes(1)));
+        final CountingFilterChain chain = new CountingFilterChain();
+        chain.latch.countDown();
+
+        final RecordingResponseTrigger trigger1 = new RecordingResponseTrigger();
+        filter.handle(request("GET"), trigger1, new BasicHttpContext(), chain);
+        Assert.assertEquals("stuff 1", trigger1.content);
+        Assert.assertEquals(1, filter.getCache().size());
+
+        final RecordingResponseTrigger trigger2 = new RecordingResponseTrigger();
+        filter.handle(request("GET"), trigger2, new BasicHttpContext(), chain);
+        Assert.assertEquals(1, chain.count.get());
+        Assert.assertEquals(HttpStatus.SC_OK, trigger2.response.getCode());
+        Assert.assertEquals(ContentType.TEXT_PLAIN.toString(), trigger2.response.getEntity().getContentType());
+        Assert.assertEquals("stuff 1", trigger2.content);
+
+        final RecordingResponseTrigger trigger3 = new RecordingResponseTrigger();
+        filter.handle(request("HEAD"), trigger3, new BasicHttpContext(), chain);
+        Assert.assertEquals(1, chain.count.get());
+        Assert.assertEquals(HttpStatus.SC_OK, trigger3.response.getCode());
+
+        filter.handle(request("POST"), new RecordingResponseTrigger(), new BasicHttpContext(), chain);
+        Assert.assertEquals(2, chain.count.get());
+    }
+
+    @Test
+    public void testConcurrentMissesCoalesced() throws Exception {
+        final HttpServerCacheFilter filter = new HttpServerCacheFilter(new ResponseCache(TimeValue.ofMinutes(1)));
+        final CountingFilterChain chain = new CountingFilterChain();
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            final RecordingResponseTrigger trigger1 = new RecordingResponseTrigger();
+            final RecordingResponseTrigger trigger2 = new RecordingResponseTrigger();
+            final Future<?> future1 = executorService.submit(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        filter.handle(request("GET"), trigger1, new BasicHttpContext(), chain);
+                    } catch (final HttpException | IOException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+
+            });
+            Assert.assertTrue(chain.entered.await(5, TimeUnit.SECONDS));
+            final Future<?> future2 = executorService.submit(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        filter.handle(request("GET"), trigger2, new BasicHttpContext(), chain);
+                    } catch (final HttpException | IOException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+
+            });
+            Thread.sleep(100);
+            chain.latch.countDown();
+            future1.get(5, TimeUnit.SECONDS);
+            future2.get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(1, chain.count.get());
+            Assert.assertEquals("stuff 1", trigger1.content);
+            Assert.assertEquals("stuff 1", trigger2.content);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCoalescingTimeout() throws Exception {
+        final HttpServerCacheFilter filter = new HttpServerCacheFilter(
+                new ResponseCache(TimeValue.ofMinutes(1)), TimeValue.ofMillis(50));
+        final CountingFilterChain chain = new CountingFilterChain();
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> future1 = executorService.submit(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        filter.handle(request("GET"), new RecordingResponseTrigger(), new BasicHttpContext(), chain);
+                    } catch (final HttpException | IOException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+
+            });
+            Assert.assertTrue(chain.entered.await(5, TimeUnit.SECONDS));
+            final RecordingResponseTrigger trigger2 = new RecordingResponseTrigger();
+            final Thread thread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(500);
+                    } catch (final InterruptedException ignore) {
+                    }
+                    chain.latch.countDown();
+                }
+
+            });
+            thread.start();
+            filter.handle(request("GET"), trigger2, new BasicHttpContext(), chain);
+            future1.get(5, TimeUnit.SECONDS);
+            // The waiting request timed out and proceeded on its own
+            Assert.assertEquals(2, chain.count.get());
+            Assert.assertEquals("stuff 2", trigger2.content);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+}
@@ -31,9 +31,16 @@
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.ProtocolException;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -178,6 +185,67 @@ public void testHeaderRemove() {
         Assert.assertFalse(i.hasNext());
     }
 
+    @Test
+    public void testIndexedLookup() {
+        final HeaderGroup headergroup = new HeaderGroup();
+        for (int i = 0; i < 20; i++) {
+            headergroup.addHeader(new BasicHeader("name" + (i % 5), "value" + i));
+        }
+        headergroup.addHeader(new BasicHeader("Content-Type", "text/plain"));
+        headergroup.addHeader(new BasicHeader("content-length", "10"));
+
+        Assert.assertEquals(22, headergroup.getAllHeaders().length);
+        Assert.assertTrue(headergroup.containsHeader("NAME3"));
+        Assert.assertFalse(headergroup.containsHeader("name5"));
+        Assert.assertEquals(4, headergroup.containsHeaders("Name1"));
+        final Header[] headers = headergroup.getHeaders("name2");
+        Assert.assertEquals(4, headers.length);
+        Assert.assertEquals("value2", headers[0].getValue());
+        Assert.assertEquals("value7", headers[1].getValue());
+        Assert.assertEquals("value12", headers[2].getValue());
+        Assert.assertEquals("value17", headers[3].getValue());
+        Assert.assertEquals("value4", headergroup.getFirstHeader("name4").getValue());
+        Assert.assertEquals("value19", headergroup.getLastHeader("name4").getValue());
+        Assert.assertEquals("text/plain", headergroup.getFirstHeader("content-type").getValue());
+        Assert.assertEquals("10", headergroup.getFirstHeader("Content-Length").getValue());
+        Assert.assertNull(headergroup.getFirstHeader(null));
+    }
+
+    @Test
+    public void testIndexedUpdates() throws Exception {
+        final HeaderGroup headergroup = new HeaderGroup();
+        for (int i = 0; i < 20; i++) {
+            headergroup.addHeader(new BasicHeader("name" + (i % 5), "value" + i));
+        }
+        headergroup.removeHeaders("NAME0");
+        Assert.assertEquals(16, headergroup.getAllHeaders().length);
+        Assert.assertFalse(headergroup.containsHeader("name0"));
+        Assert.assertEquals("value1", headergroup.getFirstHeader("name1").getValue());
+
+        headergroup.setHeader(new BasicHeader("name1", "new-value"));
+        Assert.assertEquals("new-value", headergroup.getFirstHeader("name1").getValue());
+        Assert.assertEquals(4, headergroup.getHeaders("name1").length);
+
+        for (final Iterator<Header> it = headergroup.headerIterator("name2"); it.hasNext(); ) {
+            it.next();
+            it.remove();
+        }
+        Assert.assertFalse(headergroup.containsHeader("name2"));
+        Assert.assertEquals(12, headergroup.getAllHeaders().length);
+
+        headergroup.removeHeader(headergroup.getFirstHeader("name3"));
+        Assert.assertEquals("value8", headergroup.getFirstHeader("name3").getValue());
+
+        headergroup.addHeader(new BasicHeader("single", "value"));
+        Assert.assertEquals("value", headergroup.getSingleHeader("single").getValue());
+        Assert.assertNull(headergroup.getSingleHeader("name0"));
+        try {
+            headergroup.getSingleHeader("name4");
+            Assert.fail("ProtocolException expected");
+        } catch (final ProtocolException expected) {
+        }
+    }
+
     @Test
     public void testSerialization() throws Exception {
         final HeaderGroup orig = new HeaderGroup();
@@ -204,4 +272,57 @@ public void testSerialization() throws Exception {
         }
     }
 
+    @Test
+    public void testIndexedSerialization() throws Exception {
+        final HeaderGroup orig = new HeaderGroup();
+        for (int i = 0; i < 20; i++) {
+            orig.addHeader(new BasicHeader("name" + (i % 5), "value" + i));
+        }
+        final ByteArrayOutputStream outbuffer = new ByteArrayOutputStream();
+        final ObjectOutputStream outstream = new ObjectOutputStream(outbuffer);
+        outstream.writeObject(orig);
+        outstream.close();
+        final ObjectInputStream instream = new ObjectInputStream(new ByteArrayInputStream(outbuffer.toByteArray()));
+        final HeaderGroup clone = (HeaderGroup) instream.readObject();
+        Assert.assertEquals(4, clone.containsHeaders("NAME1"));
+        Assert.assertEquals("value3", clone.getFirstHeader("name3").getValue());
+        Assert.assertEquals("value18", clone.getLastHeader("name3").getValue());
+        clone.addHeader(new BasicHeader("name5", "value20"));
+        Assert.assertEquals("value20", clone.getFirstHeader("Name5").getValue());
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        final HeaderGroup headergroup = new HeaderGroup();
+        for (int i = 0; i < 20; i++) {
+            headergroup.addHeader(new BasicHeader("name" + (i % 5), "value" + i));
+        }
+        final int threadCount = 4;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            for (int n = 0; n < threadCount; n++) {
+                futures.add(executorService.submit(new Callable<Boolean>() {
+
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int i = 0; i < 10000; i++) {
+                            if (headergroup.getHeaders("name" + (i % 5)).length != 4
+                                    || headergroup.getFirstHeader("NAME" + (i % 5)) == null) {
+                                return Boolean.FALSE;
+                            }
+                        }
+                        return Boolean.TRUE;
+                    }
+
+                }));
+            }
+            for (final Future<Boolean> future: futures) {
+                Assert.assertTrue(future.get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
 }
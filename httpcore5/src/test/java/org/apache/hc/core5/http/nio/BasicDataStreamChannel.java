@@ -53,6 +53,18 @@ public int write(final ByteBuffer src) throws IOException {
         return byteChannel.write(src);
     }
 
+    @Override
+    public long write(final ByteBuffer[] srcs) throws IOException {
+        long total = 0;
+        for (final ByteBuffer src: srcs) {
+            total += byteChannel.write(src);
+            if (src.hasRemaining()) {
+                break;
+            }
+        }
+        return total;
+    }
+
     @Override
     public void endStream() throws IOException {
         if (byteChannel.isOpen()) {
@@ -0,0 +1,226 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.WritableByteChannelMock;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.nio.entity.MappedFileCache;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestFileResponseProducer {
+
+    private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    static class ResponseChannelMock implements ResponseChannel {
+
+        HttpResponse response;
+        EntityDetails entityDetails;
+
+        @Override
+        public void sendInformation(final HttpResponse response) throws HttpException, IOException {
+        }
+
+        @Override
+        public void sendResponse(
+                final HttpResponse response, final EntityDetails entityDetails) throws HttpException, IOException {
+            this.response = response;
+            this.entityDetails = entityDetails;
+        }
+
+        @Override
+        public void pushPromise(
+                final HttpRequest promise, final AsyncPushProducer responseProducer) throws HttpException, IOException {
+        }
+
+    }
+
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        file = File.createTempFile("testFile", ".txt");
+        Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    private static String produce(final AsyncResponseProducer producer) throws Exception {
+        final WritableByteChannelMock byteChannel = new WritableByteChannelMock(1024);
+        final DataStreamChannel streamChannel = new BasicDataStreamChannel(byteChannel);
+        while (byteChannel.isOpen()) {
+            producer.produce(streamChannel);
+        }
+        return byteChannel.dump(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testEntireFile() throws Exception {
+        final HttpRequest request = new BasicHttpRequest("GET", "/stuff");
+        final FileResponseProducer producer = new FileResponseProducer(request, file, ContentType.TEXT_PLAIN);
+        final ResponseChannelMock responseChannel = new ResponseChannelMock();
+        producer.sendResponse(responseChannel);
+
+        final HttpResponse response = responseChannel.response;
+        Assert.assertEquals(HttpStatus.SC_OK, response.getCode());
+        Assert.assertEquals("bytes", response.getFirstHeader(HttpHeaders.ACCEPT_RANGES).getValue());
+        Assert.assertNotNull(response.getFirstHeader(HttpHeaders.ETAG));
+        Assert.assertNotNull(response.getFirstHeader(HttpHeaders.LAST_MODIFIED));
+        Assert.assertNull(response.getFirstHeader(HttpHeaders.CONTENT_RANGE));
+        Assert.assertEquals(CONTENT.length(), responseChannel.entityDetails.getContentLength());
+        Assert.assertEquals(CONTENT, produce(producer));
+    }
+
+    @Test
+    public void testSingleRange() throws Exception {
+        final HttpRequest request = new BasicHttpRequest("GET", "/stuff");
+        request.addHeader(HttpHeaders.RANGE, "bytes=-6");
+        final FileResponseProducer producer = new FileResponseProducer(
+                request, file, ContentType.TEXT_PLAIN, new MappedFileCache(1024, 1024));
+        final ResponseChannelMock responseChannel = new ResponseChannelMock();
+        producer.sendResponse(responseChannel);
+
+        final HttpResponse response = responseChannel.response;
+        Assert.assertEquals(HttpStatus.SC_PARTIAL_CONTENT, response.getCode());
+        Assert.assertEquals("bytes 30-35/36", response.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue());
+        Assert.assertEquals(6, responseChannel.entityDetails.getContentLength());
+        Assert.assertEquals("uvwxyz", produce(producer));
+    }
+
+    @Test
+    public void testMultipleRanges() throws Exception {
+        final HttpRequest request = new BasicHttpRequest("GET", "/stuff");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,10-11");
+        final FileResponseProducer producer = new FileResponseProducer(request, file, ContentType.TEXT_PLAIN);
+        final ResponseChannelMock responseChannel = new ResponseChannelMock();
+        producer.sendResponse(responseChannel);
+
+        final HttpResponse response = responseChannel.response;
+        Assert.assertEquals(HttpStatus.SC_PARTIAL_CONTENT, response.getCode());
+        Assert.assertNull(response.getFirstHeader(HttpHeaders.CONTENT_RANGE));
+        Assert.assertTrue(responseChannel.entityDetails.getContentType().startsWith("multipart/byteranges"));
+        final String body = produce(producer);
+        Assert.assertEquals(responseChannel.entityDetails.getContentLength(), body.length());
+        Assert.assertTrue(body.contains("Content-Range: bytes 0-1/36\r\n\r\n01\r\n"));
+        Assert.assertTrue(body.contains("Content-Range: bytes 10-11/36\r\n\r\nab\r\n"));
+    }
+
+    @Test
+    public void testUnsatisfiableRange() throws Exception {
+        final HttpRequest request = new BasicHttpRequest("GET", "/stuff");
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-");
+        final FileResponseProducer producer = new FileResponseProducer(request, file, ContentType.TEXT_PLAIN);
+        final ResponseChannelMock responseChannel = new ResponseChannelMock();
+        producer.sendResponse(responseChannel);
+
+        final HttpResponse response = responseChannel.response;
+        Assert.assertEquals(HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE, response.getCode());
+        Assert.assertEquals("bytes */36", response.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue());
+        Assert.assertNull(responseChannel.entityDetails);
+    }
+
+    @Test
+    public void testInvalidRangeIgnored() throws Exception {
+        final HttpRequest request = new BasicHttpRequest("GET", "/stuff");
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-5");
+        final FileResponseProducer producer = new FileResponseProducer(request, file, ContentType.TEXT_PLAIN);
+        final ResponseChannelMock responseChannel = new ResponseChannelMock();
+        producer.sendResponse(responseChannel);
+        Assert.assertEquals(HttpStatus.SC_OK, responseChannel.response.getCode());
+    }
+
+    @Test
+    public void testEmptyRangeSetIgnored() throws Exception {
+        final HttpRequest request = new BasicHttpRequest("GET", "/stuff");
+        request.addHeader(HttpHeaders.RANGE, "bytes=,");
+        final FileResponseProducer producer = new FileResponseProducer(request, file, ContentType.TEXT_PLAIN);
+        final ResponseChannelMock responseChannel = new ResponseChannelMock();
+        producer.sendResponse(responseChannel);
+        Assert.assertEquals(HttpStatus.SC_OK, responseChannel.response.getCode());
+        Assert.assertEquals(CONTENT, produce(producer));
+    }
+
+    @Test
+    public void testRangeIgnoredForPost() throws Exception {
+        final HttpRequest request = new BasicHttpRequest("POST", "/stuff");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        final FileResponseProducer producer = new FileResponseProducer(request, file, ContentType.TEXT_PLAIN);
+        final ResponseChannelMock responseChannel = new ResponseChannelMock();
+        producer.sendResponse(responseChannel);
+        Assert.assertEquals(HttpStatus.SC_OK, responseChannel.response.getCode());
+    }
+
+    @Test
+    public void testIfRange() throws Exception {
+        final HttpRequest request1 = new BasicHttpRequest("GET", "/stuff");
+        final FileResponseProducer producer1 = new FileResponseProducer(request1, file, ContentType.TEXT_PLAIN);
+        final ResponseChannelMock responseChannel1 = new ResponseChannelMock();
+        producer1.sendResponse(responseChannel1);
+        final String eTag = responseChannel1.response.getFirstHeader(HttpHeaders.ETAG).getValue();
+        final String lastModified = responseChannel1.response.getFirstHeader(HttpHeaders.LAST_MODIFIED).getValue();
+
+        final String[] matching = { eTag, lastModified };
+        for (final String validator: matching) {
+            final HttpRequest request = new BasicHttpRequest("GET", "/stuff");
+            request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+            request.addHeader(HttpHeaders.IF_RANGE, validator);
+            final ResponseChannelMock responseChannel = new ResponseChannelMock();
+            new FileResponseProducer(request, file, ContentType.TEXT_PLAIN).sendResponse(responseChannel);
+            Assert.assertEquals(HttpStatus.SC_PARTIAL_CONTENT, responseChannel.response.getCode());
+        }
+
+        final String[] mismatching = { "\"other\"", "W/" + eTag, "Thu, 01 Jan 1970 00:00:00 GMT" };
+        for (final String validator: mismatching) {
+            final HttpRequest request = new BasicHttpRequest("GET", "/stuff");
+            request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+            request.addHeader(HttpHeaders.IF_RANGE, validator);
+            final ResponseChannelMock responseChannel = new ResponseChannelMock();
+            new FileResponseProducer(request, file, ContentType.TEXT_PLAIN).sendResponse(responseChannel);
+            Assert.assertEquals(HttpStatus.SC_OK, responseChannel.response.getCode());
+        }
+    }
+
+}
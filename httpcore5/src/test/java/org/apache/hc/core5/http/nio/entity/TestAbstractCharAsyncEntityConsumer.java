@@ -30,6 +30,7 @@
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hc.core5.concurrent.FutureCallback;
@@ -113,4 +114,37 @@ public void cancelled() {
         Assert.assertEquals(1L, count.longValue());
     }
 
+    @Test
+    public void testConsumeMultibyteDataSplitAcrossChunks() throws Exception {
+
+        final String content = "caf\u00e9 \u20ac \ud83d\ude00 done";
+        final byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        final FutureCallback<String> callback = new FutureCallback<String>() {
+
+            @Override
+            public void completed(final String result) {
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+            }
+
+            @Override
+            public void cancelled() {
+            }
+
+        };
+        for (int split1 = 0; split1 < raw.length; split1++) {
+            for (int split2 = split1; split2 < raw.length; split2++) {
+                final AsyncEntityConsumer<String> consumer = new StringBuilderAsyncEntityConsumer();
+                consumer.streamStart(new BasicEntityDetails(-1, ContentType.TEXT_PLAIN.withCharset(StandardCharsets.UTF_8)), callback);
+                consumer.consume(ByteBuffer.wrap(raw, 0, split1));
+                consumer.consume(ByteBuffer.wrap(raw, split1, split2 - split1));
+                consumer.consume(ByteBuffer.wrap(raw, split2, raw.length - split2));
+                consumer.streamEnd(null);
+                Assert.assertEquals(content, consumer.getContent());
+            }
+        }
+    }
+
 }
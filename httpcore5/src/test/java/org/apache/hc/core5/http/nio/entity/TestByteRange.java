@@ -0,0 +1,110 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestByteRange {
+
+    @Test
+    public void testParseBasics() throws Exception {
+        Assert.assertEquals(Collections.singletonList(new ByteRange(0, 499)),
+                ByteRange.parse("bytes=0-499", 10000));
+        Assert.assertEquals(Collections.singletonList(new ByteRange(500, 999)),
+                ByteRange.parse("bytes=500-999", 10000));
+        Assert.assertEquals(Collections.singletonList(new ByteRange(9500, 9999)),
+                ByteRange.parse("bytes=-500", 10000));
+        Assert.assertEquals(Collections.singletonList(new ByteRange(9500, 9999)),
+                ByteRange.parse("bytes=9500-", 10000));
+        Assert.assertEquals(Arrays.asList(new ByteRange(0, 0), new ByteRange(9999, 9999)),
+                ByteRange.parse("bytes=0-0,-1", 10000));
+        Assert.assertEquals(Arrays.asList(new ByteRange(0, 0), new ByteRange(9999, 9999)),
+                ByteRange.parse(" Bytes=0-0 , -1 ", 10000));
+    }
+
+    @Test
+    public void testParseTruncation() throws Exception {
+        Assert.assertEquals(Collections.singletonList(new ByteRange(5, 9)),
+                ByteRange.parse("bytes=5-100", 10));
+        Assert.assertEquals(Collections.singletonList(new ByteRange(0, 9)),
+                ByteRange.parse("bytes=-100", 10));
+    }
+
+    @Test
+    public void testParseCoalescing() throws Exception {
+        Assert.assertEquals(Arrays.asList(new ByteRange(0, 20), new ByteRange(30, 39)),
+                ByteRange.parse("bytes=30-39,10-20,0-5,6-9,15-18", 100));
+        Assert.assertEquals(Collections.singletonList(new ByteRange(0, 99)),
+                ByteRange.parse("bytes=0-,50-60,-10", 100));
+    }
+
+    @Test
+    public void testParseUnsatisfiable() throws Exception {
+        final List<ByteRange> ranges = ByteRange.parse("bytes=100-200", 100);
+        Assert.assertNotNull(ranges);
+        Assert.assertTrue(ranges.isEmpty());
+        Assert.assertTrue(ByteRange.parse("bytes=-0", 100).isEmpty());
+        Assert.assertTrue(ByteRange.parse("bytes=-10", 0).isEmpty());
+    }
+
+    @Test
+    public void testParseInvalid() throws Exception {
+        Assert.assertNull(ByteRange.parse(null, 100));
+        Assert.assertNull(ByteRange.parse("items=0-10", 100));
+        Assert.assertNull(ByteRange.parse("bytes=10", 100));
+        Assert.assertNull(ByteRange.parse("bytes=10-5", 100));
+        Assert.assertNull(ByteRange.parse("bytes=a-b", 100));
+        Assert.assertNull(ByteRange.parse("bytes=-", 100));
+        Assert.assertNull(ByteRange.parse("bytes=-1-2", 100));
+        Assert.assertNull(ByteRange.parse("bytes=0-10,+5-6", 100));
+        Assert.assertNull(ByteRange.parse("bytes=0-99999999999999999999", 100));
+        Assert.assertNull(ByteRange.parse("bytes=", 100));
+        Assert.assertNull(ByteRange.parse("bytes=,", 100));
+        Assert.assertNull(ByteRange.parse("bytes= , ,", 100));
+    }
+
+    @Test
+    public void testBasicProperties() throws Exception {
+        final ByteRange range = new ByteRange(10, 19);
+        Assert.assertEquals(10, range.getFirst());
+        Assert.assertEquals(19, range.getLast());
+        Assert.assertEquals(10, range.getLength());
+        Assert.assertEquals("10-19", range.toString());
+        Assert.assertEquals(new ByteRange(10, 19).hashCode(), range.hashCode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRange() throws Exception {
+        new ByteRange(10, 9);
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.ReadableByteChannelMock;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.impl.BasicHttpTransportMetrics;
+import org.apache.hc.core5.http.impl.nio.LengthDelimitedDecoder;
+import org.apache.hc.core5.http.impl.nio.SessionInputBufferImpl;
+import org.apache.hc.core5.http.nio.FileContentDecoder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestFileEntityConsumer {
+
+    private File tmpfile;
+
+    @Before
+    public void createTempFile() throws Exception {
+        this.tmpfile = File.createTempFile("testFile", ".txt");
+    }
+
+    @After
+    public void deleteTempFile() {
+        if (this.tmpfile != null && this.tmpfile.exists()) {
+            this.tmpfile.delete();
+        }
+    }
+
+    private static FutureCallback<File> noopCallback() {
+        return new FutureCallback<File>() {
+
+            @Override
+            public void completed(final File result) {
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+            }
+
+            @Override
+            public void cancelled() {
+            }
+
+        };
+    }
+
+    @Test
+    public void testConsumeData() throws Exception {
+        final FileEntityConsumer consumer = new FileEntityConsumer(tmpfile);
+        Assert.assertFalse(consumer.isFileTransferSupported());
+
+        consumer.streamStart(new BasicEntityDetails(-1, ContentType.APPLICATION_OCTET_STREAM), noopCallback());
+        Assert.assertTrue(consumer.isFileTransferSupported());
+
+        consumer.consume(ByteBuffer.wrap(new byte[]{'1', '2', '3'}));
+        consumer.consume(ByteBuffer.wrap(new byte[]{'4', '5'}));
+        consumer.consume(ByteBuffer.wrap(new byte[]{}));
+        consumer.streamEnd(null);
+
+        Assert.assertFalse(consumer.isFileTransferSupported());
+        Assert.assertSame(tmpfile, consumer.getContent());
+        Assert.assertArrayEquals(new byte[] {'1', '2', '3', '4', '5'}, Files.readAllBytes(tmpfile.toPath()));
+    }
+
+    @Test
+    public void testTransferData() throws Exception {
+        final ReadableByteChannelMock channel = new ReadableByteChannelMock(
+                new String[] {"stuff; ", "more stuff; ", "a lot more stuff!!!"}, StandardCharsets.US_ASCII);
+        final SessionInputBufferImpl inbuf = new SessionInputBufferImpl(1024, 256, 0, StandardCharsets.US_ASCII);
+        final FileContentDecoder decoder = new LengthDelimitedDecoder(
+                channel, inbuf, new BasicHttpTransportMetrics(), 36);
+        // Some content has already been read into the session buffer
+        inbuf.fill(channel);
+
+        final FileEntityConsumer consumer = new FileEntityConsumer(tmpfile);
+        consumer.streamStart(new BasicEntityDetails(36, ContentType.TEXT_PLAIN), noopCallback());
+
+        consumer.consume(ByteBuffer.wrap("prefix; ".getBytes(StandardCharsets.US_ASCII)));
+        while (!decoder.isCompleted()) {
+            consumer.transfer(decoder);
+        }
+        consumer.streamEnd(null);
+
+        Assert.assertEquals("prefix; stuff; more stuff; a lot more stuff!",
+                new String(Files.readAllBytes(tmpfile.toPath()), StandardCharsets.US_ASCII));
+    }
+
+}
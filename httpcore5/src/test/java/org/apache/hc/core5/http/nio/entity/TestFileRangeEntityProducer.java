@@ -0,0 +1,177 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.WritableByteChannelMock;
+import org.apache.hc.core5.http.nio.BasicDataStreamChannel;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestFileRangeEntityProducer {
+
+    private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        file = File.createTempFile("testFile", ".txt");
+        Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    private static String produce(
+            final FileRangeEntityProducer producer, final int capacityLimit) throws Exception {
+        final WritableByteChannelMock byteChannel = new WritableByteChannelMock(1024, capacityLimit);
+        final DataStreamChannel streamChannel = new BasicDataStreamChannel(byteChannel);
+        for (int i = 0; i < 1000 && byteChannel.isOpen(); i++) {
+            producer.produce(streamChannel);
+            byteChannel.flush();
+        }
+        Assert.assertFalse(byteChannel.isOpen());
+        return byteChannel.dump(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testEntireFile() throws Exception {
+        final FileRangeEntityProducer producer = new FileRangeEntityProducer(
+                file, null, 4, ContentType.TEXT_PLAIN, null);
+        Assert.assertEquals(CONTENT.length(), producer.getContentLength());
+        Assert.assertEquals(ContentType.TEXT_PLAIN.toString(), producer.getContentType());
+        Assert.assertEquals(CONTENT, produce(producer, 5));
+    }
+
+    @Test
+    public void testEntireFileMapped() throws Exception {
+        final ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        final FileRangeEntityProducer producer = new FileRangeEntityProducer(
+                file, content, ContentType.TEXT_PLAIN, null);
+        Assert.assertEquals(CONTENT.length(), producer.getContentLength());
+        Assert.assertEquals(CONTENT, produce(producer, 7));
+        Assert.assertEquals(0, content.position());
+    }
+
+    @Test
+    public void testSingleRange() throws Exception {
+        final FileRangeEntityProducer producer = new FileRangeEntityProducer(
+                file, null, 4, ContentType.TEXT_PLAIN, Collections.singletonList(new ByteRange(10, 19)));
+        Assert.assertEquals(10, producer.getContentLength());
+        Assert.assertEquals(ContentType.TEXT_PLAIN.toString(), producer.getContentType());
+        Assert.assertEquals("abcdefghij", produce(producer, 3));
+    }
+
+    @Test
+    public void testSingleRangeMapped() throws Exception {
+        final ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        final FileRangeEntityProducer producer = new FileRangeEntityProducer(
+                file, content, ContentType.TEXT_PLAIN, Collections.singletonList(new ByteRange(30, 35)));
+        Assert.assertEquals(6, producer.getContentLength());
+        Assert.assertEquals("uvwxyz", produce(producer, 0));
+    }
+
+    private void assertMultipleRanges(final ByteBuffer content, final int capacityLimit) throws Exception {
+        final FileRangeEntityProducer producer = new FileRangeEntityProducer(
+                file, content, 4, ContentType.TEXT_PLAIN,
+                Arrays.asList(new ByteRange(0, 2), new ByteRange(10, 12), new ByteRange(35, 35)));
+        final String contentType = producer.getContentType();
+        Assert.assertTrue(contentType.startsWith("multipart/byteranges; boundary="));
+        final String boundary = contentType.substring("multipart/byteranges; boundary=".length());
+
+        final String expected =
+                "--" + boundary + "\r\n" +
+                "Content-Type: text/plain; charset=ISO-8859-1\r\n" +
+                "Content-Range: bytes 0-2/36\r\n" +
+                "\r\n" +
+                "012" +
+                "\r\n--" + boundary + "\r\n" +
+                "Content-Type: text/plain; charset=ISO-8859-1\r\n" +
+                "Content-Range: bytes 10-12/36\r\n" +
+                "\r\n" +
+                "abc" +
+                "\r\n--" + boundary + "\r\n" +
+                "Content-Type: text/plain; charset=ISO-8859-1\r\n" +
+                "Content-Range: bytes 35-35/36\r\n" +
+                "\r\n" +
+                "z" +
+                "\r\n--" + boundary + "--\r\n";
+        Assert.assertEquals(expected.length(), producer.getContentLength());
+        Assert.assertEquals(expected, produce(producer, capacityLimit));
+    }
+
+    @Test
+    public void testMultipleRanges() throws Exception {
+        assertMultipleRanges(null, 0);
+        assertMultipleRanges(null, 11);
+    }
+
+    @Test
+    public void testMultipleRangesMapped() throws Exception {
+        final ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        assertMultipleRanges(content, 0);
+        assertMultipleRanges(content, 11);
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        Files.write(file.toPath(), new byte[0]);
+        final FileRangeEntityProducer producer = new FileRangeEntityProducer(
+                file, ContentType.TEXT_PLAIN, null);
+        Assert.assertEquals(0, producer.getContentLength());
+        Assert.assertEquals("", produce(producer, 0));
+    }
+
+    @Test
+    public void testReproduceAfterRelease() throws Exception {
+        final FileRangeEntityProducer producer = new FileRangeEntityProducer(
+                file, null, 4, ContentType.TEXT_PLAIN, Collections.singletonList(new ByteRange(1, 5)));
+        Assert.assertEquals("12345", produce(producer, 2));
+        Assert.assertEquals("12345", produce(producer, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRangeBeyondEndOfFile() throws Exception {
+        new FileRangeEntityProducer(file, ContentType.TEXT_PLAIN, Collections.singletonList(new ByteRange(30, 36)));
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestMappedFileCache {
+
+    private final List<File> files = new ArrayList<>();
+
+    private File createFile(final String content) throws Exception {
+        final File file = File.createTempFile("testFile", ".txt");
+        files.add(file);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        for (final File file: files) {
+            file.delete();
+        }
+    }
+
+    private static String asString(final ByteBuffer buffer) {
+        final byte[] b = new byte[buffer.remaining()];
+        buffer.get(b);
+        return new String(b, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testHitAndMiss() throws Exception {
+        final MappedFileCache cache = new MappedFileCache(1024, 1024);
+        final File file = createFile("stuff");
+
+        final ByteBuffer b1 = cache.get(file);
+        Assert.assertNotNull(b1);
+        Assert.assertTrue(b1.isReadOnly());
+        Assert.assertEquals("stuff", asString(b1));
+        Assert.assertEquals(0, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+
+        final ByteBuffer b2 = cache.get(file);
+        Assert.assertNotNull(b2);
+        Assert.assertEquals("stuff", asString(b2));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(5, cache.getTotalSize());
+    }
+
+    @Test
+    public void testFileTooLarge() throws Exception {
+        final MappedFileCache cache = new MappedFileCache(1024, 4);
+        final File file = createFile("stuff");
+        Assert.assertNull(cache.get(file));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testStaleEntry() throws Exception {
+        final MappedFileCache cache = new MappedFileCache(1024, 1024);
+        final File file = createFile("stuff");
+        Assert.assertEquals("stuff", asString(cache.get(file)));
+
+        final File replacement = createFile("more stuff");
+        Files.move(replacement.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        Assert.assertEquals("more stuff", asString(cache.get(file)));
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(10, cache.getTotalSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        final MappedFileCache cache = new MappedFileCache(12, 12);
+        final File file1 = createFile("aaaa");
+        final File file2 = createFile("bbbb");
+        final File file3 = createFile("cccc");
+        final File file4 = createFile("dddd");
+
+        cache.get(file1);
+        cache.get(file2);
+        cache.get(file3);
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals(12, cache.getTotalSize());
+
+        // Make file1 the most recently used entry
+        cache.get(file1);
+        cache.get(file4);
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals(12, cache.getTotalSize());
+
+        final long misses = cache.getMissCount();
+        cache.get(file1);
+        cache.get(file3);
+        cache.get(file4);
+        Assert.assertEquals(misses, cache.getMissCount());
+        cache.get(file2);
+        Assert.assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    @Test
+    public void testRemoveAndClear() throws Exception {
+        final MappedFileCache cache = new MappedFileCache(1024, 1024);
+        final File file1 = createFile("stuff");
+        final File file2 = createFile("more stuff");
+        cache.get(file1);
+        cache.get(file2);
+        Assert.assertEquals(15, cache.getTotalSize());
+        cache.remove(file1);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(10, cache.getTotalSize());
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getTotalSize());
+    }
+
+}
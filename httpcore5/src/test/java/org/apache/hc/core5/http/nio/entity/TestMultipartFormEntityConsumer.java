@@ -0,0 +1,300 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.MessageConstraintException;
+import org.apache.hc.core5.http.ProtocolException;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestMultipartFormEntityConsumer {
+
+    private static final String CONTENT_TYPE = "multipart/form-data; boundary=abc";
+
+    private static final String ENTITY =
+            "preamble\r\n" +
+            "--abc\r\n" +
+            "Content-Disposition: form-data; name=\"field1\"\r\n" +
+            "\r\n" +
+            "value1\r\n" +
+            "--abc \r\n" +
+            "Content-Disposition: form-data; name=\"field2\"\r\n" +
+            "\r\n" +
+            "\r\n--ab\r\n--abd--a\r\r\n\r\n-\r\n" +
+            "--abc\r\n" +
+            "Content-Disposition: form-data; name=\"file\"; filename=\"stuff.txt\"\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "\r\n" +
+            "some\r\nstuff\r\n" +
+            "--abc--\r\n" +
+            "epilogue\r\n";
+
+    @SuppressWarnings("unchecked")
+    private static List<MultipartFormPart> consume(
+            final MultipartFormEntityConsumer consumer,
+            final String contentType,
+            final byte[] content,
+            final int chunkSize) throws Exception {
+        final FutureCallback<List<MultipartFormPart>> resultCallback = Mockito.mock(FutureCallback.class);
+        consumer.streamStart(new BasicEntityDetails(content.length, ContentType.parse(contentType)), resultCallback);
+        for (int i = 0; i < content.length; i += chunkSize) {
+            final ByteBuffer chunk = ByteBuffer.wrap(content, i, Math.min(chunkSize, content.length - i)).slice();
+            consumer.consume(chunk);
+            Assert.assertFalse(chunk.hasRemaining());
+        }
+        consumer.streamEnd(null);
+        final List<MultipartFormPart> parts = consumer.getContent();
+        Mockito.verify(resultCallback).completed(parts);
+        return parts;
+    }
+
+    private static String asString(final MultipartFormPart part) throws IOException {
+        final byte[] b = part.getFile() != null ? Files.readAllBytes(part.getFile().toPath()) : part.getContent();
+        return new String(b, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testParseAllChunkSizes() throws Exception {
+        final byte[] content = ENTITY.getBytes(StandardCharsets.US_ASCII);
+        for (int chunkSize = 1; chunkSize <= content.length; chunkSize++) {
+            final List<MultipartFormPart> parts = consume(
+                    new MultipartFormEntityConsumer(null, 1024), CONTENT_TYPE, content, chunkSize);
+            Assert.assertEquals(3, parts.size());
+            try {
+                final MultipartFormPart part1 = parts.get(0);
+                Assert.assertEquals("field1", part1.getName());
+                Assert.assertNull(part1.getFileName());
+                Assert.assertNull(part1.getContentType());
+                Assert.assertEquals("value1", asString(part1));
+
+                final MultipartFormPart part2 = parts.get(1);
+                Assert.assertEquals("field2", part2.getName());
+                Assert.assertEquals("\r\n--ab\r\n--abd--a\r\r\n\r\n-", asString(part2));
+
+                final MultipartFormPart part3 = parts.get(2);
+                Assert.assertEquals("file", part3.getName());
+                Assert.assertEquals("stuff.txt", part3.getFileName());
+                Assert.assertEquals("text/plain", part3.getContentType().getMimeType());
+                Assert.assertEquals(2, part3.getHeaders().size());
+                Assert.assertNotNull(part3.getFile());
+                Assert.assertEquals("some\r\nstuff", asString(part3));
+                Assert.assertEquals(11, part3.getContentLength());
+            } finally {
+                Assert.assertTrue(parts.get(2).getFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void testSpillToFile() throws Exception {
+        final String entity =
+                "--abc\r\n" +
+                "Content-Disposition: form-data; name=\"small\"\r\n" +
+                "\r\n" +
+                "0123\r\n" +
+                "--abc\r\n" +
+                "Content-Disposition: form-data; name=\"large\"\r\n" +
+                "\r\n" +
+                "0123456789\r\n" +
+                "--abc--";
+        final List<MultipartFormPart> parts = consume(new MultipartFormEntityConsumer(null, 4),
+                CONTENT_TYPE, entity.getBytes(StandardCharsets.US_ASCII), 3);
+        Assert.assertEquals(2, parts.size());
+        Assert.assertNull(parts.get(0).getFile());
+        Assert.assertEquals("0123", asString(parts.get(0)));
+        final File file = parts.get(1).getFile();
+        Assert.assertNotNull(file);
+        try {
+            Assert.assertEquals("0123456789", asString(parts.get(1)));
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testSpillToFileOnceTotalInMemoryLimitReached() throws Exception {
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            buf.append("--abc\r\n")
+                    .append("Content-Disposition: form-data; name=\"field").append(i).append("\"\r\n")
+                    .append("\r\n")
+                    .append("0123456789\r\n");
+        }
+        buf.append("--abc--");
+        final List<MultipartFormPart> parts = consume(new MultipartFormEntityConsumer(null, 16, 25, 1024, 0, 0),
+                CONTENT_TYPE, buf.toString().getBytes(StandardCharsets.US_ASCII), 7);
+        Assert.assertEquals(4, parts.size());
+        try {
+            Assert.assertNull(parts.get(0).getFile());
+            Assert.assertNull(parts.get(1).getFile());
+            Assert.assertNotNull(parts.get(2).getFile());
+            Assert.assertNotNull(parts.get(3).getFile());
+            for (final MultipartFormPart part: parts) {
+                Assert.assertEquals("0123456789", asString(part));
+            }
+        } finally {
+            Assert.assertTrue(parts.get(2).getFile().delete());
+            Assert.assertTrue(parts.get(3).getFile().delete());
+        }
+    }
+
+    @Test
+    public void testPartWithoutHeaders() throws Exception {
+        final String entity = "--abc\r\n\r\nstuff\r\n--abc--\r\n";
+        final List<MultipartFormPart> parts = consume(new MultipartFormEntityConsumer(),
+                CONTENT_TYPE, entity.getBytes(StandardCharsets.US_ASCII), 5);
+        Assert.assertEquals(1, parts.size());
+        Assert.assertTrue(parts.get(0).getHeaders().isEmpty());
+        Assert.assertNull(parts.get(0).getName());
+        Assert.assertEquals("stuff", asString(parts.get(0)));
+    }
+
+    @Test
+    public void testTruncatedContent() throws Exception {
+        final String entity =
+                "--abc\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"stuff.txt\"\r\n" +
+                "\r\n" +
+                "stuff";
+        final File dir = Files.createTempDirectory("multipart").toFile();
+        try {
+            final MultipartFormEntityConsumer consumer = new MultipartFormEntityConsumer(dir, 1024);
+            try {
+                consume(consumer, CONTENT_TYPE, entity.getBytes(StandardCharsets.US_ASCII), 4);
+                Assert.fail("IOException expected");
+            } catch (final IOException expected) {
+            }
+            consumer.releaseResources();
+            Assert.assertEquals(0, dir.list().length);
+        } finally {
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testReuseDiscardsIncompleteContent() throws Exception {
+        final String truncated =
+                "--abc\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"stuff.txt\"\r\n" +
+                "\r\n" +
+                "stuff";
+        final String entity =
+                "--abc\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"stuff.txt\"\r\n" +
+                "\r\n" +
+                "stuff\r\n" +
+                "--abc--";
+        final File dir = Files.createTempDirectory("multipart").toFile();
+        try {
+            final MultipartFormEntityConsumer consumer = new MultipartFormEntityConsumer(dir, 2);
+            final List<MultipartFormPart> parts = consume(consumer, CONTENT_TYPE,
+                    entity.getBytes(StandardCharsets.US_ASCII), 4);
+            final File file = parts.get(0).getFile();
+            Assert.assertNotNull(file);
+            try {
+                consume(consumer, CONTENT_TYPE, truncated.getBytes(StandardCharsets.US_ASCII), 4);
+                Assert.fail("IOException expected");
+            } catch (final IOException expected) {
+            }
+            Assert.assertEquals(2, dir.list().length);
+
+            // Files of the incomplete entity get deleted, those handed over do not
+            consume(consumer, CONTENT_TYPE, "--abc--".getBytes(StandardCharsets.US_ASCII), 4);
+            Assert.assertEquals(1, dir.list().length);
+            Assert.assertTrue(file.delete());
+        } finally {
+            for (final File f: dir.listFiles()) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidDelimiter() throws Exception {
+        final String entity = "--abc\r\n\r\nstuff\r\n--abcx\r\n\r\n--abc--";
+        consume(new MultipartFormEntityConsumer(), CONTENT_TYPE, entity.getBytes(StandardCharsets.US_ASCII), 64);
+    }
+
+    @Test(expected = MessageConstraintException.class)
+    public void testHeaderSizeLimit() throws Exception {
+        final String entity = "--abc\r\n" + HttpHeaders.CONTENT_TYPE + ": text/plain\r\n\r\nstuff\r\n--abc--";
+        consume(new MultipartFormEntityConsumer(null, 1024, 16),
+                CONTENT_TYPE, entity.getBytes(StandardCharsets.US_ASCII), 64);
+    }
+
+    @Test(expected = MessageConstraintException.class)
+    public void testPartCountLimit() throws Exception {
+        final String entity = "--abc\r\n\r\none\r\n--abc\r\n\r\ntwo\r\n--abc\r\n\r\nthree\r\n--abc--";
+        consume(new MultipartFormEntityConsumer(null, 1024, 1024, 1024, 2, 0),
+                CONTENT_TYPE, entity.getBytes(StandardCharsets.US_ASCII), 64);
+    }
+
+    @Test
+    public void testContentLengthLimit() throws Exception {
+        final String entity =
+                "--abc\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"stuff.txt\"\r\n" +
+                "\r\n" +
+                "0123456789\r\n" +
+                "--abc\r\n" +
+                "\r\n" +
+                "0123456789\r\n" +
+                "--abc--";
+        final File dir = Files.createTempDirectory("multipart").toFile();
+        try {
+            final MultipartFormEntityConsumer consumer = new MultipartFormEntityConsumer(dir, 1024, 1024, 1024, 0, 15);
+            try {
+                consume(consumer, CONTENT_TYPE, entity.getBytes(StandardCharsets.US_ASCII), 4);
+                Assert.fail("MessageConstraintException expected");
+            } catch (final MessageConstraintException expected) {
+            }
+            consumer.releaseResources();
+            Assert.assertEquals(0, dir.list().length);
+        } finally {
+            dir.delete();
+        }
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void testMissingBoundary() throws Exception {
+        consume(new MultipartFormEntityConsumer(), "multipart/form-data", new byte[0], 1);
+    }
+
+}
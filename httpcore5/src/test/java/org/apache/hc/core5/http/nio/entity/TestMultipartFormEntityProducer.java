@@ -0,0 +1,153 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.WritableByteChannelMock;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.nio.BasicDataStreamChannel;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestMultipartFormEntityProducer {
+
+    private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        file = File.createTempFile("testFile", ".txt");
+        Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    private static String produce(
+            final MultipartFormEntityProducer producer, final int capacityLimit) throws Exception {
+        final WritableByteChannelMock byteChannel = new WritableByteChannelMock(1024, capacityLimit);
+        final DataStreamChannel streamChannel = new BasicDataStreamChannel(byteChannel);
+        for (int i = 0; i < 1000 && byteChannel.isOpen(); i++) {
+            producer.produce(streamChannel);
+            byteChannel.flush();
+        }
+        Assert.assertFalse(byteChannel.isOpen());
+        return byteChannel.dump(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testProduce() throws Exception {
+        final MultipartFormEntityProducer producer = new MultipartFormEntityProducer(Arrays.asList(
+                new MultipartFormPart("field", "value"),
+                new MultipartFormPart("file", ContentType.TEXT_PLAIN, file),
+                new MultipartFormPart("empty", "\"empty\".bin", null, new byte[0])), "xyz", 8);
+        Assert.assertEquals("multipart/form-data; boundary=xyz", producer.getContentType());
+        final String expected =
+                "--xyz\r\n" +
+                "Content-Disposition: form-data; name=\"field\"\r\n" +
+                "\r\n" +
+                "value\r\n" +
+                "--xyz\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"" + file.getName() + "\"\r\n" +
+                "Content-Type: " + ContentType.TEXT_PLAIN + "\r\n" +
+                "\r\n" +
+                CONTENT + "\r\n" +
+                "--xyz\r\n" +
+                "Content-Disposition: form-data; name=\"empty\"; filename=\"\\\"empty\\\".bin\"\r\n" +
+                "\r\n" +
+                "\r\n" +
+                "--xyz--\r\n";
+        Assert.assertEquals(expected.length(), producer.getContentLength());
+        Assert.assertEquals(expected, produce(producer, 5));
+        // Can be produced again once released
+        Assert.assertEquals(expected, produce(producer, 0));
+    }
+
+    @Test(expected = IOException.class)
+    public void testFileTruncated() throws Exception {
+        final MultipartFormEntityProducer producer = new MultipartFormEntityProducer(Arrays.asList(
+                new MultipartFormPart("file", ContentType.TEXT_PLAIN, file)), "xyz", 8);
+        Files.write(file.toPath(), "short".getBytes(StandardCharsets.US_ASCII));
+        produce(producer, 0);
+    }
+
+    @Test
+    public void testProduceNoParts() throws Exception {
+        final MultipartFormEntityProducer producer = new MultipartFormEntityProducer();
+        Assert.assertTrue(producer.getBoundary().length() > 0);
+        Assert.assertEquals("--" + producer.getBoundary() + "--\r\n", produce(producer, 0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRoundTrip() throws Exception {
+        final MultipartFormEntityProducer producer = new MultipartFormEntityProducer(Arrays.asList(
+                new MultipartFormPart("field", "\u00e9t\u00e9"),
+                new MultipartFormPart("file", ContentType.TEXT_PLAIN, file)), null, 7);
+        final byte[] content = produce(producer, 3).getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(producer.getContentLength(), content.length);
+
+        final MultipartFormEntityConsumer consumer = new MultipartFormEntityConsumer();
+        consumer.streamStart(new BasicEntityDetails(content.length, ContentType.parse(producer.getContentType())),
+                Mockito.mock(FutureCallback.class));
+        for (int i = 0; i < content.length; i += 10) {
+            consumer.consume(ByteBuffer.wrap(content, i, Math.min(10, content.length - i)));
+        }
+        consumer.streamEnd(null);
+        final List<MultipartFormPart> parts = consumer.getContent();
+        Assert.assertEquals(2, parts.size());
+        Assert.assertEquals("field", parts.get(0).getName());
+        Assert.assertEquals("\u00e9t\u00e9", new String(parts.get(0).getContent(), StandardCharsets.UTF_8));
+        Assert.assertEquals(file.getName(), parts.get(1).getFileName());
+        Assert.assertEquals(ContentType.TEXT_PLAIN.toString(), parts.get(1).getContentType().toString());
+        final File received = parts.get(1).getFile();
+        try {
+            Assert.assertEquals(CONTENT, new String(Files.readAllBytes(received.toPath()), StandardCharsets.US_ASCII));
+        } finally {
+            received.delete();
+        }
+    }
+
+}
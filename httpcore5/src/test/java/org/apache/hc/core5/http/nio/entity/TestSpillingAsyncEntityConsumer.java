@@ -0,0 +1,107 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.io.entity.SpillingBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSpillingAsyncEntityConsumer {
+
+    private static FutureCallback<SpillingBuffer> noopCallback() {
+        return new FutureCallback<SpillingBuffer>() {
+
+            @Override
+            public void completed(final SpillingBuffer result) {
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+            }
+
+            @Override
+            public void cancelled() {
+            }
+
+        };
+    }
+
+    @Test
+    public void testConsumeInMemory() throws Exception {
+        final SpillingAsyncEntityConsumer consumer = new SpillingAsyncEntityConsumer(16);
+        consumer.streamStart(new BasicEntityDetails(-1, ContentType.APPLICATION_OCTET_STREAM), noopCallback());
+        consumer.consume(ByteBuffer.wrap(new byte[]{'1', '2', '3'}));
+        consumer.consume(ByteBuffer.wrap(new byte[]{'4', '5'}));
+        consumer.streamEnd(null);
+
+        final SpillingBuffer buffer = consumer.getContent();
+        Assert.assertNotNull(buffer);
+        Assert.assertFalse(buffer.isSpilled());
+        Assert.assertArrayEquals(new byte[] {'1', '2', '3', '4', '5'}, buffer.toByteArray());
+        buffer.close();
+    }
+
+    @Test
+    public void testConsumeSpilled() throws Exception {
+        final SpillingAsyncEntityConsumer consumer = new SpillingAsyncEntityConsumer(16);
+        consumer.streamStart(new BasicEntityDetails(-1, ContentType.APPLICATION_OCTET_STREAM), noopCallback());
+        consumer.consume(ByteBuffer.wrap("stuff; ".getBytes(StandardCharsets.US_ASCII)));
+        consumer.consume(ByteBuffer.wrap("more stuff; ".getBytes(StandardCharsets.US_ASCII)));
+        final ByteBuffer direct = ByteBuffer.allocateDirect(32);
+        direct.put("a lot more stuff".getBytes(StandardCharsets.US_ASCII));
+        direct.flip();
+        consumer.consume(direct);
+        consumer.streamEnd(null);
+
+        final SpillingBuffer buffer = consumer.getContent();
+        Assert.assertNotNull(buffer);
+        Assert.assertTrue(buffer.isSpilled());
+        final File file = buffer.getFile();
+        Assert.assertEquals("stuff; more stuff; a lot more stuff",
+                new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII));
+        buffer.close();
+        Assert.assertFalse(file.exists());
+    }
+
+    @Test
+    public void testReleaseResourcesOnFailure() throws Exception {
+        final SpillingAsyncEntityConsumer consumer = new SpillingAsyncEntityConsumer(4);
+        consumer.streamStart(new BasicEntityDetails(-1, ContentType.APPLICATION_OCTET_STREAM), noopCallback());
+        consumer.consume(ByteBuffer.wrap("stuff; more stuff".getBytes(StandardCharsets.US_ASCII)));
+        consumer.failed(new Exception("Oppsie"));
+        Assert.assertNull(consumer.getContent());
+    }
+
+}
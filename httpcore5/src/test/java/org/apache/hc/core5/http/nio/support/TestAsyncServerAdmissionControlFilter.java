@@ -0,0 +1,439 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.support;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.concurrent.AdaptiveConcurrencyLimiter;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncFilterChain;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class TestAsyncServerAdmissionControlFilter {
+
+    static class RecordingDataConsumer implements AsyncDataConsumer {
+
+        final StringBuilder content = new StringBuilder();
+        boolean streamEnded;
+        boolean released;
+
+        @Override
+        public void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
+            capacityChannel.update(Integer.MAX_VALUE);
+        }
+
+        @Override
+        public int consume(final ByteBuffer src) throws IOException {
+            content.append(StandardCharsets.US_ASCII.decode(src));
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
+            streamEnded = true;
+        }
+
+        @Override
+        public void releaseResources() {
+            released = true;
+        }
+
+    }
+
+    static class RecordingFilterChain implements AsyncFilterChain {
+
+        final RecordingDataConsumer dataConsumer = new RecordingDataConsumer();
+        AsyncFilterChain.ResponseTrigger responseTrigger;
+        int count;
+
+        @Override
+        public AsyncDataConsumer proceed(
+                final HttpRequest request,
+                final EntityDetails entityDetails,
+                final HttpContext context,
+                final ResponseTrigger responseTrigger) throws HttpException, IOException {
+            this.responseTrigger = responseTrigger;
+            count++;
+            return dataConsumer;
+        }
+
+        void respond() throws HttpException, IOException {
+            responseTrigger.submitResponse(new BasicHttpResponse(HttpStatus.SC_OK), null);
+        }
+
+    }
+
+    static class ManualExecutor implements Executor {
+
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(final Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            for (final Runnable task: tasks) {
+                task.run();
+            }
+            tasks.clear();
+        }
+
+    }
+
+    private static final EntityDetails ENTITY_DETAILS = new BasicEntityDetails(-1, null);
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+
+    };
+
+    @Test
+    public void testAdmission() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMinutes(1));
+        final AsyncServerAdmissionControlFilter filter = new AsyncServerAdmissionControlFilter(limiter);
+        final AsyncFilterChain.ResponseTrigger responseTrigger = Mockito.mock(AsyncFilterChain.ResponseTrigger.class);
+        final RecordingFilterChain chain = new RecordingFilterChain();
+
+        final AsyncDataConsumer dataConsumer = filter.handle(
+                new BasicHttpRequest("POST", "/"), ENTITY_DETAILS, new BasicHttpContext(), responseTrigger, chain);
+        Assert.assertNotNull(dataConsumer);
+        Assert.assertEquals(1, chain.count);
+        Assert.assertEquals(1, limiter.getInFlightCount());
+
+        dataConsumer.consume(ByteBuffer.wrap("stuff".getBytes(StandardCharsets.US_ASCII)));
+        dataConsumer.streamEnd(null);
+        Assert.assertEquals("stuff", chain.dataConsumer.content.toString());
+        Assert.assertTrue(chain.dataConsumer.streamEnded);
+
+        chain.respond();
+        Mockito.verify(responseTrigger).submitResponse(
+                ArgumentMatchers.<HttpResponse>any(), ArgumentMatchers.<AsyncEntityProducer>isNull());
+        Assert.assertEquals(0, limiter.getInFlightCount());
+
+        dataConsumer.releaseResources();
+        Assert.assertTrue(chain.dataConsumer.released);
+        Assert.assertEquals(0, limiter.getInFlightCount());
+    }
+
+    @Test
+    public void testPermitHeldUntilResponseContentProduced() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMinutes(1));
+        final AsyncServerAdmissionControlFilter filter = new AsyncServerAdmissionControlFilter(limiter);
+        final AsyncFilterChain.ResponseTrigger responseTrigger = Mockito.mock(AsyncFilterChain.ResponseTrigger.class);
+        final RecordingFilterChain chain = new RecordingFilterChain();
+
+        final AsyncDataConsumer dataConsumer = filter.handle(
+                new BasicHttpRequest("GET", "/"), null, new BasicHttpContext(), responseTrigger, chain);
+        Assert.assertNotNull(dataConsumer);
+        chain.responseTrigger.submitResponse(new BasicHttpResponse(HttpStatus.SC_OK),
+                new BasicAsyncEntityProducer("stuff", ContentType.TEXT_PLAIN));
+
+        final ArgumentCaptor<AsyncEntityProducer> producerCaptor = ArgumentCaptor.forClass(AsyncEntityProducer.class);
+        Mockito.verify(responseTrigger).submitResponse(ArgumentMatchers.<HttpResponse>any(), producerCaptor.capture());
+        final AsyncEntityProducer entityProducer = producerCaptor.getValue();
+        Assert.assertNotNull(entityProducer);
+        Assert.assertEquals(5, entityProducer.getContentLength());
+        Assert.assertEquals(1, limiter.getInFlightCount());
+
+        final DataStreamChannel channel = Mockito.mock(DataStreamChannel.class);
+        Mockito.when(channel.write(ArgumentMatchers.any(ByteBuffer.class))).thenAnswer(new Answer<Integer>() {
+
+            @Override
+            public Integer answer(final InvocationOnMock invocation) throws Throwable {
+                final ByteBuffer src = invocation.getArgument(0);
+                final int len = src.remaining();
+                src.position(src.limit());
+                return len;
+            }
+
+        });
+        entityProducer.produce(channel);
+        Mockito.verify(channel).endStream(null);
+        Assert.assertEquals(0, limiter.getInFlightCount());
+        Assert.assertTrue(limiter.getAverageLatency().toNanos() > 0);
+
+        entityProducer.releaseResources();
+        dataConsumer.releaseResources();
+        Assert.assertEquals(0, limiter.getInFlightCount());
+    }
+
+    @Test
+    public void testPermitReleasedOnResponseFailure() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMinutes(1));
+        final AsyncServerAdmissionControlFilter filter = new AsyncServerAdmissionControlFilter(limiter);
+        final AsyncFilterChain.ResponseTrigger responseTrigger = Mockito.mock(AsyncFilterChain.ResponseTrigger.class);
+        final RecordingFilterChain chain = new RecordingFilterChain();
+
+        filter.handle(new BasicHttpRequest("GET", "/"), null, new BasicHttpContext(), responseTrigger, chain);
+        chain.responseTrigger.submitResponse(new BasicHttpResponse(HttpStatus.SC_OK),
+                new BasicAsyncEntityProducer("stuff", ContentType.TEXT_PLAIN));
+
+        final ArgumentCaptor<AsyncEntityProducer> producerCaptor = ArgumentCaptor.forClass(AsyncEntityProducer.class);
+        Mockito.verify(responseTrigger).submitResponse(ArgumentMatchers.<HttpResponse>any(), producerCaptor.capture());
+        Assert.assertEquals(1, limiter.getInFlightCount());
+        producerCaptor.getValue().releaseResources();
+        Assert.assertEquals(0, limiter.getInFlightCount());
+        Assert.assertEquals(0, limiter.getAverageLatency().toNanos());
+    }
+
+    @Test
+    public void testPermitReleasedOnFailure() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMinutes(1));
+        final AsyncServerAdmissionControlFilter filter = new AsyncServerAdmissionControlFilter(limiter);
+        final AsyncFilterChain.ResponseTrigger responseTrigger = Mockito.mock(AsyncFilterChain.ResponseTrigger.class);
+
+        final AsyncDataConsumer dataConsumer = filter.handle(
+                new BasicHttpRequest("GET", "/"), null, new BasicHttpContext(), responseTrigger, new RecordingFilterChain());
+        Assert.assertEquals(1, limiter.getInFlightCount());
+        dataConsumer.releaseResources();
+        Assert.assertEquals(0, limiter.getInFlightCount());
+    }
+
+    @Test
+    public void testQueuedRequestContentBuffered() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMinutes(1));
+        final AsyncServerAdmissionControlFilter filter = new AsyncServerAdmissionControlFilter(
+                limiter, TimeValue.ofSeconds(1), null, DIRECT_EXECUTOR);
+
+        final RecordingFilterChain chain1 = new RecordingFilterChain();
+        final AsyncDataConsumer dataConsumer1 = filter.handle(
+                new BasicHttpRequest("GET", "/"), null, new BasicHttpContext(),
+                Mockito.mock(AsyncFilterChain.ResponseTrigger.class), chain1);
+
+        final RecordingFilterChain chain2 = new RecordingFilterChain();
+        final AsyncDataConsumer dataConsumer2 = filter.handle(
+                new BasicHttpRequest("POST", "/"), ENTITY_DETAILS, new BasicHttpContext(),
+                Mockito.mock(AsyncFilterChain.ResponseTrigger.class), chain2);
+        Assert.assertNotNull(dataConsumer2);
+        Assert.assertEquals(0, chain2.count);
+        Assert.assertEquals(1, limiter.getQueueSize());
+
+        Assert.assertEquals(0, dataConsumer2.consume(ByteBuffer.wrap("some ".getBytes(StandardCharsets.US_ASCII))));
+        final CapacityChannel capacityChannel = Mockito.mock(CapacityChannel.class);
+        dataConsumer2.updateCapacity(capacityChannel);
+        Mockito.verifyZeroInteractions(capacityChannel);
+        Assert.assertEquals(0, dataConsumer2.consume(ByteBuffer.wrap("stuff".getBytes(StandardCharsets.US_ASCII))));
+        dataConsumer2.streamEnd(null);
+
+        chain1.respond();
+        dataConsumer1.releaseResources();
+
+        Assert.assertEquals(1, chain2.count);
+        Assert.assertEquals(1, limiter.getInFlightCount());
+        Assert.assertEquals("some stuff", chain2.dataConsumer.content.toString());
+        Assert.assertTrue(chain2.dataConsumer.streamEnded);
+        Mockito.verify(capacityChannel).update(Integer.MAX_VALUE);
+
+        chain2.respond();
+        dataConsumer2.releaseResources();
+        Assert.assertEquals(0, limiter.getInFlightCount());
+    }
+
+    @Test
+    public void testQueuedRequestDispatched() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMinutes(1));
+        final ManualExecutor executor = new ManualExecutor();
+        final AsyncServerAdmissionControlFilter filter = new AsyncServerAdmissionControlFilter(
+                limiter, TimeValue.ofSeconds(1), null, executor);
+
+        final RecordingFilterChain chain1 = new RecordingFilterChain();
+        final AsyncDataConsumer dataConsumer1 = filter.handle(
+                new BasicHttpRequest("GET", "/"), null, new BasicHttpContext(),
+                Mockito.mock(AsyncFilterChain.ResponseTrigger.class), chain1);
+        Assert.assertEquals(1, chain1.count);
+        Assert.assertTrue(executor.tasks.isEmpty());
+
+        final RecordingFilterChain chain2 = new RecordingFilterChain();
+        filter.handle(new BasicHttpRequest("GET", "/"), null, new BasicHttpContext(),
+                Mockito.mock(AsyncFilterChain.ResponseTrigger.class), chain2);
+
+        // Returning the permit does not run the queued request on the current thread
+        chain1.respond();
+        dataConsumer1.releaseResources();
+        Assert.assertEquals(0, chain2.count);
+        Assert.assertEquals(1, limiter.getInFlightCount());
+        Assert.assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+        Assert.assertEquals(1, chain2.count);
+    }
+
+    @Test
+    public void testLoadShedding() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0, TimeValue.ofMinutes(1));
+        final AsyncServerAdmissionControlFilter filter = new AsyncServerAdmissionControlFilter(
+                limiter, TimeValue.ofSeconds(5));
+
+        filter.handle(new BasicHttpRequest("GET", "/"), null, new BasicHttpContext(),
+                Mockito.mock(AsyncFilterChain.ResponseTrigger.class), new RecordingFilterChain());
+
+        final AsyncFilterChain.ResponseTrigger responseTrigger = Mockito.mock(AsyncFilterChain.ResponseTrigger.class);
+        final RecordingFilterChain chain = new RecordingFilterChain();
+        final AsyncDataConsumer dataConsumer = filter.handle(
+                new BasicHttpRequest("POST", "/"), ENTITY_DETAILS, new BasicHttpContext(), responseTrigger, chain);
+        Assert.assertNull(dataConsumer);
+        Assert.assertEquals(0, chain.count);
+
+        final ArgumentCaptor<HttpResponse> responseCaptor = ArgumentCaptor.forClass(HttpResponse.class);
+        Mockito.verify(responseTrigger).submitResponse(
+                responseCaptor.capture(), ArgumentMatchers.<AsyncEntityProducer>isNull());
+        final HttpResponse response = responseCaptor.getValue();
+        Assert.assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, response.getCode());
+        Assert.assertEquals("5", response.getFirstHeader(HttpHeaders.RETRY_AFTER).getValue());
+        Assert.assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    public void testQueuedRequestShed() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1, TimeValue.ofMinutes(1));
+        final AsyncServerAdmissionControlFilter filter = new AsyncServerAdmissionControlFilter(limiter);
+
+        filter.handle(new BasicHttpRequest("GET", "/"), null, new BasicHttpContext(),
+                Mockito.mock(AsyncFilterChain.ResponseTrigger.class), new RecordingFilterChain());
+
+        final AsyncFilterChain.ResponseTrigger responseTrigger2 = Mockito.mock(AsyncFilterChain.ResponseTrigger.class);
+        final RecordingFilterChain chain2 = new RecordingFilterChain();
+        final AsyncDataConsumer dataConsumer2 = filter.handle(
+                new BasicHttpRequest("POST", "/"), ENTITY_DETAILS, new BasicHttpContext(), responseTrigger2, chain2);
+        Assert.assertNotNull(dataConsumer2);
+        final CapacityChannel capacityChannel = Mockito.mock(CapacityChannel.class);
+        dataConsumer2.consume(ByteBuffer.wrap("stuff".getBytes(StandardCharsets.US_ASCII)));
+        dataConsumer2.updateCapacity(capacityChannel);
+
+        // The newer request pushes the older one out of the queue
+        final AsyncFilterChain.ResponseTrigger responseTrigger3 = Mockito.mock(AsyncFilterChain.ResponseTrigger.class);
+        Assert.assertNotNull(filter.handle(
+                new BasicHttpRequest("GET", "/"), null, new BasicHttpContext(), responseTrigger3, new RecordingFilterChain()));
+
+        final ArgumentCaptor<HttpResponse> responseCaptor = ArgumentCaptor.forClass(HttpResponse.class);
+        Mockito.verify(responseTrigger2).submitResponse(
+                responseCaptor.capture(), ArgumentMatchers.<AsyncEntityProducer>isNull());
+        Assert.assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, responseCaptor.getValue().getCode());
+        Mockito.verify(capacityChannel).update(Integer.MAX_VALUE);
+        Mockito.verifyZeroInteractions(responseTrigger3);
+        Assert.assertEquals(0, chain2.count);
+
+        // Remaining content of the rejected request gets discarded
+        Assert.assertEquals(Integer.MAX_VALUE,
+                dataConsumer2.consume(ByteBuffer.wrap("more stuff".getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    public void testQueuedRequestExpiresWithoutFurtherTraffic() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMillis(100));
+        final AsyncServerAdmissionControlFilter filter = new AsyncServerAdmissionControlFilter(limiter);
+
+        // Holds on to the only permit without ever releasing it
+        filter.handle(new BasicHttpRequest("GET", "/"), null, new BasicHttpContext(),
+                Mockito.mock(AsyncFilterChain.ResponseTrigger.class), new RecordingFilterChain());
+
+        final AsyncFilterChain.ResponseTrigger responseTrigger2 = Mockito.mock(AsyncFilterChain.ResponseTrigger.class);
+        final RecordingFilterChain chain2 = new RecordingFilterChain();
+        final AsyncDataConsumer dataConsumer2 = filter.handle(
+                new BasicHttpRequest("POST", "/"), ENTITY_DETAILS, new BasicHttpContext(), responseTrigger2, chain2);
+        Assert.assertNotNull(dataConsumer2);
+        final CapacityChannel capacityChannel = Mockito.mock(CapacityChannel.class);
+        dataConsumer2.updateCapacity(capacityChannel);
+        Assert.assertEquals(1, limiter.getQueueSize());
+
+        final ArgumentCaptor<HttpResponse> responseCaptor = ArgumentCaptor.forClass(HttpResponse.class);
+        Mockito.verify(responseTrigger2, Mockito.timeout(5000)).submitResponse(
+                responseCaptor.capture(), ArgumentMatchers.<AsyncEntityProducer>isNull());
+        Assert.assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, responseCaptor.getValue().getCode());
+        Mockito.verify(capacityChannel, Mockito.timeout(5000)).update(Integer.MAX_VALUE);
+        Assert.assertEquals(0, limiter.getQueueSize());
+        Assert.assertEquals(1, limiter.getInFlightCount());
+        Assert.assertEquals(1, limiter.getRejectedCount());
+        Assert.assertEquals(0, chain2.count);
+    }
+
+    @Test
+    public void testExpiryCancelledUponAdmission() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, TimeValue.ofMinutes(1));
+        final ScheduledExecutorService scheduler = Mockito.mock(ScheduledExecutorService.class);
+        final ScheduledFuture<?> future = Mockito.mock(ScheduledFuture.class);
+        Mockito.doReturn(future).when(scheduler).schedule(
+                ArgumentMatchers.any(Runnable.class), ArgumentMatchers.anyLong(), ArgumentMatchers.any(TimeUnit.class));
+        final AsyncServerAdmissionControlFilter filter = new AsyncServerAdmissionControlFilter(
+                limiter, TimeValue.ofSeconds(1), scheduler, DIRECT_EXECUTOR);
+
+        final RecordingFilterChain chain1 = new RecordingFilterChain();
+        final AsyncDataConsumer dataConsumer1 = filter.handle(
+                new BasicHttpRequest("GET", "/"), null, new BasicHttpContext(),
+                Mockito.mock(AsyncFilterChain.ResponseTrigger.class), chain1);
+        Mockito.verifyZeroInteractions(scheduler);
+
+        final RecordingFilterChain chain2 = new RecordingFilterChain();
+        filter.handle(new BasicHttpRequest("GET", "/"), null, new BasicHttpContext(),
+                Mockito.mock(AsyncFilterChain.ResponseTrigger.class), chain2);
+        Mockito.verify(scheduler).schedule(
+                ArgumentMatchers.any(Runnable.class), ArgumentMatchers.eq(1L), ArgumentMatchers.eq(TimeUnit.MINUTES));
+
+        chain1.respond();
+        dataConsumer1.releaseResources();
+        Assert.assertEquals(1, chain2.count);
+        Mockito.verify(future).cancel(false);
+    }
+
+}
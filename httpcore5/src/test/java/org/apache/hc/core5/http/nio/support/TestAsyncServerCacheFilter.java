@@ -0,0 +1,281 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.support;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.impl.ResponseCache;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncFilterChain;
+import org.apache.hc.core5.http.nio.AsyncPushProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAsyncServerCacheFilter {
+
+    static class RecordingResponseTrigger implements AsyncFilterChain.ResponseTrigger {
+
+        HttpResponse response;
+        AsyncEntityProducer entityProducer;
+
+        @Override
+        public void sendInformation(final HttpResponse response) throws HttpException, IOException {
+        }
+
+        @Override
+        public void submitResponse(
+                final HttpResponse response, final AsyncEntityProducer entityProducer) throws HttpException, IOException {
+            this.response = response;
+            this.entityProducer = entityProducer;
+        }
+
+        @Override
+        public void pushPromise(
+                final HttpRequest promise, final AsyncPushProducer responseProducer) throws HttpException, IOException {
+        }
+
+        String produce() throws IOException {
+            final StringBuilder buf = new StringBuilder();
+            final List<Boolean> ended = new ArrayList<>();
+            while (ended.isEmpty()) {
+                entityProducer.produce(new DataStreamChannel() {
+
+                    @Override
+                    public void requestOutput() {
+                    }
+
+                    @Override
+                    public int write(final ByteBuffer src) throws IOException {
+                        // Write at most 3 bytes at a time
+                        final ByteBuffer chunk = src.duplicate();
+                        chunk.limit(Math.min(chunk.limit(), chunk.position() + 3));
+                        final int len = chunk.remaining();
+                        buf.append(StandardCharsets.US_ASCII.decode(chunk));
+                        src.position(src.position() + len);
+                        return len;
+                    }
+
+                    @Override
+                    public long write(final ByteBuffer[] srcs) throws IOException {
+                        long total = 0;
+                        for (final ByteBuffer src: srcs) {
+                            total += write(src);
+                        }
+                        return total;
+                    }
+
+                    @Override
+                    public void endStream(final List<? extends Header> trailers) throws IOException {
+                        ended.add(Boolean.TRUE);
+                    }
+
+                    @Override
+                    public void endStream() throws IOException {
+                        endStream(null);
+                    }
+
+                });
+            }
+            entityProducer.releaseResources();
+            return buf.toString();
+        }
+
+    }
+
+    static class RecordingFilterChain implements AsyncFilterChain {
+
+        final List<ResponseTrigger> responseTriggers = new ArrayList<>();
+
+        @Override
+        public AsyncDataConsumer proceed(
+                final HttpRequest request,
+                final EntityDetails entityDetails,
+                final HttpContext context,
+                final ResponseTrigger responseTrigger) throws HttpException, IOException {
+            responseTriggers.add(responseTrigger);
+            return null;
+        }
+
+        void respond(final int index, final HttpResponse response, final String content) throws HttpException, IOException {
+            responseTriggers.get(index).submitResponse(response, content != null ?
+                    new BasicAsyncEntityProducer(content, ContentType.TEXT_PLAIN) : null);
+        }
+
+    }
+
+    private static HttpRequest request(final String method) {
+        final HttpRequest request = new BasicHttpRequest(method, "/stuff");
+        request.setHeader(HttpHeaders.HOST, "somehost");
+        return request;
+    }
+
+    @Test
+    public void testResponseCached() throws Exception {
+        final ResponseCache cache = new ResponseCache(TimeValue.ofMinutes(1));
+        final AsyncServerCacheFilter filter = new AsyncServerCacheFilter(cache);
+        final RecordingFilterChain chain = new RecordingFilterChain();
+
+        final RecordingResponseTrigger trigger1 = new RecordingResponseTrigger();
+        final AsyncDataConsumer dataConsumer = filter.handle(request("GET"), null, new BasicHttpContext(), trigger1, chain);
+        Assert.assertNotNull(dataConsumer);
+        Assert.assertEquals(1, chain.responseTriggers.size());
+
+        final HttpResponse response = new BasicHttpResponse(HttpStatus.SC_OK);
+        response.setHeader(HttpHeaders.ETAG, "\"1\"");
+        chain.respond(0, response, "some important stuff");
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals("some important stuff", trigger1.produce());
+        dataConsumer.releaseResources();
+        Assert.assertEquals(1, cache.size());
+
+        final RecordingResponseTrigger trigger2 = new RecordingResponseTrigger();
+        Assert.assertNull(filter.handle(request("GET"), null, new BasicHttpContext(), trigger2, chain));
+        Assert.assertEquals(1, chain.responseTriggers.size());
+        Assert.assertEquals(HttpStatus.SC_OK, trigger2.response.getCode());
+        Assert.assertEquals("\"1\"", trigger2.response.getFirstHeader(HttpHeaders.ETAG).getValue());
+        Assert.assertTrue(trigger2.response.containsHeader(HttpHeaders.AGE));
+        Assert.assertEquals(ContentType.TEXT_PLAIN.toString(), trigger2.entityProducer.getContentType());
+        Assert.assertEquals("some important stuff", trigger2.produce());
+
+        final RecordingResponseTrigger trigger3 = new RecordingResponseTrigger();
+        Assert.assertNull(filter.handle(request("HEAD"), null, new BasicHttpContext(), trigger3, chain));
+        Assert.assertEquals(1, chain.responseTriggers.size());
+        Assert.assertEquals(HttpStatus.SC_OK, trigger3.response.getCode());
+    }
+
+    @Test
+    public void testConcurrentMissesCoalesced() throws Exception {
+        final ResponseCache cache = new ResponseCache(TimeValue.ofMinutes(1));
+        final AsyncServerCacheFilter filter = new AsyncServerCacheFilter(cache);
+        final RecordingFilterChain chain = new RecordingFilterChain();
+
+        final RecordingResponseTrigger trigger1 = new RecordingResponseTrigger();
+        final RecordingResponseTrigger trigger2 = new RecordingResponseTrigger();
+        final RecordingResponseTrigger trigger3 = new RecordingResponseTrigger();
+        filter.handle(request("GET"), null, new BasicHttpContext(), trigger1, chain);
+        filter.handle(request("GET"), null, new BasicHttpContext(), trigger2, chain);
+        final AsyncDataConsumer dataConsumer3 = filter.handle(request("GET"), null, new BasicHttpContext(), trigger3, chain);
+        Assert.assertEquals(1, chain.responseTriggers.size());
+
+        dataConsumer3.releaseResources();
+        chain.respond(0, new BasicHttpResponse(HttpStatus.SC_OK), "stuff");
+        Assert.assertNull(trigger2.response);
+        Assert.assertEquals("stuff", trigger1.produce());
+
+        Assert.assertNotNull(trigger2.response);
+        Assert.assertEquals("stuff", trigger2.produce());
+        Assert.assertNull(trigger3.response);
+        Assert.assertEquals(1, chain.responseTriggers.size());
+    }
+
+    @Test
+    public void testNonCacheableResponseReleasesWaiters() throws Exception {
+        final ResponseCache cache = new ResponseCache(TimeValue.ofMinutes(1));
+        final AsyncServerCacheFilter filter = new AsyncServerCacheFilter(cache);
+        final RecordingFilterChain chain = new RecordingFilterChain();
+
+        final RecordingResponseTrigger trigger1 = new RecordingResponseTrigger();
+        final RecordingResponseTrigger trigger2 = new RecordingResponseTrigger();
+        filter.handle(request("GET"), null, new BasicHttpContext(), trigger1, chain);
+        filter.handle(request("GET"), null, new BasicHttpContext(), trigger2, chain);
+        Assert.assertEquals(1, chain.responseTriggers.size());
+
+        final HttpResponse response = new BasicHttpResponse(HttpStatus.SC_OK);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        chain.respond(0, response, "stuff");
+        // The waiting request proceeds on its own
+        Assert.assertEquals(2, chain.responseTriggers.size());
+        chain.respond(1, new BasicHttpResponse(HttpStatus.SC_OK), "other stuff");
+        Assert.assertEquals("other stuff", trigger2.produce());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testAbortedExchangeReleasesWaiters() throws Exception {
+        final ResponseCache cache = new ResponseCache(TimeValue.ofMinutes(1));
+        final AsyncServerCacheFilter filter = new AsyncServerCacheFilter(cache);
+        final RecordingFilterChain chain = new RecordingFilterChain();
+
+        final AsyncDataConsumer dataConsumer1 = filter.handle(
+                request("GET"), null, new BasicHttpContext(), new RecordingResponseTrigger(), chain);
+        filter.handle(request("GET"), null, new BasicHttpContext(), new RecordingResponseTrigger(), chain);
+        Assert.assertEquals(1, chain.responseTriggers.size());
+
+        dataConsumer1.releaseResources();
+        Assert.assertEquals(2, chain.responseTriggers.size());
+    }
+
+    @Test
+    public void testResponseTooLarge() throws Exception {
+        final ResponseCache cache = new ResponseCache(1024, 8, TimeValue.ofMinutes(1));
+        final AsyncServerCacheFilter filter = new AsyncServerCacheFilter(cache);
+        final RecordingFilterChain chain = new RecordingFilterChain();
+
+        final RecordingResponseTrigger trigger1 = new RecordingResponseTrigger();
+        final AsyncDataConsumer dataConsumer = filter.handle(request("GET"), null, new BasicHttpContext(), trigger1, chain);
+        chain.respond(0, new BasicHttpResponse(HttpStatus.SC_OK), "way too much stuff");
+        Assert.assertEquals("way too much stuff", trigger1.produce());
+        dataConsumer.releaseResources();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testRequestsBypassingCache() throws Exception {
+        final ResponseCache cache = new ResponseCache(TimeValue.ofMinutes(1));
+        final AsyncServerCacheFilter filter = new AsyncServerCacheFilter(cache);
+        final RecordingFilterChain chain = new RecordingFilterChain();
+
+        filter.handle(request("POST"), null, new BasicHttpContext(), new RecordingResponseTrigger(), chain);
+        filter.handle(request("POST"), null, new BasicHttpContext(), new RecordingResponseTrigger(), chain);
+        filter.handle(request("HEAD"), null, new BasicHttpContext(), new RecordingResponseTrigger(), chain);
+        filter.handle(request("HEAD"), null, new BasicHttpContext(), new RecordingResponseTrigger(), chain);
+        Assert.assertEquals(4, chain.responseTriggers.size());
+        chain.respond(2, new BasicHttpResponse(HttpStatus.SC_OK), "stuff");
+        Assert.assertEquals(0, cache.size());
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.net;
+
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAddressResolvers {
+
+    static class ManualResolver implements AsyncAddressResolver {
+
+        final List<BasicFuture<ResolvedAddresses>> requests = new ArrayList<>();
+
+        @Override
+        public Future<ResolvedAddresses> resolve(final String hostName, final FutureCallback<ResolvedAddresses> callback) {
+            final BasicFuture<ResolvedAddresses> future = new BasicFuture<>(callback);
+            requests.add(future);
+            return future;
+        }
+
+    }
+
+    @Test
+    public void testInMemoryResolver() throws Exception {
+        final InMemoryAddressResolver resolver = new InMemoryAddressResolver(TimeValue.ofSeconds(5));
+        final InetAddress address = InetAddress.getByName("10.0.0.1");
+        resolver.add("somehost", address);
+
+        final ResolvedAddresses result1 = resolver.resolve("SomeHost", null).get();
+        Assert.assertEquals(1, result1.getAddresses().size());
+        Assert.assertEquals(address, result1.getAddresses().get(0));
+        Assert.assertEquals(TimeValue.ofSeconds(5), result1.getTimeToLive());
+
+        final ResolvedAddresses result2 = resolver.resolve("127.0.0.1", null).get();
+        Assert.assertEquals(InetAddress.getByName("127.0.0.1"), result2.getAddresses().get(0));
+
+        try {
+            resolver.resolve("otherhost", null).get();
+            Assert.fail("ExecutionException expected");
+        } catch (final ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof UnknownHostException);
+        }
+    }
+
+    @Test
+    public void testInMemoryResolverHostsFormat() throws Exception {
+        final InMemoryAddressResolver resolver = new InMemoryAddressResolver();
+        resolver.load(new StringReader(
+                "# comment\n" +
+                "127.0.0.1   localhost\n" +
+                "10.0.0.1    somehost somehost.example.com  # trailing comment\n" +
+                "2001:db8::1 somehost\n" +
+                "\n"));
+        final ResolvedAddresses result = resolver.resolve("somehost", null).get();
+        Assert.assertEquals(2, result.getAddresses().size());
+        Assert.assertEquals(InetAddress.getByName("10.0.0.1"), result.getAddresses().get(0));
+        Assert.assertEquals(InetAddress.getByName("2001:db8::1"), result.getAddresses().get(1));
+        Assert.assertEquals(1, resolver.resolve("somehost.example.com", null).get().getAddresses().size());
+        Assert.assertEquals(1, resolver.resolve("localhost", null).get().getAddresses().size());
+    }
+
+    @Test
+    public void testCachingResolverCoalescesLookups() throws Exception {
+        final ManualResolver manualResolver = new ManualResolver();
+        final CachingAddressResolver resolver = new CachingAddressResolver(manualResolver);
+
+        final Future<ResolvedAddresses> future1 = resolver.resolve("somehost", null);
+        final Future<ResolvedAddresses> future2 = resolver.resolve("SOMEHOST", null);
+        Assert.assertEquals(1, manualResolver.requests.size());
+        Assert.assertFalse(future1.isDone());
+        Assert.assertFalse(future2.isDone());
+
+        final ResolvedAddresses result = new ResolvedAddresses(
+                "somehost", TimeValue.ofMinutes(1), InetAddress.getByName("10.0.0.1"));
+        manualResolver.requests.get(0).completed(result);
+        Assert.assertSame(result, future1.get());
+        Assert.assertSame(result, future2.get());
+
+        final Future<ResolvedAddresses> future3 = resolver.resolve("somehost", null);
+        Assert.assertTrue(future3.isDone());
+        Assert.assertSame(result, future3.get());
+        Assert.assertEquals(1, manualResolver.requests.size());
+
+        resolver.invalidate("somehost");
+        resolver.resolve("somehost", null);
+        Assert.assertEquals(2, manualResolver.requests.size());
+    }
+
+    @Test
+    public void testCachingResolverHonoursTimeToLive() throws Exception {
+        final ManualResolver manualResolver = new ManualResolver();
+        final CachingAddressResolver resolver = new CachingAddressResolver(manualResolver);
+
+        resolver.resolve("somehost", null);
+        manualResolver.requests.get(0).completed(new ResolvedAddresses(
+                "somehost", TimeValue.ZERO_MILLISECONDS, InetAddress.getByName("10.0.0.1")));
+        resolver.resolve("somehost", null);
+        Assert.assertEquals(2, manualResolver.requests.size());
+
+        manualResolver.requests.get(1).completed(new ResolvedAddresses(
+                "somehost", TimeValue.ofMillis(50), InetAddress.getByName("10.0.0.1")));
+        resolver.resolve("somehost", null);
+        Assert.assertEquals(2, manualResolver.requests.size());
+        Thread.sleep(100);
+        resolver.resolve("somehost", null);
+        Assert.assertEquals(3, manualResolver.requests.size());
+    }
+
+    @Test
+    public void testCachingResolverDoesNotCacheFailures() throws Exception {
+        final ManualResolver manualResolver = new ManualResolver();
+        final CachingAddressResolver resolver = new CachingAddressResolver(manualResolver);
+
+        final Future<ResolvedAddresses> future1 = resolver.resolve("somehost", null);
+        final Future<ResolvedAddresses> future2 = resolver.resolve("somehost", null);
+        manualResolver.requests.get(0).failed(new UnknownHostException("somehost"));
+        try {
+            future1.get();
+            Assert.fail("ExecutionException expected");
+        } catch (final ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof UnknownHostException);
+        }
+        Assert.assertTrue(future2.isDone());
+        resolver.resolve("somehost", null);
+        Assert.assertEquals(2, manualResolver.requests.size());
+    }
+
+}
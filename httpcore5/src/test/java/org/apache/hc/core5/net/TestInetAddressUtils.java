@@ -27,6 +27,10 @@
 
 package org.apache.hc.core5.net;
 
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -97,4 +101,22 @@ public void testInValidIPv4MappedIPv6Address() {
         Assert.assertFalse(InetAddressUtils.isIPv4MappedIPv64Address("::ffff:1:2:3:4"));
     }
 
+    @Test
+    public void testInterleaveFamilies() throws Exception {
+        final InetAddress a1 = InetAddress.getByName("2001:db8::1");
+        final InetAddress a2 = InetAddress.getByName("2001:db8::2");
+        final InetAddress a3 = InetAddress.getByName("2001:db8::3");
+        final InetAddress b1 = InetAddress.getByName("192.168.0.1");
+        final InetAddress b2 = InetAddress.getByName("192.168.0.2");
+
+        final List<InetAddress> result1 = InetAddressUtils.interleaveFamilies(Arrays.asList(a1, a2, a3, b1, b2));
+        Assert.assertEquals(Arrays.asList(a1, b1, a2, b2, a3), result1);
+
+        final List<InetAddress> result2 = InetAddressUtils.interleaveFamilies(Arrays.asList(b1, a1, b2, a2));
+        Assert.assertEquals(Arrays.asList(b1, a1, b2, a2), result2);
+
+        final List<InetAddress> result3 = InetAddressUtils.interleaveFamilies(Arrays.asList(b2, b1));
+        Assert.assertEquals(Arrays.asList(b2, b1), result3);
+    }
+
 }
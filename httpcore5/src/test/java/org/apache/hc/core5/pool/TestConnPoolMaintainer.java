@@ -0,0 +1,229 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.pool;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpConnection;
+import org.apache.hc.core5.io.ShutdownType;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestConnPoolMaintainer {
+
+    static class ManualConnector implements ConnPoolMaintainer.Connector<String, HttpConnection> {
+
+        final List<FutureCallback<HttpConnection>> callbacks = new ArrayList<>();
+
+        @Override
+        public void connect(final String route, final Timeout timeout, final FutureCallback<HttpConnection> callback) {
+            callbacks.add(callback);
+        }
+
+        void completeAll() {
+            for (final FutureCallback<HttpConnection> callback: callbacks) {
+                callback.completed(Mockito.mock(HttpConnection.class));
+            }
+            callbacks.clear();
+        }
+
+        void failAll() {
+            for (final FutureCallback<HttpConnection> callback: callbacks) {
+                callback.failed(new ConnectException());
+            }
+            callbacks.clear();
+        }
+
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        final StrictConnPool<String, HttpConnection> pool = new StrictConnPool<>(5, 10);
+        final ManualConnector connector = new ManualConnector();
+        final ConnPoolMaintainer<String, HttpConnection> maintainer = new ConnPoolMaintainer<>(pool, connector);
+
+        Assert.assertEquals(3, maintainer.warmUp("somehost", 3));
+        Assert.assertEquals(3, connector.callbacks.size());
+        Assert.assertEquals(3, pool.getStats("somehost").getLeased());
+
+        // Warm-up already in progress
+        Assert.assertEquals(0, maintainer.warmUp("somehost", 3));
+
+        connector.completeAll();
+        final PoolStats stats = pool.getStats("somehost");
+        Assert.assertEquals(0, stats.getLeased());
+        Assert.assertEquals(3, stats.getAvailable());
+
+        // Nothing to do
+        Assert.assertEquals(0, maintainer.warmUp("somehost", 3));
+        Assert.assertEquals(0, connector.callbacks.size());
+    }
+
+    @Test
+    public void testWarmUpReleasesEachConnectionOnceConnected() throws Exception {
+        final StrictConnPool<String, HttpConnection> pool = new StrictConnPool<>(5, 10);
+        final ManualConnector connector = new ManualConnector();
+        final ConnPoolMaintainer<String, HttpConnection> maintainer = new ConnPoolMaintainer<>(pool, connector);
+
+        Assert.assertEquals(3, maintainer.warmUp("somehost", 3));
+        Assert.assertEquals(3, connector.callbacks.size());
+
+        // A slow connect does not hold up connections already established
+        connector.callbacks.remove(0).completed(Mockito.mock(HttpConnection.class));
+        PoolStats stats = pool.getStats("somehost");
+        Assert.assertEquals(1, stats.getAvailable());
+        Assert.assertEquals(2, stats.getLeased());
+
+        connector.callbacks.remove(0).completed(Mockito.mock(HttpConnection.class));
+        stats = pool.getStats("somehost");
+        Assert.assertEquals(2, stats.getAvailable());
+        Assert.assertEquals(1, stats.getLeased());
+
+        // Warm-up still in progress
+        Assert.assertEquals(0, maintainer.warmUp("somehost", 3));
+
+        connector.completeAll();
+        stats = pool.getStats("somehost");
+        Assert.assertEquals(3, stats.getAvailable());
+        Assert.assertEquals(0, stats.getLeased());
+    }
+
+    @Test
+    public void testWarmUpReplacesClosedConnections() throws Exception {
+        final LaxConnPool<String, HttpConnection> pool = new LaxConnPool<>(5);
+        final ManualConnector connector = new ManualConnector();
+        final ConnPoolMaintainer<String, HttpConnection> maintainer = new ConnPoolMaintainer<>(pool, connector);
+
+        Assert.assertEquals(2, maintainer.warmUp("somehost", 2));
+        connector.completeAll();
+        Assert.assertEquals(2, pool.getStats("somehost").getAvailable());
+
+        final Future<PoolEntry<String, HttpConnection>> future = pool.lease("somehost", null);
+        final PoolEntry<String, HttpConnection> entry = future.get();
+        Assert.assertTrue(entry.hasConnection());
+        entry.discardConnection(ShutdownType.IMMEDIATE);
+        pool.release(entry, false);
+        Assert.assertEquals(1, pool.getStats("somehost").getAvailable());
+
+        // Only the missing connection gets opened; the idle one remains available
+        Assert.assertEquals(1, maintainer.warmUp("somehost", 2));
+        Assert.assertEquals(1, connector.callbacks.size());
+        Assert.assertEquals(1, pool.getStats("somehost").getAvailable());
+        Assert.assertEquals(1, pool.getStats("somehost").getLeased());
+
+        final PoolEntry<String, HttpConnection> idleEntry = pool.lease("somehost", null).get();
+        Assert.assertTrue(idleEntry.hasConnection());
+        pool.release(idleEntry, true);
+        connector.completeAll();
+        Assert.assertEquals(2, pool.getStats("somehost").getAvailable());
+        Assert.assertEquals(0, pool.getStats("somehost").getLeased());
+    }
+
+    @Test
+    public void testWarmUpDoesNotHoldIdleConnections() throws Exception {
+        final StrictConnPool<String, HttpConnection> pool = new StrictConnPool<>(5, 10);
+        final ManualConnector connector = new ManualConnector();
+        final ConnPoolMaintainer<String, HttpConnection> maintainer = new ConnPoolMaintainer<>(pool, connector);
+
+        Assert.assertEquals(2, maintainer.warmUp("somehost", 2));
+        connector.completeAll();
+        Assert.assertEquals(2, pool.getStats("somehost").getAvailable());
+
+        Assert.assertEquals(2, maintainer.warmUp("somehost", 4));
+        Assert.assertEquals(2, connector.callbacks.size());
+        PoolStats stats = pool.getStats("somehost");
+        Assert.assertEquals(2, stats.getAvailable());
+        Assert.assertEquals(2, stats.getLeased());
+
+        connector.completeAll();
+        stats = pool.getStats("somehost");
+        Assert.assertEquals(4, stats.getAvailable());
+        Assert.assertEquals(0, stats.getLeased());
+    }
+
+    @Test
+    public void testWarmUpRespectsMaxPerRoute() throws Exception {
+        final StrictConnPool<String, HttpConnection> pool = new StrictConnPool<>(2, 10);
+        final ManualConnector connector = new ManualConnector();
+        final ConnPoolMaintainer<String, HttpConnection> maintainer = new ConnPoolMaintainer<>(pool, connector);
+
+        final PoolEntry<String, HttpConnection> entry = pool.lease("somehost", null).get();
+        Assert.assertEquals(1, maintainer.warmUp("somehost", 5));
+        connector.completeAll();
+        final PoolStats stats = pool.getStats("somehost");
+        Assert.assertEquals(1, stats.getLeased());
+        Assert.assertEquals(1, stats.getAvailable());
+        pool.release(entry, false);
+    }
+
+    @Test
+    public void testWarmUpFailure() throws Exception {
+        final StrictConnPool<String, HttpConnection> pool = new StrictConnPool<>(5, 10);
+        final ManualConnector connector = new ManualConnector();
+        final ConnPoolMaintainer<String, HttpConnection> maintainer = new ConnPoolMaintainer<>(pool, connector);
+
+        Assert.assertEquals(2, maintainer.warmUp("somehost", 2));
+        connector.failAll();
+        final PoolStats stats = pool.getStats("somehost");
+        Assert.assertEquals(0, stats.getLeased());
+        Assert.assertEquals(0, stats.getAvailable());
+
+        // Next attempt goes ahead
+        Assert.assertEquals(2, maintainer.warmUp("somehost", 2));
+        connector.completeAll();
+        Assert.assertEquals(2, pool.getStats("somehost").getAvailable());
+    }
+
+    @Test
+    public void testMinIdleSettings() throws IOException {
+        final StrictConnPool<String, HttpConnection> pool = new StrictConnPool<>(5, 10);
+        final ManualConnector connector = new ManualConnector();
+        final ConnPoolMaintainer<String, HttpConnection> maintainer = new ConnPoolMaintainer<>(pool, connector);
+        try {
+            Assert.assertEquals(0, maintainer.getMinIdle("somehost"));
+            maintainer.setMinIdle("somehost", 2);
+            Assert.assertEquals(2, maintainer.getMinIdle("somehost"));
+            maintainer.setMinIdle("somehost", 0);
+            Assert.assertEquals(0, maintainer.getMinIdle("somehost"));
+            try {
+                maintainer.setMinIdle("somehost", -1);
+                Assert.fail("IllegalArgumentException should have been thrown");
+            } catch (final IllegalArgumentException expected) {
+            }
+        } finally {
+            maintainer.close();
+        }
+    }
+
+}
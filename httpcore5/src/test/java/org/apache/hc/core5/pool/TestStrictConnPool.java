@@ -27,6 +27,8 @@
 package org.apache.hc.core5.pool;
 
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -576,4 +578,51 @@ public void testShutdown() throws Exception {
         pool.release(new PoolEntry<String, HttpConnection>("somehost"), true);
     }
 
+    @Test
+    public void testLeaseLowestLatency() throws Exception {
+        final HttpConnection conn1 = Mockito.mock(HttpConnection.class);
+        final HttpConnection conn2 = Mockito.mock(HttpConnection.class);
+        final HttpConnection conn3 = Mockito.mock(HttpConnection.class);
+        final Map<HttpConnection, Long> latencies = new IdentityHashMap<>();
+        latencies.put(conn1, 300L);
+        latencies.put(conn2, 100L);
+        latencies.put(conn3, 200L);
+        final ConnLatencyEstimator<HttpConnection> latencyEstimator = new ConnLatencyEstimator<HttpConnection>() {
+
+            @Override
+            public long estimateLatency(final HttpConnection conn) {
+                final Long latency = latencies.get(conn);
+                return latency != null ? latency : -1;
+            }
+
+        };
+        final StrictConnPool<String, HttpConnection> pool = new StrictConnPool<>(3, 10, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, latencyEstimator, null);
+
+        final PoolEntry<String, HttpConnection> entry1 = pool.lease("somehost", null).get();
+        entry1.assignConnection(conn1);
+        final PoolEntry<String, HttpConnection> entry2 = pool.lease("somehost", null).get();
+        entry2.assignConnection(conn2);
+        final PoolEntry<String, HttpConnection> entry3 = pool.lease("somehost", null).get();
+        entry3.assignConnection(conn3);
+        pool.release(entry1, true);
+        pool.release(entry2, true);
+        pool.release(entry3, true);
+
+        final PoolEntry<String, HttpConnection> lease1 = pool.lease("somehost", null).get();
+        Assert.assertSame(conn2, lease1.getConnection());
+        final PoolEntry<String, HttpConnection> lease2 = pool.lease("somehost", null).get();
+        Assert.assertSame(conn3, lease2.getConnection());
+
+        // Connections of unknown latency get preferred
+        latencies.remove(conn2);
+        pool.release(lease1, true);
+        pool.release(lease2, true);
+        final PoolEntry<String, HttpConnection> lease3 = pool.lease("somehost", null).get();
+        Assert.assertSame(conn2, lease3.getConnection());
+        final PoolEntry<String, HttpConnection> lease4 = pool.lease("somehost", null).get();
+        Assert.assertSame(conn3, lease4.getConnection());
+        final PoolEntry<String, HttpConnection> lease5 = pool.lease("somehost", null).get();
+        Assert.assertSame(conn1, lease5.getConnection());
+    }
+
 }
@@ -0,0 +1,112 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.reactor;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.io.ShutdownType;
+import org.apache.hc.core5.net.AsyncAddressResolver;
+import org.apache.hc.core5.net.ResolvedAddresses;
+import org.apache.hc.core5.net.URIAuthority;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestDefaultConnectingIOReactor {
+
+    static class PendingAddressResolver implements AsyncAddressResolver {
+
+        volatile BasicFuture<ResolvedAddresses> future;
+
+        @Override
+        public Future<ResolvedAddresses> resolve(
+                final String hostName, final FutureCallback<ResolvedAddresses> callback) {
+            future = new BasicFuture<>(callback);
+            return future;
+        }
+
+    }
+
+    private PendingAddressResolver addressResolver;
+    private DefaultConnectingIOReactor ioReactor;
+
+    @Before
+    public void setup() throws Exception {
+        addressResolver = new PendingAddressResolver();
+        ioReactor = new DefaultConnectingIOReactor(
+                Mockito.mock(IOEventHandlerFactory.class),
+                IOReactorConfig.custom().setIoThreadCount(1).setSelectInterval(100).build(),
+                null, null, null, null,
+                addressResolver);
+        ioReactor.start();
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        ioReactor.shutdown(ShutdownType.IMMEDIATE);
+    }
+
+    @Test
+    public void testNameResolutionCountsTowardsConnectTimeout() throws Exception {
+        final Future<IOSession> future = ioReactor.connect(
+                new URIAuthority("somehost", 80), null, null, TimeValue.ofMillis(200), null, null);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("ExecutionException expected");
+        } catch (final ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof SocketTimeoutException);
+        }
+        Assert.assertNotNull(addressResolver.future);
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!addressResolver.future.isCancelled() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(addressResolver.future.isCancelled());
+    }
+
+    @Test
+    public void testCancelSessionRequestCancelsNameResolution() throws Exception {
+        final Future<IOSession> future = ioReactor.connect(
+                new URIAuthority("somehost", 80), null, null, TimeValue.ofMinutes(1), null, null);
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (addressResolver.future == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertNotNull(addressResolver.future);
+        Assert.assertTrue(future.cancel(true));
+        Assert.assertTrue(addressResolver.future.isCancelled());
+    }
+
+}
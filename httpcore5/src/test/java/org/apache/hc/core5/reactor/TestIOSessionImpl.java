@@ -0,0 +1,133 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.reactor;
+
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+public class TestIOSessionImpl {
+
+    private SocketChannel socketChannel;
+    private Selector selector;
+    private SelectionKey key;
+    private SingleCoreIOReactor ioReactor;
+
+    @Before
+    public void setup() throws Exception {
+        socketChannel = SocketChannel.open();
+        selector = Mockito.mock(Selector.class);
+        key = Mockito.mock(SelectionKey.class);
+        Mockito.when(key.selector()).thenReturn(selector);
+        Mockito.when(key.channel()).thenReturn(socketChannel);
+        Mockito.when(key.interestOps()).thenReturn(SelectionKey.OP_READ);
+        ioReactor = Mockito.mock(SingleCoreIOReactor.class);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        socketChannel.close();
+    }
+
+    @Test
+    public void testEventMaskUpdateOnDispatchThread() throws Exception {
+        Mockito.when(ioReactor.isDispatchThread()).thenReturn(true);
+        final IOSessionImpl session = new IOSessionImpl(key, socketChannel, ioReactor);
+
+        session.setEvent(SelectionKey.OP_WRITE);
+        Assert.assertEquals(SelectionKey.OP_READ | SelectionKey.OP_WRITE, session.getEventMask());
+        Mockito.verify(key).interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+
+        session.clearEvent(SelectionKey.OP_READ);
+        Mockito.verify(key).interestOps(SelectionKey.OP_WRITE);
+
+        Mockito.verify(ioReactor, Mockito.never()).enqueueEventMaskUpdate(ArgumentMatchers.<IOSessionImpl>any());
+        Mockito.verify(selector, Mockito.never()).wakeup();
+        Assert.assertFalse(session.eventMaskPending.get());
+    }
+
+    @Test
+    public void testEventMaskUpdatesFromForeignThreadCoalesced() throws Exception {
+        Mockito.when(ioReactor.isDispatchThread()).thenReturn(false);
+        final IOSessionImpl session = new IOSessionImpl(key, socketChannel, ioReactor);
+
+        final Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                session.setEvent(SelectionKey.OP_WRITE);
+                session.clearEvent(SelectionKey.OP_READ);
+                session.setEvent(SelectionKey.OP_READ);
+                session.clearEvent(SelectionKey.OP_WRITE);
+                session.setEvent(SelectionKey.OP_WRITE);
+            }
+
+        });
+        thread.start();
+        thread.join();
+
+        // A single queued update with the key left untouched until the I/O reactor applies it
+        Mockito.verify(ioReactor, Mockito.times(1)).enqueueEventMaskUpdate(session);
+        Mockito.verify(key, Mockito.never()).interestOps(ArgumentMatchers.anyInt());
+        Mockito.verify(selector, Mockito.never()).wakeup();
+        Assert.assertTrue(session.eventMaskPending.get());
+
+        // What the I/O reactor does when processing queued updates
+        session.eventMaskPending.set(false);
+        session.applyEventMask();
+        Mockito.verify(key).interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+
+        session.clearEvent(SelectionKey.OP_WRITE);
+        Mockito.verify(ioReactor, Mockito.times(2)).enqueueEventMaskUpdate(session);
+    }
+
+    @Test
+    public void testEventMaskUpdateAfterCloseIgnored() throws Exception {
+        Mockito.when(ioReactor.isDispatchThread()).thenReturn(false);
+        final IOSessionImpl session = new IOSessionImpl(key, socketChannel, ioReactor);
+
+        session.close();
+        Assert.assertTrue(session.isClosed());
+
+        session.setEvent(SelectionKey.OP_WRITE);
+        session.clearEvent(SelectionKey.OP_READ);
+        session.setEventMask(0);
+
+        Assert.assertEquals(SelectionKey.OP_READ, session.getEventMask());
+        Mockito.verify(ioReactor, Mockito.never()).enqueueEventMaskUpdate(ArgumentMatchers.<IOSessionImpl>any());
+        Mockito.verify(key, Mockito.never()).interestOps(ArgumentMatchers.anyInt());
+        Assert.assertFalse(session.eventMaskPending.get());
+    }
+
+}
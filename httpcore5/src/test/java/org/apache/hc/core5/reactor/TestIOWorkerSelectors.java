@@ -0,0 +1,148 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.reactor;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestIOWorkerSelectors {
+
+    static class Stats implements IOWorkerStats {
+
+        final int sessions;
+        final int pending;
+        final double load;
+
+        Stats(final int sessions, final int pending, final double load) {
+            this.sessions = sessions;
+            this.pending = pending;
+            this.load = load;
+        }
+
+        @Override
+        public int getSessionCount() {
+            return sessions;
+        }
+
+        @Override
+        public int getPendingCount() {
+            return pending;
+        }
+
+        @Override
+        public double getRecentLoad() {
+            return load;
+        }
+
+        @Override
+        public long getSpinSelectCount() {
+            return 0;
+        }
+
+        @Override
+        public long getBlockingSelectCount() {
+            return 0;
+        }
+
+    }
+
+    @Test
+    public void testRoundRobin() throws Exception {
+        final List<IOWorkerStats> workers = Arrays.<IOWorkerStats>asList(
+                new Stats(10, 0, 0.0), new Stats(0, 0, 0.0), new Stats(0, 0, 0.0));
+        final IOWorkerSelector selector = IOWorkerSelectors.roundRobin();
+        final int first = selector.select(workers);
+        Assert.assertEquals((first + 1) % 3, selector.select(workers));
+        Assert.assertEquals((first + 2) % 3, selector.select(workers));
+        Assert.assertEquals(first, selector.select(workers));
+    }
+
+    @Test
+    public void testLeastSessions() throws Exception {
+        final List<IOWorkerStats> workers = Arrays.<IOWorkerStats>asList(
+                new Stats(10, 0, 0.0), new Stats(3, 2, 10.0), new Stats(4, 0, 1.0));
+        final IOWorkerSelector selector = IOWorkerSelectors.leastSessions();
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(2, selector.select(workers));
+        }
+    }
+
+    @Test
+    public void testLeastSessionsSpreadsEvenly() throws Exception {
+        final List<IOWorkerStats> workers = Arrays.<IOWorkerStats>asList(
+                new Stats(1, 0, 0.0), new Stats(1, 0, 0.0), new Stats(5, 0, 0.0));
+        final IOWorkerSelector selector = IOWorkerSelectors.leastSessions();
+        final int first = selector.select(workers);
+        final int second = selector.select(workers);
+        Assert.assertTrue(first == 0 || first == 1);
+        Assert.assertTrue(second == 0 || second == 1);
+        Assert.assertNotEquals(first, second);
+    }
+
+    @Test
+    public void testLeastLoad() throws Exception {
+        final List<IOWorkerStats> workers = Arrays.<IOWorkerStats>asList(
+                new Stats(1, 0, 5.0), new Stats(8, 0, 0.5), new Stats(2, 0, 0.5));
+        final IOWorkerSelector selector = IOWorkerSelectors.leastLoad();
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(2, selector.select(workers));
+        }
+    }
+
+    @Test
+    public void testGuardedSelectorFallback() throws Exception {
+        final List<IOWorkerStats> workers = Arrays.<IOWorkerStats>asList(
+                new Stats(0, 0, 0.0), new Stats(0, 0, 0.0));
+        final IOWorkerSelector selector = IOWorkerSelectors.guarded(new IOWorkerSelector() {
+
+            int count;
+
+            @Override
+            public int select(final List<IOWorkerStats> workers) {
+                count++;
+                if (count == 1) {
+                    return 1;
+                } else if (count == 2) {
+                    return 2;
+                } else if (count == 3) {
+                    return -1;
+                }
+                throw new IllegalStateException();
+            }
+
+        });
+        Assert.assertEquals(1, selector.select(workers));
+        for (int i = 0; i < 3; i++) {
+            final int n = selector.select(workers);
+            Assert.assertTrue(n >= 0 && n < workers.size());
+        }
+    }
+
+}